@@ -54,6 +54,7 @@ public class AwsGreengrassProvisionerModule extends AbstractModule {
         bind(ResourceHelper.class).to(BasicResourceHelper.class);
         bind(ConfigFileHelper.class).to(BasicConfigFileHelper.class);
         bind(GreengrassHelper.class).to(BasicGreengrassHelper.class);
+        bind(DefinitionIndexHelper.class).to(BasicDefinitionIndexHelper.class);
         bind(IamHelper.class).to(BasicIamHelper.class);
         bind(Python2Builder.class).to(BasicPython2Builder.class);
         bind(Python3Builder.class).to(BasicPython3Builder.class);
@@ -65,13 +66,16 @@ public class AwsGreengrassProvisionerModule extends AbstractModule {
         bind(GradleBuilder.class).to(BasicGradleBuilder.class);
         bind(FunctionHelper.class).to(BasicFunctionHelper.class);
         bind(ArchiveHelper.class).to(BasicArchiveHelper.class);
+        bind(DependencyCacheHelper.class).to(BasicDependencyCacheHelper.class);
         bind(GGDHelper.class).to(BasicGGDHelper.class);
         bind(SubscriptionHelper.class).to(BasicSubscriptionHelper.class);
         bind(GlobalDefaultHelper.class).to(BasicGlobalDefaultHelper.class);
         bind(CloudFormationHelper.class).to(BasicCloudFormationHelper.class);
         bind(LoggingHelper.class).to(BasicLoggingHelper.class);
         bind(EnvironmentHelper.class).to(BasicEnvironmentHelper.class);
-        bind(ExecutorHelper.class).to(SingleThreadedExecutorHelper.class);
+        bind(TaskGraphHelper.class).to(BasicTaskGraphHelper.class);
+        bind(ExecutorHelper.class).to(PipelinedExecutorHelper.class);
+        //bind(ExecutorHelper.class).to(SingleThreadedExecutorHelper.class);
         //bind(ExecutorHelper.class).to(ParallelExecutorHelper.class);
 
         // Argument helpers
@@ -0,0 +1,182 @@
+package com.awslabs.aws.greengrass.provisioner.data;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+import java.util.Arrays;
+
+/**
+ * One Device Tester log line split into its key=value fields.  The fields are kept as offsets into the line so an
+ * instance can be reused for every line of a stream and values are only copied out when they are asked for.
+ */
+public class DeviceTesterLogMessage {
+    public static final String MESSAGE_FIELD_NAME = "msg";
+    public static final String TEST_CASE_ID = "testCaseId";
+    public static final String TIME = "time";
+    // Key start, key end, value start, value end
+    private static final int OFFSETS_PER_FIELD = 4;
+    private int[] offsets = new int[OFFSETS_PER_FIELD * 8];
+    private int fieldCount;
+    private String logMessage;
+    private String message;
+    private DeviceTesterLogMessageType type;
+
+    /**
+     * Splits a log line into fields, replacing anything parsed before.  Keys are runs of letters followed by "=" and
+     * each value runs until the space before the next key so values (e.g. msg) can contain spaces.
+     *
+     * @param logMessage
+     * @return this
+     */
+    public DeviceTesterLogMessage parse(String logMessage) {
+        this.logMessage = logMessage;
+        this.fieldCount = 0;
+        this.message = null;
+        this.type = null;
+
+        int searchStart = 0;
+        int length = logMessage.length();
+
+        for (int index = 0; index < length; index++) {
+            if (logMessage.charAt(index) != '=') {
+                continue;
+            }
+
+            int keyStart = index;
+
+            while ((keyStart > searchStart) && isKeyCharacter(logMessage.charAt(keyStart - 1))) {
+                keyStart--;
+            }
+
+            if (keyStart == index) {
+                // An equals sign without a key in front of it is part of a value
+                continue;
+            }
+
+            if (fieldCount > 0) {
+                // The previous value ends at the separator before this key
+                setValueEnd(fieldCount - 1, Math.max(offsets[(fieldCount - 1) * OFFSETS_PER_FIELD + 2], keyStart - 1));
+            }
+
+            addField(keyStart, index, index + 1);
+            searchStart = index + 1;
+        }
+
+        if (fieldCount > 0) {
+            setValueEnd(fieldCount - 1, length);
+        }
+
+        unquoteTime();
+
+        return this;
+    }
+
+    private boolean isKeyCharacter(char character) {
+        return ((character >= 'a') && (character <= 'z')) || ((character >= 'A') && (character <= 'Z'));
+    }
+
+    private void addField(int keyStart, int keyEnd, int valueStart) {
+        int base = fieldCount * OFFSETS_PER_FIELD;
+
+        if (base + OFFSETS_PER_FIELD > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+
+        offsets[base] = keyStart;
+        offsets[base + 1] = keyEnd;
+        offsets[base + 2] = valueStart;
+        offsets[base + 3] = valueStart;
+        fieldCount++;
+    }
+
+    private void setValueEnd(int field, int valueEnd) {
+        offsets[field * OFFSETS_PER_FIELD + 3] = valueEnd;
+    }
+
+    private void unquoteTime() {
+        int field = findField(TIME);
+
+        if (field == -1) {
+            return;
+        }
+
+        int base = field * OFFSETS_PER_FIELD;
+
+        // Times are always quoted, e.g. time="2019-01-10T08:55:02-05:00"
+        if (offsets[base + 3] - offsets[base + 2] >= 2) {
+            offsets[base + 2]++;
+            offsets[base + 3]--;
+        }
+    }
+
+    // Later fields win if a key is repeated
+    private int findField(String key) {
+        for (int field = fieldCount - 1; field >= 0; field--) {
+            int base = field * OFFSETS_PER_FIELD;
+            int keyLength = offsets[base + 1] - offsets[base];
+
+            if ((keyLength == key.length()) && logMessage.regionMatches(offsets[base], key, 0, keyLength)) {
+                return field;
+            }
+        }
+
+        return -1;
+    }
+
+    public Option<String> getValue(String key) {
+        int field = findField(key);
+
+        if (field == -1) {
+            return Option.none();
+        }
+
+        int base = field * OFFSETS_PER_FIELD;
+
+        return Option.of(logMessage.substring(offsets[base + 2], offsets[base + 3]));
+    }
+
+    public String getLogMessage() {
+        return logMessage;
+    }
+
+    /**
+     * @return the msg field, or an empty string if the line doesn't have one
+     */
+    public String getMessage() {
+        if (message == null) {
+            message = getValue(MESSAGE_FIELD_NAME).getOrElse("");
+        }
+
+        return message;
+    }
+
+    public Option<String> getOptionalTestCaseId() {
+        return getValue(TEST_CASE_ID);
+    }
+
+    public DeviceTesterLogMessageType getType() {
+        return type;
+    }
+
+    public void setType(DeviceTesterLogMessageType type) {
+        this.type = type;
+    }
+
+    public Map<String, String> toMap() {
+        Map<String, String> values = HashMap.empty();
+
+        for (int field = 0; field < fieldCount; field++) {
+            int base = field * OFFSETS_PER_FIELD;
+
+            values = values.put(logMessage.substring(offsets[base], offsets[base + 1]),
+                    logMessage.substring(offsets[base + 2], offsets[base + 3]));
+        }
+
+        if (!values.containsKey(MESSAGE_FIELD_NAME)) {
+            values = values.put(MESSAGE_FIELD_NAME, "");
+        }
+
+        return values;
+    }
+}
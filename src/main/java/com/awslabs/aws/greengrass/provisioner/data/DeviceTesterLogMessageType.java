@@ -1,34 +1,35 @@
 package com.awslabs.aws.greengrass.provisioner.data;
 
+import java.util.*;
 import java.util.function.Function;
 
 public enum DeviceTesterLogMessageType {
-    CHECKING_GGC_VERSION(string -> string.equals("Checking whether version of Greengrass release is correct...")),
-    RUNNING(string -> string.equals("Running test case...")),
-    FINISHED(string -> string.equals("Finished running test case...")),
-    PASS(string -> string.equals("PASS")),
-    STARTING(string -> string.equals("Starting Greengrass...")),
-    START(string -> string.equals("start Greengrass executed successfully.")),
-    STOPPING(string -> string.equals("Stopping Greengrass...")),
-    STOP(string -> string.equals("stop Greengrass executed successfully.")),
-    PROVISIONING(string -> string.equals("Provisioning Greengrass...")),
-    FINISHED_PROVISIONING(string -> string.equals("Finished provisioning Greengrass.")),
-    CREATING_GGD(string -> string.equals("Creating GGD...")),
-    FINISHED_CREATING_GGD(string -> string.equals("Finished creating GGD...")),
-    PROVISIONING_GGD(string -> string.equals("Provisioning GGD...")),
-    FINISHED_PROVISIONING_GGD(string -> string.equals("Finished provisioning GGD.")),
-    CLEANING_UP(string -> string.equals("Cleaning up resources...")),
-    FAIL_WITHOUT_DURATION(string -> string.equals("FAIL")),
-    DEPLOYING_GROUP(string -> string.equals("Deploying group onto Greengrass core...")),
-    CREATING_GREENGRASS_LAMBDAS(string -> string.equals("Creating Greengrass Lambda(s)...")),
-    FINISHED_CREATING_GREENGRASS_LAMBDAS(string -> string.equals("Finished creating Greengrass Lambda(s).")),
-    CREATING_GREENGRASS_GROUP(string -> string.equals("Creating a Greengrass group...")),
-    FINISHED_DEPLOYING_GROUP(string -> string.equals("Finished deploying group onto Greengrass core.")),
-    RESTARTING_GREENGRASS(string -> string.equals("Restarting Greengrass...")),
-    RESTARTING_GREENGRASS_SUCCESSFUL(string -> string.equals("restart Greengrass executed successfully.")),
-    ERRORS_WHEN_CLEANING_UP_RESOURCES(string -> string.equals("Errors when cleaning up resources: ")),
-    RUNNING_GREENGRASS_ALREADY_INSTALLED(string -> string.equals("Running test with Greengrass already installed on your device at /greengrass...")),
-    COULD_NOT_FIND_GREENGRASS_RELEASE(string -> string.equals("Could not find Greengrass release in the location provided \"/greengrass\" on device under test. Please confirm that the correct location was provided.")),
+    CHECKING_GGC_VERSION("Checking whether version of Greengrass release is correct..."),
+    RUNNING("Running test case..."),
+    FINISHED("Finished running test case..."),
+    PASS("PASS"),
+    STARTING("Starting Greengrass..."),
+    START("start Greengrass executed successfully."),
+    STOPPING("Stopping Greengrass..."),
+    STOP("stop Greengrass executed successfully."),
+    PROVISIONING("Provisioning Greengrass..."),
+    FINISHED_PROVISIONING("Finished provisioning Greengrass."),
+    CREATING_GGD("Creating GGD..."),
+    FINISHED_CREATING_GGD("Finished creating GGD..."),
+    PROVISIONING_GGD("Provisioning GGD..."),
+    FINISHED_PROVISIONING_GGD("Finished provisioning GGD."),
+    CLEANING_UP("Cleaning up resources..."),
+    FAIL_WITHOUT_DURATION("FAIL"),
+    DEPLOYING_GROUP("Deploying group onto Greengrass core..."),
+    CREATING_GREENGRASS_LAMBDAS("Creating Greengrass Lambda(s)..."),
+    FINISHED_CREATING_GREENGRASS_LAMBDAS("Finished creating Greengrass Lambda(s)."),
+    CREATING_GREENGRASS_GROUP("Creating a Greengrass group..."),
+    FINISHED_DEPLOYING_GROUP("Finished deploying group onto Greengrass core."),
+    RESTARTING_GREENGRASS("Restarting Greengrass..."),
+    RESTARTING_GREENGRASS_SUCCESSFUL("restart Greengrass executed successfully."),
+    ERRORS_WHEN_CLEANING_UP_RESOURCES("Errors when cleaning up resources: "),
+    RUNNING_GREENGRASS_ALREADY_INSTALLED("Running test with Greengrass already installed on your device at /greengrass..."),
+    COULD_NOT_FIND_GREENGRASS_RELEASE("Could not find Greengrass release in the location provided \"/greengrass\" on device under test. Please confirm that the correct location was provided."),
     // Partial matches
     FAIL_WITH_DURATION(string -> string.startsWith("--- FAIL: ")),
     ALL_TESTS_FINISHED(string -> string.startsWith(Constants.ALL_TESTS_FINISHED_MESSAGE)),
@@ -45,14 +46,56 @@ public enum DeviceTesterLogMessageType {
     FAIL_TO_RESTORE_GREENGRASS(string -> string.contains("Fail to restore Greengrass")),
     COMMAND_ON_REMOTE_HOST_FAILED_TO_START(string -> string.contains("Async command on remote host failed to start with error")),
     FAIL_TO_ADD_REMOTE_FILE_RESOURCE(string -> string.contains("failed to add remote file resource")),
-    EMPTY(string -> string.isEmpty());
+    EMPTY("");
 
+    private static final Map<String, DeviceTesterLogMessageType> EXACT_MATCHES = new HashMap<>();
+    private static final List<DeviceTesterLogMessageType> PARTIAL_MATCHES = new ArrayList<>();
+
+    static {
+        for (DeviceTesterLogMessageType type : values()) {
+            if (type.exactMessage != null) {
+                EXACT_MATCHES.putIfAbsent(type.exactMessage, type);
+            } else {
+                PARTIAL_MATCHES.add(type);
+            }
+        }
+    }
+
+    private final String exactMessage;
     private final Function<String, Boolean> matcher;
 
+    DeviceTesterLogMessageType(String exactMessage) {
+        this.exactMessage = exactMessage;
+        this.matcher = exactMessage::equals;
+    }
+
     DeviceTesterLogMessageType(Function<String, Boolean> matcher) {
+        this.exactMessage = null;
         this.matcher = matcher;
     }
 
+    /**
+     * Finds the type of a message, exact matches are a hash lookup and the partial matches are only tried if that fails
+     *
+     * @param message
+     * @return
+     */
+    public static Optional<DeviceTesterLogMessageType> find(String message) {
+        DeviceTesterLogMessageType type = EXACT_MATCHES.get(message);
+
+        if (type != null) {
+            return Optional.of(type);
+        }
+
+        for (DeviceTesterLogMessageType partialMatch : PARTIAL_MATCHES) {
+            if (partialMatch.matches(message)) {
+                return Optional.of(partialMatch);
+            }
+        }
+
+        return Optional.empty();
+    }
+
     public boolean matches(String string) {
         return matcher.apply(string);
     }
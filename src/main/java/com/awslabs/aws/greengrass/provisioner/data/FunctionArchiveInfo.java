@@ -0,0 +1,13 @@
+package com.awslabs.aws.greengrass.provisioner.data;
+
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+@Value.Immutable
+public abstract class FunctionArchiveInfo {
+    public abstract Optional<String> getError();
+
+    // Only present when the build succeeded
+    public abstract Optional<String> getZipFilePath();
+}
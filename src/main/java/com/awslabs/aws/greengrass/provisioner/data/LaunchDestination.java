@@ -0,0 +1,20 @@
+package com.awslabs.aws.greengrass.provisioner.data;
+
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+@Value.Immutable
+public abstract class LaunchDestination {
+    public abstract String getUser();
+
+    public abstract String getHost();
+
+    // A bootstrap script built for this host, when it is empty the script built by this deployment is shared by every host
+    public abstract Optional<String> getBootstrapScript();
+
+    @Value.Derived
+    public String getName() {
+        return String.join("@", getUser(), getHost());
+    }
+}
@@ -0,0 +1,231 @@
+package com.awslabs.aws.greengrass.provisioner.data;
+
+import java.util.*;
+
+/**
+ * MQTT topic filters indexed one level per node so lookups cost the depth of the topic instead of the number of filters
+ *
+ * @param <T> the values stored with each topic filter
+ */
+public class TopicFilterTrie<T> {
+    public static final String LEVEL_SEPARATOR = "/";
+    public static final String SINGLE_LEVEL_WILDCARD = "+";
+    public static final String MULTI_LEVEL_WILDCARD = "#";
+    private static final String SYSTEM_TOPIC_PREFIX = "$";
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Splits a topic filter into its levels
+     *
+     * @param topicFilter
+     * @return
+     * @throws IllegalArgumentException if the topic filter is not a valid MQTT topic filter
+     */
+    public static List<String> getLevels(String topicFilter) {
+        if ((topicFilter == null) || topicFilter.isEmpty()) {
+            throw new IllegalArgumentException("Topic filters can not be empty");
+        }
+
+        // Empty levels are valid (e.g. "a//b" and "/a") so the split must keep them
+        List<String> levels = Arrays.asList(topicFilter.split(LEVEL_SEPARATOR, -1));
+
+        for (int index = 0; index < levels.size(); index++) {
+            String level = levels.get(index);
+
+            if (level.equals(MULTI_LEVEL_WILDCARD)) {
+                if (index != levels.size() - 1) {
+                    throw new IllegalArgumentException("[" + topicFilter + "] is not a valid topic filter, " + MULTI_LEVEL_WILDCARD + " must be the last level");
+                }
+            } else if (!level.equals(SINGLE_LEVEL_WILDCARD) && (level.contains(SINGLE_LEVEL_WILDCARD) || level.contains(MULTI_LEVEL_WILDCARD))) {
+                throw new IllegalArgumentException("[" + topicFilter + "] is not a valid topic filter, wildcards must occupy an entire level");
+            }
+        }
+
+        return levels;
+    }
+
+    /**
+     * Returns the topic filter that matches exactly the topics matched by both of the specified topic filters
+     *
+     * @param topicFilter1
+     * @param topicFilter2
+     * @return the intersection, or empty if no topic can match both filters
+     */
+    public static Optional<String> getIntersection(String topicFilter1, String topicFilter2) {
+        List<String> levels1 = getLevels(topicFilter1);
+        List<String> levels2 = getLevels(topicFilter2);
+        List<String> intersection = new ArrayList<>();
+
+        for (int index = 0; ; index++) {
+            boolean hasLevel1 = index < levels1.size();
+            boolean hasLevel2 = index < levels2.size();
+
+            if (!hasLevel1 && !hasLevel2) {
+                break;
+            }
+
+            String level1 = hasLevel1 ? levels1.get(index) : null;
+            String level2 = hasLevel2 ? levels2.get(index) : null;
+
+            // A multi-level wildcard also matches the parent level so "a/#" and "a" intersect as "a"
+            if (MULTI_LEVEL_WILDCARD.equals(level1)) {
+                if ((index == 0) && isSystemLevel(level2)) {
+                    return Optional.empty();
+                }
+
+                intersection.addAll(levels2.subList(index, levels2.size()));
+                break;
+            }
+
+            if (MULTI_LEVEL_WILDCARD.equals(level2)) {
+                if ((index == 0) && isSystemLevel(level1)) {
+                    return Optional.empty();
+                }
+
+                intersection.addAll(levels1.subList(index, levels1.size()));
+                break;
+            }
+
+            if (!hasLevel1 || !hasLevel2) {
+                return Optional.empty();
+            }
+
+            if (level1.equals(level2)) {
+                intersection.add(level1);
+            } else if (level1.equals(SINGLE_LEVEL_WILDCARD) && !((index == 0) && isSystemLevel(level2))) {
+                intersection.add(level2);
+            } else if (level2.equals(SINGLE_LEVEL_WILDCARD) && !((index == 0) && isSystemLevel(level1))) {
+                intersection.add(level1);
+            } else {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(String.join(LEVEL_SEPARATOR, intersection));
+    }
+
+    // Wildcards in the first level never match topics like "$aws/things/..."
+    private static boolean isSystemLevel(String level) {
+        return (level != null) && level.startsWith(SYSTEM_TOPIC_PREFIX);
+    }
+
+    public void put(String topicFilter, T value) {
+        Node<T> node = root;
+
+        for (String level : getLevels(topicFilter)) {
+            node = node.children.computeIfAbsent(level, key -> new Node<>());
+        }
+
+        node.values.add(value);
+    }
+
+    public boolean remove(String topicFilter, T value) {
+        return getNode(topicFilter)
+                .map(node -> node.values.remove(value))
+                .orElse(false);
+    }
+
+    /**
+     * Returns the values stored with exactly this topic filter, wildcards are not expanded
+     *
+     * @param topicFilter
+     * @return
+     */
+    public List<T> get(String topicFilter) {
+        return getNode(topicFilter)
+                .map(node -> (List<T>) new ArrayList<>(node.values))
+                .orElse(new ArrayList<>());
+    }
+
+    /**
+     * Returns the values stored with every topic filter that matches at least one topic that the specified topic filter
+     * also matches
+     *
+     * @param topicFilter
+     * @return
+     */
+    public List<T> getOverlapping(String topicFilter) {
+        List<T> results = new ArrayList<>();
+
+        collectOverlapping(root, getLevels(topicFilter), 0, results);
+
+        return results;
+    }
+
+    private Optional<Node<T>> getNode(String topicFilter) {
+        Node<T> node = root;
+
+        for (String level : getLevels(topicFilter)) {
+            node = node.children.get(level);
+
+            if (node == null) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(node);
+    }
+
+    private void collectOverlapping(Node<T> node, List<String> levels, int index, List<T> results) {
+        boolean systemLevel = (index == 0) && isSystemLevel(levels.get(0));
+
+        Node<T> multiLevelWildcardNode = node.children.get(MULTI_LEVEL_WILDCARD);
+
+        if ((multiLevelWildcardNode != null) && !systemLevel) {
+            // A stored multi-level wildcard matches everything from here down, including this level
+            results.addAll(multiLevelWildcardNode.values);
+        }
+
+        if (index == levels.size()) {
+            results.addAll(node.values);
+            return;
+        }
+
+        String level = levels.get(index);
+
+        if (level.equals(MULTI_LEVEL_WILDCARD)) {
+            results.addAll(node.values);
+
+            node.children.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(MULTI_LEVEL_WILDCARD))
+                    .filter(entry -> (index != 0) || !isSystemLevel(entry.getKey()))
+                    .forEach(entry -> collectAll(entry.getValue(), results));
+
+            return;
+        }
+
+        if (level.equals(SINGLE_LEVEL_WILDCARD)) {
+            for (Map.Entry<String, Node<T>> entry : node.children.entrySet()) {
+                if (entry.getKey().equals(MULTI_LEVEL_WILDCARD) || ((index == 0) && isSystemLevel(entry.getKey()))) {
+                    continue;
+                }
+
+                collectOverlapping(entry.getValue(), levels, index + 1, results);
+            }
+
+            return;
+        }
+
+        Node<T> exactNode = node.children.get(level);
+
+        if (exactNode != null) {
+            collectOverlapping(exactNode, levels, index + 1, results);
+        }
+
+        Node<T> singleLevelWildcardNode = node.children.get(SINGLE_LEVEL_WILDCARD);
+
+        if ((singleLevelWildcardNode != null) && !systemLevel) {
+            collectOverlapping(singleLevelWildcardNode, levels, index + 1, results);
+        }
+    }
+
+    private void collectAll(Node<T> node, List<T> results) {
+        results.addAll(node.values);
+        node.children.values().forEach(child -> collectAll(child, results));
+    }
+
+    private static class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+    }
+}
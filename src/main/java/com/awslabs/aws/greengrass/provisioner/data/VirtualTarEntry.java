@@ -1,5 +1,6 @@
 package com.awslabs.aws.greengrass.provisioner.data;
 
+import io.vavr.CheckedFunction0;
 import org.immutables.value.Value;
 import org.kamranzafar.jtar.TarEntry;
 
@@ -7,13 +8,12 @@ import java.io.InputStream;
 
 @Value.Immutable
 public abstract class VirtualTarEntry {
-    public abstract byte[] getContent();
-
     public abstract String getFilename();
 
     public abstract int getPermissions();
 
     public abstract TarEntry getTarEntry();
 
-    public abstract InputStream getInputStream();
+    // The content is only opened when the archive is written so large entries (e.g. the Greengrass binary) are never held in memory
+    public abstract CheckedFunction0<InputStream> getInputStreamSupplier();
 }
@@ -2,8 +2,11 @@ package com.awslabs.aws.greengrass.provisioner.data.arguments;
 
 import com.awslabs.aws.greengrass.provisioner.data.Architecture;
 import com.awslabs.aws.greengrass.provisioner.data.EC2LinuxVersion;
+import com.awslabs.aws.greengrass.provisioner.data.LaunchDestination;
 import com.beust.jcommander.Parameter;
 
+import java.util.List;
+
 public class DeploymentArguments extends Arguments {
     public static final String SHORT_DEPLOYMENT_CONFIG_OPTION = "-d";
     public static final String LONG_OEM_OUTPUT_OPTION = "--oem";
@@ -26,12 +29,15 @@ public class DeploymentArguments extends Arguments {
     private final String LONG_GGD_OUTPUT_OPTION = "--ggd";
     private final String LONG_NO_SYSTEMD_OPTION = "--no-systemd";
     private final String LONG_LAUNCH_OPTION = "--launch";
+    private final String LONG_LAUNCH_HOSTS_OPTION = "--launch-hosts";
+    private final String LONG_MAX_CONCURRENT_LAUNCHES_OPTION = "--max-concurrent-launches";
     private final String LONG_DOCKER_LAUNCH_OPTION = "--docker-launch";
     private final String LONG_HSI_SOFTHSM2_OPTION = "--hsi-softhsm2";
     private final String LONG_S3_BUCKET_OPTION = "--s3-bucket";
     private final String LONG_S3_DIRECTORY_OPTION = "--s3-directory";
     public static final String LONG_CSR_OPTION = "--csr";
     public static final String LONG_CERTIFICATE_ARN_OPTION = "--certificate-arn";
+    public static final String LONG_NO_DEPENDENCY_CACHE_OPTION = "--no-dependency-cache";
     @Parameter(names = {LONG_ARCHITECTURE_OPTION, SHORT_ARCHITECTURE_OPTION}, description = "Architecture (X86_64, ARM32, ARM64)")
     public String architectureString;
     //    private static final String LONG_DOCKER_SCRIPT_OUTPUT_OPTION = "--docker-script";
@@ -67,6 +73,11 @@ public class DeploymentArguments extends Arguments {
     public String launch;
     public String launchUser;
     public String launchHost;
+    @Parameter(names = {LONG_LAUNCH_HOSTS_OPTION}, description = "A file listing several systems to launch the bootstrapping script on via SSH in parallel instead of " + LONG_LAUNCH_OPTION + ", one user@host per line optionally followed by the bootstrapping script for that system")
+    public String launchHostsFile;
+    public List<LaunchDestination> launchDestinations;
+    @Parameter(names = {LONG_MAX_CONCURRENT_LAUNCHES_OPTION}, description = "(Optional) The maximum number of systems to bootstrap at the same time")
+    public int maxConcurrentLaunches = 10;
     @Parameter(names = {LONG_HSI_SOFTHSM2_OPTION}, description = "Use Greengrass Hardware Security Integration (HSI) with SoftHSM2")
     public boolean hsiSoftHsm2;
     //    @Parameter(names = {LONG_DOCKER_SCRIPT_OUTPUT_OPTION}, description = "Generate a script to install Docker and run the Greengrass container [docker.GROUP_NAME.sh] (implies " + LONG_BUILD_CONTAINER_OPTION + ")")
@@ -87,6 +98,8 @@ public class DeploymentArguments extends Arguments {
     public String csr;
     @Parameter(names = {LONG_CERTIFICATE_ARN_OPTION}, description = "The full ARN of an existing certificate to use for the core")
     public String certificateArn;
+    @Parameter(names = {LONG_NO_DEPENDENCY_CACHE_OPTION}, description = "Always reinstall Python and Node function dependencies instead of using the local dependency cache")
+    public boolean noDependencyCache;
     @Parameter(names = "--help", help = true)
     private boolean help;
 
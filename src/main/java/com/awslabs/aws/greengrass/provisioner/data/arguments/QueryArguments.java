@@ -2,6 +2,8 @@ package com.awslabs.aws.greengrass.provisioner.data.arguments;
 
 import com.beust.jcommander.Parameter;
 
+import java.time.Instant;
+
 public class QueryArguments extends Arguments {
     private final String LONG_QUERY_GROUP_OPTION = "--query-group";
     private final String LONG_GET_GROUP_CA_OPTION = "--get-group-ca";
@@ -12,6 +14,10 @@ public class QueryArguments extends Arguments {
     private final String LONG_DOWNLOAD_LOGS = "--download-logs";
     private final String LONG_WATCH_LOGS = "--watch-logs";
     private final String LONG_DIAGNOSE = "--diagnose";
+    private final String LONG_START_TIME = "--start-time";
+    private final String LONG_END_TIME = "--end-time";
+    private final String LONG_GZIP_LOGS = "--gzip-logs";
+    private final String LONG_LOCAL_LOGS = "--local-logs";
     @Parameter(names = {LONG_QUERY_GROUP_OPTION}, description = "Query an existing Greengrass group (must specify additional options)")
     public boolean queryGroup;
     @Parameter(names = {LONG_GROUP_NAME_OPTION, SHORT_GROUP_NAME_OPTION}, description = "The name of the Greengrass group")
@@ -30,8 +36,18 @@ public class QueryArguments extends Arguments {
     public boolean downloadLogs;
     @Parameter(names = {LONG_DIAGNOSE}, description = "Diagnose Greengrass issues")
     public boolean diagnose;
+    @Parameter(names = {LONG_LOCAL_LOGS}, description = "(Optional) Diagnose a local copy of the Greengrass log directory (e.g. /greengrass/ggc/var/log) instead of CloudWatch, use with " + LONG_DIAGNOSE)
+    public String localLogDirectory;
     @Parameter(names = {LONG_WATCH_LOGS}, description = "Watch the group's CloudWatch logs")
     public boolean watchLogs;
+    @Parameter(names = {LONG_START_TIME}, description = "(Optional) Only download log events at or after this time (e.g. 2019-06-01T12:00:00Z, or 30m, 2h, 1d for that long ago)")
+    public String startTimeString;
+    public Instant startTime;
+    @Parameter(names = {LONG_END_TIME}, description = "(Optional) Only download log events before this time (same formats as " + LONG_START_TIME + ")")
+    public String endTimeString;
+    public Instant endTime;
+    @Parameter(names = {LONG_GZIP_LOGS}, description = "(Optional) Compress downloaded logs with gzip")
+    public boolean gzipLogs;
     @Parameter(names = "--help", help = true)
     private boolean help;
 
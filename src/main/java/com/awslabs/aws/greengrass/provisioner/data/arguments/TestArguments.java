@@ -3,6 +3,8 @@ package com.awslabs.aws.greengrass.provisioner.data.arguments;
 import com.awslabs.aws.greengrass.provisioner.data.Architecture;
 import com.beust.jcommander.Parameter;
 
+import java.util.List;
+
 public class TestArguments extends Arguments {
     private final String LONG_TEST_GROUP_OPTION = "--test-group";
     private final String LONG_USER_OPTION = "--user";
@@ -11,6 +13,8 @@ public class TestArguments extends Arguments {
     private final String SHORT_PRIVATE_KEY_PATH_OPTION = "-k";
     private final String LONG_DUT_OPTION = "--device-under-test";
     private final String SHORT_DUT_OPTION = "--dut";
+    private final String LONG_DEVICE_POOL_OPTION = "--device-pool";
+    private final String LONG_MAX_CONCURRENT_DEVICES_OPTION = "--max-concurrent-devices";
     private final String LONG_CLEAN_OPTION = "--clean";
     private final String LONG_GENERATE_CONFIG_OPTION = "--generate-config";
     private final String LONG_DEVICE_TESTER_LOCATION_OPTION = "--device-tester-location";
@@ -28,6 +32,11 @@ public class TestArguments extends Arguments {
     public String privateKeyPath;
     @Parameter(names = {LONG_DUT_OPTION, SHORT_DUT_OPTION}, description = "Hostname or the IP of the device under test")
     public String deviceUnderTest;
+    @Parameter(names = {LONG_DEVICE_POOL_OPTION}, description = "A file listing the hostnames or IPs of several devices under test, one per line, to test in parallel instead of " + LONG_DUT_OPTION)
+    public String devicePoolFile;
+    public List<String> devicesUnderTest;
+    @Parameter(names = {LONG_MAX_CONCURRENT_DEVICES_OPTION}, description = "(Optional) The maximum number of devices in the device pool to test at the same time")
+    public int maxConcurrentDevices = 4;
     @Parameter(names = {LONG_GROUP_NAME_OPTION, SHORT_GROUP_NAME_OPTION}, description = "The name of the Greengrass group")
     public String groupName;
     @Parameter(names = {LONG_DEVICE_TESTER_LOCATION_OPTION, SHORT_DEVICE_TESTER_LOCATION_OPTION}, description = "The location of the Device Tester directory or ZIP file")
@@ -16,6 +16,7 @@ public class UpdateArguments extends Arguments {
     private final String SUBSCRIPTION_SOURCE_OPTION = "--subscription-source";
     private final String SUBSCRIPTION_SUBJECT_OPTION = "--subscription-subject";
     private final String SUBSCRIPTION_TARGET_OPTION = "--subscription-target";
+    private final String LONG_BATCH_OPTION = "--batch";
     @Parameter(names = {LONG_UPDATE_GROUP_OPTION}, description = "Update an existing Greengrass group (must specify additional options)")
     public boolean updateGroup;
     @Parameter(names = {LONG_GROUP_NAME_OPTION, SHORT_GROUP_NAME_OPTION}, description = "The name of the Greengrass group")
@@ -44,6 +45,8 @@ public class UpdateArguments extends Arguments {
     public String subscriptionSubject;
     @Parameter(names = {SUBSCRIPTION_TARGET_OPTION}, description = "The target for a subscription table update")
     public String subscriptionTarget;
+    @Parameter(names = {LONG_BATCH_OPTION}, description = "A file of updates, one per line, to apply with a single deployment (use - to read from stdin)")
+    public String batch;
     @Parameter(names = "--help", help = true)
     private boolean help;
 
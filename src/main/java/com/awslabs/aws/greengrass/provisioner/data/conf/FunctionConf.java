@@ -65,4 +65,10 @@ public abstract class FunctionConf {
     public abstract Map<String, String> getEnvironmentVariables();
 
     public abstract Optional<File> getCfTemplate();
+
+    @Value.Default
+    public boolean isDependencyCacheDisabled() {
+        // Only a deployment can turn the cache off, every other way of building a function uses it
+        return false;
+    }
 }
@@ -4,25 +4,84 @@ import io.vavr.Tuple3;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * A rule that looks for a known problem in a Greengrass log one line at a time.  Rules are compiled together by the
+ * diagnostics helper so each line is only scanned once no matter how many rules there are.
+ */
 public interface DiagnosticRule {
     String GGIP_DETECTOR = "GGIPDetector";
     String GG_DEVICE_CERTIFICATE_MANAGER = "GGDeviceCertificateManager";
     String RUNTIME = "runtime";
 
-    Optional<List<String>> evaluate(Tuple3<LogGroup, LogStream, List<String>> input);
+    boolean appliesTo(LogGroup logGroup);
 
-    default boolean isGgIpDetectorLog(Tuple3<LogGroup, LogStream, List<String>> input) {
-        return input._1.logGroupName().endsWith(GGIP_DETECTOR);
+    Pattern getPattern();
+
+    /**
+     * Text that every line matching the pattern must contain.  The pattern is only run on lines that contain all of it.
+     *
+     * @return
+     */
+    List<String> getRequiredLiterals();
+
+    Optional<List<String>> evaluate(Matcher matcher);
+
+    /**
+     * Evaluates this rule on its own against a whole log, the diagnostics helper should be used to evaluate many rules
+     *
+     * @param input
+     * @return
+     */
+    default Optional<List<String>> evaluate(Tuple3<LogGroup, LogStream, List<String>> input) {
+        if (!appliesTo(input._1)) {
+            return Optional.empty();
+        }
+
+        List<String> results = new ArrayList<>();
+
+        for (String line : input._3) {
+            Matcher matcher = getPattern().matcher(line);
+
+            if (!matcher.matches()) {
+                continue;
+            }
+
+            evaluate(matcher).ifPresent(results::addAll);
+
+            if (isFirstMatchOnly()) {
+                break;
+            }
+        }
+
+        if (results.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(results);
+    }
+
+    /**
+     * @return true if the rule only needs to match one line per log
+     */
+    default boolean isFirstMatchOnly() {
+        return false;
+    }
+
+    default boolean isGgIpDetectorLog(LogGroup logGroup) {
+        return logGroup.logGroupName().endsWith(GGIP_DETECTOR);
     }
 
-    default boolean isGgDeviceCertificateManager(Tuple3<LogGroup, LogStream, List<String>> input) {
-        return input._1.logGroupName().endsWith(GG_DEVICE_CERTIFICATE_MANAGER);
+    default boolean isGgDeviceCertificateManager(LogGroup logGroup) {
+        return logGroup.logGroupName().endsWith(GG_DEVICE_CERTIFICATE_MANAGER);
     }
 
-    default boolean isRuntimeLog(Tuple3<LogGroup, LogStream, List<String>> input) {
-        return input._1.logGroupName().endsWith(RUNTIME);
+    default boolean isRuntimeLog(LogGroup logGroup) {
+        return logGroup.logGroupName().endsWith(RUNTIME);
     }
 }
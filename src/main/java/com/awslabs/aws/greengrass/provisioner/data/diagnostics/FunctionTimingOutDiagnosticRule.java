@@ -1,15 +1,12 @@
 package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.JsonHelper;
-import io.vavr.Tuple3;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
-import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
 import javax.inject.Inject;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class FunctionTimingOutDiagnosticRule implements DiagnosticRule {
     private final Pattern findJsonPattern = Pattern.compile(".*Timing out work item.*(\\{\"invoker\":.*\\})");
@@ -21,22 +18,22 @@ public class FunctionTimingOutDiagnosticRule implements DiagnosticRule {
     }
 
     @Override
-    public Optional<List<String>> evaluate(Tuple3<LogGroup, LogStream, List<String>> input) {
-        if (!isRuntimeLog(input)) {
-            return Optional.empty();
-        }
+    public boolean appliesTo(LogGroup logGroup) {
+        return isRuntimeLog(logGroup);
+    }
+
+    @Override
+    public Pattern getPattern() {
+        return findJsonPattern;
+    }
 
-        return Optional.of(input._3.stream()
-                .map(findJsonPattern::matcher)
-                .filter(Matcher::matches)
-                .map(this::buildErrorStrings)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList()));
+    @Override
+    public List<String> getRequiredLiterals() {
+        return Arrays.asList("Timing out work item", "{\"invoker\":");
     }
 
-    private Optional<List<String>> buildErrorStrings(Matcher matcher) {
+    @Override
+    public Optional<List<String>> evaluate(Matcher matcher) {
         String json = matcher.group(1);
         Map error = jsonHelper.fromJson(Map.class, json.getBytes());
 
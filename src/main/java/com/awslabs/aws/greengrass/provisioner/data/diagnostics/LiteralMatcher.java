@@ -0,0 +1,102 @@
+package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
+
+import java.util.*;
+
+/**
+ * Aho-Corasick automaton that finds which of a fixed set of literals appear in a line with a single pass over the line
+ */
+public class LiteralMatcher {
+    private static final int ROOT = 0;
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<BitSet> outputs = new ArrayList<>();
+    private final int[] failures;
+
+    public LiteralMatcher(List<String> literals) {
+        addState();
+
+        // Build the trie of all of the literals
+        for (int literalIndex = 0; literalIndex < literals.size(); literalIndex++) {
+            int state = ROOT;
+
+            for (char character : literals.get(literalIndex).toCharArray()) {
+                Integer next = transitions.get(state).get(character);
+
+                if (next == null) {
+                    next = addState();
+                    transitions.get(state).put(character, next);
+                }
+
+                state = next;
+            }
+
+            outputs.get(state).set(literalIndex);
+        }
+
+        // Breadth first so each state's failure link points at a state that is already finished
+        failures = new int[transitions.size()];
+        Deque<Integer> queue = new ArrayDeque<>(transitions.get(ROOT).values());
+
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+
+            for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet()) {
+                int next = transition.getValue();
+                int failure = failures[state];
+
+                while ((failure != ROOT) && !transitions.get(failure).containsKey(transition.getKey())) {
+                    failure = failures[failure];
+                }
+
+                Integer failureNext = transitions.get(failure).get(transition.getKey());
+                failures[next] = ((failureNext != null) && (failureNext != next)) ? failureNext : ROOT;
+
+                // A state also ends every literal that its longest proper suffix ends
+                outputs.get(next).or(outputs.get(failures[next]));
+
+                queue.add(next);
+            }
+        }
+    }
+
+    private int addState() {
+        transitions.add(new HashMap<>());
+        outputs.add(new BitSet());
+
+        return transitions.size() - 1;
+    }
+
+    /**
+     * @param text
+     * @return the indexes of the literals that appear in the text
+     */
+    public BitSet find(CharSequence text) {
+        BitSet found = new BitSet();
+
+        find(text, found);
+
+        return found;
+    }
+
+    /**
+     * Same as {@link #find(CharSequence)} but reuses the caller's bit set so scanning many lines doesn't allocate
+     *
+     * @param text
+     * @param found cleared and then filled with the indexes of the literals that appear in the text
+     */
+    public void find(CharSequence text, BitSet found) {
+        found.clear();
+        int state = ROOT;
+
+        for (int index = 0; index < text.length(); index++) {
+            char character = text.charAt(index);
+            Integer next;
+
+            while (((next = transitions.get(state).get(character)) == null) && (state != ROOT)) {
+                state = failures[state];
+            }
+
+            state = (next == null) ? ROOT : next;
+            found.or(outputs.get(state));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
+
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Splits a buffer of log bytes into lines without copying them.  Every line in the stream is the same {@link Line}
+ * instance pointed at a different part of the buffer, so lines must be used before the stream advances and only
+ * copied (with toString) when they need to be kept.
+ */
+public class LogLines {
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private LogLines() {
+    }
+
+    /**
+     * @param buffer the log contents from its position to its limit, e.g. a memory-mapped log file
+     * @return a sequential stream of the lines in the buffer
+     */
+    public static Stream<CharSequence> of(ByteBuffer buffer) {
+        return StreamSupport.stream(new LineSpliterator(buffer), false);
+    }
+
+    private static class LineSpliterator extends Spliterators.AbstractSpliterator<CharSequence> {
+        private final ByteBuffer buffer;
+        private final Line line;
+        private int position;
+
+        private LineSpliterator(ByteBuffer buffer) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.buffer = buffer;
+            this.line = new Line(buffer);
+            this.position = buffer.position();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CharSequence> action) {
+            int limit = buffer.limit();
+
+            if (position >= limit) {
+                return false;
+            }
+
+            int start = position;
+            int end = start;
+
+            while ((end < limit) && (buffer.get(end) != NEWLINE)) {
+                end++;
+            }
+
+            position = end + 1;
+
+            if ((end > start) && (buffer.get(end - 1) == CARRIAGE_RETURN)) {
+                end--;
+            }
+
+            line.set(start, end - start);
+            action.accept(line);
+
+            return true;
+        }
+    }
+
+    /**
+     * A line of the buffer read as ISO-8859-1.  The diagnostic patterns are all ASCII so this never changes what
+     * matches, non-ASCII text in a line only shows up garbled in the recommendation.
+     */
+    static class Line implements CharSequence {
+        private final ByteBuffer buffer;
+        private int offset;
+        private int length;
+
+        Line(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void set(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((index < 0) || (index >= length)) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+
+            return (char) (buffer.get(offset + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            // Only called for matched groups, copying them means results can outlive the line
+            if ((start < 0) || (end > length) || (start > end)) {
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + ")");
+            }
+
+            char[] characters = new char[end - start];
+
+            for (int index = start; index < end; index++) {
+                characters[index - start] = charAt(index);
+            }
+
+            return new String(characters);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+}
@@ -1,17 +1,13 @@
 package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.JsonHelper;
-import io.vavr.Tuple3;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
-import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public interface MissingRuntimeWithJsonErrorDiagnosticRule extends DiagnosticRule {
     String QUOTING_STRING = "\\\\\"";
@@ -24,22 +20,18 @@ public interface MissingRuntimeWithJsonErrorDiagnosticRule extends DiagnosticRul
 
     JsonHelper getJsonHelper();
 
-    default Optional<List<String>> evaluate(Tuple3<LogGroup, LogStream, List<String>> input) {
-        if (!isRuntimeLog(input)) {
-            return Optional.empty();
-        }
+    @Override
+    default boolean appliesTo(LogGroup logGroup) {
+        return isRuntimeLog(logGroup);
+    }
 
-        return Optional.of(input._3.stream()
-                .map(getFindJsonPattern()::matcher)
-                .filter(Matcher::matches)
-                .map(this::buildErrorStrings)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList()));
+    @Override
+    default Pattern getPattern() {
+        return getFindJsonPattern();
     }
 
-    default Optional<List<String>> buildErrorStrings(Matcher matcher) {
+    @Override
+    default Optional<List<String>> evaluate(Matcher matcher) {
         String json = matcher.group(1);
         Map error = getJsonHelper().fromJson(Map.class, json.getBytes());
 
@@ -3,6 +3,7 @@ package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.JsonHelper;
 
 import javax.inject.Inject;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,11 @@ public class MissingRuntimeWithJsonErrorDiagnosticRule1 implements MissingRuntim
         return findJsonPattern;
     }
 
+    @Override
+    public List<String> getRequiredLiterals() {
+        return Arrays.asList("runtime execution error: unable to start lambda container", "{\"errorString\":");
+    }
+
     @Override
     public JsonHelper getJsonHelper() {
         return jsonHelper;
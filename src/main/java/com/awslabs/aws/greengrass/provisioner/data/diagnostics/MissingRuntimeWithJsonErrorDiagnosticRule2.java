@@ -3,6 +3,7 @@ package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.JsonHelper;
 
 import javax.inject.Inject;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,11 @@ public class MissingRuntimeWithJsonErrorDiagnosticRule2 implements MissingRuntim
         return findJsonPattern;
     }
 
+    @Override
+    public List<String> getRequiredLiterals() {
+        return Arrays.asList("Failed to start worker", "{\"workerId\":");
+    }
+
     @Override
     public JsonHelper getJsonHelper() {
         return jsonHelper;
@@ -1,5 +1,7 @@
 package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Pattern;
 
 public class MissingRuntimeWithTextErrorDiagnosticRule1 implements MissingRuntimeWithoutJsonDiagnosticRule {
@@ -8,4 +10,9 @@ public class MissingRuntimeWithTextErrorDiagnosticRule1 implements MissingRuntim
         return Pattern.compile(".*unable to create worker process for (.*). cannot find executable (.*) under any of the provided paths.*");
 
     }
+
+    @Override
+    public List<String> getRequiredLiterals() {
+        return Arrays.asList("unable to create worker process for", "cannot find executable");
+    }
 }
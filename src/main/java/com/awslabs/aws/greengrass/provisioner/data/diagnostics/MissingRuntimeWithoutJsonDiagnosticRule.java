@@ -1,31 +1,22 @@
 package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 
-import io.vavr.Tuple3;
 import org.jetbrains.annotations.NotNull;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
-import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public interface MissingRuntimeWithoutJsonDiagnosticRule extends DiagnosticRule {
-    default Optional<List<String>> evaluate(Tuple3<LogGroup, LogStream, List<String>> input) {
-        if (!isRuntimeLog(input)) {
-            return Optional.empty();
-        }
-
-        Pattern pattern = getPattern();
+    @Override
+    default boolean appliesTo(LogGroup logGroup) {
+        return isRuntimeLog(logGroup);
+    }
 
-        return Optional.of(input._3.stream()
-                .map(pattern::matcher)
-                .filter(Matcher::matches)
-                .map(this::buildErrorString)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList()));
+    @Override
+    default Optional<List<String>> evaluate(Matcher matcher) {
+        return buildErrorString(matcher).map(Collections::singletonList);
     }
 
     @NotNull
@@ -36,6 +27,4 @@ public interface MissingRuntimeWithoutJsonDiagnosticRule extends DiagnosticRule
         return Optional.of(String.join("\n\t", "The runtime [" + runtime + "] appears to be missing.",
                 "This will prevent [" + function + "] from running."));
     }
-
-    Pattern getPattern();
 }
@@ -1,8 +1,6 @@
 package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 
-import io.vavr.Tuple3;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
-import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
 import javax.inject.Inject;
 import java.util.Collections;
@@ -19,20 +17,27 @@ public class NoConnectivityInformationDiagnosticRule implements DiagnosticRule {
     }
 
     @Override
-    public Optional<List<String>> evaluate(Tuple3<LogGroup, LogStream, List<String>> input) {
-        if (!isGgDeviceCertificateManager(input)) {
-            return Optional.empty();
-        }
+    public boolean appliesTo(LogGroup logGroup) {
+        return isGgDeviceCertificateManager(logGroup);
+    }
 
-        Optional<Matcher> optionalMatcher = input._3.stream()
-                .map(pattern::matcher)
-                .filter(Matcher::matches)
-                .findFirst();
+    @Override
+    public Pattern getPattern() {
+        return pattern;
+    }
 
-        if (!optionalMatcher.isPresent()) {
-            return Optional.empty();
-        }
+    @Override
+    public List<String> getRequiredLiterals() {
+        return Collections.singletonList("We do not have connectivity information for this GGC");
+    }
 
+    @Override
+    public boolean isFirstMatchOnly() {
+        return true;
+    }
+
+    @Override
+    public Optional<List<String>> evaluate(Matcher matcher) {
         return Optional.of(Collections.singletonList(String.join("\n\t", "This Greengrass core has not sent its connectivity information to the Greengrass service.",
                 "This may be because it has too many IP addresses.")));
     }
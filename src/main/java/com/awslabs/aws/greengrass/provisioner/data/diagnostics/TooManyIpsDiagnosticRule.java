@@ -1,8 +1,6 @@
 package com.awslabs.aws.greengrass.provisioner.data.diagnostics;
 
-import io.vavr.Tuple3;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
-import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
 import javax.inject.Inject;
 import java.util.Collections;
@@ -19,20 +17,27 @@ public class TooManyIpsDiagnosticRule implements DiagnosticRule {
     }
 
     @Override
-    public Optional<List<String>> evaluate(Tuple3<LogGroup, LogStream, List<String>> input) {
-        if (!isGgIpDetectorLog(input)) {
-            return Optional.empty();
-        }
+    public boolean appliesTo(LogGroup logGroup) {
+        return isGgIpDetectorLog(logGroup);
+    }
 
-        Optional<Matcher> optionalMatcher = input._3.stream()
-                .map(pattern::matcher)
-                .filter(Matcher::matches)
-                .findFirst();
+    @Override
+    public Pattern getPattern() {
+        return pattern;
+    }
 
-        if (!optionalMatcher.isPresent()) {
-            return Optional.empty();
-        }
+    @Override
+    public List<String> getRequiredLiterals() {
+        return Collections.singletonList("Too many items in the Connectivity Information list");
+    }
 
+    @Override
+    public boolean isFirstMatchOnly() {
+        return true;
+    }
+
+    @Override
+    public Optional<List<String>> evaluate(Matcher matcher) {
         return Optional.of(Collections.singletonList(String.join("\n\t", "This Greengrass core has too many IP addresses for the default IP address detector.",
                 "Either set the connectivity information manually or run a custom IP detector.",
                 "Until this issue is corrected this Greengrass core will not have a server certificate and will not be discoverable.")));
@@ -0,0 +1,29 @@
+package com.awslabs.aws.greengrass.provisioner.data.tasks;
+
+import io.vavr.CheckedFunction1;
+
+import java.util.List;
+
+public class Task<T> {
+    private final String name;
+    private final List<Task<?>> dependencies;
+    private final CheckedFunction1<TaskResults, T> body;
+
+    Task(String name, List<Task<?>> dependencies, CheckedFunction1<TaskResults, T> body) {
+        this.name = name;
+        this.dependencies = dependencies;
+        this.body = body;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Task<?>> getDependencies() {
+        return dependencies;
+    }
+
+    public CheckedFunction1<TaskResults, T> getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,48 @@
+package com.awslabs.aws.greengrass.provisioner.data.tasks;
+
+import io.vavr.CheckedConsumer;
+import io.vavr.CheckedFunction1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TaskGraph {
+    private final String name;
+    private final List<Task<?>> tasks = new ArrayList<>();
+
+    public TaskGraph(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Tasks are always in an order where every task comes after its dependencies
+    public List<Task<?>> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    public <T> Task<T> addTask(String taskName, CheckedFunction1<TaskResults, T> body, Task<?>... dependencies) {
+        for (Task<?> dependency : dependencies) {
+            // Dependencies must already be in the graph, this also makes cycles impossible
+            if (!tasks.contains(dependency)) {
+                throw new RuntimeException("Task [" + taskName + "] depends on task [" + dependency.getName() + "] which is not in the [" + name + "] task graph, this is a bug");
+            }
+        }
+
+        Task<T> task = new Task<>(taskName, Arrays.asList(dependencies), body);
+        tasks.add(task);
+
+        return task;
+    }
+
+    public Task<Void> addStep(String taskName, CheckedConsumer<TaskResults> body, Task<?>... dependencies) {
+        return addTask(taskName, results -> {
+            body.accept(results);
+            return null;
+        }, dependencies);
+    }
+}
@@ -0,0 +1,31 @@
+package com.awslabs.aws.greengrass.provisioner.data.tasks;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public class TaskResults {
+    private final Optional<Task<?>> requestingTask;
+    private final Map<Task<?>, CompletableFuture<Object>> futures;
+
+    public TaskResults(Optional<Task<?>> requestingTask, Map<Task<?>, CompletableFuture<Object>> futures) {
+        this.requestingTask = requestingTask;
+        this.futures = futures;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Task<T> task) {
+        if (requestingTask.isPresent() && !requestingTask.get().getDependencies().contains(task)) {
+            // Only declared inputs are visible so the graph always matches what the tasks really use
+            throw new RuntimeException("Task [" + requestingTask.get().getName() + "] requested the output of task [" + task.getName() + "] without declaring it as a dependency, this is a bug");
+        }
+
+        CompletableFuture<Object> future = futures.get(task);
+
+        if ((future == null) || !future.isDone()) {
+            throw new RuntimeException("Task [" + task.getName() + "] has not completed, this is a bug");
+        }
+
+        return (T) future.join();
+    }
+}
@@ -0,0 +1,15 @@
+package com.awslabs.aws.greengrass.provisioner.data.tasks;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public abstract class TaskTiming {
+    public abstract String getTaskName();
+
+    // Milliseconds from the start of the graph, shows which tasks overlapped
+    public abstract long getStartOffsetMillis();
+
+    public abstract long getDurationMillis();
+
+    public abstract boolean isSuccessful();
+}
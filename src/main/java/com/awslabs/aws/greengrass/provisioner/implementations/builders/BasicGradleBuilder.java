@@ -2,6 +2,7 @@ package com.awslabs.aws.greengrass.provisioner.implementations.builders;
 
 import com.awslabs.aws.greengrass.provisioner.data.conf.FunctionConf;
 import com.awslabs.aws.greengrass.provisioner.interfaces.builders.GradleBuilder;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ArchiveHelper;
 import io.vavr.control.Try;
 import org.gradle.tooling.BuildLauncher;
 import org.gradle.tooling.GradleConnector;
@@ -9,11 +10,24 @@ import org.gradle.tooling.ProjectConnection;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class BasicGradleBuilder implements GradleBuilder {
     private static final String BUILD_GRADLE = "build.gradle";
+    private static final String SETTINGS_GRADLE = "settings.gradle";
+    private static final Pattern INCLUDE_BUILD_PATTERN = Pattern.compile("includeBuild\\s*\\(?\\s*['\"]([^'\"]+)['\"]");
+    // Shared by every instance so two functions never run Gradle in the same directory at the same time
+    private static final Map<Path, ReentrantLock> BUILD_DIRECTORY_LOCKS = new ConcurrentHashMap<>();
+
+    @Inject
+    ArchiveHelper archiveHelper;
 
     @Inject
     public BasicGradleBuilder() {
@@ -51,7 +65,15 @@ public class BasicGradleBuilder implements GradleBuilder {
 
     @Override
     public void buildJavaFunctionIfNecessary(FunctionConf functionConf) {
-        runGradle(Optional.of(new File(getGradleBuildPath(functionConf))), Optional.ofNullable(functionConf.getFunctionName()));
+        File gradleBuildPath = new File(getGradleBuildPath(functionConf));
+
+        // The locks are reentrant so runGradle can take them again, this keeps the normalization inside the same critical section
+        withBuildDirectoryLocks(gradleBuildPath, () -> {
+            runGradle(Optional.of(gradleBuildPath), Optional.ofNullable(functionConf.getFunctionName()));
+
+            // Gradle stores timestamps in the jar, rewrite it so identical sources produce an identical package
+            archiveHelper.normalizeZip(new File(getArchivePath(functionConf)));
+        });
     }
 
     @Override
@@ -61,9 +83,47 @@ public class BasicGradleBuilder implements GradleBuilder {
         }
 
         // Guidance from: https://discuss.gradle.org/t/how-to-execute-a-gradle-task-from-java-code/7421
-        Try.withResources(() -> getProjectConnection(gradleBuildPath))
+        withBuildDirectoryLocks(gradleBuildPath.get(), () -> Try.withResources(() -> getProjectConnection(gradleBuildPath))
                 .of(this::runBuild)
-                .get();
+                .get());
+    }
+
+    private void withBuildDirectoryLocks(File gradleBuildPath, Runnable runnable) {
+        // Lock the project and any included builds it shares with other functions, always in the same order to avoid deadlocks
+        List<ReentrantLock> locks = getBuildDirectories(gradleBuildPath).stream()
+                .map(path -> BUILD_DIRECTORY_LOCKS.computeIfAbsent(path, key -> new ReentrantLock()))
+                .collect(Collectors.toList());
+
+        locks.forEach(ReentrantLock::lock);
+
+        try {
+            runnable.run();
+        } finally {
+            locks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    private SortedSet<Path> getBuildDirectories(File gradleBuildPath) {
+        Path projectPath = Try.of(() -> gradleBuildPath.getCanonicalFile().toPath()).get();
+
+        SortedSet<Path> buildDirectories = new TreeSet<>();
+        buildDirectories.add(projectPath);
+
+        Path settingsGradle = projectPath.resolve(SETTINGS_GRADLE);
+
+        if (!settingsGradle.toFile().exists()) {
+            return buildDirectories;
+        }
+
+        String settings = Try.of(() -> new String(Files.readAllBytes(settingsGradle))).get();
+        Matcher matcher = INCLUDE_BUILD_PATTERN.matcher(settings);
+
+        while (matcher.find()) {
+            File includedBuild = projectPath.resolve(matcher.group(1)).toFile();
+            buildDirectories.add(Try.of(() -> includedBuild.getCanonicalFile().toPath()).get());
+        }
+
+        return buildDirectories;
     }
 
     private Void runBuild(ProjectConnection projectConnection) {
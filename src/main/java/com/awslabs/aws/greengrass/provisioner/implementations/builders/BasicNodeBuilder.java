@@ -3,24 +3,32 @@ package com.awslabs.aws.greengrass.provisioner.implementations.builders;
 import com.awslabs.aws.greengrass.provisioner.data.SDK;
 import com.awslabs.aws.greengrass.provisioner.data.conf.FunctionConf;
 import com.awslabs.aws.greengrass.provisioner.interfaces.builders.NodeBuilder;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ArchiveHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DependencyCacheHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.LoggingHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ProcessHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ResourceHelper;
+import io.vavr.Lazy;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.zeroturnaround.zip.ZipUtil;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class BasicNodeBuilder implements NodeBuilder {
+    private static final String PACKAGE_JSON = "package.json";
+    private static final String PACKAGE_LOCK_JSON = "package-lock.json";
+    private static final String NPM_CACHE_NAME = "npm";
     private final Logger log = LoggerFactory.getLogger(BasicNodeBuilder.class);
+    private final Lazy<String> nodeVersion = Lazy.of(this::getNodeVersion);
     @Inject
     ProcessHelper processHelper;
     @Inject
@@ -29,6 +37,10 @@ public class BasicNodeBuilder implements NodeBuilder {
     ResourceHelper resourceHelper;
     @Inject
     IoHelper ioHelper;
+    @Inject
+    ArchiveHelper archiveHelper;
+    @Inject
+    DependencyCacheHelper dependencyCacheHelper;
 
     @Inject
     public BasicNodeBuilder() {
@@ -47,7 +59,7 @@ public class BasicNodeBuilder implements NodeBuilder {
     @Override
     public void buildFunctionIfNecessary(FunctionConf functionConf) {
         loggingHelper.logInfoWithName(log, functionConf.getFunctionName(), "Copying Greengrass SDK");
-        copySdk(log, functionConf, resourceHelper, ioHelper);
+        copySdk(log, functionConf, resourceHelper, ioHelper, dependencyCacheHelper);
 
         if (hasDependencies(functionConf.getBuildDirectory())) {
             loggingHelper.logInfoWithName(log, functionConf.getFunctionName(), "Installing Node dependencies");
@@ -60,25 +72,54 @@ public class BasicNodeBuilder implements NodeBuilder {
 
         File tempFile = Try.of(() -> ioHelper.getTempFile("node-lambda-build", "zip")).get();
 
-        // Create the deployment package
-        ZipUtil.pack(new File(functionConf.getBuildDirectory().toString()), tempFile);
+        // Create the deployment package, identical sources always produce an identical package
+        archiveHelper.zipDirectory(functionConf.getBuildDirectory(), tempFile);
 
         moveDeploymentPackage(functionConf, tempFile);
     }
 
     @Override
     public boolean hasDependencies(Path buildDirectory) {
-        return buildDirectory.resolve("package.json").toFile().exists();
+        return buildDirectory.resolve(PACKAGE_JSON).toFile().exists();
     }
 
     private void installDependencies(FunctionConf functionConf) {
+        Path buildDirectory = functionConf.getBuildDirectory();
+
+        if (functionConf.isDependencyCacheDisabled()) {
+            runNpm(functionConf, buildDirectory);
+            return;
+        }
+
+        // The Node version is part of the key because native modules are built against a specific Node ABI
+        Path[] dependencyFiles = {buildDirectory.resolve(PACKAGE_JSON), buildDirectory.resolve(PACKAGE_LOCK_JSON)};
+        String cacheKey = dependencyCacheHelper.getCacheKey(dependencyFiles, nodeVersion.get());
+
+        dependencyCacheHelper.installDependencies(NPM_CACHE_NAME, cacheKey, buildDirectory, targetDirectory -> installIntoCache(functionConf, dependencyFiles, targetDirectory));
+    }
+
+    private void installIntoCache(FunctionConf functionConf, Path[] dependencyFiles, Path targetDirectory) throws IOException {
+        // npm always installs next to package.json so install from a copy of it, only node_modules goes into the cache
+        for (Path dependencyFile : dependencyFiles) {
+            if (dependencyFile.toFile().exists()) {
+                Files.copy(dependencyFile, targetDirectory.resolve(dependencyFile.getFileName()));
+            }
+        }
+
+        runNpm(functionConf, targetDirectory);
+
+        Files.deleteIfExists(targetDirectory.resolve(PACKAGE_JSON));
+        Files.deleteIfExists(targetDirectory.resolve(PACKAGE_LOCK_JSON));
+    }
+
+    private void runNpm(FunctionConf functionConf, Path directory) {
         loggingHelper.logInfoWithName(log, functionConf.getFunctionName(), "Retrieving Node dependencies");
         List<String> programAndArguments = new ArrayList<>();
         programAndArguments.add("npm");
         programAndArguments.add("install");
 
         ProcessBuilder processBuilder = processHelper.getProcessBuilder(programAndArguments);
-        processBuilder.directory(new File(functionConf.getBuildDirectory().toString()));
+        processBuilder.directory(directory.toFile());
 
         List<String> stdoutStrings = new ArrayList<>();
         List<String> stderrStrings = new ArrayList<>();
@@ -91,6 +132,20 @@ public class BasicNodeBuilder implements NodeBuilder {
         }
     }
 
+    private String getNodeVersion() {
+        List<String> programAndArguments = new ArrayList<>();
+        programAndArguments.add("node");
+        programAndArguments.add("--version");
+
+        ProcessBuilder processBuilder = processHelper.getProcessBuilder(programAndArguments);
+
+        List<String> stdoutStrings = new ArrayList<>();
+
+        processHelper.getOutputFromProcess(log, processBuilder, true, Optional.of(stdoutStrings::add), Optional.empty());
+
+        return String.join("\n", stdoutStrings);
+    }
+
     @Override
     public Optional<String> verifyHandlerExists(FunctionConf functionConf) {
         // TODO: Implement me!
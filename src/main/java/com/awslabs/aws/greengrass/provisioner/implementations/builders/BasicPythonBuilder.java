@@ -3,14 +3,16 @@ package com.awslabs.aws.greengrass.provisioner.implementations.builders;
 import com.awslabs.aws.greengrass.provisioner.data.SDK;
 import com.awslabs.aws.greengrass.provisioner.data.conf.FunctionConf;
 import com.awslabs.aws.greengrass.provisioner.interfaces.builders.PythonBuilder;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ArchiveHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DependencyCacheHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.LoggingHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ProcessHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ResourceHelper;
+import io.vavr.Lazy;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.zeroturnaround.zip.ZipUtil;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -30,6 +32,10 @@ public abstract class BasicPythonBuilder implements PythonBuilder {
     private final String DIST_INFO = ".dist-info";
     private final String BIN = "bin";
     private final String INIT_PY = "__init__.py";
+    private final String PYCACHE = "__pycache__";
+    private final String PYC = ".pyc";
+    private final String PIP_CACHE_NAME = "pip";
+    private final Lazy<String> pipVersion = Lazy.of(this::getPipVersion);
     @Inject
     ProcessHelper processHelper;
     @Inject
@@ -38,6 +44,10 @@ public abstract class BasicPythonBuilder implements PythonBuilder {
     ResourceHelper resourceHelper;
     @Inject
     IoHelper ioHelper;
+    @Inject
+    ArchiveHelper archiveHelper;
+    @Inject
+    DependencyCacheHelper dependencyCacheHelper;
 
     @Inject
     public BasicPythonBuilder() {
@@ -59,7 +69,7 @@ public abstract class BasicPythonBuilder implements PythonBuilder {
         List<Path> beforeSnapshot = getDirectorySnapshot(functionConf);
 
         loggingHelper.logInfoWithName(log, functionConf.getFunctionName(), "Copying Greengrass SDK");
-        copySdk(log, functionConf, resourceHelper, ioHelper);
+        copySdk(log, functionConf, resourceHelper, ioHelper, dependencyCacheHelper);
 
         if (hasDependencies(functionConf.getBuildDirectory())) {
             loggingHelper.logInfoWithName(log, functionConf.getFunctionName(), "Installing Python dependencies");
@@ -98,7 +108,8 @@ public abstract class BasicPythonBuilder implements PythonBuilder {
                 .map(path -> path.resolve(INIT_PY).toFile())
                 .forEach(this::touchAndIgnoreExceptions);
 
-        ZipUtil.pack(functionConf.getBuildDirectory().toFile(), tempFile);
+        // Compiled bytecode embeds source timestamps, leave it out so identical sources produce an identical package
+        archiveHelper.zipDirectory(functionConf.getBuildDirectory(), tempFile, this::isPythonBytecode);
 
         moveDeploymentPackage(functionConf, tempFile);
     }
@@ -108,7 +119,27 @@ public abstract class BasicPythonBuilder implements PythonBuilder {
         return buildDirectory.resolve(REQUIREMENTS_TXT).toFile().exists();
     }
 
+    private boolean isPythonBytecode(Path path) {
+        String filename = path.getFileName().toString();
+
+        return filename.equals(PYCACHE) || filename.endsWith(PYC);
+    }
+
     private void installDependencies(FunctionConf functionConf) {
+        Path buildDirectory = functionConf.getBuildDirectory();
+
+        if (functionConf.isDependencyCacheDisabled()) {
+            runPip(functionConf, buildDirectory);
+            return;
+        }
+
+        // The interpreter version is part of the key because pip picks different wheels for different Python versions
+        String cacheKey = dependencyCacheHelper.getCacheKey(new Path[]{buildDirectory.resolve(REQUIREMENTS_TXT)}, getPip(), pipVersion.get());
+
+        dependencyCacheHelper.installDependencies(PIP_CACHE_NAME, cacheKey, buildDirectory, targetDirectory -> runPip(functionConf, targetDirectory));
+    }
+
+    private void runPip(FunctionConf functionConf, Path targetDirectory) {
         loggingHelper.logInfoWithName(log, functionConf.getFunctionName(), "Retrieving Python dependencies");
 
         List<String> programAndArguments = new ArrayList<>();
@@ -118,7 +149,7 @@ public abstract class BasicPythonBuilder implements PythonBuilder {
         programAndArguments.add("-r");
         programAndArguments.add(REQUIREMENTS_TXT);
         programAndArguments.add("-t");
-        programAndArguments.add(".");
+        programAndArguments.add(targetDirectory.toString());
         // add additional argument so ubuntu systems use the right pip
         programAndArguments.add("--system");
 
@@ -151,18 +182,23 @@ public abstract class BasicPythonBuilder implements PythonBuilder {
     protected abstract String getPip();
 
     private boolean isCorrectPipVersion() {
+        // We expect pip 19.x only!
+        return pipVersion.get().startsWith("pip 19.");
+    }
+
+    private String getPipVersion() {
         List<String> programAndArguments = new ArrayList<>();
         programAndArguments.add(getPip());
         programAndArguments.add("--version");
 
         ProcessBuilder processBuilder = processHelper.getProcessBuilder(programAndArguments);
 
-        String stdoutStrings = "";
+        List<String> stdoutStrings = new ArrayList<>();
 
-        processHelper.getOutputFromProcess(log, processBuilder, true, Optional.of(stdoutStrings::concat), Optional.empty());
+        processHelper.getOutputFromProcess(log, processBuilder, true, Optional.of(stdoutStrings::add), Optional.empty());
 
-        // We expect pip 19.x only!
-        return stdoutStrings.startsWith("pip 19.");
+        // Looks like "pip 19.2.3 from /usr/lib/python3/dist-packages/pip (python 3.7)"
+        return String.join("\n", stdoutStrings);
     }
 
     private void touchAndIgnoreExceptions(File file) {
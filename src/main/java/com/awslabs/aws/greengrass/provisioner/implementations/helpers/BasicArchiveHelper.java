@@ -3,16 +3,44 @@ package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 import com.awslabs.aws.greengrass.provisioner.data.ImmutableVirtualTarEntry;
 import com.awslabs.aws.greengrass.provisioner.data.VirtualTarEntry;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ArchiveHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
+import io.vavr.CheckedFunction0;
+import io.vavr.control.Try;
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.kamranzafar.jtar.TarEntry;
 import org.kamranzafar.jtar.TarHeader;
 import org.kamranzafar.jtar.TarOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.io.*;
-import java.util.List;
-import java.util.Optional;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
 
 public class BasicArchiveHelper implements ArchiveHelper {
+    private static final String FILE_PROTOCOL = "file";
+    private static final int COPY_BUFFER_SIZE = 65536;
+    private static final String META_INF = "META-INF/";
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+    // Every zip entry gets this timestamp. It is built in the local time zone so the DOS date/time fields are the same everywhere
+    private static final long NORMALIZED_ZIP_ENTRY_TIME = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+    private static final int NORMALIZED_FILE_PERMISSIONS = 0644;
+    private static final int NORMALIZED_EXECUTABLE_PERMISSIONS = 0755;
+    private final Logger log = LoggerFactory.getLogger(BasicArchiveHelper.class);
+    @Inject
+    IoHelper ioHelper;
+
     @Inject
     public BasicArchiveHelper() {
     }
@@ -27,56 +55,290 @@ public class BasicArchiveHelper implements ArchiveHelper {
         virtualTarEntries.get().add(createVirtualTarEntry(filename, content, permissions));
     }
 
+    @Override
+    public void addVirtualTarEntry(Optional<List<VirtualTarEntry>> virtualTarEntries, String filename, Path path, int permissions) {
+        if (!virtualTarEntries.isPresent()) {
+            // This makes it safe to attempt to add entries to archives the user hasn't requested without crashing
+            return;
+        }
+
+        virtualTarEntries.get().add(createVirtualTarEntry(filename, path, permissions));
+    }
+
+    @Override
+    public void addVirtualTarEntry(Optional<List<VirtualTarEntry>> virtualTarEntries, String filename, URL url, int permissions) {
+        if (!virtualTarEntries.isPresent()) {
+            // This makes it safe to attempt to add entries to archives the user hasn't requested without crashing
+            return;
+        }
+
+        virtualTarEntries.get().add(createVirtualTarEntry(filename, url, permissions));
+    }
+
     @Override
     public VirtualTarEntry createVirtualTarEntry(String filename, byte[] content, int permissions) {
-        TarEntry tarEntry = new TarEntry(TarHeader.createHeader(filename, content.length, System.currentTimeMillis() / 1000, false, permissions));
+        return createVirtualTarEntry(filename, content.length, () -> new ByteArrayInputStream(content), permissions);
+    }
+
+    @Override
+    public VirtualTarEntry createVirtualTarEntry(String filename, Path path, int permissions) {
+        long size = Try.of(() -> Files.size(path)).get();
 
-        InputStream inputStream;
+        return createVirtualTarEntry(filename, size, () -> Files.newInputStream(path), permissions);
+    }
+
+    @Override
+    public VirtualTarEntry createVirtualTarEntry(String filename, URL url, int permissions) {
+        if (FILE_PROTOCOL.equals(url.getProtocol())) {
+            // Local files can be read directly when the archive is written
+            return createVirtualTarEntry(filename, Try.of(() -> Paths.get(url.toURI())).get(), permissions);
+        }
+
+        // Resources inside the JAR normally report their length, this avoids reading them until the archive is written
+        long size = Try.of(() -> getContentLength(url)).get();
+
+        if (size >= 0) {
+            return createVirtualTarEntry(filename, size, url::openStream, permissions);
+        }
 
-        inputStream = new ByteArrayInputStream(content);
+        // The length is unknown and the tar header needs it up front, spool the content to a temp file instead of memory
+        File tempFile = Try.of(() -> ioHelper.getTempFile("virtual-tar-entry", "tmp")).get();
+
+        Try.withResources(url::openStream)
+                .of(inputStream -> Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING))
+                .get();
+
+        return createVirtualTarEntry(filename, tempFile.toPath(), permissions);
+    }
+
+    private long getContentLength(URL url) throws IOException {
+        URLConnection urlConnection = url.openConnection();
+
+        try {
+            return urlConnection.getContentLengthLong();
+        } finally {
+            // Getting the length connects, release the connection since the content is opened again when the archive is written
+            if (urlConnection instanceof HttpURLConnection) {
+                ((HttpURLConnection) urlConnection).disconnect();
+            } else {
+                Try.run(() -> urlConnection.getInputStream().close());
+            }
+        }
+    }
+
+    @Override
+    public VirtualTarEntry createVirtualTarEntry(String filename, long size, CheckedFunction0<InputStream> inputStreamSupplier, int permissions) {
+        TarEntry tarEntry = new TarEntry(TarHeader.createHeader(filename, size, System.currentTimeMillis() / 1000, false, permissions));
 
         return ImmutableVirtualTarEntry.builder()
-                .content(content)
                 .filename(filename)
                 .permissions(permissions)
                 .tarEntry(tarEntry)
-                .inputStream(inputStream)
+                .inputStreamSupplier(inputStreamSupplier)
                 .build();
     }
 
     @Override
-    public Optional<ByteArrayOutputStream> tar(Optional<List<VirtualTarEntry>> virtualTarEntryList) throws IOException {
+    public Void tar(Optional<List<VirtualTarEntry>> virtualTarEntryList, OutputStream outputStream) throws IOException {
         if (!virtualTarEntryList.isPresent()) {
             // This makes it safe to attempt to build archives the user hasn't requested without crashing
-            return Optional.empty();
+            return null;
         }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // Create a TarOutputStream that writes directly to the caller's stream, nothing is buffered in memory
+        TarOutputStream out = new TarOutputStream(outputStream);
 
-        // Create a TarOutputStream
-        TarOutputStream out = new TarOutputStream(baos);
+        byte[] data = new byte[COPY_BUFFER_SIZE];
 
-        // Loop through all of the entries and write them into the byte array output stream
+        // Loop through all of the entries and write them into the output stream
         for (VirtualTarEntry virtualTarEntry : virtualTarEntryList.get()) {
             // Put the tar entry/header information for this file (does not write the content!)
             out.putNextEntry(virtualTarEntry.getTarEntry());
 
-            // Grab the file and write its actual contents to the stream
-            BufferedInputStream origin = new BufferedInputStream(virtualTarEntry.getInputStream());
+            // Open the content only now and stream it into the archive
+            try (InputStream origin = Try.of(virtualTarEntry.getInputStreamSupplier()).get()) {
+                int count;
 
-            int count;
-            byte data[] = new byte[2048];
-
-            while ((count = origin.read(data)) != -1) {
-                out.write(data, 0, count);
+                while ((count = origin.read(data)) != -1) {
+                    out.write(data, 0, count);
+                }
             }
 
             out.flush();
-            origin.close();
         }
 
         out.close();
 
-        return Optional.of(baos);
+        return null;
+    }
+
+    @Override
+    public void zipDirectory(Path directory, File zipFile) {
+        zipDirectory(directory, zipFile, path -> false);
+    }
+
+    @Override
+    public void zipDirectory(Path directory, File zipFile, Predicate<Path> excludePredicate) {
+        // Sorted by entry name so the archive never depends on the order the filesystem returns files in
+        SortedMap<String, Path> entries = new TreeMap<>(getZipEntryComparator());
+
+        getPathsToZip(directory).stream()
+                .filter(path -> !path.equals(directory))
+                .filter(path -> !excludePredicate.test(path))
+                .forEach(path -> entries.put(getZipEntryName(directory, path), path));
+
+        Try.withResources(() -> getNormalizedZipArchiveOutputStream(zipFile))
+                .of(zipArchiveOutputStream -> writeZipEntries(zipArchiveOutputStream, entries))
+                .get();
+    }
+
+    private List<Path> getPathsToZip(Path directory) {
+        List<Path> paths = new ArrayList<>();
+
+        // Symbolic links are followed (e.g. packages linked into a build directory), a link back to a directory that is
+        //   already being walked is skipped instead of being followed forever
+        Try.of(() -> Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes basicFileAttributes) {
+                paths.add(path);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes basicFileAttributes) {
+                if (basicFileAttributes.isSymbolicLink()) {
+                    // The link couldn't be followed, there is nothing to put in the archive
+                    log.warn("Skipping broken symbolic link [" + path + "]");
+                } else {
+                    paths.add(path);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException ioException) throws IOException {
+                if (!(ioException instanceof FileSystemLoopException)) {
+                    throw ioException;
+                }
+
+                log.warn("Skipping [" + path + "], it links to a directory that contains it");
+
+                return FileVisitResult.CONTINUE;
+            }
+        })).get();
+
+        return paths;
+    }
+
+    private Void writeZipEntries(ZipArchiveOutputStream zipArchiveOutputStream, SortedMap<String, Path> entries) throws IOException {
+        for (Map.Entry<String, Path> entry : entries.entrySet()) {
+            Path path = entry.getValue();
+
+            if (path.toFile().isDirectory()) {
+                putNormalizedZipEntry(zipArchiveOutputStream, entry.getKey(), true, true, Optional.empty());
+                continue;
+            }
+
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                putNormalizedZipEntry(zipArchiveOutputStream, entry.getKey(), false, Files.isExecutable(path), Optional.of(inputStream));
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void normalizeZip(File zipFile) {
+        File tempFile = Try.of(() -> ioHelper.getTempFile("normalized", "zip")).get();
+
+        Try.withResources(() -> new ZipFile(zipFile), () -> getNormalizedZipArchiveOutputStream(tempFile))
+                .of(this::copyNormalizedZipEntries)
+                .get();
+
+        Try.of(() -> Files.move(tempFile.toPath(), zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING)).get();
+    }
+
+    private Void copyNormalizedZipEntries(ZipFile zipFile, ZipArchiveOutputStream zipArchiveOutputStream) throws IOException {
+        List<ZipArchiveEntry> zipArchiveEntries = Collections.list(zipFile.getEntries());
+        zipArchiveEntries.sort(Comparator.comparing(ZipArchiveEntry::getName, getZipEntryComparator()));
+
+        for (ZipArchiveEntry zipArchiveEntry : zipArchiveEntries) {
+            boolean executable = (zipArchiveEntry.getUnixMode() & 0100) != 0;
+
+            if (zipArchiveEntry.isDirectory()) {
+                putNormalizedZipEntry(zipArchiveOutputStream, zipArchiveEntry.getName(), true, true, Optional.empty());
+                continue;
+            }
+
+            try (InputStream inputStream = zipFile.getInputStream(zipArchiveEntry)) {
+                putNormalizedZipEntry(zipArchiveOutputStream, zipArchiveEntry.getName(), false, executable, Optional.of(inputStream));
+            }
+        }
+
+        return null;
+    }
+
+    private ZipArchiveOutputStream getNormalizedZipArchiveOutputStream(File zipFile) throws IOException {
+        // Writing to a file (not a stream) lets the sizes go in the local headers instead of data descriptors
+        ZipArchiveOutputStream zipArchiveOutputStream = new ZipArchiveOutputStream(zipFile);
+        zipArchiveOutputStream.setMethod(ZipArchiveOutputStream.DEFLATED);
+        zipArchiveOutputStream.setLevel(Deflater.DEFAULT_COMPRESSION);
+        zipArchiveOutputStream.setEncoding(StandardCharsets.UTF_8.name());
+
+        return zipArchiveOutputStream;
+    }
+
+    private void putNormalizedZipEntry(ZipArchiveOutputStream zipArchiveOutputStream, String name, boolean directory, boolean executable, Optional<InputStream> optionalInputStream) throws IOException {
+        String entryName = (directory && !name.endsWith("/")) ? name + "/" : name;
+
+        ZipArchiveEntry zipArchiveEntry = new ZipArchiveEntry(entryName);
+        zipArchiveEntry.setTime(NORMALIZED_ZIP_ENTRY_TIME);
+
+        if (directory) {
+            zipArchiveEntry.setUnixMode(UnixStat.DIR_FLAG | NORMALIZED_EXECUTABLE_PERMISSIONS);
+        } else {
+            zipArchiveEntry.setUnixMode(UnixStat.FILE_FLAG | (executable ? NORMALIZED_EXECUTABLE_PERMISSIONS : NORMALIZED_FILE_PERMISSIONS));
+        }
+
+        zipArchiveOutputStream.putArchiveEntry(zipArchiveEntry);
+
+        if (optionalInputStream.isPresent()) {
+            InputStream inputStream = optionalInputStream.get();
+            byte[] data = new byte[COPY_BUFFER_SIZE];
+            int count;
+
+            while ((count = inputStream.read(data)) != -1) {
+                zipArchiveOutputStream.write(data, 0, count);
+            }
+        }
+
+        zipArchiveOutputStream.closeArchiveEntry();
+    }
+
+    private String getZipEntryName(Path directory, Path path) {
+        // Zip entries always use forward slashes
+        String name = directory.relativize(path).toString().replace(File.separatorChar, '/');
+
+        return path.toFile().isDirectory() ? name + "/" : name;
+    }
+
+    private Comparator<String> getZipEntryComparator() {
+        // Keep META-INF/ and the manifest at the start so JarInputStream can still find the manifest, everything else is sorted by name
+        return Comparator.comparingInt(this::getZipEntryPriority)
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    private int getZipEntryPriority(String name) {
+        if (name.equals(META_INF)) {
+            return 0;
+        }
+
+        if (name.equals(MANIFEST)) {
+            return 1;
+        }
+
+        return 2;
     }
 }
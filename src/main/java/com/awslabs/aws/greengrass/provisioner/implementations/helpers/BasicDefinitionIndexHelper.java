@@ -0,0 +1,423 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.*;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.greengrass.GreengrassClient;
+import software.amazon.awssdk.services.greengrass.model.*;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.awslabs.aws.greengrass.provisioner.implementations.helpers.BasicGlobalDefaultHelper.GLOBAL_DEFAULTS_DIRECTORY;
+
+public class BasicDefinitionIndexHelper implements DefinitionIndexHelper {
+    private static final long TIME_TO_LIVE_IN_MILLISECONDS = TimeUnit.HOURS.toMillis(1);
+    // Misses usually come right before creating something, reload first so we don't create a duplicate of something created elsewhere
+    private static final long RELOAD_ON_MISS_AFTER_MILLISECONDS = TimeUnit.SECONDS.toMillis(10);
+    private static final String PERSIST_DEFINITION_INDEX = "conf.persistDefinitionIndex";
+    private static final String CACHE = "cache";
+    private static final String LOADED_AT = ".loadedAt";
+    private static final String NAME = ".name.";
+    private static final String ID = ".id.";
+    // Shared by every instance since Guice creates a new helper for every injection, guarded by synchronizing on the map
+    private static final Map<IndexType, CompletableFuture<Index>> INDEXES = new EnumMap<>(IndexType.class);
+    // Each list can only be paged sequentially but the different lists can be loaded at the same time
+    private static final ExecutorService INDEX_LOADER = Executors.newFixedThreadPool(IndexType.values().length, BasicDefinitionIndexHelper::newDaemonThread);
+    // Read once by the first lookup, the other lookups wait on it so they don't start loads the persisted indexes make unnecessary. Guarded by synchronizing on INDEXES.
+    private static CompletableFuture<Map<IndexType, Index>> persistedIndexes = null;
+    // Guarded by synchronizing on INDEXES
+    private static boolean persistedIndexesApplied = false;
+    // The account and region never change while running so the file is only located once, empty when persistence is disabled
+    private static volatile Optional<Path> persistedIndexPath = Optional.empty();
+    private final Logger log = LoggerFactory.getLogger(BasicDefinitionIndexHelper.class);
+    @Inject
+    GreengrassClient greengrassClient;
+    @Inject
+    GlobalDefaultHelper globalDefaultHelper;
+    @Inject
+    GGConstants ggConstants;
+    @Inject
+    IamHelper iamHelper;
+    @Inject
+    AwsHelper awsHelper;
+
+    @Inject
+    public BasicDefinitionIndexHelper() {
+    }
+
+    private static Thread newDaemonThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "definition-index");
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
+    static void forgetPersistedIndexes() {
+        synchronized (INDEXES) {
+            INDEXES.clear();
+            persistedIndexes = null;
+            persistedIndexesApplied = false;
+            persistedIndexPath = Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<String> getGroupId(String groupNameOrGroupId) {
+        return getId(IndexType.GROUPS, groupNameOrGroupId, true);
+    }
+
+    @Override
+    public Optional<String> getCoreDefinitionId(String coreDefinitionName) {
+        return getId(IndexType.CORE_DEFINITIONS, coreDefinitionName, false);
+    }
+
+    @Override
+    public Optional<String> getDeviceDefinitionId(String deviceDefinitionName) {
+        return getId(IndexType.DEVICE_DEFINITIONS, deviceDefinitionName, false);
+    }
+
+    @Override
+    public void putGroup(String groupName, String groupId) {
+        put(IndexType.GROUPS, groupName, groupId);
+    }
+
+    @Override
+    public void putCoreDefinition(String coreDefinitionName, String coreDefinitionId) {
+        put(IndexType.CORE_DEFINITIONS, coreDefinitionName, coreDefinitionId);
+    }
+
+    @Override
+    public void putDeviceDefinition(String deviceDefinitionName, String deviceDefinitionId) {
+        put(IndexType.DEVICE_DEFINITIONS, deviceDefinitionName, deviceDefinitionId);
+    }
+
+    @Override
+    public void invalidate() {
+        synchronized (INDEXES) {
+            INDEXES.clear();
+        }
+    }
+
+    private Optional<String> getId(IndexType indexType, String nameOrId, boolean matchIds) {
+        Index index = getIndex(indexType, false);
+        Optional<String> optionalId = index.find(nameOrId, matchIds);
+
+        if (!optionalId.isPresent() && (index.getAgeInMilliseconds() > RELOAD_ON_MISS_AFTER_MILLISECONDS)) {
+            index = getIndex(indexType, true);
+            optionalId = index.find(nameOrId, matchIds);
+        }
+
+        return optionalId;
+    }
+
+    private void put(IndexType indexType, String name, String id) {
+        CompletableFuture<Index> future;
+
+        synchronized (INDEXES) {
+            future = INDEXES.get(indexType);
+        }
+
+        if ((future == null) || !future.isDone() || future.isCompletedExceptionally()) {
+            // Not loaded yet, the next load will pick this up from the API
+            return;
+        }
+
+        future.join().put(name, id);
+
+        saveIfNecessary();
+    }
+
+    private Index getIndex(IndexType indexType, boolean forceReload) {
+        CompletableFuture<Map<IndexType, Index>> persistedIndexesFuture;
+        boolean readPersistedIndexes;
+
+        synchronized (INDEXES) {
+            readPersistedIndexes = (persistedIndexes == null);
+
+            if (readPersistedIndexes) {
+                persistedIndexes = new CompletableFuture<>();
+            }
+
+            persistedIndexesFuture = persistedIndexes;
+        }
+
+        if (readPersistedIndexes) {
+            // Finding the file needs the account ID and region, don't hold the lock while waiting on those requests
+            persistedIndexesFuture.complete(loadPersistedIndexes());
+        }
+
+        Map<IndexType, Index> persistedIndexesToApply = persistedIndexesFuture.join();
+
+        CompletableFuture<Index> future;
+
+        synchronized (INDEXES) {
+            if (INDEXES.isEmpty()) {
+                // Nothing is loaded, load everything at once since a lookup of one type is usually followed by the others
+                // The persisted indexes are only useful at startup, after that they are never fresher than the ones in memory
+                startLoadingAll(persistedIndexesApplied ? Collections.emptyMap() : persistedIndexesToApply);
+            }
+
+            persistedIndexesApplied = true;
+
+            future = INDEXES.get(indexType);
+
+            if (forceReload || isUnusable(future)) {
+                future = startLoading(indexType);
+            }
+        }
+
+        return Try.of(future::join)
+                .getOrElseThrow(throwable -> throwable.getCause() instanceof RuntimeException ? (RuntimeException) throwable.getCause() : new RuntimeException(throwable.getCause()));
+    }
+
+    private boolean isUnusable(CompletableFuture<Index> future) {
+        if (future == null) {
+            return true;
+        }
+
+        if (!future.isDone()) {
+            // Still loading, wait for it
+            return false;
+        }
+
+        return future.isCompletedExceptionally() || (future.join().getAgeInMilliseconds() > TIME_TO_LIVE_IN_MILLISECONDS);
+    }
+
+    private void startLoadingAll(Map<IndexType, Index> persistedIndexes) {
+        for (IndexType indexType : IndexType.values()) {
+            Optional<Index> optionalIndex = Optional.ofNullable(persistedIndexes.get(indexType))
+                    .filter(index -> index.getAgeInMilliseconds() <= TIME_TO_LIVE_IN_MILLISECONDS);
+
+            if (optionalIndex.isPresent()) {
+                INDEXES.put(indexType, CompletableFuture.completedFuture(optionalIndex.get()));
+            } else {
+                startLoading(indexType);
+            }
+        }
+    }
+
+    private CompletableFuture<Index> startLoading(IndexType indexType) {
+        CompletableFuture<Index> future = CompletableFuture.supplyAsync(() -> load(indexType), INDEX_LOADER);
+
+        INDEXES.put(indexType, future);
+
+        future.thenRunAsync(this::saveIfNecessary, INDEX_LOADER);
+
+        return future;
+    }
+
+    private Index load(IndexType indexType) {
+        log.debug("Loading the " + indexType.name().toLowerCase() + " index");
+
+        switch (indexType) {
+            case GROUPS:
+                return loadGroups();
+            case CORE_DEFINITIONS:
+                return loadCoreDefinitions();
+            case DEVICE_DEFINITIONS:
+                return loadDeviceDefinitions();
+            default:
+                throw new RuntimeException("Unexpected index type [" + indexType + "], this is a bug");
+        }
+    }
+
+    private Index loadGroups() {
+        Index index = new Index(System.currentTimeMillis());
+        ListGroupsRequest listGroupsRequest = ListGroupsRequest.builder().build();
+        ListGroupsResponse listGroupsResponse;
+
+        do {
+            listGroupsResponse = greengrassClient.listGroups(listGroupsRequest);
+
+            listGroupsResponse.groups().forEach(groupInformation -> index.putIfAbsent(groupInformation.name(), groupInformation.id()));
+
+            listGroupsRequest = ListGroupsRequest.builder().nextToken(listGroupsResponse.nextToken()).build();
+        } while (listGroupsResponse.nextToken() != null);
+
+        return index;
+    }
+
+    private Index loadCoreDefinitions() {
+        Index index = new Index(System.currentTimeMillis());
+        ListCoreDefinitionsRequest listCoreDefinitionsRequest = ListCoreDefinitionsRequest.builder().build();
+        ListCoreDefinitionsResponse listCoreDefinitionsResponse;
+
+        do {
+            listCoreDefinitionsResponse = greengrassClient.listCoreDefinitions(listCoreDefinitionsRequest);
+
+            listCoreDefinitionsResponse.definitions().forEach(definitionInformation -> index.putIfAbsent(definitionInformation.name(), definitionInformation.id()));
+
+            listCoreDefinitionsRequest = ListCoreDefinitionsRequest.builder().nextToken(listCoreDefinitionsResponse.nextToken()).build();
+        } while (listCoreDefinitionsResponse.nextToken() != null);
+
+        return index;
+    }
+
+    private Index loadDeviceDefinitions() {
+        Index index = new Index(System.currentTimeMillis());
+        ListDeviceDefinitionsRequest listDeviceDefinitionsRequest = ListDeviceDefinitionsRequest.builder().build();
+        ListDeviceDefinitionsResponse listDeviceDefinitionsResponse;
+
+        do {
+            listDeviceDefinitionsResponse = greengrassClient.listDeviceDefinitions(listDeviceDefinitionsRequest);
+
+            listDeviceDefinitionsResponse.definitions().forEach(definitionInformation -> index.putIfAbsent(definitionInformation.name(), definitionInformation.id()));
+
+            listDeviceDefinitionsRequest = ListDeviceDefinitionsRequest.builder().nextToken(listDeviceDefinitionsResponse.nextToken()).build();
+        } while (listDeviceDefinitionsResponse.nextToken() != null);
+
+        return index;
+    }
+
+    ////////////////////////////////////////////////////
+    // Persistence, only used when enabled in defaults //
+    ////////////////////////////////////////////////////
+
+    private boolean isPersistenceEnabled() {
+        return globalDefaultHelper.getGlobalDefaults(ggConstants.getDefaultsConf())
+                .flatMap(config -> Try.of(() -> config.getBoolean(PERSIST_DEFINITION_INDEX)).toJavaOptional())
+                .orElse(false);
+    }
+
+    private Optional<Path> findPersistedIndexPath() {
+        if (!isPersistenceEnabled()) {
+            return Optional.empty();
+        }
+
+        // Groups and definitions are per account and region so they each need their own file
+        return globalDefaultHelper.getHomeDirectory()
+                .map(homeDirectory -> Paths.get(homeDirectory, GLOBAL_DEFAULTS_DIRECTORY, CACHE,
+                        String.join("-", "definition-index", iamHelper.getAccountId(), awsHelper.getCurrentRegion().id()) + ".properties"));
+    }
+
+    private Map<IndexType, Index> loadPersistedIndexes() {
+        return Try.of(() -> {
+            persistedIndexPath = findPersistedIndexPath();
+
+            return persistedIndexPath
+                    .filter(path -> path.toFile().exists())
+                    .map(path -> Try.withResources(() -> Files.newInputStream(path)).of(this::readIndexes).get())
+                    .orElseGet(HashMap::new);
+        })
+                .onFailure(throwable -> log.warn("Could not read the persisted definition index, it will be reloaded [" + throwable.getMessage() + "]"))
+                .getOrElse(HashMap::new);
+    }
+
+    private Map<IndexType, Index> readIndexes(InputStream inputStream) throws IOException {
+        Properties properties = new Properties();
+        properties.load(inputStream);
+
+        Map<IndexType, Index> indexes = new EnumMap<>(IndexType.class);
+
+        for (IndexType indexType : IndexType.values()) {
+            String loadedAt = properties.getProperty(indexType.name() + LOADED_AT);
+
+            if (loadedAt == null) {
+                continue;
+            }
+
+            Index index = new Index(Long.parseLong(loadedAt));
+            String namePrefix = indexType.name() + NAME;
+            String idPrefix = indexType.name() + ID;
+
+            properties.stringPropertyNames().stream()
+                    .filter(key -> key.startsWith(namePrefix))
+                    .forEach(key -> index.putIfAbsent(key.substring(namePrefix.length()), properties.getProperty(key)));
+
+            properties.stringPropertyNames().stream()
+                    .filter(key -> key.startsWith(idPrefix))
+                    .forEach(key -> index.putIfAbsent(null, key.substring(idPrefix.length())));
+
+            indexes.put(indexType, index);
+        }
+
+        return indexes;
+    }
+
+    private void saveIfNecessary() {
+        Try.run(() -> persistedIndexPath.ifPresent(path -> Try.run(() -> writeIndexes(path)).get()))
+                .onFailure(throwable -> log.warn("Could not persist the definition index [" + throwable.getMessage() + "]"));
+    }
+
+    private void writeIndexes(Path path) throws IOException {
+        Properties properties = new Properties();
+
+        synchronized (INDEXES) {
+            INDEXES.forEach((indexType, future) -> {
+                if (!future.isDone() || future.isCompletedExceptionally()) {
+                    return;
+                }
+
+                Index index = future.join();
+                properties.setProperty(indexType.name() + LOADED_AT, String.valueOf(index.loadedAtMillis));
+                index.nameToId.forEach((name, id) -> properties.setProperty(indexType.name() + NAME + name, id));
+                index.ids.forEach(id -> properties.setProperty(indexType.name() + ID + id, id));
+            });
+        }
+
+        Files.createDirectories(path.getParent());
+
+        // Write to a temporary file and move it into place so concurrent runs never read a partial index
+        Path tempPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+        try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+            properties.store(outputStream, null);
+        }
+
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private enum IndexType {
+        GROUPS,
+        CORE_DEFINITIONS,
+        DEVICE_DEFINITIONS
+    }
+
+    private static class Index {
+        private final Map<String, String> nameToId = new ConcurrentHashMap<>();
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+        private final long loadedAtMillis;
+
+        private Index(long loadedAtMillis) {
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        private long getAgeInMilliseconds() {
+            return System.currentTimeMillis() - loadedAtMillis;
+        }
+
+        private void putIfAbsent(String name, String id) {
+            // When names are duplicated the first one listed wins, this matches the old linear scan
+            if (name != null) {
+                nameToId.putIfAbsent(name, id);
+            }
+
+            ids.add(id);
+        }
+
+        private void put(String name, String id) {
+            nameToId.put(name, id);
+            ids.add(id);
+        }
+
+        private Optional<String> find(String nameOrId, boolean matchIds) {
+            Optional<String> optionalId = Optional.ofNullable(nameToId.get(nameOrId));
+
+            if (!optionalId.isPresent() && matchIds && ids.contains(nameOrId)) {
+                optionalId = Optional.of(nameOrId);
+            }
+
+            return optionalId;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DependencyCacheHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GlobalDefaultHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
+import io.vavr.CheckedConsumer;
+import io.vavr.control.Try;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.awslabs.aws.greengrass.provisioner.implementations.helpers.BasicGlobalDefaultHelper.GLOBAL_DEFAULTS_DIRECTORY;
+
+public class BasicDependencyCacheHelper implements DependencyCacheHelper {
+    private static final String CACHE = "cache";
+    private static final String TREE = "tree";
+    private static final String SIZE = "size";
+    private static final String LAST_USED = "last-used";
+    private static final String STAGING_PREFIX = ".";
+    private static final long MAXIMUM_CACHE_SIZE_IN_BYTES = 2L * 1024 * 1024 * 1024;
+    private static final long ABANDONED_STAGING_DIRECTORY_AGE_IN_MILLISECONDS = TimeUnit.DAYS.toMillis(1);
+    // Builds run in parallel and Guice creates a new instance for every injection so the locks must be shared
+    private static final Map<Path, ReentrantLock> CACHE_ENTRY_LOCKS = new ConcurrentHashMap<>();
+    private static final ReentrantLock EVICTION_LOCK = new ReentrantLock();
+    private final Logger log = LoggerFactory.getLogger(BasicDependencyCacheHelper.class);
+    @Inject
+    GlobalDefaultHelper globalDefaultHelper;
+    @Inject
+    IoHelper ioHelper;
+
+    @Inject
+    public BasicDependencyCacheHelper() {
+    }
+
+    @Override
+    public String getCacheKey(Path[] files, String... extraValues) {
+        MessageDigest messageDigest = Try.of(() -> MessageDigest.getInstance(IoHelper.SHA_256)).get();
+
+        for (Path file : files) {
+            // Missing files (e.g. no lockfile) still contribute their name so they can't collide with an empty file
+            messageDigest.update(file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+
+            if (file.toFile().exists()) {
+                messageDigest.update(ioHelper.getSha256(file));
+            }
+
+            messageDigest.update((byte) 0);
+        }
+
+        for (String extraValue : extraValues) {
+            messageDigest.update(extraValue.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+        }
+
+        return ioHelper.toHexString(messageDigest.digest());
+    }
+
+    @Override
+    public void installDependencies(String cacheName, String cacheKey, Path destination, CheckedConsumer<Path> installer) {
+        Optional<Path> optionalCacheDirectory = getCacheDirectory(cacheName);
+
+        if (!optionalCacheDirectory.isPresent()) {
+            log.warn("No home directory found, dependencies will not be cached");
+            Try.run(() -> installer.accept(destination)).get();
+            return;
+        }
+
+        Path cacheDirectory = optionalCacheDirectory.get();
+        Path entryDirectory = cacheDirectory.resolve(cacheKey);
+        ReentrantLock lock = CACHE_ENTRY_LOCKS.computeIfAbsent(entryDirectory, key -> new ReentrantLock());
+
+        lock.lock();
+
+        try {
+            if (entryDirectory.resolve(SIZE).toFile().exists()) {
+                log.debug("Dependency cache hit for [" + cacheName + "/" + cacheKey + "]");
+            } else {
+                log.debug("Dependency cache miss for [" + cacheName + "/" + cacheKey + "]");
+                Try.of(() -> populateEntry(cacheDirectory, entryDirectory, installer)).get();
+            }
+
+            Try.of(() -> markUsed(entryDirectory)).get();
+            Try.of(() -> linkOrCopyTree(entryDirectory.resolve(TREE), destination)).get();
+        } finally {
+            lock.unlock();
+        }
+
+        Try.of(() -> evictIfNecessary(cacheDirectory)).get();
+    }
+
+    private Optional<Path> getCacheDirectory(String cacheName) {
+        return globalDefaultHelper.getHomeDirectory()
+                .map(homeDirectory -> Paths.get(homeDirectory, GLOBAL_DEFAULTS_DIRECTORY, CACHE, cacheName))
+                .map(this::createDirectories);
+    }
+
+    private Path createDirectories(Path path) {
+        return Try.of(() -> Files.createDirectories(path)).get();
+    }
+
+    private Void populateEntry(Path cacheDirectory, Path entryDirectory, CheckedConsumer<Path> installer) throws Throwable {
+        // Install into a staging directory and rename it into place so other processes never see a partial entry
+        Path stagingDirectory = Files.createTempDirectory(cacheDirectory, STAGING_PREFIX + entryDirectory.getFileName());
+
+        try {
+            Path tree = Files.createDirectories(stagingDirectory.resolve(TREE));
+
+            installer.accept(tree);
+
+            Files.write(stagingDirectory.resolve(SIZE), String.valueOf(getTreeSize(tree)).getBytes(StandardCharsets.UTF_8));
+
+            Files.move(stagingDirectory, entryDirectory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // Another process populated this entry first, use theirs
+            log.debug("Dependency cache entry [" + entryDirectory + "] was created by another process");
+        } finally {
+            if (stagingDirectory.toFile().exists()) {
+                FileUtils.deleteDirectory(stagingDirectory.toFile());
+            }
+        }
+
+        return null;
+    }
+
+    private long getTreeSize(Path tree) throws IOException {
+        try (Stream<Path> paths = Files.walk(tree)) {
+            return paths.filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS))
+                    .mapToLong(path -> path.toFile().length())
+                    .sum();
+        }
+    }
+
+    private Void markUsed(Path entryDirectory) throws IOException {
+        Files.write(entryDirectory.resolve(LAST_USED), String.valueOf(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+
+        return null;
+    }
+
+    private Void linkOrCopyTree(Path source, Path destination) throws IOException {
+        // Hard links are much faster than copies but don't work across file systems, after the first failure just copy
+        AtomicBoolean linksSupported = new AtomicBoolean(true);
+        List<Path> paths;
+
+        try (Stream<Path> pathStream = Files.walk(source)) {
+            paths = pathStream.collect(Collectors.toList());
+        }
+
+        // Directories are created first, in walk order so parents always exist before their children
+        for (Path path : paths) {
+            if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                Files.createDirectories(getTarget(source, destination, path));
+            }
+        }
+
+        // Node trees can have tens of thousands of small files so link or copy them in parallel
+        paths.parallelStream()
+                .filter(path -> !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                .forEach(path -> Try.run(() -> linkOrCopyFile(path, getTarget(source, destination, path), linksSupported)).get());
+
+        return null;
+    }
+
+    private Path getTarget(Path source, Path destination, Path path) {
+        return destination.resolve(source.relativize(path).toString());
+    }
+
+    private void linkOrCopyFile(Path path, Path target, AtomicBoolean linksSupported) throws IOException {
+        Files.deleteIfExists(target);
+
+        if (Files.isSymbolicLink(path)) {
+            // Keep links (e.g. node_modules/.bin) as links, they are relative to the tree
+            Files.createSymbolicLink(target, Files.readSymbolicLink(path));
+            return;
+        }
+
+        if (linksSupported.get()) {
+            try {
+                Files.createLink(target, path);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                linksSupported.set(false);
+            }
+        }
+
+        Files.copy(path, target, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    private Void evictIfNecessary(Path cacheDirectory) throws IOException {
+        EVICTION_LOCK.lock();
+
+        try {
+            List<Path> entries;
+
+            try (Stream<Path> paths = Files.list(cacheDirectory)) {
+                entries = paths.collect(Collectors.toList());
+            }
+
+            entries.stream()
+                    .filter(this::isAbandonedStagingDirectory)
+                    .forEach(this::deleteQuietly);
+
+            List<Path> completeEntries = entries.stream()
+                    .filter(path -> path.resolve(SIZE).toFile().exists())
+                    // Least recently used first
+                    .sorted(Comparator.comparingLong(this::getLastUsed))
+                    .collect(Collectors.toList());
+
+            long totalSize = completeEntries.stream()
+                    .mapToLong(this::getSize)
+                    .sum();
+
+            for (Path entry : completeEntries) {
+                if (totalSize <= MAXIMUM_CACHE_SIZE_IN_BYTES) {
+                    break;
+                }
+
+                ReentrantLock lock = CACHE_ENTRY_LOCKS.computeIfAbsent(entry, key -> new ReentrantLock());
+
+                // Never evict an entry that is being copied out right now
+                if (!lock.tryLock()) {
+                    continue;
+                }
+
+                try {
+                    log.debug("Evicting dependency cache entry [" + entry + "]");
+                    totalSize -= getSize(entry);
+                    deleteQuietly(entry);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            EVICTION_LOCK.unlock();
+        }
+
+        return null;
+    }
+
+    private boolean isAbandonedStagingDirectory(Path path) {
+        return path.getFileName().toString().startsWith(STAGING_PREFIX) &&
+                (System.currentTimeMillis() - path.toFile().lastModified() > ABANDONED_STAGING_DIRECTORY_AGE_IN_MILLISECONDS);
+    }
+
+    private long getLastUsed(Path entry) {
+        return readLong(entry.resolve(LAST_USED));
+    }
+
+    private long getSize(Path entry) {
+        return readLong(entry.resolve(SIZE));
+    }
+
+    private long readLong(Path path) {
+        return Try.of(() -> Long.parseLong(new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim()))
+                // Unreadable values sort first so broken entries are evicted early
+                .getOrElse(0L);
+    }
+
+    private void deleteQuietly(Path path) {
+        FileUtils.deleteQuietly(path.toFile());
+    }
+}
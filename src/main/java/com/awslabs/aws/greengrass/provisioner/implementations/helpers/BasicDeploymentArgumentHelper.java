@@ -1,11 +1,14 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
 import com.awslabs.aws.greengrass.provisioner.data.Architecture;
+import com.awslabs.aws.greengrass.provisioner.data.ImmutableLaunchDestination;
+import com.awslabs.aws.greengrass.provisioner.data.LaunchDestination;
 import com.awslabs.aws.greengrass.provisioner.data.arguments.DeploymentArguments;
 import com.awslabs.aws.greengrass.provisioner.docker.EcrDockerHelper;
 import com.awslabs.aws.greengrass.provisioner.implementations.clientproviders.S3ClientProvider;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DeploymentArgumentHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GGConstants;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GGVariables;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GlobalDefaultHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
 import com.beust.jcommander.JCommander;
@@ -20,7 +23,11 @@ import software.amazon.awssdk.services.s3.model.GetBucketLocationResponse;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
 
 import javax.inject.Inject;
-import java.util.Optional;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
 
 public class BasicDeploymentArgumentHelper implements DeploymentArgumentHelper {
     private final Logger log = LoggerFactory.getLogger(BasicDeploymentArgumentHelper.class);
@@ -31,6 +38,8 @@ public class BasicDeploymentArgumentHelper implements DeploymentArgumentHelper {
     @Inject
     GGConstants ggConstants;
     @Inject
+    GGVariables ggVariables;
+    @Inject
     IoHelper ioHelper;
     @Inject
     S3ClientProvider s3ClientProvider;
@@ -109,6 +118,7 @@ public class BasicDeploymentArgumentHelper implements DeploymentArgumentHelper {
         deploymentArguments.s3Directory = getValueOrDefault(deploymentArguments.s3Directory, getStringDefault(defaults, "conf.s3Directory"));
         deploymentArguments.csr = getValueOrDefault(deploymentArguments.csr, getStringDefault(defaults, "conf.csr"));
         deploymentArguments.certificateArn = getValueOrDefault(deploymentArguments.certificateArn, getStringDefault(defaults, "conf.certificateArn"));
+        deploymentArguments.noDependencyCache = getValueOrDefault(deploymentArguments.noDependencyCache, getBooleanDefault(defaults, "conf.noDependencyCache"));
 
         if (deploymentArguments.pushContainer) {
             // If they want to push a container then we have to build it
@@ -155,7 +165,7 @@ public class BasicDeploymentArgumentHelper implements DeploymentArgumentHelper {
             throw new RuntimeException("Can't build a container from inside of Docker yet");
         }
 
-        if ((deploymentArguments.launch != null)) {
+        if ((deploymentArguments.launch != null) || (deploymentArguments.launchHostsFile != null)) {
             // Force script file output with Docker launch
             deploymentArguments.scriptOutput = true;
         }
@@ -240,19 +250,81 @@ public class BasicDeploymentArgumentHelper implements DeploymentArgumentHelper {
         }
 
         if (deploymentArguments.launch != null) {
-            String[] strings = deploymentArguments.launch.split("@");
-
-            if (strings.length != 2) {
-                throw new RuntimeException("Invalid launch destination format. Specify the launch destination as user@host (e.g. pi@192.168.1.5).");
+            if (deploymentArguments.launchHostsFile != null) {
+                throw new RuntimeException("Specify a single launch destination or a launch hosts file, not both");
             }
 
-            deploymentArguments.launchUser = strings[0];
-            deploymentArguments.launchHost = strings[1];
+            LaunchDestination launchDestination = getLaunchDestination(deploymentArguments.launch, Optional.empty());
+
+            deploymentArguments.launchUser = launchDestination.getUser();
+            deploymentArguments.launchHost = launchDestination.getHost();
+            deploymentArguments.launchDestinations = Collections.singletonList(launchDestination);
+        } else if (deploymentArguments.launchHostsFile != null) {
+            deploymentArguments.launchDestinations = getLaunchDestinations(deploymentArguments.launchHostsFile);
+
+            throwIfBootstrapScriptsAreShared(deploymentArguments.launchDestinations, ggVariables.getGgShScriptName(deploymentArguments.groupName));
+        }
+
+        if (deploymentArguments.maxConcurrentLaunches < 1) {
+            throw new RuntimeException("The maximum number of concurrent launches must be at least 1");
         }
 
         return deploymentArguments;
     }
 
+    private List<LaunchDestination> getLaunchDestinations(String launchHostsFile) {
+        // One user@host per line, optionally followed by a bootstrap script, blank lines and comments are ignored
+        Map<String, LaunchDestination> launchDestinations = Try.of(() -> Files.readAllLines(Paths.get(launchHostsFile))).get().stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .filter(line -> !line.startsWith("#"))
+                .map(line -> line.split("\\s+"))
+                .map(fields -> getLaunchDestination(fields[0], (fields.length > 1) ? Optional.of(fields[1]) : Optional.empty()))
+                // A host listed twice is only bootstrapped once
+                .collect(Collectors.toMap(LaunchDestination::getName, launchDestination -> launchDestination, (first, second) -> first, LinkedHashMap::new));
+
+        if (launchDestinations.isEmpty()) {
+            throw new RuntimeException("No launch destinations found in the launch hosts file [" + launchHostsFile + "]");
+        }
+
+        return new ArrayList<>(launchDestinations.values());
+    }
+
+    private void throwIfBootstrapScriptsAreShared(List<LaunchDestination> launchDestinations, String defaultBootstrapScript) {
+        // A bootstrap script holds one core's keys and certificate, hosts that share a script would all connect as the same core
+        Map<String, List<String>> hostsByBootstrapScript = launchDestinations.stream()
+                .collect(Collectors.groupingBy(launchDestination -> Paths.get(launchDestination.getBootstrapScript().orElse(defaultBootstrapScript)).toAbsolutePath().normalize().toString(),
+                        LinkedHashMap::new,
+                        Collectors.mapping(LaunchDestination::getName, Collectors.toList())));
+
+        List<String> sharedBootstrapScripts = hostsByBootstrapScript.entrySet().stream()
+                .filter(entry -> entry.getValue().size() > 1)
+                .map(entry -> "[" + entry.getKey() + "] would be used by " + entry.getValue())
+                .collect(Collectors.toList());
+
+        if (!sharedBootstrapScripts.isEmpty()) {
+            throw new RuntimeException("Every host in the launch hosts file needs its own bootstrap script, otherwise the hosts would all run the same core. Add a bootstrap script after each host. " + String.join(", ", sharedBootstrapScripts));
+        }
+    }
+
+    private LaunchDestination getLaunchDestination(String launch, Optional<String> optionalBootstrapScript) {
+        String[] strings = launch.split("@");
+
+        if (strings.length != 2) {
+            throw new RuntimeException("Invalid launch destination format [" + launch + "]. Specify the launch destination as user@host (e.g. pi@192.168.1.5).");
+        }
+
+        if (optionalBootstrapScript.isPresent() && !new File(optionalBootstrapScript.get()).isFile()) {
+            throw new RuntimeException("The bootstrap script [" + optionalBootstrapScript.get() + "] for [" + launch + "] does not exist");
+        }
+
+        return ImmutableLaunchDestination.builder()
+                .user(strings[0])
+                .host(strings[1])
+                .bootstrapScript(optionalBootstrapScript)
+                .build();
+    }
+
     private GetBucketLocationResponse throwBucketDoesNotExistError(Throwable throwable) {
         throw new RuntimeException("Specified S3 bucket does not exist. The bucket must already exist before running the provisioner");
     }
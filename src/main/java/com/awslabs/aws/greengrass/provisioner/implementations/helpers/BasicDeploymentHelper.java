@@ -3,8 +3,12 @@ package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 import com.awslabs.aws.greengrass.provisioner.data.*;
 import com.awslabs.aws.greengrass.provisioner.data.arguments.DeploymentArguments;
 import com.awslabs.aws.greengrass.provisioner.data.conf.*;
+import com.awslabs.aws.greengrass.provisioner.data.exceptions.SshRecoverableException;
 import com.awslabs.aws.greengrass.provisioner.data.functions.BuildableFunction;
 import com.awslabs.aws.greengrass.provisioner.data.functions.BuildableJavaMavenFunction;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.Task;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskGraph;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskResults;
 import com.awslabs.aws.greengrass.provisioner.docker.BasicProgressHandler;
 import com.awslabs.aws.greengrass.provisioner.docker.EcrDockerHelper;
 import com.awslabs.aws.greengrass.provisioner.docker.OfficialGreengrassImageDockerHelper;
@@ -22,6 +26,7 @@ import com.typesafe.config.*;
 import io.vavr.control.Try;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
+import org.apache.commons.lang.StringUtils;
 import org.awaitility.core.ConditionTimeoutException;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -38,19 +43,20 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import javax.inject.Inject;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -131,10 +137,8 @@ public class BasicDeploymentHelper implements DeploymentHelper {
     S3ClientProvider s3ClientProvider;
     @Inject
     JsonHelper jsonHelper;
-
-    private Optional<List<VirtualTarEntry>> installScriptVirtualTarEntries = Optional.empty();
-    private Optional<List<VirtualTarEntry>> oemVirtualTarEntries = Optional.empty();
-    private Optional<List<VirtualTarEntry>> ggdVirtualTarEntries = Optional.empty();
+    @Inject
+    TaskGraphHelper taskGraphHelper;
 
     @Inject
     public BasicDeploymentHelper() {
@@ -340,105 +344,379 @@ public class BasicDeploymentHelper implements DeploymentHelper {
                     .get();
         }
 
-        // Create the service role and role alias, if necessary
-        Optional<Role> optionalGreengrassServiceRole;
-        Optional<CreateRoleAliasResponse> optionalCreateRoleAliasResponse = Optional.empty();
+        /////////////////////////////////////////////////////////////////////////
+        // Fail early if the group exists and an EC2 launch has been requested //
+        /////////////////////////////////////////////////////////////////////////
 
-        if (!deploymentArguments.serviceRoleExists) {
-            // If the service role does not exist we should create it
-            Role greengrassServiceRole = createServiceRole(deploymentConf);
-            optionalCreateRoleAliasResponse = Optional.of(iotHelper.createRoleAliasIfNecessary(greengrassServiceRole, GREENGRASS_SERVICE_ROLE_NAME));
-            optionalGreengrassServiceRole = Optional.of(greengrassServiceRole);
-        } else {
-            // The service role exists already, do not try to create or modify it
-            optionalGreengrassServiceRole = Optional.empty();
+        if (greengrassHelper.groupExists(deploymentArguments.groupName) && (deploymentArguments.ec2LinuxVersion != null)) {
+            throw new RuntimeException("Group [" + deploymentArguments.groupName + "] already exists, cannot launch another EC2 instance for this group.  You can update the group configuration by not specifying the EC2 launch option.");
         }
 
-        // Create the role for the core, if necessary
-        Role greengrassRole;
+        String coreThingName = ggVariables.getCoreThingName(deploymentArguments.groupName);
+        FunctionIsolationMode defaultFunctionIsolationMode = getDefaultFunctionIsolationMode(deploymentArguments);
+
+        //////////////////////////////////////////////////////////////////////////////
+        // Describe the deployment as a graph so independent steps run concurrently //
+        //////////////////////////////////////////////////////////////////////////////
+
+        TaskGraph taskGraph = new TaskGraph("deployment");
+
+        // IAM and IoT setup
+        Task<Optional<Role>> serviceRoleTask = taskGraph.addTask("Greengrass service role",
+                results -> createServiceRoleIfNecessary(deploymentArguments, deploymentConf));
+        Task<Optional<CreateRoleAliasResponse>> roleAliasTask = taskGraph.addTask("Greengrass service role alias",
+                results -> results.get(serviceRoleTask).map(greengrassServiceRole -> iotHelper.createRoleAliasIfNecessary(greengrassServiceRole, GREENGRASS_SERVICE_ROLE_NAME)),
+                serviceRoleTask);
+        Task<Role> coreRoleTask = taskGraph.addTask("Greengrass core role",
+                results -> getOrCreateGreengrassRole(deploymentArguments, deploymentConf));
+        Task<String> groupTask = taskGraph.addTask("Greengrass group",
+                results -> createGroup(deploymentArguments));
+        Task<String> coreThingTask = taskGraph.addTask("Core thing",
+                results -> createCoreThing(coreThingName));
+        Task<Optional<KeysAndCertificate>> coreKeysAndCertificateTask = taskGraph.addTask("Core keys and certificate",
+                results -> getCoreKeysAndCertificate(deploymentArguments, results.get(groupTask)),
+                groupTask);
+        Task<String> coreCertificateArnTask = taskGraph.addTask("Core certificate ARN",
+                results -> getCoreCertificateArn(deploymentArguments, results.get(coreKeysAndCertificateTask)),
+                coreKeysAndCertificateTask);
+        Task<Void> corePolicyTask = taskGraph.addStep("Core policy",
+                results -> attachCorePolicy(deploymentArguments, deploymentConf, results.get(coreCertificateArnTask)),
+                coreCertificateArnTask);
+        Task<Void> coreThingPrincipalTask = taskGraph.addStep("Core thing principal",
+                results -> iotHelper.attachThingPrincipal(coreThingName, results.get(coreCertificateArnTask)),
+                coreThingTask, coreCertificateArnTask);
+        Task<Void> groupRoleTask = taskGraph.addStep("Group role association",
+                results -> associateRoleToGroup(results.get(coreRoleTask), results.get(groupTask)),
+                coreRoleTask, groupTask);
+        Task<Optional<Role>> lambdaRoleTask = taskGraph.addTask("Lambda role",
+                results -> createLambdaRoleIfNecessary(deploymentConf));
+
+        // Function configuration and builds
+        Task<Map<String, String>> defaultEnvironmentTask = taskGraph.addTask("Default environment",
+                results -> environmentHelper.getDefaultEnvironment(results.get(groupTask), coreThingName, results.get(coreThingTask), deploymentArguments.groupName),
+                groupTask, coreThingTask);
+        Task<List<ModifiableFunctionConf>> functionConfsTask = taskGraph.addTask("Function configurations",
+                results -> getFunctionConfs(deploymentArguments, deploymentConf, results.get(defaultEnvironmentTask), defaultFunctionIsolationMode),
+                defaultEnvironmentTask);
+        Task<List<String>> cloudFormationStacksTask = taskGraph.addTask("CloudFormation stacks",
+                results -> launchCloudFormationStacks(deploymentArguments, results.get(defaultEnvironmentTask), results.get(functionConfsTask)),
+                defaultEnvironmentTask, functionConfsTask);
+        Task<Map<Function, ModifiableFunctionConf>> functionsTask = taskGraph.addTask("Function builds",
+                results -> buildFunctions(results.get(lambdaRoleTask), results.get(functionConfsTask)),
+                lambdaRoleTask, functionConfsTask);
+
+        // GGDs, devices, and subscriptions
+        Task<List<GGDConf>> ggdConfsTask = taskGraph.addTask("GGD configurations",
+                results -> getGgdConfs(deploymentArguments, deploymentConf));
+        Task<Set<String>> ggdThingsTask = taskGraph.addTask("GGD things",
+                results -> createGgdThings(results.get(groupTask), results.get(ggdConfsTask)),
+                groupTask, ggdConfsTask);
+        Task<Set<String>> deviceThingsTask = taskGraph.addTask("Device things",
+                results -> createConnectedShadowThings(results.get(functionsTask), results.get(ggdConfsTask), results.get(ggdThingsTask)),
+                functionsTask, ggdConfsTask, ggdThingsTask);
+        Task<List<Subscription>> subscriptionsTask = taskGraph.addTask("Subscriptions",
+                results -> buildSubscriptions(results.get(functionsTask), results.get(ggdConfsTask)),
+                functionsTask, ggdConfsTask, ggdThingsTask);
+
+        // Definitions and the group version
+        Task<String> coreDefinitionTask = taskGraph.addTask("Core definition",
+                results -> createCoreDefinition(deploymentArguments, deploymentConf, results.get(coreCertificateArnTask), results.get(coreThingTask)),
+                coreCertificateArnTask, coreThingTask);
+        Task<String> loggerDefinitionTask = taskGraph.addTask("Logger definition",
+                results -> createLoggerDefinition());
+        Task<String> resourceDefinitionTask = taskGraph.addTask("Resource definition",
+                results -> createResourceDefinition(results.get(functionConfsTask)),
+                functionConfsTask);
+        Task<String> functionDefinitionTask = taskGraph.addTask("Function definition",
+                results -> createFunctionDefinition(results.get(functionsTask), defaultFunctionIsolationMode),
+                functionsTask);
+        Task<String> deviceDefinitionTask = taskGraph.addTask("Device definition",
+                results -> createDeviceDefinition(deploymentArguments, results.get(deviceThingsTask)),
+                deviceThingsTask);
+        Task<String> subscriptionDefinitionTask = taskGraph.addTask("Subscription definition",
+                results -> createSubscriptionDefinition(results.get(subscriptionsTask)),
+                subscriptionsTask);
+        Task<String> groupVersionTask = taskGraph.addTask("Group version",
+                results -> createGroupVersion(results.get(groupTask),
+                        results.get(coreDefinitionTask),
+                        results.get(functionDefinitionTask),
+                        results.get(subscriptionDefinitionTask),
+                        results.get(deviceDefinitionTask),
+                        results.get(loggerDefinitionTask),
+                        results.get(resourceDefinitionTask)),
+                groupTask, coreDefinitionTask, functionDefinitionTask, subscriptionDefinitionTask, deviceDefinitionTask, loggerDefinitionTask, resourceDefinitionTask,
+                corePolicyTask, coreThingPrincipalTask, groupRoleTask);
+
+        // The output files only need the keys and thing information, not the group version
+        taskGraph.addStep("Output files",
+                results -> buildOutputFiles(deploymentArguments,
+                        results.get(roleAliasTask),
+                        results.get(groupTask),
+                        coreThingName,
+                        results.get(coreThingTask),
+                        results.get(coreKeysAndCertificateTask),
+                        results.get(ggdConfsTask),
+                        results.get(deviceThingsTask),
+                        getGgdPipDependencies(results.get(ggdConfsTask)),
+                        isAnyFunctionRunningAsRoot(results.get(functionConfsTask))),
+                roleAliasTask, groupTask, coreThingTask, coreKeysAndCertificateTask, coreCertificateArnTask, ggdConfsTask, deviceThingsTask, functionConfsTask);
+
+        TaskResults taskResults = taskGraphHelper.execute(taskGraph);
+
+        Optional<Role> optionalGreengrassServiceRole = taskResults.get(serviceRoleTask);
+        Role greengrassRole = taskResults.get(coreRoleTask);
+        String groupId = taskResults.get(groupTask);
+        String groupVersionId = taskResults.get(groupVersionTask);
+        List<String> cloudFormationStacksLaunched = taskResults.get(cloudFormationStacksTask);
 
-        if (deploymentArguments.coreRoleName != null) {
-            Optional<Role> optionalGreengrassRole = iamHelper.getRole(deploymentArguments.coreRoleName);
+        //////////////////////////////////////////////////
+        // Start building the EC2 instance if necessary //
+        //////////////////////////////////////////////////
 
-            if (!optionalGreengrassRole.isPresent()) {
-                throw new RuntimeException("Greengrass core role is not present or GetRole failed due to insufficient permissions on [" + deploymentArguments.coreRoleName + "]");
-            }
+        Optional<String> optionalInstanceId = Optional.empty();
 
-            greengrassRole = optionalGreengrassRole.get();
-        } else {
-            greengrassRole = createGreengrassRole(deploymentConf);
+        if (deploymentArguments.ec2LinuxVersion != null) {
+            log.info("Launching EC2 instance");
+            optionalInstanceId = launchEc2Instance(deploymentArguments.groupName, deploymentArguments.architecture, deploymentArguments.ec2LinuxVersion);
+
+            if (!optionalInstanceId.isPresent()) {
+                // Something went wrong, bail out
+                throw new RuntimeException("Couldn't obtain EC2 instance ID, bailing out");
+            }
         }
 
         ///////////////////////////////////////////////////
-        // Create an AWS Greengrass Group and get its ID //
+        // Start the Docker container build if necessary //
         ///////////////////////////////////////////////////
 
-        if (greengrassHelper.groupExists(deploymentArguments.groupName) && (deploymentArguments.ec2LinuxVersion != null)) {
-            throw new RuntimeException("Group [" + deploymentArguments.groupName + "] already exists, cannot launch another EC2 instance for this group.  You can update the group configuration by not specifying the EC2 launch option.");
+        if (deploymentArguments.buildContainer) {
+            log.info("Configuring container build");
+
+            ecrDockerHelper.setEcrRepositoryName(Optional.ofNullable(deploymentArguments.ecrRepositoryNameString));
+            ecrDockerHelper.setEcrImageName(Optional.ofNullable(deploymentArguments.ecrImageNameString));
+            String imageName = ecrDockerHelper.getImageName();
+            String currentDirectory = System.getProperty(USER_DIR);
+
+            File dockerfile = officialGreengrassImageDockerHelper.getDockerfileForArchitecture(deploymentArguments.architecture);
+            String dockerfileTemplate = ioHelper.readFileAsString(dockerfile);
+            dockerfileTemplate = dockerfileTemplate.replaceAll("GROUP_NAME", deploymentArguments.groupName);
+
+            // Add the group name and UUID so we don't accidentally overwrite an existing file
+            File tempDockerfile = dockerfile.toPath().getParent().resolve(
+                    String.join(".", "Dockerfile", deploymentArguments.groupName, ioHelper.getUuid())).toFile();
+            ioHelper.writeFile(tempDockerfile.toString(), dockerfileTemplate.getBytes());
+            tempDockerfile.deleteOnExit();
+
+            try (DockerClient dockerClient = officialGreengrassImageDockerClientProvider.get()) {
+                log.info("Building container");
+
+                String imageId = dockerClient.build(new File(currentDirectory).toPath(),
+                        basicProgressHandler,
+                        DockerClient.BuildParam.dockerfile(tempDockerfile.toPath()));
+
+                dockerClient.tag(imageId, imageName);
+                pushContainerIfNecessary(deploymentArguments, imageId);
+            } catch (DockerException | InterruptedException | IOException e) {
+                log.error("Container build failed");
+                throw new RuntimeException(e);
+            }
         }
 
-        log.info("Creating a Greengrass group, if necessary");
-        String groupId = greengrassHelper.createGroupIfNecessary(deploymentArguments.groupName);
+        // Create a deployment and wait for it to succeed.  Return if it fails.
+        Try.of(() -> createAndWaitForDeployment(optionalGreengrassServiceRole, Optional.of(greengrassRole), groupId, groupVersionId))
+                .get();
 
-        ////////////////////////////////////
-        // Create things and certificates //
-        ////////////////////////////////////
+        //////////////////////////////////////////////
+        // Launch the Docker container if necessary //
+        //////////////////////////////////////////////
+
+        if (deploymentArguments.dockerLaunch) {
+            log.info("Launching Docker container");
+            String officialGreengrassDockerImage = ggConstants.getOfficialGreengrassDockerImage();
+            officialGreengrassImageDockerHelper.pullImage(officialGreengrassDockerImage);
+            officialGreengrassImageDockerHelper.createAndStartContainer(officialGreengrassDockerImage, deploymentArguments.groupName);
+        }
+
+        ///////////////////////////////////////////////////////
+        // Wait for the EC2 instance to launch, if necessary //
+        ///////////////////////////////////////////////////////
+
+        if (optionalInstanceId.isPresent()) {
+            String instanceId = optionalInstanceId.get();
+
+            DescribeInstancesRequest describeInstancesRequest = DescribeInstancesRequest.builder()
+                    .instanceIds(instanceId)
+                    .build();
+
+            // Describe instances retry policy
+            RetryPolicy<DescribeInstancesResponse> describeInstancesRetryPolicy = new RetryPolicy<DescribeInstancesResponse>()
+                    .handleIf(throwable -> throwable.getMessage().contains(DOES_NOT_EXIST))
+                    .withDelay(Duration.ofSeconds(5))
+                    .withMaxRetries(3)
+                    .onRetry(failure -> log.warn("Waiting for the instance to become visible..."))
+                    .onRetriesExceeded(failure -> log.error("Instance never became visible. Cannot continue."));
+
+            DescribeInstancesResponse describeInstancesResponse = Failsafe.with(describeInstancesRetryPolicy).get(() ->
+                    ec2Client.describeInstances(describeInstancesRequest));
+
+            Optional<Reservation> optionalReservation = describeInstancesResponse.reservations().stream().findFirst();
+
+            if (!optionalReservation.isPresent()) {
+                throw new RuntimeException("Error finding the EC2 reservation to wait for the instance to finish launching, this should never happen");
+            }
+
+            Reservation reservation = optionalReservation.get();
+
+            Optional<Instance> optionalInstance = reservation.instances().stream().findFirst();
+
+            if (!optionalInstance.isPresent()) {
+                throw new RuntimeException("Error finding the EC2 instance to wait for it to finish launching, this should never happen");
+            }
+
+            Instance instance = optionalInstance.get();
+
+            String publicIpAddress = instance.publicIpAddress();
+
+            if (publicIpAddress == null) {
+                throw new RuntimeException("Public IP address returned from EC2 was NULL, skipping EC2 setup");
+            }
+
+            Optional<String> username = Optional.empty();
+
+            if (deploymentArguments.ec2LinuxVersion.equals(EC2LinuxVersion.Ubuntu1804)) {
+                username = Optional.of("ubuntu");
+            }
+
+            if (deploymentArguments.ec2LinuxVersion.equals(EC2LinuxVersion.AmazonLinux2)) {
+                username = Optional.of("ec2-user");
+            }
+
+            if (!username.isPresent()) {
+                throw new RuntimeException("Unexpected EC2 Linux version requested [" + deploymentArguments.ec2LinuxVersion + "], this is a bug 2 [couldn't determine SSH username]");
+            }
+
+            bootstrap(deploymentArguments, Collections.singletonList(ImmutableLaunchDestination.builder()
+                    .user(username.get())
+                    .host(publicIpAddress)
+                    .build()));
+        }
+
+        ///////////////////////////////////////////
+        // Launch a non-EC2 system, if necessary //
+        ///////////////////////////////////////////
+
+        if (deploymentArguments.launchDestinations != null) {
+            bootstrap(deploymentArguments, deploymentArguments.launchDestinations);
+        }
+
+        //////////////////////////////////////////////////////////////////////////
+        // Wait for the CloudFormation stacks to finish launching, if necessary //
+        //////////////////////////////////////////////////////////////////////////
+
+        if (cloudFormationStacksLaunched.size() != 0) {
+            waitForStacksToLaunch(cloudFormationStacksLaunched);
+        }
+
+        return null;
+    }
+
+    public boolean isEmptyDeployment(DeploymentArguments deploymentArguments) {
+        return deploymentArguments.deploymentConfigFilename.equals(EMPTY);
+    }
 
+    private Optional<Role> createServiceRoleIfNecessary(DeploymentArguments deploymentArguments, DeploymentConf deploymentConf) {
+        if (deploymentArguments.serviceRoleExists) {
+            // The service role exists already, do not try to create or modify it
+            return Optional.empty();
+        }
+
+        // If the service role does not exist we should create it
+        return Optional.of(createServiceRole(deploymentConf));
+    }
+
+    private Role getOrCreateGreengrassRole(DeploymentArguments deploymentArguments, DeploymentConf deploymentConf) {
+        if (deploymentArguments.coreRoleName == null) {
+            return createGreengrassRole(deploymentConf);
+        }
+
+        Optional<Role> optionalGreengrassRole = iamHelper.getRole(deploymentArguments.coreRoleName);
+
+        if (!optionalGreengrassRole.isPresent()) {
+            throw new RuntimeException("Greengrass core role is not present or GetRole failed due to insufficient permissions on [" + deploymentArguments.coreRoleName + "]");
+        }
+
+        return optionalGreengrassRole.get();
+    }
+
+    private String createGroup(DeploymentArguments deploymentArguments) {
+        ///////////////////////////////////////////////////
+        // Create an AWS Greengrass Group and get its ID //
+        ///////////////////////////////////////////////////
+
+        log.info("Creating a Greengrass group, if necessary");
+        return greengrassHelper.createGroupIfNecessary(deploymentArguments.groupName);
+    }
+
+    private String createCoreThing(String coreThingName) {
         log.info("Creating core thing");
-        String coreThingName = ggVariables.getCoreThingName(deploymentArguments.groupName);
-        String coreThingArn = iotHelper.createThing(coreThingName);
+        return iotHelper.createThing(coreThingName);
+    }
 
+    private Optional<KeysAndCertificate> getCoreKeysAndCertificate(DeploymentArguments deploymentArguments, String groupId) {
         //////////////////////////////////
         // Create or reuse certificates //
         //////////////////////////////////
 
-        Optional<GroupVersion> optionalGroupVersion = greengrassHelper.getLatestGroupVersion(groupId);
-        Optional<KeysAndCertificate> optionalCoreKeysAndCertificate = Optional.empty();
+        if ((deploymentArguments.certificateArn != null) || (deploymentArguments.csr != null)) {
+            // The user supplied the certificate information, no keys are created or loaded
+            return Optional.empty();
+        }
 
-        Optional<String> optionalCoreCertificateArn = Optional.empty();
+        Optional<GroupVersion> optionalGroupVersion = greengrassHelper.getLatestGroupVersion(groupId);
 
-        if (deploymentArguments.certificateArn != null) {
-            // Use the certificate ARN supplied by the user, new or existing group
-            log.info("Using user supplied certificate ARN for core certificate [" + deploymentArguments.certificateArn + "]");
-            optionalCoreCertificateArn = Optional.of(deploymentArguments.certificateArn);
-        } else if (deploymentArguments.csr != null) {
-            // Sign the CSR supplied by the user, new or existing group
-            log.info("Using user supplied CSR for core certificate");
-            optionalCoreCertificateArn = Optional.of(iotHelper.signCsrAndReturnCertificateArn(deploymentArguments.csr));
-        } else if (!optionalGroupVersion.isPresent()) {
+        if (!optionalGroupVersion.isPresent()) {
             // New group, create new keys
             log.info("Group is new, no certificate ARN or CSR supplied, creating new keys");
-            KeysAndCertificate coreKeysAndCertificate = iotHelper.createKeysAndCertificate(groupId, CORE_SUB_NAME);
-            optionalCoreKeysAndCertificate = Optional.of(coreKeysAndCertificate);
-        } else {
-            // Existing group, can we find the existing keys?
-            optionalCoreKeysAndCertificate = iotHelper.loadKeysAndCertificate(groupId, CORE_SUB_NAME);
-
-            if (optionalCoreKeysAndCertificate.isPresent()) {
-                // Found keys, we'll reuse them
-                log.info("Group is not new, loaded keys from credentials directory");
-            } else if (deploymentArguments.forceCreateNewKeysOption) {
-                // Didn't find keys but the user has requested that they be recreated
-                log.info("Group is not new, user forcing new keys to be created");
-                KeysAndCertificate coreKeysAndCertificate = iotHelper.createKeysAndCertificate(groupId, CORE_SUB_NAME);
-                optionalCoreKeysAndCertificate = Optional.of(coreKeysAndCertificate);
-            } else {
-                log.error("Group is not new, keys could not be found, but user not forcing new keys to be created");
-            }
+            return Optional.of(iotHelper.createKeysAndCertificate(groupId, CORE_SUB_NAME));
         }
 
+        // Existing group, can we find the existing keys?
+        Optional<KeysAndCertificate> optionalCoreKeysAndCertificate = iotHelper.loadKeysAndCertificate(groupId, CORE_SUB_NAME);
+
         if (optionalCoreKeysAndCertificate.isPresent()) {
-            // If we have keys and certificate then get the certificate ARN
-            optionalCoreCertificateArn = optionalCoreKeysAndCertificate.map(KeysAndCertificate::getCertificateArn);
+            // Found keys, we'll reuse them
+            log.info("Group is not new, loaded keys from credentials directory");
+        } else if (deploymentArguments.forceCreateNewKeysOption) {
+            // Didn't find keys but the user has requested that they be recreated
+            log.info("Group is not new, user forcing new keys to be created");
+            optionalCoreKeysAndCertificate = Optional.of(iotHelper.createKeysAndCertificate(groupId, CORE_SUB_NAME));
+        } else {
+            log.error("Group is not new, keys could not be found, but user not forcing new keys to be created");
+        }
+
+        return optionalCoreKeysAndCertificate;
+    }
+
+    private String getCoreCertificateArn(DeploymentArguments deploymentArguments, Optional<KeysAndCertificate> optionalCoreKeysAndCertificate) {
+        if (deploymentArguments.certificateArn != null) {
+            // Use the certificate ARN supplied by the user, new or existing group
+            log.info("Using user supplied certificate ARN for core certificate [" + deploymentArguments.certificateArn + "]");
+            return deploymentArguments.certificateArn;
         }
 
-        if (!optionalCoreCertificateArn.isPresent()) {
-            // We need the certificate ARN at this point, fail if we don't have it
-            throw new RuntimeException("Core certificate information/ARN could not be found. If you would like to recreate the keys you must specify the [" + DeploymentArguments.LONG_FORCE_CREATE_NEW_KEYS_OPTION + "] option.");
+        if (deploymentArguments.csr != null) {
+            // Sign the CSR supplied by the user, new or existing group
+            log.info("Using user supplied CSR for core certificate");
+            return iotHelper.signCsrAndReturnCertificateArn(deploymentArguments.csr);
         }
 
-        String coreCertificateArn = optionalCoreCertificateArn.get();
+        // If we have keys and certificate then get the certificate ARN, we need it at this point so fail if we don't have it
+        return optionalCoreKeysAndCertificate
+                .map(KeysAndCertificate::getCertificateArn)
+                .orElseThrow(() -> new RuntimeException("Core certificate information/ARN could not be found. If you would like to recreate the keys you must specify the [" + DeploymentArguments.LONG_FORCE_CREATE_NEW_KEYS_OPTION + "] option."));
+    }
 
+    private void attachCorePolicy(DeploymentArguments deploymentArguments, DeploymentConf deploymentConf, String coreCertificateArn) {
         ////////////////////////////////////////////////
         // Policy creation for the core, if necessary //
         ////////////////////////////////////////////////
@@ -458,85 +736,55 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         //////////////////////////////////
 
         iotHelper.attachPrincipalPolicy(corePolicyName, coreCertificateArn);
+    }
 
-        /////////////////////////////////
-        // Attach thing to certificate //
-        /////////////////////////////////
-
-        iotHelper.attachThingPrincipal(ggVariables.getCoreThingName(deploymentArguments.groupName), coreCertificateArn);
-
-        ////////////////////////////////////////////////
-        // Associate the Greengrass role to the group //
-        ////////////////////////////////////////////////
-
-        associateRoleToGroup(greengrassRole, groupId);
-
-        ////////////////////////////////////////////
-        // Create a core definition and a version //
-        ////////////////////////////////////////////
-
-        log.info("Creating core definition");
-        String coreDefinitionVersionArn = greengrassHelper.createCoreDefinitionAndVersion(ggVariables.getCoreDefinitionName(deploymentArguments.groupName), coreCertificateArn, coreThingArn, deploymentConf.isSyncShadow());
-
-        //////////////////////////////////////////////
-        // Create a logger definition and a version //
-        //////////////////////////////////////////////
-
-        log.info("Creating logger definition");
-        String loggerDefinitionVersionArn = greengrassHelper.createDefaultLoggerDefinitionAndVersion();
-
+    private Optional<Role> createLambdaRoleIfNecessary(DeploymentConf deploymentConf) {
         //////////////////////////////////////////////
         // Create the Lambda role for the functions //
         //////////////////////////////////////////////
 
-        Optional<Role> optionalLambdaRole = Optional.empty();
-
-        if (!deploymentConf.getFunctions().isEmpty()) {
-            log.info("Creating Lambda role");
-
-            if (!deploymentConf.getLambdaRoleName().isPresent()) {
-                throw new RuntimeException("Lambda role name not specified");
-            }
-
-            if (!deploymentConf.getLambdaRoleAssumeRolePolicy().isPresent()) {
-                throw new RuntimeException("Lambda assume role policy not specified");
-            }
-
-            optionalLambdaRole = Optional.of(iamHelper.createRoleIfNecessary(deploymentConf.getLambdaRoleName().get(), deploymentConf.getLambdaRoleAssumeRolePolicy().get()));
+        if (deploymentConf.getFunctions().isEmpty()) {
+            return Optional.empty();
         }
 
-        ////////////////////////////////////////////////////////
-        // Start building the subscription and function lists //
-        ////////////////////////////////////////////////////////
+        log.info("Creating Lambda role");
 
-        List<Subscription> subscriptions = new ArrayList<>();
+        if (!deploymentConf.getLambdaRoleName().isPresent()) {
+            throw new RuntimeException("Lambda role name not specified");
+        }
 
-        ///////////////////////////////////////////////////
-        // Determine the default function isolation mode //
-        ///////////////////////////////////////////////////
+        if (!deploymentConf.getLambdaRoleAssumeRolePolicy().isPresent()) {
+            throw new RuntimeException("Lambda assume role policy not specified");
+        }
 
-        FunctionIsolationMode defaultFunctionIsolationMode;
+        return Optional.of(iamHelper.createRoleIfNecessary(deploymentConf.getLambdaRoleName().get(), deploymentConf.getLambdaRoleAssumeRolePolicy().get()));
+    }
 
+    private FunctionIsolationMode getDefaultFunctionIsolationMode(DeploymentArguments deploymentArguments) {
         if (isEmptyDeployment(deploymentArguments)) {
             // If we're doing an empty deployment default to no container mode
-            defaultFunctionIsolationMode = FunctionIsolationMode.NO_CONTAINER;
-        } else if ((deploymentArguments.dockerLaunch) || (deploymentArguments.buildContainer)) {
+            return FunctionIsolationMode.NO_CONTAINER;
+        }
+
+        if ((deploymentArguments.dockerLaunch) || (deploymentArguments.buildContainer)) {
             // If we're doing a Docker launch we always use no container
             log.warn("Setting default function isolation mode to no container because we're doing a Docker launch");
-            defaultFunctionIsolationMode = FunctionIsolationMode.NO_CONTAINER;
-        } else {
-            // If we're not doing a Docker launch use the default values in the configuration file
-            defaultFunctionIsolationMode = ggVariables.getDefaultFunctionIsolationMode();
+            return FunctionIsolationMode.NO_CONTAINER;
         }
 
+        // If we're not doing a Docker launch use the default values in the configuration file
+        return ggVariables.getDefaultFunctionIsolationMode();
+    }
+
+    private List<ModifiableFunctionConf> getFunctionConfs(DeploymentArguments deploymentArguments, DeploymentConf deploymentConf, Map<String, String> defaultEnvironment, FunctionIsolationMode defaultFunctionIsolationMode) {
         ///////////////////////////////////////////////////
         // Find enabled functions and their mapping info //
         ///////////////////////////////////////////////////
 
-        Map<String, String> defaultEnvironment = environmentHelper.getDefaultEnvironment(groupId, coreThingName, coreThingArn, deploymentArguments.groupName);
-
         List<ModifiableFunctionConf> functionConfs = functionHelper.getFunctionConfObjects(defaultEnvironment, deploymentConf, defaultFunctionIsolationMode);
 
+        functionConfs.forEach(functionConf -> functionConf.setIsDependencyCacheDisabled(deploymentArguments.noDependencyCache));
+
         // Find Python functions that may not have had their language updated, this should never happen
         Predicate<FunctionConf> legacyPythonPredicate = functionConf -> functionConf.getLanguage().equals(Language.Python);
 
@@ -582,15 +830,7 @@ public class BasicDeploymentHelper implements DeploymentHelper {
             throw new UnsupportedOperationException();
         }
 
-        ////////////////////////////////////////////////////
-        // Determine if any functions need to run as root //
-        ////////////////////////////////////////////////////
-
-        boolean functionsRunningAsRoot = functionConfs.stream()
-                .filter(functionConf -> (functionConf.getUid() == 0) || (functionConf.getGid() == 0))
-                .anyMatch(functionConf -> !functionConf.isGreengrassContainer());
-
-        if (functionsRunningAsRoot) {
+        if (isAnyFunctionRunningAsRoot(functionConfs)) {
             log.warn("At least one function was detected that is configured to run outside of the Greengrass container as root");
         }
 
@@ -618,63 +858,59 @@ public class BasicDeploymentHelper implements DeploymentHelper {
             System.exit(1);
         }
 
+        return functionConfs;
+    }
+
+    private boolean isAnyFunctionRunningAsRoot(List<ModifiableFunctionConf> functionConfs) {
+        return functionConfs.stream()
+                .filter(functionConf -> (functionConf.getUid() == 0) || (functionConf.getGid() == 0))
+                .anyMatch(functionConf -> !functionConf.isGreengrassContainer());
+    }
+
+    private List<String> launchCloudFormationStacks(DeploymentArguments deploymentArguments, Map<String, String> defaultEnvironment, List<ModifiableFunctionConf> functionConfs) {
         /////////////////////////////////////////////////////
         // Launch any CloudFormation templates we've found //
         /////////////////////////////////////////////////////
 
-        List<String> cloudFormationStacksLaunched = functionConfs.stream()
+        return functionConfs.stream()
                 .map(functionConf -> cloudFormationHelper.deployCloudFormationTemplate(defaultEnvironment, deploymentArguments.groupName, functionConf))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .collect(Collectors.toList());
+    }
 
-        /////////////////////////
-        // Build the functions //
-        /////////////////////////
-
-        Map<Function, ModifiableFunctionConf> functionToConfMap = new HashMap<>();
-
+    private Map<Function, ModifiableFunctionConf> buildFunctions(Optional<Role> optionalLambdaRole, List<ModifiableFunctionConf> functionConfs) {
         // Only try to create functions if we have a Lambda role
-        if (optionalLambdaRole.isPresent()) {
-            Role lambdaRole = optionalLambdaRole.get();
+        if (!optionalLambdaRole.isPresent()) {
+            return new HashMap<>();
+        }
 
-            // Get a list of the buildable functions
-            List<BuildableFunction> buildableFunctions = functionHelper.getBuildableFunctions(functionConfs, lambdaRole);
+        Role lambdaRole = optionalLambdaRole.get();
 
-            // Install Java dependencies if necessary
-            buildableFunctions.stream()
-                    .filter(buildableFunction -> buildableFunction instanceof BuildableJavaMavenFunction)
-                    .findFirst()
-                    .ifPresent(buildableFunction -> functionHelper.installJavaDependencies());
+        // Get a list of the buildable functions
+        List<BuildableFunction> buildableFunctions = functionHelper.getBuildableFunctions(functionConfs, lambdaRole);
 
-            // Get the map of functions to function configuration (builds functions and publishes them to Lambda)
-            functionToConfMap = functionHelper.buildFunctionsAndGenerateMap(buildableFunctions);
-        }
+        // Install Java dependencies if necessary
+        buildableFunctions.stream()
+                .filter(buildableFunction -> buildableFunction instanceof BuildableJavaMavenFunction)
+                .findFirst()
+                .ifPresent(buildableFunction -> functionHelper.installJavaDependencies());
+
+        // Get the map of functions to function configuration (builds functions and publishes them to Lambda)
+        return functionHelper.buildFunctionsAndGenerateMap(buildableFunctions);
+    }
 
+    private List<GGDConf> getGgdConfs(DeploymentArguments deploymentArguments, DeploymentConf deploymentConf) {
         ///////////////////////////////////////////
         // Find GGD configs and its mapping info //
         ///////////////////////////////////////////
 
-        List<GGDConf> ggdConfs = new ArrayList<>();
-
-        for (String ggd : deploymentConf.getGgds()) {
-            ggdConfs.add(ggdHelper.getGGDConf(deploymentArguments.groupName, ggd));
-        }
-
-        ////////////////////////////
-        // Set up local resources //
-        ////////////////////////////
-
-        log.info("Creating resource definition");
-        String resourceDefinitionVersionArn = greengrassHelper.createResourceDefinitionVersion(functionConfs);
-
-        /////////////////////////////////////////////////////////////////////////
-        // Build the function definition for the Lambda function and a version //
-        /////////////////////////////////////////////////////////////////////////
-
-        log.info("Creating function definition");
-        String functionDefinitionVersionArn = greengrassHelper.createFunctionDefinitionVersion(ImmutableSet.copyOf(functionToConfMap.keySet()), defaultFunctionIsolationMode);
+        return deploymentConf.getGgds().stream()
+                .map(ggd -> ggdHelper.getGGDConf(deploymentArguments.groupName, ggd))
+                .collect(Collectors.toList());
+    }
 
+    private Set<String> createGgdThings(String groupId, List<GGDConf> ggdConfs) {
         //////////////////////////////////////////////////
         // Create all of the things from the GGD config //
         //////////////////////////////////////////////////
@@ -682,13 +918,10 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         Set<String> thingNames = ggdConfs.stream().map(GGDConf::getThingName).collect(Collectors.toSet());
 
         if (thingNames.size() > 0) {
-            Set<String> thingArns = new HashSet<>();
-
             log.info("Creating Greengrass device things");
 
             for (String thingName : thingNames) {
                 String deviceThingArn = iotHelper.createThing(thingName);
-                thingArns.add(deviceThingArn);
 
                 String ggdThingName = getGgdThingName(thingName);
                 String ggdPolicyName = String.join("_", ggdThingName, "Policy");
@@ -705,20 +938,10 @@ public class BasicDeploymentHelper implements DeploymentHelper {
             }
         }
 
-        //////////////////////////////////////////////////////
-        // Connection functions to cloud, GGDs, and shadows //
-        //////////////////////////////////////////////////////
-
-        subscriptions.addAll(functionToConfMap.entrySet().stream()
-                .flatMap(entry -> subscriptionHelper.createCloudSubscriptionsForArn(
-                        entry.getValue().getFromCloudSubscriptions(),
-                        entry.getValue().getToCloudSubscriptions(),
-                        entry.getKey().functionArn()).stream())
-                .collect(Collectors.toList()));
-
-        subscriptions.addAll(subscriptionHelper.connectFunctionsAndDevices(functionToConfMap, ggdConfs));
-        subscriptions.addAll(subscriptionHelper.connectFunctionsToShadows(functionToConfMap));
+        return thingNames;
+    }
 
+    private Set<String> createConnectedShadowThings(Map<Function, ModifiableFunctionConf> functionToConfMap, List<GGDConf> ggdConfs, Set<String> ggdThingNames) {
         //////////////////////////////////////////////////////
         // Get a list of all of the connected thing shadows //
         //////////////////////////////////////////////////////
@@ -738,21 +961,28 @@ public class BasicDeploymentHelper implements DeploymentHelper {
             connectedShadowThings.addAll(ggdConf.getConnectedShadows());
         }
 
-        List<Device> devices = new ArrayList<>();
-
+        Set<String> thingNames = new HashSet<>(ggdThingNames);
         thingNames.addAll(connectedShadowThings);
 
-        for (String thingName : thingNames) {
-            devices.add(greengrassHelper.getDevice(thingName));
-        }
+        return thingNames;
+    }
 
-        ////////////////////////////////////////////
-        // Get a list of all GGD PIP dependencies //
-        ////////////////////////////////////////////
+    private List<Subscription> buildSubscriptions(Map<Function, ModifiableFunctionConf> functionToConfMap, List<GGDConf> ggdConfs) {
+        List<Subscription> subscriptions = new ArrayList<>();
 
-        Set<String> ggdPipDependencies = ggdConfs.stream()
-                .flatMap(ggdConf -> ggdConf.getDependencies().stream())
-                .collect(Collectors.toSet());
+        //////////////////////////////////////////////////////
+        // Connection functions to cloud, GGDs, and shadows //
+        //////////////////////////////////////////////////////
+
+        subscriptions.addAll(functionToConfMap.entrySet().stream()
+                .flatMap(entry -> subscriptionHelper.createCloudSubscriptionsForArn(
+                        entry.getValue().getFromCloudSubscriptions(),
+                        entry.getValue().getToCloudSubscriptions(),
+                        entry.getKey().functionArn()).stream())
+                .collect(Collectors.toList()));
+
+        subscriptions.addAll(subscriptionHelper.connectFunctionsAndDevices(functionToConfMap, ggdConfs));
+        subscriptions.addAll(subscriptionHelper.connectFunctionsToShadows(functionToConfMap));
 
         ///////////////////////////////////////
         // Connect GGDs to cloud and shadows //
@@ -767,20 +997,50 @@ public class BasicDeploymentHelper implements DeploymentHelper {
             }
         }
 
-        //////////////////////////////////
-        // Connection functions and GGD //
-        //////////////////////////////////
+        return subscriptions;
+    }
 
-        log.info("Creating device definition");
-        String deviceDefinitionVersionArn = greengrassHelper.createDeviceDefinitionAndVersion(ggVariables.getDeviceDefinitionName(deploymentArguments.groupName), devices);
+    private Set<String> getGgdPipDependencies(List<GGDConf> ggdConfs) {
+        return ggdConfs.stream()
+                .flatMap(ggdConf -> ggdConf.getDependencies().stream())
+                .collect(Collectors.toSet());
+    }
 
-        //////////////////////////////////////////////////////
-        // Create the subscription definition from our list //
-        //////////////////////////////////////////////////////
+    private String createCoreDefinition(DeploymentArguments deploymentArguments, DeploymentConf deploymentConf, String coreCertificateArn, String coreThingArn) {
+        log.info("Creating core definition");
+        return greengrassHelper.createCoreDefinitionAndVersion(ggVariables.getCoreDefinitionName(deploymentArguments.groupName), coreCertificateArn, coreThingArn, deploymentConf.isSyncShadow());
+    }
+
+    private String createLoggerDefinition() {
+        log.info("Creating logger definition");
+        return greengrassHelper.createDefaultLoggerDefinitionAndVersion();
+    }
+
+    private String createResourceDefinition(List<ModifiableFunctionConf> functionConfs) {
+        log.info("Creating resource definition");
+        return greengrassHelper.createResourceDefinitionVersion(functionConfs);
+    }
+
+    private String createFunctionDefinition(Map<Function, ModifiableFunctionConf> functionToConfMap, FunctionIsolationMode defaultFunctionIsolationMode) {
+        log.info("Creating function definition");
+        return greengrassHelper.createFunctionDefinitionVersion(ImmutableSet.copyOf(functionToConfMap.keySet()), defaultFunctionIsolationMode);
+    }
+
+    private String createDeviceDefinition(DeploymentArguments deploymentArguments, Set<String> thingNames) {
+        List<Device> devices = thingNames.stream()
+                .map(greengrassHelper::getDevice)
+                .collect(Collectors.toList());
+
+        log.info("Creating device definition");
+        return greengrassHelper.createDeviceDefinitionAndVersion(ggVariables.getDeviceDefinitionName(deploymentArguments.groupName), devices);
+    }
 
+    private String createSubscriptionDefinition(List<Subscription> subscriptions) {
         log.info("Creating subscription definition");
-        String subscriptionDefinitionVersionArn = greengrassHelper.createSubscriptionDefinitionAndVersion(subscriptions);
+        return greengrassHelper.createSubscriptionDefinitionAndVersion(subscriptions);
+    }
 
+    private String createGroupVersion(String groupId, String coreDefinitionVersionArn, String functionDefinitionVersionArn, String subscriptionDefinitionVersionArn, String deviceDefinitionVersionArn, String loggerDefinitionVersionArn, String resourceDefinitionVersionArn) {
         ////////////////////////////////////
         // Create a minimal group version //
         ////////////////////////////////////
@@ -796,202 +1056,127 @@ public class BasicDeploymentHelper implements DeploymentHelper {
                 .resourceDefinitionVersionArn(resourceDefinitionVersionArn)
                 .build();
 
-        String groupVersionId = greengrassHelper.createGroupVersion(groupId, groupVersion);
-
-        /////////////////////////////////////////////
-        // Do all of the output file related stuff //
-        /////////////////////////////////////////////
-
-        buildOutputFiles(deploymentArguments,
-                optionalCreateRoleAliasResponse,
-                groupId,
-                coreThingName,
-                coreThingArn,
-                optionalCoreKeysAndCertificate,
-                ggdConfs,
-                thingNames,
-                ggdPipDependencies,
-                functionsRunningAsRoot);
+        return greengrassHelper.createGroupVersion(groupId, groupVersion);
+    }
 
-        //////////////////////////////////////////////////
-        // Start building the EC2 instance if necessary //
-        //////////////////////////////////////////////////
+    private DeploymentConf getEmptyDeploymentConf(DeploymentArguments deploymentArguments) {
+        return ImmutableDeploymentConf.builder()
+                .isSyncShadow(true)
+                .name(EMPTY)
+                .groupName(deploymentArguments.groupName)
+                .coreRoleName(deploymentArguments.coreRoleName)
+                .corePolicy(deploymentArguments.corePolicyName)
+                .functions(new ArrayList<>())
+                .build();
+    }
 
-        Optional<String> optionalInstanceId = Optional.empty();
+    private void bootstrap(DeploymentArguments deploymentArguments, List<LaunchDestination> launchDestinations) {
+        // At most one host uses the script built by this deployment, the argument helper makes sure the others have their own
+        String defaultBootstrapScript = ggVariables.getGgShScriptName(deploymentArguments.groupName);
+        int hostCount = launchDestinations.size();
+        AtomicInteger finishedCount = new AtomicInteger(0);
+        AtomicInteger failedCount = new AtomicInteger(0);
 
-        if (deploymentArguments.ec2LinuxVersion != null) {
-            log.info("Launching EC2 instance");
-            optionalInstanceId = launchEc2Instance(deploymentArguments.groupName, deploymentArguments.architecture, deploymentArguments.ec2LinuxVersion);
-
-            if (!optionalInstanceId.isPresent()) {
-                // Something went wrong, bail out
-                throw new RuntimeException("Couldn't obtain EC2 instance ID, bailing out");
-            }
+        if (hostCount > 1) {
+            log.info("Bootstrapping [" + hostCount + "] hosts, up to [" + deploymentArguments.maxConcurrentLaunches + "] at a time");
         }
 
-        ///////////////////////////////////////////////////
-        // Start the Docker container build if necessary //
-        ///////////////////////////////////////////////////
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(hostCount, deploymentArguments.maxConcurrentLaunches));
 
-        if (deploymentArguments.buildContainer) {
-            log.info("Configuring container build");
+        try {
+            List<CompletableFuture<BootstrapResult>> futures = launchDestinations.stream()
+                    .map(launchDestination -> CompletableFuture.supplyAsync(() -> {
+                        BootstrapResult bootstrapResult = bootstrapWithRetries(deploymentArguments, launchDestination, launchDestination.getBootstrapScript().orElse(defaultBootstrapScript));
 
-            ecrDockerHelper.setEcrRepositoryName(Optional.ofNullable(deploymentArguments.ecrRepositoryNameString));
-            ecrDockerHelper.setEcrImageName(Optional.ofNullable(deploymentArguments.ecrImageNameString));
-            String imageName = ecrDockerHelper.getImageName();
-            String currentDirectory = System.getProperty(USER_DIR);
+                        if (bootstrapResult.optionalError.isPresent()) {
+                            failedCount.incrementAndGet();
+                        }
 
-            File dockerfile = officialGreengrassImageDockerHelper.getDockerfileForArchitecture(deploymentArguments.architecture);
-            String dockerfileTemplate = ioHelper.readFileAsString(dockerfile);
-            dockerfileTemplate = dockerfileTemplate.replaceAll("GROUP_NAME", deploymentArguments.groupName);
+                        if (hostCount > 1) {
+                            log.info("Finished [" + launchDestination.getName() + "], [" + finishedCount.incrementAndGet() + "] of [" + hostCount + "] hosts done, [" + failedCount.get() + "] failed");
+                        }
 
-            // Add the group name and UUID so we don't accidentally overwrite an existing file
-            File tempDockerfile = dockerfile.toPath().getParent().resolve(
-                    String.join(".", "Dockerfile", deploymentArguments.groupName, ioHelper.getUuid())).toFile();
-            ioHelper.writeFile(tempDockerfile.toString(), dockerfileTemplate.getBytes());
-            tempDockerfile.deleteOnExit();
+                        return bootstrapResult;
+                    }, executorService))
+                    .collect(Collectors.toList());
 
-            try (DockerClient dockerClient = officialGreengrassImageDockerClientProvider.get()) {
-                log.info("Building container");
+            List<BootstrapResult> bootstrapResults = futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
 
-                String imageId = dockerClient.build(new File(currentDirectory).toPath(),
-                        basicProgressHandler,
-                        DockerClient.BuildParam.dockerfile(tempDockerfile.toPath()));
-
-                dockerClient.tag(imageId, imageName);
-                pushContainerIfNecessary(deploymentArguments, imageId);
-            } catch (DockerException | InterruptedException | IOException e) {
-                log.error("Container build failed");
-                throw new RuntimeException(e);
+            if (hostCount > 1) {
+                logBootstrapSummary(bootstrapResults);
             }
+        } finally {
+            executorService.shutdown();
         }
 
-        // Create a deployment and wait for it to succeed.  Return if it fails.
-        Try.of(() -> createAndWaitForDeployment(optionalGreengrassServiceRole, Optional.of(greengrassRole), groupId, groupVersionId))
-                .get();
-
-        //////////////////////////////////////////////
-        // Launch the Docker container if necessary //
-        //////////////////////////////////////////////
-
-        if (deploymentArguments.dockerLaunch) {
-            log.info("Launching Docker container");
-            String officialGreengrassDockerImage = ggConstants.getOfficialGreengrassDockerImage();
-            officialGreengrassImageDockerHelper.pullImage(officialGreengrassDockerImage);
-            officialGreengrassImageDockerHelper.createAndStartContainer(officialGreengrassDockerImage, deploymentArguments.groupName);
+        if (failedCount.get() != 0) {
+            throw new RuntimeException("Failed to connect and bootstrap [" + failedCount.get() + "] of [" + hostCount + "] host(s) via SSH");
         }
+    }
 
-        ///////////////////////////////////////////////////////
-        // Wait for the EC2 instance to launch, if necessary //
-        ///////////////////////////////////////////////////////
-
-        if (optionalInstanceId.isPresent()) {
-            String instanceId = optionalInstanceId.get();
-
-            DescribeInstancesRequest describeInstancesRequest = DescribeInstancesRequest.builder()
-                    .instanceIds(instanceId)
-                    .build();
-
-            // Describe instances retry policy
-            RetryPolicy<DescribeInstancesResponse> describeInstancesRetryPolicy = new RetryPolicy<DescribeInstancesResponse>()
-                    .handleIf(throwable -> throwable.getMessage().contains(DOES_NOT_EXIST))
-                    .withDelay(Duration.ofSeconds(5))
-                    .withMaxRetries(3)
-                    .onRetry(failure -> log.warn("Waiting for the instance to become visible..."))
-                    .onRetriesExceeded(failure -> log.error("Instance never became visible. Cannot continue."));
-
-            DescribeInstancesResponse describeInstancesResponse = Failsafe.with(describeInstancesRetryPolicy).get(() ->
-                    ec2Client.describeInstances(describeInstancesRequest));
-
-            Optional<Reservation> optionalReservation = describeInstancesResponse.reservations().stream().findFirst();
-
-            if (!optionalReservation.isPresent()) {
-                throw new RuntimeException("Error finding the EC2 reservation to wait for the instance to finish launching, this should never happen");
-            }
-
-            Reservation reservation = optionalReservation.get();
-
-            Optional<Instance> optionalInstance = reservation.instances().stream().findFirst();
-
-            if (!optionalInstance.isPresent()) {
-                throw new RuntimeException("Error finding the EC2 instance to wait for it to finish launching, this should never happen");
-            }
+    private BootstrapResult bootstrapWithRetries(DeploymentArguments deploymentArguments, LaunchDestination launchDestination, String bootstrapScript) {
+        RetryPolicy<Boolean> bootstrapRetryPolicy = new RetryPolicy<Boolean>()
+                .handle(SshRecoverableException.class)
+                .withDelay(Duration.ofSeconds(10))
+                .withMaxRetries(3)
+                .onRetry(failure -> log.warn("[" + launchDestination.getName() + "] Retrying the bootstrap [" + failure.getLastFailure().getMessage() + "]"));
 
-            Instance instance = optionalInstance.get();
+        Instant start = Instant.now();
 
-            String publicIpAddress = instance.publicIpAddress();
+        Optional<Throwable> optionalError = Try.run(() -> Failsafe.with(bootstrapRetryPolicy).get(() -> attemptBootstrap(deploymentArguments, launchDestination, bootstrapScript)))
+                .onFailure(throwable -> log.error("[" + launchDestination.getName() + "] " + throwable.getMessage()))
+                .failed()
+                .toJavaOptional();
 
-            if (publicIpAddress == null) {
-                throw new RuntimeException("Public IP address returned from EC2 was NULL, skipping EC2 setup");
-            }
+        return new BootstrapResult(launchDestination, Duration.between(start, Instant.now()), optionalError);
+    }
 
-            Optional<String> username = Optional.empty();
+    private void logBootstrapSummary(List<BootstrapResult> bootstrapResults) {
+        log.info("Results for all hosts:");
 
-            if (deploymentArguments.ec2LinuxVersion.equals(EC2LinuxVersion.Ubuntu1804)) {
-                username = Optional.of("ubuntu");
-            }
+        for (BootstrapResult bootstrapResult : bootstrapResults) {
+            String summary = String.format("%s| %s (%d seconds)", StringUtils.rightPad(bootstrapResult.launchDestination.getName(), 30), bootstrapResult.optionalError.isPresent() ? "FAILED" : "BOOTSTRAPPED", bootstrapResult.duration.getSeconds());
 
-            if (deploymentArguments.ec2LinuxVersion.equals(EC2LinuxVersion.AmazonLinux2)) {
-                username = Optional.of("ec2-user");
-            }
-
-            if (!username.isPresent()) {
-                throw new RuntimeException("Unexpected EC2 Linux version requested [" + deploymentArguments.ec2LinuxVersion + "], this is a bug 2 [couldn't determine SSH username]");
+            if (bootstrapResult.optionalError.isPresent()) {
+                log.error(summary + " " + bootstrapResult.optionalError.get().getMessage());
+            } else {
+                log.info(summary);
             }
-
-            attemptBootstrap(deploymentArguments, publicIpAddress, username.get());
         }
-
-        ///////////////////////////////////////////
-        // Launch a non-EC2 system, if necessary //
-        ///////////////////////////////////////////
-
-        if (deploymentArguments.launch != null) {
-            attemptBootstrap(deploymentArguments, deploymentArguments.launchHost, deploymentArguments.launchUser);
-        }
-
-        //////////////////////////////////////////////////////////////////////////
-        // Wait for the CloudFormation stacks to finish launching, if necessary //
-        //////////////////////////////////////////////////////////////////////////
-
-        if (cloudFormationStacksLaunched.size() != 0) {
-            waitForStacksToLaunch(cloudFormationStacksLaunched);
-        }
-
-        return null;
     }
 
-    public boolean isEmptyDeployment(DeploymentArguments deploymentArguments) {
-        return deploymentArguments.deploymentConfigFilename.equals(EMPTY);
-    }
-
-    private DeploymentConf getEmptyDeploymentConf(DeploymentArguments deploymentArguments) {
-        return ImmutableDeploymentConf.builder()
-                .isSyncShadow(true)
-                .name(EMPTY)
-                .groupName(deploymentArguments.groupName)
-                .coreRoleName(deploymentArguments.coreRoleName)
-                .corePolicy(deploymentArguments.corePolicyName)
-                .functions(new ArrayList<>())
-                .build();
-    }
+    private Boolean attemptBootstrap(DeploymentArguments deploymentArguments, LaunchDestination launchDestination, String bootstrapScript) {
+        String tag = "[" + launchDestination.getName() + "] ";
 
-    private void attemptBootstrap(DeploymentArguments deploymentArguments, String ipAddress, String user) {
         Optional<Session> optionalSession = threadHelper.timeLimitTask(
-                ioHelper.getSshSessionTask(ipAddress,
-                        user,
-                        SSH_CONNECTED_MESSAGE,
-                        SSH_TIMED_OUT_MESSAGE,
-                        SSH_CONNECTION_REFUSED_MESSAGE,
+                ioHelper.getSshSessionTask(launchDestination.getHost(),
+                        launchDestination.getUser(),
+                        tag + SSH_CONNECTED_MESSAGE,
+                        tag + SSH_TIMED_OUT_MESSAGE,
+                        tag + SSH_CONNECTION_REFUSED_MESSAGE,
                         SSH_ERROR_MESSAGE), 2, TimeUnit.MINUTES);
 
         if (!optionalSession.isPresent()) {
+            // Connecting has already been retried
             throw new RuntimeException("Failed to connect and bootstrap the instance via SSH");
         }
 
         Session session = optionalSession.get();
 
-        threadHelper.timeLimitTask(getCopyAndBootstrapCallable(deploymentArguments, ipAddress, user, session), 5, TimeUnit.MINUTES);
+        try {
+            Optional<Boolean> optionalResult = threadHelper.timeLimitTask(getCopyAndBootstrapCallable(launchDestination, bootstrapScript, session), 5, TimeUnit.MINUTES);
+
+            if (!optionalResult.isPresent()) {
+                // The connection may have dropped, the next attempt reconnects and the copy resumes where it stopped
+                throw new SshRecoverableException("Copying or running the bootstrap script failed");
+            }
+
+            return optionalResult.get();
+        } finally {
+            ioHelper.releaseSshSession(session);
+        }
     }
 
     @Override
@@ -1004,20 +1189,18 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         return new DeploymentArguments();
     }
 
-    private Callable<Boolean> getCopyAndBootstrapCallable(DeploymentArguments deploymentArguments, String publicIpAddress, String user, Session session) {
-        return () -> copyAndBootstrap(deploymentArguments, publicIpAddress, user, session);
+    private Callable<Boolean> getCopyAndBootstrapCallable(LaunchDestination launchDestination, String bootstrapScript, Session session) {
+        return () -> copyAndBootstrap(launchDestination, bootstrapScript, session);
     }
 
-    private Boolean copyAndBootstrap(DeploymentArguments deploymentArguments, String host, String user, Session session) throws JSchException, IOException {
-        String filename = String.join(".", "gg", deploymentArguments.groupName, "sh");
-        String localFilename = String.join("/", "build", filename);
-        String remoteFilename = filename;
-        log.info("Copying bootstrap script to host via scp...");
+    private Boolean copyAndBootstrap(LaunchDestination launchDestination, String localFilename, Session session) throws JSchException, IOException {
+        String tag = "[" + launchDestination.getName() + "] ";
+        String remoteFilename = new File(localFilename).getName();
+        log.info(tag + "Copying bootstrap script to host...");
         ioHelper.sendFile(session, localFilename, remoteFilename);
         ioHelper.runCommand(session, String.join(" ", "chmod", "+x", "./" + remoteFilename));
-        log.info("Running bootstrap script on host in screen, connect to the instance [" + user + "@" + host + "] and run 'screen -r' to see the progress");
+        log.info(tag + "Running bootstrap script on host in screen, connect to the instance [" + launchDestination.getName() + "] and run 'screen -r' to see the progress");
         runCommandInScreen(session, String.join(" ", "./" + remoteFilename, "--now"), Optional.of("greengrass"), true);
-        session.disconnect();
         return true;
     }
 
@@ -1301,17 +1484,10 @@ public class BasicDeploymentHelper implements DeploymentHelper {
     }
 
     private void buildOutputFiles(DeploymentArguments deploymentArguments, Optional<CreateRoleAliasResponse> optionalCreateRoleAliasResponse, String groupId, String awsIotThingName, String awsIotThingArn, Optional<KeysAndCertificate> optionalCoreKeysAndCertificate, List<GGDConf> ggdConfs, Set<String> thingNames, Set<String> ggdPipDependencies, boolean functionsRunningAsRoot) {
-        if (deploymentArguments.scriptOutput) {
-            installScriptVirtualTarEntries = Optional.of(new ArrayList<>());
-        }
-
-        if ((deploymentArguments.oemOutput) || (deploymentArguments.oemJsonOutput != null)) {
-            oemVirtualTarEntries = Optional.of(new ArrayList<>());
-        }
-
-        if (deploymentArguments.ggdOutput) {
-            ggdVirtualTarEntries = Optional.of(new ArrayList<>());
-        }
+        // This runs on a task graph thread so the entries are local to this call instead of shared helper state
+        Optional<List<VirtualTarEntry>> installScriptVirtualTarEntries = getVirtualTarEntriesIf(deploymentArguments.scriptOutput);
+        Optional<List<VirtualTarEntry>> oemVirtualTarEntries = getVirtualTarEntriesIf((deploymentArguments.oemOutput) || (deploymentArguments.oemJsonOutput != null));
+        Optional<List<VirtualTarEntry>> ggdVirtualTarEntries = getVirtualTarEntriesIf(deploymentArguments.ggdOutput);
 
         if (!installScriptVirtualTarEntries.isPresent() &&
                 !oemVirtualTarEntries.isPresent() &&
@@ -1414,8 +1590,8 @@ public class BasicDeploymentHelper implements DeploymentHelper {
                     mainScript = file;
                 }
 
-                installScriptVirtualTarEntries.ifPresent(a -> archiveHelper.addVirtualTarEntry(installScriptVirtualTarEntries, file.getPath(), ioHelper.readFile(file), scriptPermissions));
-                ggdVirtualTarEntries.ifPresent(a -> archiveHelper.addVirtualTarEntry(ggdVirtualTarEntries, file.getPath(), ioHelper.readFile(file), scriptPermissions));
+                installScriptVirtualTarEntries.ifPresent(a -> archiveHelper.addVirtualTarEntry(installScriptVirtualTarEntries, file.getPath(), file.toPath(), scriptPermissions));
+                ggdVirtualTarEntries.ifPresent(a -> archiveHelper.addVirtualTarEntry(ggdVirtualTarEntries, file.getPath(), file.toPath(), scriptPermissions));
             }
 
             if (mainScript == null) {
@@ -1437,15 +1613,11 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         if (installScriptVirtualTarEntries.isPresent()) {
             log.info("Adding Greengrass binary to archive");
             URL architectureUrl = getArchitectureUrl(deploymentArguments);
-            installScriptVirtualTarEntries.ifPresent(a -> archiveHelper.addVirtualTarEntry(installScriptVirtualTarEntries, architecture.get().getFilename(), ioHelper.readFile(architectureUrl), normalFilePermissions));
-
-            log.info("Building script [" + ggShScriptName + "]");
-            ByteArrayOutputStream ggScriptTemplate = new ByteArrayOutputStream();
+            // The binary is streamed from its URL when the script is written instead of being loaded into memory
+            installScriptVirtualTarEntries.ifPresent(a -> archiveHelper.addVirtualTarEntry(installScriptVirtualTarEntries, architecture.get().getFilename(), architectureUrl, normalFilePermissions));
 
-            Try.of(() -> writePayload(ggdPipDependencies, ggScriptTemplate)).get();
-
-            log.info("Writing script [" + ggShScriptName + "]");
-            ioHelper.writeFile(ggShScriptName, ggScriptTemplate.toByteArray());
+            log.info("Building and writing script [" + ggShScriptName + "]");
+            ioHelper.writeFile(ggShScriptName, outputStream -> writePayload(ggdPipDependencies, installScriptVirtualTarEntries, outputStream));
             ioHelper.makeExecutable(ggShScriptName);
 
             // Copy to S3 if necessary
@@ -1458,7 +1630,7 @@ public class BasicDeploymentHelper implements DeploymentHelper {
             } else {
                 String oemArchiveName = ggVariables.getOemArchiveName(deploymentArguments.groupName);
                 log.info("Writing OEM file [" + oemArchiveName + "]");
-                ioHelper.writeFile(oemArchiveName, getByteArrayOutputStream(oemVirtualTarEntries).get().toByteArray());
+                ioHelper.writeFile(oemArchiveName, outputStream -> archiveHelper.tar(oemVirtualTarEntries, outputStream));
                 ioHelper.makeExecutable(oemArchiveName);
 
                 // Copy to S3 if necessary
@@ -1469,7 +1641,7 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         if (ggdVirtualTarEntries.isPresent()) {
             String ggdArchiveName = ggVariables.getGgdArchiveName(deploymentArguments.groupName);
             log.info("Writing GGD file [" + ggdArchiveName + "]");
-            ioHelper.writeFile(ggdArchiveName, getByteArrayOutputStream(ggdVirtualTarEntries).get().toByteArray());
+            ioHelper.writeFile(ggdArchiveName, outputStream -> archiveHelper.tar(ggdVirtualTarEntries, outputStream));
             ioHelper.makeExecutable(ggdArchiveName);
 
             // Copy to S3 if necessary
@@ -1477,14 +1649,25 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         }
     }
 
+    private Optional<List<VirtualTarEntry>> getVirtualTarEntriesIf(boolean condition) {
+        return condition ? Optional.of(new ArrayList<>()) : Optional.empty();
+    }
+
     private void writeOemJsonOutput(List<VirtualTarEntry> oemVirtualTarEntries, String oemJsonFilename) {
         Map<String, String> oemJson = oemVirtualTarEntries.stream()
-                .collect(Collectors.toMap(VirtualTarEntry::getFilename, entry -> new String(entry.getContent())));
+                .collect(Collectors.toMap(VirtualTarEntry::getFilename, entry -> new String(readVirtualTarEntry(entry))));
 
         log.info("Writing OEM JSON output to [" + oemJsonFilename + "]");
         ioHelper.writeFile(oemJsonFilename, jsonHelper.toJson(oemJson).getBytes());
     }
 
+    private byte[] readVirtualTarEntry(VirtualTarEntry virtualTarEntry) {
+        // Only used for the small OEM entries, the large entries are never read into memory
+        return Try.withResources(virtualTarEntry.getInputStreamSupplier())
+                .of(ioHelper::getByteArrayFromInputStream)
+                .get();
+    }
+
     private void copyToS3IfNecessary(String s3Bucket, String s3Directory, String fileName) {
         if (s3Bucket == null) {
             return;
@@ -1519,10 +1702,10 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         s3Client.putObject(putObjectRequest, RequestBody.fromFile(inputFile));
     }
 
-    private Void writePayload(Set<String> ggdPipDependencies, ByteArrayOutputStream ggScriptTemplate) throws IOException {
-        ggScriptTemplate.write(scriptHelper.generateGgScript(ggdPipDependencies).getBytes());
-        ggScriptTemplate.write("PAYLOAD:\n".getBytes());
-        ggScriptTemplate.write(getByteArrayOutputStream(installScriptVirtualTarEntries).get().toByteArray());
+    private Void writePayload(Set<String> ggdPipDependencies, Optional<List<VirtualTarEntry>> installScriptVirtualTarEntries, OutputStream ggScriptOutputStream) throws IOException {
+        ggScriptOutputStream.write(scriptHelper.generateGgScript(ggdPipDependencies).getBytes());
+        ggScriptOutputStream.write("PAYLOAD:\n".getBytes());
+        archiveHelper.tar(installScriptVirtualTarEntries, ggScriptOutputStream);
 
         return null;
     }
@@ -1605,12 +1788,6 @@ public class BasicDeploymentHelper implements DeploymentHelper {
                 .forEach(cloudFormationHelper::waitForStackToLaunch);
     }
 
-    private Optional<ByteArrayOutputStream> getByteArrayOutputStream
-            (Optional<List<VirtualTarEntry>> virtualTarEntries) {
-        return Try.of(() -> archiveHelper.tar(virtualTarEntries))
-                .get();
-    }
-
     /**
      * Create IAM resources and configuration required for Greengrass
      *
@@ -1656,4 +1833,16 @@ public class BasicDeploymentHelper implements DeploymentHelper {
         return architectureUrlOptional.get();
     }
 
+
+    private static class BootstrapResult {
+        private final LaunchDestination launchDestination;
+        private final Duration duration;
+        private final Optional<Throwable> optionalError;
+
+        private BootstrapResult(LaunchDestination launchDestination, Duration duration, Optional<Throwable> optionalError) {
+            this.launchDestination = launchDestination;
+            this.duration = duration;
+            this.optionalError = optionalError;
+        }
+    }
 }
@@ -1,10 +1,8 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
+import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessage;
 import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessageType;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DeviceTesterHelper;
-import io.vavr.Tuple2;
-import io.vavr.Tuple3;
-import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
@@ -13,18 +11,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
-import java.util.AbstractMap;
-import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static io.vavr.API.*;
-
 public class BasicDeviceTesterHelper implements DeviceTesterHelper {
-    private static final String TIME = "time";
-    private static final String KEY_PATTERN = "[a-zA-Z]+=";
-    private static final List<DeviceTesterLogMessageType> IGNORED_MESSAGE_TYPES = List.of(
+    private static final Pattern DURATION_PATTERN = Pattern.compile("\\([0-9]+\\.[0-9]+s\\)");
+    private static final Set<DeviceTesterLogMessageType> IGNORED_MESSAGE_TYPES = EnumSet.of(
             DeviceTesterLogMessageType.CHECKING_GGC_VERSION,
             DeviceTesterLogMessageType.FINISHED_PROVISIONING,
             DeviceTesterLogMessageType.CREATING_GGD,
@@ -45,13 +40,13 @@ public class BasicDeviceTesterHelper implements DeviceTesterHelper {
             DeviceTesterLogMessageType.RESTARTING_GREENGRASS,
             DeviceTesterLogMessageType.RESTARTING_GREENGRASS_SUCCESSFUL,
             DeviceTesterLogMessageType.EMPTY);
-    private static final List<DeviceTesterLogMessageType> INFO_MESSAGE_TYPES = List.of(
+    private static final Set<DeviceTesterLogMessageType> INFO_MESSAGE_TYPES = EnumSet.of(
             DeviceTesterLogMessageType.ALL_TESTS_FINISHED,
             DeviceTesterLogMessageType.REPORT_GENERATED);
-    private static final List<DeviceTesterLogMessageType> WARN_MESSAGE_TYPES = List.of(
+    private static final Set<DeviceTesterLogMessageType> WARN_MESSAGE_TYPES = EnumSet.of(
             DeviceTesterLogMessageType.CLEANING_UP_RESOURCES_FAILED,
             DeviceTesterLogMessageType.FAIL_TO_RESTORE_GREENGRASS);
-    private static final List<DeviceTesterLogMessageType> ERROR_MESSAGE_TYPES = List.of(
+    private static final Set<DeviceTesterLogMessageType> ERROR_MESSAGE_TYPES = EnumSet.of(
             DeviceTesterLogMessageType.ERRORS_WHEN_CLEANING_UP_RESOURCES,
             DeviceTesterLogMessageType.UNKNOWN_FAILURE,
             DeviceTesterLogMessageType.TIMED_OUT,
@@ -67,53 +62,85 @@ public class BasicDeviceTesterHelper implements DeviceTesterHelper {
     private final Logger log = LoggerFactory.getLogger(BasicDeviceTesterHelper.class);
 
     @Override
-    public DeviceTesterLogMessageType getLogMessageType(String logMessage) {
-        Map<String, String> values = extractValuesFromLogMessage(logMessage);
-        String message = values.get(MESSAGE_FIELD_NAME).get();
+    public DeviceTesterLogMessage parse(String logMessage, DeviceTesterLogMessage deviceTesterLogMessage) {
+        deviceTesterLogMessage.parse(logMessage);
 
-        // Find the first message type that matches this string
-        Optional<DeviceTesterLogMessageType> optionalDeviceTesterLogMessageType = Arrays.stream(DeviceTesterLogMessageType.values())
-                .filter(type -> type.matches(message))
-                .findFirst();
+        // No match is a bug in the message types, throw an exception immediately
+        DeviceTesterLogMessageType deviceTesterLogMessageType = DeviceTesterLogMessageType.find(deviceTesterLogMessage.getMessage())
+                .orElseThrow(() -> new RuntimeException(String.format("No match for log message [%s]", logMessage)));
 
-        if (!optionalDeviceTesterLogMessageType.isPresent()) {
-            // No match was found, throw an exception immediately
-            throw new RuntimeException(String.format("No match for log message [%s]", logMessage));
-        }
+        deviceTesterLogMessage.setType(deviceTesterLogMessageType);
 
-        return optionalDeviceTesterLogMessageType.get();
+        return deviceTesterLogMessage;
+    }
+
+    @Override
+    public DeviceTesterLogMessageType getLogMessageType(String logMessage) {
+        return parse(logMessage, new DeviceTesterLogMessage()).getType();
     }
 
     @Override
     public void log(String logMessage) {
-        DeviceTesterLogMessageType deviceTesterLogMessageType = getLogMessageType(logMessage);
-        Map<String, String> values = extractValuesFromLogMessage(logMessage);
-        String message = values.get(MESSAGE_FIELD_NAME).get();
-        Option<String> optionalTestCaseId = getOptionalTestCaseId(values);
-
-        log.debug(logMessage);
-
-        Match(deviceTesterLogMessageType).of(
-                // Do nothing with ignored message types
-                Case($(IGNORED_MESSAGE_TYPES::contains), type -> type),
-                // Info log level messages
-                Case($(INFO_MESSAGE_TYPES::contains), type -> infoLog(message)),
-                // Warn log level messages
-                Case($(WARN_MESSAGE_TYPES::contains), type -> warnLog(message)),
-                // Error log level messages
-                Case($(ERROR_MESSAGE_TYPES::contains), type -> errorLog(message)),
-                // Log messages that we are rewriting
-                Case($(DeviceTesterLogMessageType.RUNNING), type -> logStartingTest(optionalTestCaseId)),
-                Case($(DeviceTesterLogMessageType.RUNNING_GREENGRASS_ALREADY_INSTALLED), type -> logStartingTest(optionalTestCaseId)),
-                Case($(DeviceTesterLogMessageType.FINISHED), type -> logFinishedTest(optionalTestCaseId)),
-                Case($(DeviceTesterLogMessageType.PASS), type -> logPassed(optionalTestCaseId)),
-                Case($(DeviceTesterLogMessageType.FAIL_WITH_DURATION), type -> logFailureWithDuration(message, optionalTestCaseId)),
-                Case($(DeviceTesterLogMessageType.PROVISIONING), type -> logProvisioning(optionalTestCaseId)),
-                Case($(DeviceTesterLogMessageType.START), type -> logRunning(optionalTestCaseId)),
+        log(parse(logMessage, new DeviceTesterLogMessage()));
+    }
+
+    @Override
+    public void log(DeviceTesterLogMessage deviceTesterLogMessage) {
+        log(deviceTesterLogMessage, Optional.empty());
+    }
+
+    @Override
+    public void log(DeviceTesterLogMessage deviceTesterLogMessage, Optional<String> optionalDeviceName) {
+        DeviceTesterLogMessageType deviceTesterLogMessageType = deviceTesterLogMessage.getType();
+        // Output from several devices is interleaved when they are tested in parallel
+        String prefix = optionalDeviceName.map(deviceName -> "[" + deviceName + "] ").orElse("");
+        String message = prefix + deviceTesterLogMessage.getMessage();
+        Option<String> optionalTestCaseId = deviceTesterLogMessage.getOptionalTestCaseId();
+
+        log.debug(prefix + deviceTesterLogMessage.getLogMessage());
+
+        if (IGNORED_MESSAGE_TYPES.contains(deviceTesterLogMessageType)) {
+            // Do nothing with ignored message types
+            return;
+        }
+
+        if (INFO_MESSAGE_TYPES.contains(deviceTesterLogMessageType)) {
+            infoLog(message);
+            return;
+        }
+
+        if (WARN_MESSAGE_TYPES.contains(deviceTesterLogMessageType)) {
+            warnLog(message);
+            return;
+        }
+
+        if (ERROR_MESSAGE_TYPES.contains(deviceTesterLogMessageType)) {
+            errorLog(message);
+            return;
+        }
+
+        // Log messages that we are rewriting
+        switch (deviceTesterLogMessageType) {
+            case RUNNING:
+            case RUNNING_GREENGRASS_ALREADY_INSTALLED:
+                logStartingTest(prefix, optionalTestCaseId);
+                break;
+            case FINISHED:
+                logFinishedTest(prefix, optionalTestCaseId);
+                break;
+            case PASS:
+                logPassed(prefix, optionalTestCaseId);
+                break;
+            case FAIL_WITH_DURATION:
+                logFailureWithDuration(prefix, message, optionalTestCaseId);
+                break;
+            case PROVISIONING:
+                logProvisioning(prefix, optionalTestCaseId);
+                break;
+            default:
                 // Always fail if there was no match
-                Case($(), type -> {
-                    throw new RuntimeException(String.format("No match for log message [%s]", logMessage));
-                }));
+                throw new RuntimeException(String.format("No match for log message [%s]", deviceTesterLogMessage.getLogMessage()));
+        }
     }
 
     private Void infoLog(String string) {
@@ -131,20 +158,15 @@ public class BasicDeviceTesterHelper implements DeviceTesterHelper {
         return null;
     }
 
-    private Void logRunning(Option<String> optionalTestCaseId) {
-        log.info(addTestCaseId("Running", optionalTestCaseId));
-        return null;
-    }
-
-    private Void logProvisioning(Option<String> optionalTestCaseId) {
-        log.info(addTestCaseId("Provisioning", optionalTestCaseId));
+    private Void logProvisioning(String prefix, Option<String> optionalTestCaseId) {
+        log.info(prefix + addTestCaseId("Provisioning", optionalTestCaseId));
         return null;
     }
 
-    private Void logFailureWithDuration(String logMessage, Option<String> optionalTestCaseId) {
+    private Void logFailureWithDuration(String prefix, String logMessage, Option<String> optionalTestCaseId) {
         Optional<Duration> optionalDuration = extractDurationFromFailureMessage(logMessage);
 
-        String output = addTestCaseId("FAILED", optionalTestCaseId);
+        String output = prefix + addTestCaseId("FAILED", optionalTestCaseId);
 
         if (optionalDuration.isPresent()) {
             output = output + " [" + optionalDuration.get().toString() + "]";
@@ -156,19 +178,19 @@ public class BasicDeviceTesterHelper implements DeviceTesterHelper {
         return null;
     }
 
-    private Void logPassed(Option<String> optionalTestCaseId) {
-        log.info(addTestCaseId("PASSED", optionalTestCaseId));
+    private Void logPassed(String prefix, Option<String> optionalTestCaseId) {
+        log.info(prefix + addTestCaseId("PASSED", optionalTestCaseId));
         log.info("");
         return null;
     }
 
-    private Void logFinishedTest(Option<String> optionalTestCaseId) {
-        log.info(addTestCaseId("Finished test", optionalTestCaseId));
+    private Void logFinishedTest(String prefix, Option<String> optionalTestCaseId) {
+        log.info(prefix + addTestCaseId("Finished test", optionalTestCaseId));
         return null;
     }
 
-    private Void logStartingTest(Option<String> optionalTestCaseId) {
-        log.info(addTestCaseId("Starting test", optionalTestCaseId));
+    private Void logStartingTest(String prefix, Option<String> optionalTestCaseId) {
+        log.info(prefix + addTestCaseId("Starting test", optionalTestCaseId));
         return null;
     }
 
@@ -188,8 +210,7 @@ public class BasicDeviceTesterHelper implements DeviceTesterHelper {
     }
 
     private Optional<Duration> extractDurationFromFailureMessage(String logMessage) {
-        Pattern pattern = Pattern.compile("\\([0-9]+\\.[0-9]+s\\)");
-        Matcher matcher = pattern.matcher(logMessage);
+        Matcher matcher = DURATION_PATTERN.matcher(logMessage);
 
         if (!matcher.find()) {
             return Optional.empty();
@@ -210,78 +231,6 @@ public class BasicDeviceTesterHelper implements DeviceTesterHelper {
 
     @Override
     public Map<String, String> extractValuesFromLogMessage(String logMessage) {
-        // Find the indexes of the names of the log message values
-        Pattern pattern = Pattern.compile(KEY_PATTERN);
-        Matcher matcher = pattern.matcher(logMessage);
-
-        // Start with an empty list
-        List<Tuple2<Integer, Integer>> startAndEndLocations = List.empty();
-
-        // Loop through all of the matches
-        while (matcher.find()) {
-            // Store the start and end of the name so it can be extracted later
-            startAndEndLocations = startAndEndLocations.append(new Tuple2(matcher.start(), matcher.end()));
-        }
-
-        // Add a final entry to the list so we can easily find the end of the last value
-        startAndEndLocations = startAndEndLocations.append(new Tuple2(logMessage.length(), 0));
-
-        // Create a list of the locations that's easier to work with (key start, key end, value end)
-        List<Tuple3<Integer, Integer, Integer>> finalLocations = List.empty();
-
-        // Map the values in the original list to the final location list
-        for (int loop = 0; loop < startAndEndLocations.length() - 1; loop++) {
-            Tuple2<Integer, Integer> currentLocation = startAndEndLocations.get(loop);
-            Tuple2<Integer, Integer> nextLocation = startAndEndLocations.get(loop + 1);
-
-            int keyStart = currentLocation._1;
-            int keyEnd = currentLocation._2;
-            int valueEnd = nextLocation._1;
-
-            Tuple3<Integer, Integer, Integer> finalLocation = new Tuple3(keyStart, keyEnd, valueEnd);
-            finalLocations = finalLocations.append(finalLocation);
-        }
-
-        Map<String, String> values = finalLocations.toStream()
-                .map(tuple3 -> tupleToKeyValue(logMessage, tuple3))
-                .toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue);
-
-        if (values.get(MESSAGE_FIELD_NAME).isEmpty()) {
-            values = values.put(MESSAGE_FIELD_NAME, "");
-        }
-
-        // Is there a time value?
-        Option<String> optionalTime = values.get(TIME);
-
-        if (optionalTime.isEmpty()) {
-            // No, just return everything as is
-            return values;
-        }
-
-        // Yes, clean up the time a bit
-        String time = optionalTime.get();
-
-        // Remove double quotes
-        time = time.substring(1, time.length() - 1);
-
-        // Convert to a date and back to a string to get better formatting
-        // time = LocalDateTime.parse(time).toString();
-
-        values = values.put(TIME, time);
-
-        return values;
-    }
-
-    private AbstractMap.SimpleEntry<String, String> tupleToKeyValue(String logMessage, Tuple3<Integer, Integer, Integer> tuple3) {
-        int keyStart = tuple3._1;
-        int keyEnd = tuple3._2 - 1;
-
-        int valueStart = tuple3._2;
-        int valueEnd = (tuple3._3 == logMessage.length()) ? tuple3._3 : tuple3._3 - 1;
-
-        String key = logMessage.substring(keyStart, keyEnd);
-        String value = logMessage.substring(valueStart, valueEnd);
-
-        return new AbstractMap.SimpleEntry<>(key, value);
+        return new DeviceTesterLogMessage().parse(logMessage).toMap();
     }
 }
@@ -1,23 +1,49 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
 import com.awslabs.aws.greengrass.provisioner.data.diagnostics.DiagnosticRule;
+import com.awslabs.aws.greengrass.provisioner.data.diagnostics.LiteralMatcher;
+import com.awslabs.aws.greengrass.provisioner.data.diagnostics.LogLines;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DiagnosticsHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
+import io.vavr.Lazy;
 import io.vavr.Tuple;
+import io.vavr.Tuple2;
 import io.vavr.Tuple3;
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
 import javax.inject.Inject;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 public class BasicDiagnosticsHelper implements DiagnosticsHelper {
+    private static final Pattern NEWLINE = Pattern.compile("\n");
+    // Matches current and rotated Greengrass log files (e.g. runtime.log, runtime.log.1, runtime-2019-06-01T12-00-00.000.log.gz)
+    private static final Pattern LOCAL_LOG_FILE = Pattern.compile("^(.+?)(-[0-9]{4}-[0-9]{2}-[0-9]{2}T[0-9-]+\\.[0-9]+)?\\.log(\\.[0-9]+)?(\\.gz)?$");
+    private static final String SYSTEM_LOG_DIRECTORY = "system";
+    private static final String USER_LOG_DIRECTORY = "user";
+    private static final String SYSTEM_LOG_GROUP_PREFIX = "/aws/greengrass/GreengrassSystem/";
+    private static final String LAMBDA_LOG_GROUP_PREFIX = "/aws/greengrass/Lambda/";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final long MAXIMUM_MAPPED_FILE_SIZE = Integer.MAX_VALUE;
     private final Logger log = LoggerFactory.getLogger(BasicDiagnosticsHelper.class);
     @Inject
     Set<DiagnosticRule> diagnosticRules;
+    // Built on first use since the rules are injected after construction
+    private final Lazy<CompiledRules> compiledRules = Lazy.of(this::compileRules);
 
     @Inject
     public BasicDiagnosticsHelper() {
@@ -25,30 +51,227 @@ public class BasicDiagnosticsHelper implements DiagnosticsHelper {
 
     @Override
     public void runDiagnostics(java.util.List<Tuple3<LogGroup, LogStream, String>> logs) {
-        List<String> recommendations = logs.stream()
-                .map(this::splitLog)
-                .flatMap(this::evaluateRules)
+        // Logs are independent so they are evaluated in parallel, the results keep the order of the logs
+        List<String> recommendations = logs.parallelStream()
+                .map(logEvents -> getRecommendations(logEvents._1, NEWLINE.splitAsStream(logEvents._3)))
+                .flatMap(Collection::stream)
                 .distinct()
                 .collect(Collectors.toList());
 
         recommendations.forEach(log::warn);
     }
 
-    private Tuple3<LogGroup, LogStream, List<String>> splitLog(Tuple3<LogGroup, LogStream, String> log) {
-        return Tuple.of(log._1, log._2, Arrays.asList(log._3.split("\n")));
+    @Override
+    public void runLocalDiagnostics(File logDirectory) {
+        if (!logDirectory.isDirectory()) {
+            throw new RuntimeException("[" + logDirectory.getPath() + "] is not a directory");
+        }
+
+        List<Tuple2<LogGroup, Path>> logFiles;
+
+        try (Stream<Path> paths = Files.walk(logDirectory.toPath())) {
+            logFiles = paths
+                    .filter(Files::isRegularFile)
+                    .map(path -> getLocalLogGroup(path).map(logGroup -> Tuple.of(logGroup, path)))
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    // Don't read files that no rule looks at
+                    .filter(logFile -> !getApplicableRules(logFile._1).isEmpty())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (logFiles.isEmpty()) {
+            log.warn("No Greengrass logs found in [" + logDirectory.getPath() + "], specify the Greengrass log directory (e.g. /greengrass/ggc/var/log) or a copy of it");
+            return;
+        }
+
+        log.info("Scanning [" + logFiles.size() + "] log file(s) in [" + logDirectory.getPath() + "]");
+
+        List<String> recommendations = logFiles.parallelStream()
+                .map(logFile -> getRecommendations(logFile._1, logFile._2))
+                .flatMap(Collection::stream)
+                .distinct()
+                .collect(Collectors.toList());
+
+        recommendations.forEach(log::warn);
+    }
+
+    private List<String> getRecommendations(LogGroup logGroup, Path path) {
+        try (Stream<? extends CharSequence> lines = getLogLines(path, MAXIMUM_MAPPED_FILE_SIZE)) {
+            return getRecommendations(logGroup, lines);
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException("Failed to read [" + path + "]", e);
+        }
+    }
+
+    Stream<? extends CharSequence> getLogLines(Path path, long maximumMappedFileSize) throws IOException {
+        if (path.getFileName().toString().endsWith(GZIP_SUFFIX)) {
+            // The inflated size isn't known up front so rotated logs are always streamed
+            InputStream inputStream = Files.newInputStream(path);
+
+            try {
+                return getStreamedLogLines(new GZIPInputStream(inputStream));
+            } catch (IOException e) {
+                // Not a valid gzip file
+                inputStream.close();
+                throw e;
+            }
+        }
+
+        if (Files.size(path) > maximumMappedFileSize) {
+            // A single mapping can't be larger than 2 GB
+            return getStreamedLogLines(Files.newInputStream(path));
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return LogLines.of(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+        }
+    }
+
+    private Stream<String> getStreamedLogLines(InputStream inputStream) {
+        // ISO-8859-1 like LogLines so the same lines match either way
+        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.ISO_8859_1), IoHelper.STREAMING_BUFFER_SIZE);
+
+        return bufferedReader.lines()
+                .onClose(() -> IOUtils.closeQuietly(bufferedReader));
+    }
+
+    /**
+     * Gives a local log file the name of the CloudWatch log group that Greengrass would have sent it to so the same rules
+     * apply, e.g. system/runtime.log is /aws/greengrass/GreengrassSystem/runtime and user/us-east-1/123456789012/MyFunction.log
+     * is /aws/greengrass/Lambda/us-east-1/123456789012/MyFunction
+     */
+    Optional<LogGroup> getLocalLogGroup(Path path) {
+        Matcher matcher = LOCAL_LOG_FILE.matcher(path.getFileName().toString());
+
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+
+        List<String> directories = new ArrayList<>();
+        path.getParent().forEach(directory -> directories.add(directory.toString()));
+
+        int systemIndex = directories.lastIndexOf(SYSTEM_LOG_DIRECTORY);
+        int userIndex = directories.lastIndexOf(USER_LOG_DIRECTORY);
+        String logGroupName;
+
+        if ((systemIndex != -1) && (systemIndex == directories.size() - 1)) {
+            logGroupName = SYSTEM_LOG_GROUP_PREFIX + matcher.group(1);
+        } else if (userIndex != -1) {
+            List<String> functionDirectories = new ArrayList<>(directories.subList(userIndex + 1, directories.size()));
+            functionDirectories.add(matcher.group(1));
+            logGroupName = LAMBDA_LOG_GROUP_PREFIX + String.join("/", functionDirectories);
+        } else {
+            return Optional.empty();
+        }
+
+        return Optional.of(LogGroup.builder().logGroupName(logGroupName).build());
     }
 
-    private Stream<String> evaluateRules(Tuple3<LogGroup, LogStream, List<String>> log) {
-        return diagnosticRules.stream()
-                .map(diagnosticRule -> diagnosticRule.evaluate(log))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .flatMap(Collection::stream);
+    private List<Integer> getApplicableRules(LogGroup logGroup) {
+        CompiledRules compiledRules = this.compiledRules.get();
+        List<Integer> applicableRules = new ArrayList<>();
+
+        for (int ruleIndex = 0; ruleIndex < compiledRules.rules.size(); ruleIndex++) {
+            if (compiledRules.rules.get(ruleIndex).appliesTo(logGroup)) {
+                applicableRules.add(ruleIndex);
+            }
+        }
+
+        return applicableRules;
+    }
+
+    @Override
+    public List<String> getRecommendations(LogGroup logGroup, Stream<? extends CharSequence> lines) {
+        CompiledRules compiledRules = this.compiledRules.get();
+        List<Integer> applicableRules = getApplicableRules(logGroup);
+        List<String> recommendations = new ArrayList<>();
+
+        if (applicableRules.isEmpty()) {
+            // Nothing to look for, don't read the log at all
+            return recommendations;
+        }
+
+        BitSet finishedRules = new BitSet();
+        BitSet foundLiterals = new BitSet();
+
+        lines.forEach(line -> {
+            // One pass over the line finds every literal, the regular expressions only run on lines that could match
+            compiledRules.literalMatcher.find(line, foundLiterals);
+
+            for (int ruleIndex : applicableRules) {
+                if (finishedRules.get(ruleIndex) || !containsAll(foundLiterals, compiledRules.requiredLiterals.get(ruleIndex))) {
+                    continue;
+                }
+
+                DiagnosticRule diagnosticRule = compiledRules.rules.get(ruleIndex);
+                Matcher matcher = diagnosticRule.getPattern().matcher(line);
+
+                if (!matcher.matches()) {
+                    continue;
+                }
+
+                diagnosticRule.evaluate(matcher).ifPresent(recommendations::addAll);
+
+                if (diagnosticRule.isFirstMatchOnly()) {
+                    finishedRules.set(ruleIndex);
+                }
+            }
+        });
+
+        return recommendations;
+    }
+
+    private boolean containsAll(BitSet foundLiterals, BitSet requiredLiterals) {
+        for (int literalIndex = requiredLiterals.nextSetBit(0); literalIndex >= 0; literalIndex = requiredLiterals.nextSetBit(literalIndex + 1)) {
+            if (!foundLiterals.get(literalIndex)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private CompiledRules compileRules() {
+        List<DiagnosticRule> rules = new ArrayList<>(diagnosticRules);
+        List<String> literals = new ArrayList<>();
+        Map<String, Integer> literalIndexes = new HashMap<>();
+        List<BitSet> requiredLiterals = new ArrayList<>();
+
+        for (DiagnosticRule rule : rules) {
+            BitSet ruleLiterals = new BitSet();
+
+            for (String literal : rule.getRequiredLiterals()) {
+                // Rules that share a literal share its slot in the automaton
+                ruleLiterals.set(literalIndexes.computeIfAbsent(literal, key -> {
+                    literals.add(key);
+                    return literals.size() - 1;
+                }));
+            }
+
+            requiredLiterals.add(ruleLiterals);
+        }
+
+        return new CompiledRules(rules, new LiteralMatcher(literals), requiredLiterals);
     }
 
     @Override
     public String trimLogGroupName(LogGroup logGroup) {
         return logGroup.logGroupName().replaceAll("^.*/([^/].*)$", "$1");
     }
-}
 
+    private static class CompiledRules {
+        private final List<DiagnosticRule> rules;
+        private final LiteralMatcher literalMatcher;
+        private final List<BitSet> requiredLiterals;
+
+        private CompiledRules(List<DiagnosticRule> rules, LiteralMatcher literalMatcher, List<BitSet> requiredLiterals) {
+            this.rules = rules;
+            this.literalMatcher = literalMatcher;
+            this.requiredLiterals = requiredLiterals;
+        }
+    }
+}
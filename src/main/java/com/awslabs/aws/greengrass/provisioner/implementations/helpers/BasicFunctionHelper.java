@@ -26,7 +26,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
 import java.util.*;
-import java.util.concurrent.Callable;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -585,10 +584,11 @@ public class BasicFunctionHelper implements FunctionHelper {
 
     @Override
     public Map<Function, ModifiableFunctionConf> buildFunctionsAndGenerateMap(List<BuildableFunction> buildableFunctions) {
-        // Get a list of all the build steps we will call
-        List<Callable<LambdaFunctionArnInfoAndFunctionConf>> buildSteps = getCallableBuildSteps(buildableFunctions);
-
-        List<LambdaFunctionArnInfoAndFunctionConf> lambdaFunctionArnInfoAndFunctionConfs = executorHelper.run(log, buildSteps);
+        // Build each function and then upload/publish/alias it, uploads overlap with the builds of the remaining functions
+        List<LambdaFunctionArnInfoAndFunctionConf> lambdaFunctionArnInfoAndFunctionConfs = executorHelper.runPipeline(log,
+                getOrderedBuildableFunctions(buildableFunctions),
+                this::buildFunction,
+                this::createFunction);
 
         // Were there any errors?
         List<LambdaFunctionArnInfoAndFunctionConf> errors = lambdaFunctionArnInfoAndFunctionConfs.stream()
@@ -646,45 +646,19 @@ public class BasicFunctionHelper implements FunctionHelper {
         log.error("  Error [" + error.getError().get() + "]");
     }
 
-    private List<Callable<LambdaFunctionArnInfoAndFunctionConf>> getCallableBuildSteps(List<BuildableFunction> buildableFunctions) {
-        List<Callable<LambdaFunctionArnInfoAndFunctionConf>> buildSteps = new ArrayList<>();
-
-        buildSteps.addAll(buildableFunctions.stream()
-                .filter(buildableFunction -> buildableFunction instanceof BuildableExecutableFunction)
-                .map(buildableFunction ->
-                        (Callable<LambdaFunctionArnInfoAndFunctionConf>) () -> createFunction((BuildableExecutableFunction) buildableFunction))
-                .collect(Collectors.toList()));
-
-        buildSteps.addAll(buildableFunctions.stream()
-                .filter(buildableFunction -> buildableFunction instanceof BuildableJavaMavenFunction)
-                .map(buildableFunction ->
-                        (Callable<LambdaFunctionArnInfoAndFunctionConf>) () -> createFunction((BuildableJavaMavenFunction) buildableFunction))
-                .collect(Collectors.toList()));
-
-        buildSteps.addAll(buildableFunctions.stream()
-                .filter(buildableFunction -> buildableFunction instanceof BuildableJavaGradleFunction)
-                .map(buildableFunction ->
-                        (Callable<LambdaFunctionArnInfoAndFunctionConf>) () -> createFunction((BuildableJavaGradleFunction) buildableFunction))
-                .collect(Collectors.toList()));
+    private List<BuildableFunction> getOrderedBuildableFunctions(List<BuildableFunction> buildableFunctions) {
+        // Keep the same order that the functions were built in when this was done serially
+        List<Class<? extends BuildableFunction>> buildOrder = Arrays.asList(
+                BuildableExecutableFunction.class,
+                BuildableJavaMavenFunction.class,
+                BuildableJavaGradleFunction.class,
+                BuildablePython2Function.class,
+                BuildablePython3Function.class,
+                BuildableNodeFunction.class);
 
-        buildSteps.addAll(buildableFunctions.stream()
-                .filter(buildableFunction -> buildableFunction instanceof BuildablePython2Function)
-                .map(buildableFunction ->
-                        (Callable<LambdaFunctionArnInfoAndFunctionConf>) () -> createFunction((BuildablePython2Function) buildableFunction))
-                .collect(Collectors.toList()));
-
-        buildSteps.addAll(buildableFunctions.stream()
-                .filter(buildableFunction -> buildableFunction instanceof BuildablePython3Function)
-                .map(buildableFunction ->
-                        (Callable<LambdaFunctionArnInfoAndFunctionConf>) () -> createFunction((BuildablePython3Function) buildableFunction))
-                .collect(Collectors.toList()));
-
-        buildSteps.addAll(buildableFunctions.stream()
-                .filter(buildableFunction -> buildableFunction instanceof BuildableNodeFunction)
-                .map(buildableFunction ->
-                        (Callable<LambdaFunctionArnInfoAndFunctionConf>) () -> createFunction((BuildableNodeFunction) buildableFunction))
-                .collect(Collectors.toList()));
-        return buildSteps;
+        return buildOrder.stream()
+                .flatMap(clazz -> buildableFunctions.stream().filter(clazz::isInstance))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -692,103 +666,38 @@ public class BasicFunctionHelper implements FunctionHelper {
         mavenBuilder.installDependencies();
     }
 
-    private LambdaFunctionArnInfoAndFunctionConf createFunction(BuildableJavaMavenFunction buildableJavaMavenFunction) {
-        ModifiableFunctionConf functionConf = buildableJavaMavenFunction.getFunctionConf();
-        Role lambdaRole = buildableJavaMavenFunction.getLambdaRole();
-
-        log.info("Creating Java function [" + functionConf.getFunctionName() + "]");
-        LambdaFunctionArnInfo lambdaFunctionArnInfo = lambdaHelper.buildAndCreateJavaFunctionIfNecessary(functionConf, lambdaRole);
-        String javaAliasArn = lambdaHelper.createAlias(functionConf, lambdaFunctionArnInfo.getQualifier());
-        lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder().from(lambdaFunctionArnInfo).aliasArn(javaAliasArn).build();
-
-        return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
-                .lambdaFunctionArnInfo(lambdaFunctionArnInfo)
-                .functionConf(functionConf)
-                .build();
-    }
-
-    private LambdaFunctionArnInfoAndFunctionConf createFunction(BuildableExecutableFunction buildableExecutableFunction) {
-        ModifiableFunctionConf functionConf = buildableExecutableFunction.getFunctionConf();
-        Role lambdaRole = buildableExecutableFunction.getLambdaRole();
-
-        log.info("Creating executable/native function [" + functionConf.getFunctionName() + "]");
-        LambdaFunctionArnInfo lambdaFunctionArnInfo = lambdaHelper.buildAndCreateExecutableFunctionIfNecessary(functionConf, lambdaRole);
-        String javaAliasArn = lambdaHelper.createAlias(functionConf, lambdaFunctionArnInfo.getQualifier());
-        lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder().from(lambdaFunctionArnInfo).aliasArn(javaAliasArn).build();
-
-        return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
-                .lambdaFunctionArnInfo(lambdaFunctionArnInfo)
-                .functionConf(functionConf)
-                .build();
-    }
-
-    private LambdaFunctionArnInfoAndFunctionConf createFunction(BuildableJavaGradleFunction buildableJavaGradleFunction) {
-        ModifiableFunctionConf functionConf = buildableJavaGradleFunction.getFunctionConf();
-        Role lambdaRole = buildableJavaGradleFunction.getLambdaRole();
-
-        log.info("Creating Java function [" + functionConf.getFunctionName() + "]");
-        LambdaFunctionArnInfo lambdaFunctionArnInfo = lambdaHelper.buildAndCreateJavaFunctionIfNecessary(functionConf, lambdaRole);
-        String javaAliasArn = lambdaHelper.createAlias(functionConf, lambdaFunctionArnInfo.getQualifier());
-        lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder().from(lambdaFunctionArnInfo).aliasArn(javaAliasArn).build();
-
-        return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
-                .lambdaFunctionArnInfo(lambdaFunctionArnInfo)
-                .functionConf(functionConf)
-                .build();
-    }
-
-    private LambdaFunctionArnInfoAndFunctionConf createFunction(BuildablePython2Function buildablePython2Function) {
-        ModifiableFunctionConf functionConf = buildablePython2Function.getFunctionConf();
-        Role lambdaRole = buildablePython2Function.getLambdaRole();
-
-        log.info("Creating Python function [" + functionConf.getFunctionName() + "]");
-        LambdaFunctionArnInfo lambdaFunctionArnInfo = lambdaHelper.buildAndCreatePython2FunctionIfNecessary(functionConf, lambdaRole);
-
-        if (lambdaFunctionArnInfo.getError().isPresent()) {
-            return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
-                    .functionConf(functionConf)
-                    .error(lambdaFunctionArnInfo.getError())
-                    .build();
-        }
-
-        String pythonAliasArn = lambdaHelper.createAlias(functionConf, lambdaFunctionArnInfo.getQualifier());
-        lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder().from(lambdaFunctionArnInfo).aliasArn(pythonAliasArn).build();
-
-        return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
-                .lambdaFunctionArnInfo(lambdaFunctionArnInfo)
-                .functionConf(functionConf)
-                .build();
-    }
-
-    private LambdaFunctionArnInfoAndFunctionConf createFunction(BuildablePython3Function buildablePython3Function) {
-        ModifiableFunctionConf functionConf = buildablePython3Function.getFunctionConf();
-        Role lambdaRole = buildablePython3Function.getLambdaRole();
-
-        log.info("Creating Python function [" + functionConf.getFunctionName() + "]");
-        LambdaFunctionArnInfo lambdaFunctionArnInfo = lambdaHelper.buildAndCreatePython3FunctionIfNecessary(functionConf, lambdaRole);
-
-        if (lambdaFunctionArnInfo.getError().isPresent()) {
-            return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
-                    .functionConf(functionConf)
-                    .error(lambdaFunctionArnInfo.getError())
-                    .build();
+    private AbstractMap.SimpleEntry<BuildableFunction, FunctionArchiveInfo> buildFunction(BuildableFunction buildableFunction) {
+        ModifiableFunctionConf functionConf = buildableFunction.getFunctionConf();
+        FunctionArchiveInfo functionArchiveInfo;
+
+        if (buildableFunction instanceof BuildableExecutableFunction) {
+            log.info("Building executable/native function [" + functionConf.getFunctionName() + "]");
+            functionArchiveInfo = lambdaHelper.buildExecutableFunctionIfNecessary(functionConf);
+        } else if ((buildableFunction instanceof BuildableJavaMavenFunction) || (buildableFunction instanceof BuildableJavaGradleFunction)) {
+            log.info("Building Java function [" + functionConf.getFunctionName() + "]");
+            functionArchiveInfo = lambdaHelper.buildJavaFunctionIfNecessary(functionConf);
+        } else if (buildableFunction instanceof BuildablePython2Function) {
+            log.info("Building Python function [" + functionConf.getFunctionName() + "]");
+            functionArchiveInfo = lambdaHelper.buildPython2FunctionIfNecessary(functionConf);
+        } else if (buildableFunction instanceof BuildablePython3Function) {
+            log.info("Building Python function [" + functionConf.getFunctionName() + "]");
+            functionArchiveInfo = lambdaHelper.buildPython3FunctionIfNecessary(functionConf);
+        } else if (buildableFunction instanceof BuildableNodeFunction) {
+            log.info("Building Node function [" + functionConf.getFunctionName() + "]");
+            functionArchiveInfo = lambdaHelper.buildNodeFunctionIfNecessary(functionConf);
+        } else {
+            throw new RuntimeException("Unexpected buildable function type [" + buildableFunction.getClass().getName() + "], this is a bug");
         }
 
-        String pythonAliasArn = lambdaHelper.createAlias(functionConf, lambdaFunctionArnInfo.getQualifier());
-        lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder().from(lambdaFunctionArnInfo).aliasArn(pythonAliasArn).build();
-
-        return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
-                .lambdaFunctionArnInfo(lambdaFunctionArnInfo)
-                .functionConf(functionConf)
-                .build();
+        return new AbstractMap.SimpleEntry<>(buildableFunction, functionArchiveInfo);
     }
 
-    private LambdaFunctionArnInfoAndFunctionConf createFunction(BuildableNodeFunction buildableNodeFunction) {
-        ModifiableFunctionConf functionConf = buildableNodeFunction.getFunctionConf();
-        Role lambdaRole = buildableNodeFunction.getLambdaRole();
+    private LambdaFunctionArnInfoAndFunctionConf createFunction(AbstractMap.SimpleEntry<BuildableFunction, FunctionArchiveInfo> builtFunction) {
+        ModifiableFunctionConf functionConf = builtFunction.getKey().getFunctionConf();
+        Role lambdaRole = builtFunction.getKey().getLambdaRole();
 
-        log.info("Creating Node function [" + functionConf.getFunctionName() + "]");
-        LambdaFunctionArnInfo lambdaFunctionArnInfo = lambdaHelper.buildAndCreateNodeFunctionIfNecessary(functionConf, lambdaRole);
+        log.info("Creating function [" + functionConf.getFunctionName() + "]");
+        LambdaFunctionArnInfo lambdaFunctionArnInfo = lambdaHelper.createFunctionIfNecessary(functionConf, lambdaRole, builtFunction.getValue());
 
         if (lambdaFunctionArnInfo.getError().isPresent()) {
             return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
@@ -797,8 +706,8 @@ public class BasicFunctionHelper implements FunctionHelper {
                     .build();
         }
 
-        String nodeAliasArn = lambdaHelper.createAlias(functionConf, lambdaFunctionArnInfo.getQualifier());
-        lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder().from(lambdaFunctionArnInfo).aliasArn(nodeAliasArn).build();
+        String aliasArn = lambdaHelper.createAlias(functionConf, lambdaFunctionArnInfo.getQualifier());
+        lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder().from(lambdaFunctionArnInfo).aliasArn(aliasArn).build();
 
         return ImmutableLambdaFunctionArnInfoAndFunctionConf.builder()
                 .lambdaFunctionArnInfo(lambdaFunctionArnInfo)
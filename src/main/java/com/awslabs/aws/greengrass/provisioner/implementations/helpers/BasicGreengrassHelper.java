@@ -18,6 +18,9 @@ import software.amazon.awssdk.services.iot.model.ResourceNotFoundException;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class BasicGreengrassHelper implements GreengrassHelper {
@@ -27,7 +30,14 @@ public class BasicGreengrassHelper implements GreengrassHelper {
     private static final String IN_PROGRESS = "InProgress";
     private static final String SUCCESS = "Success";
     private static final String BUILDING = "Building";
+    // Definition versions can never be modified so they are shared by the whole process, keyed by their ARN
+    private static final Map<String, CoreDefinitionVersion> CORE_DEFINITION_VERSIONS = new ConcurrentHashMap<>();
+    private static final Map<String, FunctionDefinitionVersion> FUNCTION_DEFINITION_VERSIONS = new ConcurrentHashMap<>();
+    private static final Map<String, DeviceDefinitionVersion> DEVICE_DEFINITION_VERSIONS = new ConcurrentHashMap<>();
+    private static final Map<String, SubscriptionDefinitionVersion> SUBSCRIPTION_DEFINITION_VERSIONS = new ConcurrentHashMap<>();
     private final org.slf4j.Logger log = LoggerFactory.getLogger(BasicGreengrassHelper.class);
+    // Group versions fetched during this operation, keyed by group ID and version ID
+    private final Map<String, GetGroupVersionResponse> groupVersions = new ConcurrentHashMap<>();
     @Inject
     GreengrassClient greengrassClient;
     @Inject
@@ -38,6 +48,8 @@ public class BasicGreengrassHelper implements GreengrassHelper {
     GGConstants ggConstants;
     @Inject
     IdExtractor idExtractor;
+    @Inject
+    DefinitionIndexHelper definitionIndexHelper;
 
     @Inject
     public BasicGreengrassHelper() {
@@ -54,82 +66,93 @@ public class BasicGreengrassHelper implements GreengrassHelper {
 
     @Override
     public Optional<GroupInformation> getGroupInformation(String groupNameOrGroupId) {
-        ListGroupsRequest listGroupsRequest = ListGroupsRequest.builder().build();
-
-        ListGroupsResponse listGroupsResponse;
-
-        do {
-            listGroupsResponse = greengrassClient.listGroups(listGroupsRequest);
+        Optional<GroupInformation> optionalGroupInformation = definitionIndexHelper.getGroupId(groupNameOrGroupId)
+                .flatMap(this::getGroupInformationById);
 
-            for (GroupInformation groupInformation : listGroupsResponse.groups()) {
-                if (groupInformation.name().equals(groupNameOrGroupId)) {
-                    return Optional.ofNullable(groupInformation);
-                }
+        if (!optionalGroupInformation.isPresent() && definitionIndexHelper.getGroupId(groupNameOrGroupId).isPresent()) {
+            // The index pointed to a group that is gone, reload the index and try once more
+            definitionIndexHelper.invalidate();
 
-                if (groupInformation.id().equals(groupNameOrGroupId)) {
-                    return Optional.ofNullable(groupInformation);
-                }
-            }
+            optionalGroupInformation = definitionIndexHelper.getGroupId(groupNameOrGroupId)
+                    .flatMap(this::getGroupInformationById);
+        }
 
-            listGroupsRequest = ListGroupsRequest.builder().nextToken(listGroupsResponse.nextToken()).build();
-        } while (listGroupsResponse.nextToken() != null);
+        if (!optionalGroupInformation.isPresent()) {
+            log.warn("No group was found with name or ID [" + groupNameOrGroupId + "]");
+        }
 
-        log.warn("No group was found with name or ID [" + groupNameOrGroupId + "]");
-        return Optional.empty();
+        return optionalGroupInformation;
     }
 
-    private Optional<String> getGroupId(String groupName) {
-        Optional<GroupInformation> optionalGroupInformation = getGroupInformation(groupName);
+    private Optional<GroupInformation> getGroupInformationById(String groupId) {
+        // Always get the group itself so the latest version information is never stale
+        GetGroupRequest getGroupRequest = GetGroupRequest.builder()
+                .groupId(groupId)
+                .build();
 
-        return optionalGroupInformation.map(GroupInformation::id);
+        return Try.of(() -> Optional.of(greengrassClient.getGroup(getGroupRequest)))
+                .recover(GreengrassException.class, this::emptyIfNotFound)
+                .get()
+                .map(getGroupResponse -> GroupInformation.builder()
+                        .arn(getGroupResponse.arn())
+                        .creationTimestamp(getGroupResponse.creationTimestamp())
+                        .id(getGroupResponse.id())
+                        .lastUpdatedTimestamp(getGroupResponse.lastUpdatedTimestamp())
+                        .latestVersion(getGroupResponse.latestVersion())
+                        .latestVersionArn(getGroupResponse.latestVersionArn())
+                        .name(getGroupResponse.name())
+                        .build());
     }
 
-    private String getCoreDefinitionId(String coreDefinitionName) {
-        ListCoreDefinitionsRequest listCoreDefinitionsRequest = ListCoreDefinitionsRequest.builder().build();
-
-        ListCoreDefinitionsResponse listCoreDefinitionsResponse;
+    private <T> Optional<T> emptyIfNotFound(GreengrassException greengrassException) {
+        if ((greengrassException.statusCode() == 404) || (greengrassException instanceof BadRequestException)) {
+            return Optional.empty();
+        }
 
-        do {
-            listCoreDefinitionsResponse = greengrassClient.listCoreDefinitions(listCoreDefinitionsRequest);
+        throw greengrassException;
+    }
 
-            for (DefinitionInformation definitionInformation : listCoreDefinitionsResponse.definitions()) {
-                if (definitionInformation.name() == null) {
-                    continue;
-                }
+    private Optional<String> getExistingDefinitionId(Supplier<Optional<String>> indexLookup, Predicate<String> definitionExists) {
+        Optional<String> optionalDefinitionId = indexLookup.get()
+                .filter(definitionExists);
 
-                if (definitionInformation.name().equals(coreDefinitionName)) {
-                    return definitionInformation.id();
-                }
-            }
+        if (!optionalDefinitionId.isPresent() && indexLookup.get().isPresent()) {
+            // The index pointed to a definition that is gone, reload the index and try once more
+            definitionIndexHelper.invalidate();
 
-            listCoreDefinitionsRequest = ListCoreDefinitionsRequest.builder().nextToken(listCoreDefinitionsResponse.nextToken()).build();
-        } while (listCoreDefinitionsResponse.nextToken() != null);
+            optionalDefinitionId = indexLookup.get()
+                    .filter(definitionExists);
+        }
 
-        return null;
+        return optionalDefinitionId;
     }
 
-    private String getDeviceDefinitionId(String deviceDefinitionName) {
-        ListDeviceDefinitionsRequest listDeviceDefinitionsRequest = ListDeviceDefinitionsRequest.builder().build();
-
-        ListDeviceDefinitionsResponse listDeviceDefinitionsResponse;
+    private boolean coreDefinitionExists(String coreDefinitionId) {
+        GetCoreDefinitionRequest getCoreDefinitionRequest = GetCoreDefinitionRequest.builder()
+                .coreDefinitionId(coreDefinitionId)
+                .build();
 
-        do {
-            listDeviceDefinitionsResponse = greengrassClient.listDeviceDefinitions(listDeviceDefinitionsRequest);
+        return Try.of(() -> Optional.of(greengrassClient.getCoreDefinition(getCoreDefinitionRequest)))
+                .recover(GreengrassException.class, this::emptyIfNotFound)
+                .get()
+                .isPresent();
+    }
 
-            for (DefinitionInformation definitionInformation : listDeviceDefinitionsResponse.definitions()) {
-                if (definitionInformation.name() == null) {
-                    continue;
-                }
+    private boolean deviceDefinitionExists(String deviceDefinitionId) {
+        GetDeviceDefinitionRequest getDeviceDefinitionRequest = GetDeviceDefinitionRequest.builder()
+                .deviceDefinitionId(deviceDefinitionId)
+                .build();
 
-                if (definitionInformation.name().equals(deviceDefinitionName)) {
-                    return definitionInformation.id();
-                }
-            }
+        return Try.of(() -> Optional.of(greengrassClient.getDeviceDefinition(getDeviceDefinitionRequest)))
+                .recover(GreengrassException.class, this::emptyIfNotFound)
+                .get()
+                .isPresent();
+    }
 
-            listDeviceDefinitionsRequest = ListDeviceDefinitionsRequest.builder().nextToken(listDeviceDefinitionsResponse.nextToken()).build();
-        } while (listDeviceDefinitionsResponse.nextToken() != null);
+    private Optional<String> getGroupId(String groupName) {
+        Optional<GroupInformation> optionalGroupInformation = getGroupInformation(groupName);
 
-        return null;
+        return optionalGroupInformation.map(GroupInformation::id);
     }
 
     @Override
@@ -148,6 +171,8 @@ public class BasicGreengrassHelper implements GreengrassHelper {
 
         CreateGroupResponse createGroupResponse = greengrassClient.createGroup(createGroupRequest);
 
+        definitionIndexHelper.putGroup(groupName, createGroupResponse.id());
+
         return createGroupResponse.id();
     }
 
@@ -172,15 +197,20 @@ public class BasicGreengrassHelper implements GreengrassHelper {
     public String createCoreDefinitionAndVersion(String coreDefinitionName, String coreCertificateArn, String coreThingArn, boolean syncShadow) {
         String uuid = ioHelper.getUuid();
 
-        String coreDefinitionId = getCoreDefinitionId(coreDefinitionName);
+        Optional<String> optionalCoreDefinitionId = getExistingDefinitionId(() -> definitionIndexHelper.getCoreDefinitionId(coreDefinitionName), this::coreDefinitionExists);
+        String coreDefinitionId;
 
-        if (coreDefinitionId == null) {
+        if (optionalCoreDefinitionId.isPresent()) {
+            coreDefinitionId = optionalCoreDefinitionId.get();
+        } else {
             CreateCoreDefinitionRequest createCoreDefinitionRequest = CreateCoreDefinitionRequest.builder()
                     .name(coreDefinitionName)
                     .build();
 
             CreateCoreDefinitionResponse createCoreDefinitionResponse = greengrassClient.createCoreDefinition(createCoreDefinitionRequest);
             coreDefinitionId = createCoreDefinitionResponse.id();
+
+            definitionIndexHelper.putCoreDefinition(coreDefinitionName, coreDefinitionId);
         }
 
         Core core = Core.builder()
@@ -400,15 +430,20 @@ public class BasicGreengrassHelper implements GreengrassHelper {
 
     @Override
     public String createDeviceDefinitionAndVersion(String deviceDefinitionName, List<Device> devices) {
-        String deviceDefinitionId = getDeviceDefinitionId(deviceDefinitionName);
+        Optional<String> optionalDeviceDefinitionId = getExistingDefinitionId(() -> definitionIndexHelper.getDeviceDefinitionId(deviceDefinitionName), this::deviceDefinitionExists);
+        String deviceDefinitionId;
 
-        if (deviceDefinitionId == null) {
+        if (optionalDeviceDefinitionId.isPresent()) {
+            deviceDefinitionId = optionalDeviceDefinitionId.get();
+        } else {
             CreateDeviceDefinitionRequest createDeviceDefinitionRequest = CreateDeviceDefinitionRequest.builder()
                     .name(deviceDefinitionName)
                     .build();
 
             CreateDeviceDefinitionResponse createDeviceDefinitionResponse = greengrassClient.createDeviceDefinition(createDeviceDefinitionRequest);
             deviceDefinitionId = createDeviceDefinitionResponse.id();
+
+            definitionIndexHelper.putDeviceDefinition(deviceDefinitionName, deviceDefinitionId);
         }
 
         CreateDeviceDefinitionVersionRequest createDeviceDefinitionVersionRequest = CreateDeviceDefinitionVersionRequest.builder()
@@ -517,6 +552,9 @@ public class BasicGreengrassHelper implements GreengrassHelper {
 
         CreateGroupVersionResponse createGroupVersionResponse = greengrassClient.createGroupVersion(createGroupVersionRequest);
 
+        // The group has a new latest version now, don't hand out anything we memoized for its old one
+        groupVersions.keySet().removeIf(key -> key.startsWith(groupId + "/"));
+
         return createGroupVersionResponse.version();
     }
 
@@ -1007,9 +1045,10 @@ public class BasicGreengrassHelper implements GreengrassHelper {
                 .coreDefinitionId(coreDefinitionId)
                 .build();
 
-        GetCoreDefinitionVersionResponse coreDefinitionVersionResponse = greengrassClient.getCoreDefinitionVersion(getCoreDefinitionVersionRequest);
+        CoreDefinitionVersion coreDefinitionVersion = CORE_DEFINITION_VERSIONS.computeIfAbsent(coreDefinitionVersionArn,
+                key -> greengrassClient.getCoreDefinitionVersion(getCoreDefinitionVersionRequest).definition());
 
-        return Optional.ofNullable(coreDefinitionVersionResponse.definition())
+        return Optional.ofNullable(coreDefinitionVersion)
                 .map(CoreDefinitionVersion::cores)
                 .filter(list -> list.size() != 0)
                 .map(list -> list.get(0))
@@ -1036,7 +1075,15 @@ public class BasicGreengrassHelper implements GreengrassHelper {
                 .groupVersionId(groupInformation.latestVersion())
                 .build();
 
-        return greengrassClient.getGroupVersion(getGroupVersionRequest);
+        return groupVersions.computeIfAbsent(String.join("/", groupInformation.id(), groupInformation.latestVersion()),
+                key -> greengrassClient.getGroupVersion(getGroupVersionRequest));
+    }
+
+    static void clearDefinitionVersions() {
+        CORE_DEFINITION_VERSIONS.clear();
+        FUNCTION_DEFINITION_VERSIONS.clear();
+        DEVICE_DEFINITION_VERSIONS.clear();
+        SUBSCRIPTION_DEFINITION_VERSIONS.clear();
     }
 
     @Override
@@ -1076,9 +1123,8 @@ public class BasicGreengrassHelper implements GreengrassHelper {
                 .functionDefinitionVersionId(idExtractor.extractVersionId(functionDefinitionVersionArn))
                 .build();
 
-        GetFunctionDefinitionVersionResponse getFunctionDefinitionVersionResponse = greengrassClient.getFunctionDefinitionVersion(getFunctionDefinitionVersionRequest);
-
-        return getFunctionDefinitionVersionResponse.definition();
+        return FUNCTION_DEFINITION_VERSIONS.computeIfAbsent(functionDefinitionVersionArn,
+                key -> greengrassClient.getFunctionDefinitionVersion(getFunctionDefinitionVersionRequest).definition());
     }
 
     @Override
@@ -1092,9 +1138,8 @@ public class BasicGreengrassHelper implements GreengrassHelper {
                 .deviceDefinitionVersionId(idExtractor.extractVersionId(deviceDefinitionVersionArn))
                 .build();
 
-        GetDeviceDefinitionVersionResponse getDeviceDefinitionVersionResponse = greengrassClient.getDeviceDefinitionVersion(getDeviceDefinitionVersionRequest);
-
-        DeviceDefinitionVersion deviceDefinition = getDeviceDefinitionVersionResponse.definition();
+        DeviceDefinitionVersion deviceDefinition = DEVICE_DEFINITION_VERSIONS.computeIfAbsent(deviceDefinitionVersionArn,
+                key -> greengrassClient.getDeviceDefinitionVersion(getDeviceDefinitionVersionRequest).definition());
 
         // The returned list is an unmodifiable list, copy it to an array list so callers can modify it
         List<Device> devices = new ArrayList<>(deviceDefinition.devices());
@@ -1113,9 +1158,8 @@ public class BasicGreengrassHelper implements GreengrassHelper {
                 .subscriptionDefinitionVersionId(idExtractor.extractVersionId(subscriptionDefinitionVersionArn))
                 .build();
 
-        GetSubscriptionDefinitionVersionResponse getSubscriptionDefinitionVersionResponse = greengrassClient.getSubscriptionDefinitionVersion(getSubscriptionDefinitionVersionRequest);
-
-        SubscriptionDefinitionVersion subscriptionDefinition = getSubscriptionDefinitionVersionResponse.definition();
+        SubscriptionDefinitionVersion subscriptionDefinition = SUBSCRIPTION_DEFINITION_VERSIONS.computeIfAbsent(subscriptionDefinitionVersionArn,
+                key -> greengrassClient.getSubscriptionDefinitionVersion(getSubscriptionDefinitionVersionRequest).definition());
 
         // The returned list is an unmodifiable list, copy it to an array list so callers can modify it
         List<Subscription> subscriptions = new ArrayList<>(subscriptionDefinition.subscriptions());
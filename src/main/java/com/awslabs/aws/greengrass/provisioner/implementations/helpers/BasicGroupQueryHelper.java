@@ -3,6 +3,7 @@ package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 import com.awslabs.aws.greengrass.provisioner.data.arguments.QueryArguments;
 import com.awslabs.aws.greengrass.provisioner.implementations.clientproviders.CloudWatchLogsClientProvider;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.*;
+import com.google.common.util.concurrent.RateLimiter;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import io.vavr.Tuple3;
@@ -18,12 +19,28 @@ import software.amazon.awssdk.services.greengrass.model.*;
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Path;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 public class BasicGroupQueryHelper implements GroupQueryHelper {
     public static final String BUILD_DIRECTORY = "build/";
+    private static final int MAX_CONCURRENT_REQUESTS = 8;
+    // Stay under the CloudWatch Logs per-account request rate limits so concurrent requests don't just get throttled
+    private static final RateLimiter DESCRIBE_LOG_GROUPS_RATE_LIMITER = RateLimiter.create(5);
+    private static final RateLimiter DESCRIBE_LOG_STREAMS_RATE_LIMITER = RateLimiter.create(5);
+    private static final RateLimiter GET_LOG_EVENTS_RATE_LIMITER = RateLimiter.create(10);
+    // Shared by every query (and every poll while watching) so the request threads are only created once, Guice doesn't bind this helper as a singleton
+    private static final ExecutorService CLOUDWATCH_LOGS_EXECUTOR = Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS, BasicGroupQueryHelper::newDaemonThread);
+    static final long MIN_WATCH_INTERVAL_MS = 500;
+    static final long MAX_WATCH_INTERVAL_MS = 30000;
+    private static final long WATCH_DISCOVERY_INTERVAL_MS = 60000;
     private final Logger log = LoggerFactory.getLogger(BasicGroupQueryHelper.class);
     private final Set<String> greengrassTopLevelLogNames = new HashSet<>(Arrays.asList("/aws/greengrass/GreengrassSystem/GGCloudSpooler",
             "/aws/greengrass/GreengrassSystem/GGConnManager",
@@ -53,6 +70,13 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
     public BasicGroupQueryHelper() {
     }
 
+    private static Thread newDaemonThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "cloudwatch-logs");
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
     @Override
     public Void execute(QueryArguments queryArguments) {
         if (!queryArguments.getGroupCa &&
@@ -65,6 +89,12 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
             throw new RuntimeException("No query specified");
         }
 
+        if (queryArguments.diagnose && (queryArguments.localLogDirectory != null)) {
+            diagnosticsHelper.runLocalDiagnostics(new File(queryArguments.localLogDirectory));
+
+            return null;
+        }
+
         Optional<GroupInformation> optionalGroupInformation = greengrassHelper.getGroupInformation(queryArguments.groupName);
 
         if (!optionalGroupInformation.isPresent()) {
@@ -133,11 +163,11 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         }
 
         if (queryArguments.downloadLogs) {
-            List<Tuple3<LogGroup, LogStream, String>> logs = getLatestLogMessagesForGroup(queryArguments, groupInformation);
+            List<Tuple2<LogGroup, LogStream>> logStreams = getLogStreamsToDownload(queryArguments, groupInformation);
 
             File directory = cleanAndCreateDirectory(queryArguments.groupName);
 
-            logs.forEach(events -> saveLogEvents(directory, events));
+            mapConcurrently(logStreams, logGroupAndStream -> downloadLogStream(directory, queryArguments, logGroupAndStream));
 
             if (!ioHelper.isRunningInDocker()) {
                 log.info("Logs written to [" + directory.getPath() + "]");
@@ -150,37 +180,19 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         }
 
         if (queryArguments.watchLogs) {
-            List<Tuple3<LogGroup, LogStream, GetLogEventsResponse>> logEvents = getLatestLogEventsForGroup(queryArguments, groupInformation);
-
-            List<Tuple3<LogGroup, LogStream, String>> logGroupStreamAndForwardTokens = logEvents.stream()
-                    .map(this::getNextForwardTokenForEvents)
-                    .collect(Collectors.toList());
-
-            do {
-                // Get the new events using the forward tokens
-                List<Tuple3<LogGroup, LogStream, GetLogEventsResponse>> newEvents = logGroupStreamAndForwardTokens.stream()
-                        .map(this::getLogEvents)
-                        .collect(Collectors.toList());
+            watchLogs(queryArguments, groupInformation);
 
-                // Print the new events
-                newEvents.forEach(this::printLogEvents);
-
-                // Get the next set of forward tokens
-                logGroupStreamAndForwardTokens = newEvents.stream()
-                        .map(this::getNextForwardTokenForEvents)
-                        .collect(Collectors.toList());
-
-                // Sleep so we don't hit the CloudWatch Logs APIs too much
-                ioHelper.sleep(1000);
-            } while (true);
+            return null;
         }
 
         if (queryArguments.diagnose) {
             List<Tuple3<LogGroup, LogStream, String>> logs = getLatestLogMessagesForGroup(queryArguments, groupInformation);
 
-            if (!topLevelLogsPresent(logs)) {
-                log.error("Not all of the Greengrass logs are present in CloudWatch. Turn on CloudWatch logging in your Greengrass group, redeploy, and try again.");
-                return null;
+            Set<String> missingLogGroupNames = getMissingTopLevelLogNames(logs);
+
+            if (!missingLogGroupNames.isEmpty()) {
+                // Diagnose what is there, the missing logs may just not have been written yet
+                log.warn("Some of the Greengrass logs are not present in CloudWatch " + missingLogGroupNames + ". Turn on CloudWatch logging in your Greengrass group and redeploy, or diagnose a copy of the logs from the core with --local-logs.");
             }
 
             diagnosticsHelper.runDiagnostics(logs);
@@ -191,12 +203,12 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         throw new RuntimeException("This should never happen.  This is a bug.");
     }
 
-    private boolean topLevelLogsPresent(List<Tuple3<LogGroup, LogStream, String>> logs) {
-        Set<String> presentLogGroups = logs.stream()
-                .map(log -> log._1.logGroupName())
-                .collect(Collectors.toSet());
+    private Set<String> getMissingTopLevelLogNames(List<Tuple3<LogGroup, LogStream, String>> logs) {
+        Set<String> missingLogGroups = new TreeSet<>(greengrassTopLevelLogNames);
 
-        return presentLogGroups.containsAll(greengrassTopLevelLogNames);
+        logs.forEach(log -> missingLogGroups.remove(log._1.logGroupName()));
+
+        return missingLogGroups;
     }
 
     @NotNull
@@ -210,11 +222,270 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
 
     @NotNull
     private List<Tuple3<LogGroup, LogStream, GetLogEventsResponse>> getLatestLogEventsForGroup(QueryArguments queryArguments, GroupInformation groupInformation) {
-        List<LogGroup> allLogGroups = getAllLogGroupsForGreengrassGroup(groupInformation);
+        List<String> allLogGroupNames = getAllLogGroupNamesForGreengrassGroup(groupInformation);
+
+        String topLevelCloudWatchLogsGroupRegex = getTopLevelCloudWatchLogsGroupRegex(queryArguments.groupName);
+
+        // Each log group is looked up, has its latest stream found, and has its events fetched independently of the others
+        return mapConcurrently(allLogGroupNames, logGroupName -> findLogGroupByName(logGroupName)
+                .flatMap(logGroup -> getLatestLogStreamForLogGroup(logGroup, topLevelCloudWatchLogsGroupRegex))
+                .map(this::getLogEvents))
+                .stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+    }
+
+    @NotNull
+    private List<Tuple2<LogGroup, LogStream>> getLogStreamsToDownload(QueryArguments queryArguments, GroupInformation groupInformation) {
+        List<String> allLogGroupNames = getAllLogGroupNamesForGreengrassGroup(groupInformation);
+
+        String topLevelCloudWatchLogsGroupRegex = getTopLevelCloudWatchLogsGroupRegex(queryArguments.groupName);
+
+        if (!isTimeRangeSpecified(queryArguments)) {
+            // No time range, just the latest stream like the other log queries
+            return getLatestLogStreams(allLogGroupNames, topLevelCloudWatchLogsGroupRegex);
+        }
+
+        // Every stream with events in the time range
+        return mapConcurrently(allLogGroupNames, logGroupName -> findLogGroupByName(logGroupName)
+                .map(logGroup -> findLogStreams(logGroup.logGroupName(), topLevelCloudWatchLogsGroupRegex).stream()
+                        .filter(logStream -> isInTimeRange(queryArguments, logStream))
+                        .sorted(Comparator.comparingLong(LogStream::creationTime))
+                        .map(logStream -> Tuple.of(logGroup, logStream))
+                        .collect(Collectors.toList()))
+                .orElse(new ArrayList<>()))
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    @NotNull
+    private List<Tuple2<LogGroup, LogStream>> getLatestLogStreams(QueryArguments queryArguments, GroupInformation groupInformation) {
+        List<String> allLogGroupNames = getAllLogGroupNamesForGreengrassGroup(groupInformation);
+
+        String topLevelCloudWatchLogsGroupRegex = getTopLevelCloudWatchLogsGroupRegex(queryArguments.groupName);
+
+        return getLatestLogStreams(allLogGroupNames, topLevelCloudWatchLogsGroupRegex);
+    }
+
+    @NotNull
+    private List<Tuple2<LogGroup, LogStream>> getLatestLogStreams(List<String> allLogGroupNames, String topLevelCloudWatchLogsGroupRegex) {
+        return mapConcurrently(allLogGroupNames, logGroupName -> findLogGroupByName(logGroupName)
+                .flatMap(logGroup -> getLatestLogStreamForLogGroup(logGroup, topLevelCloudWatchLogsGroupRegex)))
+                .stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+    }
 
-        List<Tuple2<LogGroup, LogStream>> allLogStreams = getAllLogStreamsForGreengrassGroup(queryArguments, allLogGroups);
+    private boolean isTimeRangeSpecified(QueryArguments queryArguments) {
+        return (queryArguments.startTime != null) || (queryArguments.endTime != null);
+    }
 
-        return getLogEventsForLogStreams(allLogStreams);
+    private boolean isInTimeRange(QueryArguments queryArguments, LogStream logStream) {
+        if ((logStream.firstEventTimestamp() == null) || (logStream.lastEventTimestamp() == null)) {
+            // Streams without events have nothing to download
+            return false;
+        }
+
+        if ((queryArguments.startTime != null) && (logStream.lastEventTimestamp() < queryArguments.startTime.toEpochMilli())) {
+            return false;
+        }
+
+        return (queryArguments.endTime == null) || (logStream.firstEventTimestamp() < queryArguments.endTime.toEpochMilli());
+    }
+
+    /**
+     * Downloads every event in a log stream, one page at a time, straight into a file so large streams are never held in memory
+     *
+     * @param directory
+     * @param queryArguments
+     * @param logGroupAndStream
+     * @return the file the events were written to
+     */
+    File downloadLogStream(File directory, QueryArguments queryArguments, Tuple2<LogGroup, LogStream> logGroupAndStream) {
+        LogGroup logGroup = logGroupAndStream._1;
+        LogStream logStream = logGroupAndStream._2;
+
+        String[] fileNameParts = logGroup.logGroupName().split("/");
+        List<String> fileNameComponents = new ArrayList<>();
+        fileNameComponents.add(fileNameParts[fileNameParts.length - 1]);
+
+        if (isTimeRangeSpecified(queryArguments)) {
+            // There can be more than one stream per log group in a time range, keep them in separate files
+            fileNameComponents.add(logStream.logStreamName().replaceAll("/", "-"));
+        }
+
+        fileNameComponents.add("log");
+
+        if (queryArguments.gzipLogs) {
+            fileNameComponents.add("gz");
+        }
+
+        File file = directory.toPath().resolve(String.join(".", fileNameComponents)).toFile();
+
+        ioHelper.writeFile(file, outputStream -> writeLogEvents(queryArguments, logGroup, logStream, outputStream));
+
+        return file;
+    }
+
+    private void writeLogEvents(QueryArguments queryArguments, LogGroup logGroup, LogStream logStream, OutputStream outputStream) throws IOException {
+        CloudWatchLogsClient cloudWatchLogsClient = cloudWatchLogsClientProvider.get();
+
+        GZIPOutputStream gzipOutputStream = null;
+
+        if (queryArguments.gzipLogs) {
+            gzipOutputStream = new GZIPOutputStream(outputStream);
+            outputStream = gzipOutputStream;
+        }
+
+        GetLogEventsRequest.Builder getLogEventsRequestBuilder = GetLogEventsRequest.builder()
+                .logGroupName(logGroup.logGroupName())
+                .logStreamName(logStream.logStreamName())
+                .startFromHead(true);
+
+        Optional.ofNullable(queryArguments.startTime).ifPresent(startTime -> getLogEventsRequestBuilder.startTime(startTime.toEpochMilli()));
+        Optional.ofNullable(queryArguments.endTime).ifPresent(endTime -> getLogEventsRequestBuilder.endTime(endTime.toEpochMilli()));
+
+        String previousToken;
+        String nextToken = null;
+
+        do {
+            GET_LOG_EVENTS_RATE_LIMITER.acquire();
+
+            GetLogEventsResponse getLogEventsResponse = cloudWatchLogsClient.getLogEvents(getLogEventsRequestBuilder
+                    .nextToken(nextToken)
+                    .build());
+
+            for (OutputLogEvent outputLogEvent : getLogEventsResponse.events()) {
+                outputStream.write(outputLogEvent.message().getBytes(StandardCharsets.UTF_8));
+            }
+
+            previousToken = nextToken;
+            nextToken = getLogEventsResponse.nextForwardToken();
+
+            // CloudWatch Logs returns the token it was given when there are no more events
+        } while ((nextToken != null) && !nextToken.equals(previousToken));
+
+        if (gzipOutputStream != null) {
+            // Write the gzip trailer, the underlying stream is closed by the caller
+            gzipOutputStream.finish();
+        }
+    }
+
+    /**
+     * Applies a function that makes CloudWatch Logs requests to each input on the shared bounded pool, the function must
+     * not call this again or it could wait on itself for a thread
+     *
+     * @param inputs
+     * @param function
+     * @return the results in the same order as the inputs
+     */
+    private <T, R> List<R> mapConcurrently(List<T> inputs, java.util.function.Function<T, R> function) {
+        List<CompletableFuture<R>> futures = inputs.stream()
+                .map(input -> CompletableFuture.supplyAsync(() -> function.apply(input), CLOUDWATCH_LOGS_EXECUTOR))
+                .collect(Collectors.toList());
+
+        try {
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+        } catch (CompletionException e) {
+            // Throw the exception from the request that failed instead of the wrapper
+            Throwable cause = e.getCause();
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    private void watchLogs(QueryArguments queryArguments, GroupInformation groupInformation) {
+        // Keyed by log group name, a log group's stream is replaced when a newer one shows up (e.g. a function restarted)
+        Map<String, WatchedLogStream> watchedLogStreams = new LinkedHashMap<>();
+
+        long startTime = System.currentTimeMillis();
+
+        // Start at the end of the streams that already exist so only new events are printed
+        getLatestLogEventsForGroup(queryArguments, groupInformation)
+                .forEach(logEvents -> watchedLogStreams.put(logEvents._1.logGroupName(), new WatchedLogStream(logEvents._1, logEvents._2, logEvents._3.nextForwardToken(), startTime + MIN_WATCH_INTERVAL_MS)));
+
+        long nextDiscoveryTime = startTime + WATCH_DISCOVERY_INTERVAL_MS;
+
+        do {
+            long now = System.currentTimeMillis();
+
+            if (now >= nextDiscoveryTime) {
+                discoverLogStreams(queryArguments, groupInformation, watchedLogStreams, now);
+                nextDiscoveryTime = now + WATCH_DISCOVERY_INTERVAL_MS;
+            }
+
+            List<WatchedLogStream> dueLogStreams = watchedLogStreams.values().stream()
+                    .filter(watchedLogStream -> watchedLogStream.getNextPollTime() <= now)
+                    .collect(Collectors.toList());
+
+            if (!dueLogStreams.isEmpty()) {
+                // Only the streams that are due are polled, concurrently, and printed in the usual order
+                List<Tuple3<LogGroup, LogStream, GetLogEventsResponse>> newEvents = mapConcurrently(dueLogStreams,
+                        watchedLogStream -> getLogEvents(watchedLogStream.logGroup, watchedLogStream.logStream, watchedLogStream.forwardToken));
+
+                newEvents.forEach(this::printLogEvents);
+
+                long polledTime = System.currentTimeMillis();
+
+                for (int index = 0; index < dueLogStreams.size(); index++) {
+                    GetLogEventsResponse getLogEventsResponse = newEvents.get(index)._3;
+                    dueLogStreams.get(index).update(getLogEventsResponse.nextForwardToken(), !getLogEventsResponse.events().isEmpty(), polledTime);
+                }
+            }
+
+            // Sleep until the next stream is due or it is time to look for new streams
+            long wakeUpTime = watchedLogStreams.values().stream()
+                    .mapToLong(WatchedLogStream::getNextPollTime)
+                    .min()
+                    .orElse(nextDiscoveryTime);
+
+            ioHelper.sleep((int) Math.max(0, Math.min(wakeUpTime, nextDiscoveryTime) - System.currentTimeMillis()));
+        } while (true);
+    }
+
+    private void discoverLogStreams(QueryArguments queryArguments, GroupInformation groupInformation, Map<String, WatchedLogStream> watchedLogStreams, long now) {
+        for (Tuple2<LogGroup, LogStream> logGroupAndStream : getLatestLogStreams(queryArguments, groupInformation)) {
+            String logGroupName = logGroupAndStream._1.logGroupName();
+            WatchedLogStream watchedLogStream = watchedLogStreams.get(logGroupName);
+
+            if ((watchedLogStream != null) && watchedLogStream.logStream.logStreamName().equals(logGroupAndStream._2.logStreamName())) {
+                // Already watching this stream
+                continue;
+            }
+
+            if (watchedLogStream != null) {
+                // The old stream may have been written to since it was last polled, print the rest of it before moving on
+                drainLogStream(watchedLogStream);
+            }
+
+            log.info("Watching new log stream [" + logGroupName + ", " + logGroupAndStream._2.logStreamName() + "]");
+
+            // New streams are read from the beginning right away
+            watchedLogStreams.put(logGroupName, new WatchedLogStream(logGroupAndStream._1, logGroupAndStream._2, null, now));
+        }
+    }
+
+    /**
+     * Prints every event left in a watched stream, following its forward token until CloudWatch Logs hands the same token back
+     *
+     * @param watchedLogStream
+     */
+    void drainLogStream(WatchedLogStream watchedLogStream) {
+        String previousToken;
+
+        do {
+            previousToken = watchedLogStream.forwardToken;
+
+            Tuple3<LogGroup, LogStream, GetLogEventsResponse> logEvents = getLogEvents(watchedLogStream.logGroup, watchedLogStream.logStream, previousToken);
+            printLogEvents(logEvents);
+
+            GetLogEventsResponse getLogEventsResponse = logEvents._3;
+            watchedLogStream.update(getLogEventsResponse.nextForwardToken(), !getLogEventsResponse.events().isEmpty(), System.currentTimeMillis());
+        } while ((watchedLogStream.forwardToken != null) && !watchedLogStream.forwardToken.equals(previousToken));
     }
 
     private void printLogEvents(Tuple3<LogGroup, LogStream, GetLogEventsResponse> logGroupStreamAndEvents) {
@@ -237,54 +508,22 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         System.out.print(header + message);
     }
 
-    private Tuple3<LogGroup, LogStream, String> getNextForwardTokenForEvents(Tuple3<LogGroup, LogStream, GetLogEventsResponse> logGroupStreamAndEvents) {
-        return Tuple.of(logGroupStreamAndEvents._1, logGroupStreamAndEvents._2, logGroupStreamAndEvents._3.nextForwardToken());
-    }
-
     @NotNull
-    private List<Tuple3<LogGroup, LogStream, GetLogEventsResponse>> getLogEventsForLogStreams(List<Tuple2<LogGroup, LogStream>> allLogStreams) {
-        return allLogStreams.stream()
-                .map(this::getLogEvents)
-                .collect(Collectors.toList());
-    }
-
-    @NotNull
-    private List<Tuple2<LogGroup, LogStream>> getAllLogStreamsForGreengrassGroup(QueryArguments queryArguments, List<LogGroup> allLogGroups) {
-        String topLevelCloudWatchLogsGroupRegex = getTopLevelCloudWatchLogsGroupRegex(queryArguments.groupName);
-
-        return allLogGroups.stream()
-                .map(logGroup -> getLatestLogStreamForLogGroup(logGroup, topLevelCloudWatchLogsGroupRegex))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
-    }
-
-    @NotNull
-    private List<LogGroup> getAllLogGroupsForGreengrassGroup(GroupInformation groupInformation) {
-        List<LogGroup> greengrassTopLevelLogGroups = greengrassTopLevelLogNames.stream()
-                .map(this::findLogGroupByName)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
-
+    private List<String> getAllLogGroupNamesForGreengrassGroup(GroupInformation groupInformation) {
         List<Function> functions = greengrassHelper.getFunctions(groupInformation);
 
-        List<LogGroup> functionLogGroups = functions.stream()
+        List<String> functionLogGroupNames = functions.stream()
                 // Remove all internal functions (no region, no account number) since they won't have logs
                 .filter(function -> !function.functionArn().contains(":::"))
                 // Convert function names into CloudWatch Logs log group format
                 .map(this::convertFunctionToCloudWatchLogGroupName)
-                // Get the LogGroup object for each
-                .map(this::findLogGroupByName)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
                 .collect(Collectors.toList());
 
-        List<LogGroup> allLogGroups = new ArrayList<>();
-        allLogGroups.addAll(greengrassTopLevelLogGroups);
-        allLogGroups.addAll(functionLogGroups);
+        List<String> allLogGroupNames = new ArrayList<>();
+        allLogGroupNames.addAll(greengrassTopLevelLogNames);
+        allLogGroupNames.addAll(functionLogGroupNames);
 
-        return allLogGroups;
+        return allLogGroupNames;
     }
 
     private String convertFunctionToCloudWatchLogGroupName(Function function) {
@@ -303,15 +542,6 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         return name;
     }
 
-    private void saveLogEvents(File directory, Tuple3<LogGroup, LogStream, String> logEvents) {
-        Path directoryPath = directory.toPath();
-
-        String[] fileNameParts = logEvents._1.logGroupName().split("/");
-        String fileName = String.join(".", fileNameParts[fileNameParts.length - 1], "log");
-
-        ioHelper.writeFile(directoryPath.resolve(fileName).toFile(), logEvents._3.getBytes());
-    }
-
     @NotNull
     private File cleanAndCreateDirectory(String groupName) {
         String directoryName = String.join("/", "logs", groupName);
@@ -398,8 +628,14 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         CloudWatchLogsClient cloudWatchLogsClient = cloudWatchLogsClientProvider.get();
 
         do {
+            DESCRIBE_LOG_GROUPS_RATE_LIMITER.acquire();
+
+            // The prefix limits the results to this log group and any that start with its name, usually a single page
             DescribeLogGroupsResponse result = cloudWatchLogsClient
-                    .describeLogGroups(DescribeLogGroupsRequest.builder().nextToken(nextToken).build());
+                    .describeLogGroups(DescribeLogGroupsRequest.builder()
+                            .logGroupNamePrefix(logGroupName)
+                            .nextToken(nextToken)
+                            .build());
 
             Optional<LogGroup> optionalLogGroup = result.logGroups().stream()
                     .filter(group -> group.logGroupName().equals(logGroupName))
@@ -417,6 +653,12 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
 
     private Optional<LogStream> findLatestLogStream(final String logGroupName,
                                                     final String logStreamRegex) {
+        // Get the most recent log stream
+        return findLogStreams(logGroupName, logStreamRegex).stream().max(Comparator.comparingLong(LogStream::creationTime));
+    }
+
+    private List<LogStream> findLogStreams(final String logGroupName,
+                                           final String logStreamRegex) {
         String nextToken = null;
 
         CloudWatchLogsClient cloudWatchLogsClient = cloudWatchLogsClientProvider.get();
@@ -424,6 +666,8 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         List<LogStream> logStreams = new ArrayList<>();
 
         do {
+            DESCRIBE_LOG_STREAMS_RATE_LIMITER.acquire();
+
             DescribeLogStreamsResponse result = cloudWatchLogsClient
                     .describeLogStreams(DescribeLogStreamsRequest.builder()
                             .logGroupName(logGroupName)
@@ -437,8 +681,7 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
             nextToken = result.nextToken();
         } while (nextToken != null);
 
-        // Get the most recent log stream
-        return logStreams.stream().max(Comparator.comparingLong(LogStream::creationTime));
+        return logStreams;
     }
 
     private Tuple3<LogGroup, LogStream, GetLogEventsResponse> getLogEvents(Tuple2<LogGroup, LogStream> logGroupAndStream) {
@@ -453,11 +696,9 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
                 .logStreamName(logStream.logStreamName())
                 .build();
 
-        return Tuple.of(logGroup, logStream, cloudWatchLogsClient.getLogEvents(getLogEventsRequest));
-    }
+        GET_LOG_EVENTS_RATE_LIMITER.acquire();
 
-    private Tuple3<LogGroup, LogStream, GetLogEventsResponse> getLogEvents(Tuple3<LogGroup, LogStream, String> logGroupStreamAndForwardToken) {
-        return getLogEvents(logGroupStreamAndForwardToken._1, logGroupStreamAndForwardToken._2, logGroupStreamAndForwardToken._3);
+        return Tuple.of(logGroup, logStream, cloudWatchLogsClient.getLogEvents(getLogEventsRequest));
     }
 
     private Tuple3<LogGroup, LogStream, GetLogEventsResponse> getLogEvents(LogGroup logGroup, LogStream logStream, String forwardToken) {
@@ -466,9 +707,41 @@ public class BasicGroupQueryHelper implements GroupQueryHelper {
         GetLogEventsRequest getLogEventsRequest = GetLogEventsRequest.builder()
                 .logGroupName(logGroup.logGroupName())
                 .logStreamName(logStream.logStreamName())
+                // Forward tokens only work when reading from the head, this also reads new streams from their first event
+                .startFromHead(true)
                 .nextToken(forwardToken)
                 .build();
 
+        GET_LOG_EVENTS_RATE_LIMITER.acquire();
+
         return Tuple.of(logGroup, logStream, cloudWatchLogsClient.getLogEvents(getLogEventsRequest));
     }
+
+    /**
+     * A log stream being watched.  Streams that are producing events are polled quickly, idle streams back off.
+     */
+    static class WatchedLogStream {
+        private final LogGroup logGroup;
+        private final LogStream logStream;
+        private String forwardToken;
+        private long interval = MIN_WATCH_INTERVAL_MS;
+        private long nextPollTime;
+
+        WatchedLogStream(LogGroup logGroup, LogStream logStream, String forwardToken, long nextPollTime) {
+            this.logGroup = logGroup;
+            this.logStream = logStream;
+            this.forwardToken = forwardToken;
+            this.nextPollTime = nextPollTime;
+        }
+
+        void update(String forwardToken, boolean receivedEvents, long now) {
+            this.forwardToken = forwardToken;
+            this.interval = receivedEvents ? MIN_WATCH_INTERVAL_MS : Math.min(interval * 2, MAX_WATCH_INTERVAL_MS);
+            this.nextPollTime = now + interval;
+        }
+
+        long getNextPollTime() {
+            return nextPollTime;
+        }
+    }
 }
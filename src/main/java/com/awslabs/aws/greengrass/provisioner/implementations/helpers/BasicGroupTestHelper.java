@@ -1,6 +1,7 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
 import com.awslabs.aws.greengrass.provisioner.data.Architecture;
+import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessage;
 import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessageType;
 import com.awslabs.aws.greengrass.provisioner.data.arguments.TestArguments;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.*;
@@ -10,6 +11,7 @@ import io.vavr.collection.List;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,10 +25,12 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class BasicGroupTestHelper implements GroupTestHelper {
@@ -45,6 +49,10 @@ public class BasicGroupTestHelper implements GroupTestHelper {
     private static final String SSH_CONNECTION_REFUSED_MESSAGE = "SSH connection refused, device under test may not be ready yet...";
     private static final String SSH_ERROR_MESSAGE = "There was an SSH error [{}]";
     private static final String VAR_LIB_GGQ = "/var/lib/GGQ";
+    private static final String MERGED_REPORT_FILENAME = "merged-report.json";
+    private static final String PASSED = "PASSED";
+    private static final String FAILED = "FAILED";
+    private static final String ERROR = "ERROR";
     private final Logger log = LoggerFactory.getLogger(BasicGroupTestHelper.class);
     @Inject
     GreengrassHelper greengrassHelper;
@@ -68,7 +76,6 @@ public class BasicGroupTestHelper implements GroupTestHelper {
     ProcessHelper processHelper;
     @Inject
     DeviceTesterHelper deviceTesterHelper;
-    private Option<String> optionalCurrentRunningTest = Option.none();
 
     @Inject
     public BasicGroupTestHelper() {
@@ -78,9 +85,7 @@ public class BasicGroupTestHelper implements GroupTestHelper {
     public Void execute(TestArguments testArguments) {
         LocalDateTime testStartLocalDateTime = LocalDateTime.now();
 
-        if (testArguments.deviceUnderTest == null) {
-            throw new RuntimeException("No device specified");
-        }
+        java.util.List<String> devicesUnderTest = testArguments.devicesUnderTest;
 
         Optional<String> optionalUrlForDeviceTester = Optional.empty();
 
@@ -102,222 +107,424 @@ public class BasicGroupTestHelper implements GroupTestHelper {
 
         GroupInformation groupInformation = optionalGroupInformation.get();
 
-        File deviceTesterDirectory = null;
+        // Download the tester or use the existing one, every device gets its own copy of it later
+        File deviceTesterLocation;
 
-        // Download and extract the tester or use the existing one
         if (testArguments.deviceTesterLocation != null) {
             // It is downloaded already
-            File deviceTesterLocation = new File(testArguments.deviceTesterLocation);
+            deviceTesterLocation = new File(testArguments.deviceTesterLocation);
 
             if (!deviceTesterLocation.exists()) {
                 throw new RuntimeException(String.format("Device Tester could not be found at the specified location [%s]", testArguments.deviceTesterLocation));
             }
-
-            if (deviceTesterLocation.isFile()) {
-                // It's the archive, we need to extract it
-                deviceTesterDirectory = Try.of(() -> extractDeviceTester(deviceTesterLocation)).get();
-            }
         } else {
-            File deviceTesterZip = Try.of(() -> ioHelper.getTempFile("devicetester", "zip")).get();
-            log.info("Downloading Device Tester to [{}] ...", deviceTesterZip.getAbsolutePath());
+            deviceTesterLocation = Try.of(() -> ioHelper.getTempFile("devicetester", "zip")).get();
+            log.info("Downloading Device Tester to [{}] ...", deviceTesterLocation.getAbsolutePath());
             // CloudFront requires the referer to be filled in
-            Try.of(() -> ioHelper.download(urlForDeviceTester, deviceTesterZip, Optional.of("https://aws.amazon.com/greengrass/device-tester/"))).get();
-            deviceTesterDirectory = Try.of(() -> extractDeviceTester(deviceTesterZip)).get();
+            Try.of(() -> ioHelper.download(urlForDeviceTester, deviceTesterLocation, Optional.of("https://aws.amazon.com/greengrass/device-tester/"))).get();
         }
 
-        // Create the <AWS Account #>.<Region>.CoreAndGroupInfo.json file for /var/lib/GGQ on the device
-        log.info("Download and extraction of Device Tester is complete");
+        String outputDirectory = String.join("/", testArguments.outputDirectory,
+                String.join("-", testArguments.groupName, testStartLocalDateTime.toString()));
 
-        // Connect to the device under test via SSH
-        Session session = null;
+        if (devicesUnderTest.size() == 1) {
+            new DeviceTestRun(devicesUnderTest.get(0), Optional.empty())
+                    .execute(testArguments, groupInformation, deviceTesterLocation, outputDirectory);
+
+            return null;
+        }
+
+        int threadCount = Math.min(testArguments.maxConcurrentDevices, devicesUnderTest.size());
+        log.info("Testing [{}] devices, [{}] at a time", devicesUnderTest.size(), threadCount);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
 
         try {
-            session = getSshSession(testArguments, true);
+            // Each device gets its own run so no state is shared between them, a failure on one device doesn't stop the others
+            java.util.List<CompletableFuture<DeviceTestRun>> futures = devicesUnderTest.stream()
+                    .map(deviceUnderTest -> new DeviceTestRun(deviceUnderTest, Optional.of(deviceUnderTest)))
+                    .map(deviceTestRun -> CompletableFuture.supplyAsync(() -> deviceTestRun.safeExecute(testArguments, groupInformation, deviceTesterLocation,
+                            String.join("/", outputDirectory, toDirectoryName(deviceTestRun.deviceUnderTest))), executorService))
+                    .collect(Collectors.toList());
 
-            // Create a final version of this variable so it can be used in lambdas
-            final Session finalSession = session;
+            java.util.List<DeviceTestRun> deviceTestRuns = futures.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
 
-            // Clear out the GGQ directory
-            if (testArguments.clean) {
-                log.info("Cleaning the {} directory", VAR_LIB_GGQ);
-                Try.of(() -> ioHelper.runCommand(finalSession, String.join(" ", "sudo rm -rf", VAR_LIB_GGQ))).get();
-            } else if (testArguments.generateConfig) {
-                log.info("Generating the {} config", VAR_LIB_GGQ);
-                // Copy the <AWS Account #>.<Region>.CoreAndGroupInfo.json to /var/lib/GGQ on the device
-                Try.of(() -> ioHelper.runCommand(finalSession, String.join(" ", "sudo mkdir -p", VAR_LIB_GGQ))).get();
+            writeMergedReport(deviceTestRuns, outputDirectory);
+        } finally {
+            executorService.shutdown();
+        }
+
+        return null;
+    }
+
+    private String toDirectoryName(String deviceUnderTest) {
+        return deviceUnderTest.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
 
-                Try.of(() -> ioHelper.runCommand(finalSession, String.join(" ", "sudo chmod 777", VAR_LIB_GGQ))).get();
+    void writeMergedReport(java.util.List<DeviceTestRun> deviceTestRuns, String outputDirectory) {
+        java.util.List<Map<String, Object>> devices = new ArrayList<>();
 
-                File coreAndGroupInfoJsonTemp = Try.of(() -> ioHelper.getTempFile("CoreAndGroupInfoJson", "tmp")).get();
-                coreAndGroupInfoJsonTemp.deleteOnExit();
+        log.info("Results for all devices:");
 
-                String coreAndGroupInfoJson = generateCoreAndGroupInfoJson(groupInformation);
-                ioHelper.writeFile(coreAndGroupInfoJsonTemp, coreAndGroupInfoJson.getBytes());
+        for (DeviceTestRun deviceTestRun : deviceTestRuns) {
+            java.util.List<String> passingTests = deviceTestRun.getTests(Try::isSuccess);
+            java.util.List<String> failingTests = deviceTestRun.getTests(Try::isFailure);
+            String status = deviceTestRun.getStatus();
 
-                String remoteCoreAndGroupInfoFilename = String.join("/",
-                        VAR_LIB_GGQ,
-                        String.join(".",
-                                iamHelper.getAccountId(),
-                                awsHelper.getCurrentRegion().toString(),
-                                "CoreAndGroupInfo",
-                                "json"));
+            String summary = String.format("%s| %s (%d passed, %d failed)", StringUtils.rightPad(deviceTestRun.deviceUnderTest, 30), status, passingTests.size(), failingTests.size());
 
-                Try.of(() -> ioHelper.sendFile(finalSession, coreAndGroupInfoJsonTemp.getAbsolutePath(), remoteCoreAndGroupInfoFilename)).get();
+            if (deviceTestRun.optionalError.isPresent()) {
+                log.error(summary + " " + deviceTestRun.optionalError.get().getMessage());
+            } else if (!failingTests.isEmpty()) {
+                log.warn(summary);
             } else {
-                log.info("Not cleaning or generating the config in {}", VAR_LIB_GGQ);
+                log.info(summary);
             }
 
-            // Stop Greengrass if it is running already
-            log.info("Stopping Greengrass if it is running");
-            Try.of(() -> ioHelper.runCommand(finalSession, "sudo systemctl stop greengrass")).get();
-            Try.of(() -> ioHelper.runCommand(finalSession, "/greengrass/ggc/core/greengrassd stop")).get();
+            Map<String, Object> device = new LinkedHashMap<>();
+            device.put("deviceUnderTest", deviceTestRun.deviceUnderTest);
+            device.put("status", status);
+            device.put("passed", passingTests);
+            device.put("failed", failingTests);
+            deviceTestRun.optionalError.ifPresent(throwable -> device.put("error", String.valueOf(throwable.getMessage())));
+            devices.add(device);
+        }
+
+        Map<String, Object> mergedReport = HashMap.of("devices", (Object) devices)
+                .put("devicesPassed", deviceTestRuns.stream().filter(deviceTestRun -> deviceTestRun.getStatus().equals(PASSED)).count())
+                .put("devicesTested", (long) deviceTestRuns.size())
+                .toJavaMap();
 
-            // Create the config.json for the local configs directory
-            String localConfigJson = createLocalConfigJson();
+        new File(outputDirectory).mkdirs();
+        String mergedReportFilename = String.join("/", outputDirectory, MERGED_REPORT_FILENAME);
+        ioHelper.writeFile(mergedReportFilename, jsonHelper.toJson(mergedReport).getBytes());
 
-            // Create the device.json for the local configs directory
-            String localDeviceJson = createLocalDeviceJson(testArguments.deviceUnderTest, testArguments.user, testArguments.privateKeyPath, testArguments.architecture);
+        log.info("Merged report written to [{}]", mergedReportFilename);
+    }
 
-            List<File> topLevelFiles = List.of(deviceTesterDirectory.listFiles());
+    /**
+     * Everything that belongs to testing one device, several of these can run at the same time
+     */
+    class DeviceTestRun {
+        private final String deviceUnderTest;
+        private final Optional<String> optionalDeviceName;
+        final java.util.Map<String, Try<Void>> testStatus = Collections.synchronizedMap(new LinkedHashMap<>());
+        private final java.util.List<String> reportLocations = Collections.synchronizedList(new ArrayList<>());
+        private volatile Option<String> optionalCurrentRunningTest = Option.none();
+        Optional<Throwable> optionalError = Optional.empty();
+
+        DeviceTestRun(String deviceUnderTest, Optional<String> optionalDeviceName) {
+            this.deviceUnderTest = deviceUnderTest;
+            this.optionalDeviceName = optionalDeviceName;
+        }
 
-            if (topLevelFiles.size() != 1) {
-                throw new RuntimeException("Extracted more files than expected, could not find configs directory");
+        private String tag(String message) {
+            return optionalDeviceName.map(deviceName -> "[" + deviceName + "] " + message).orElse(message);
+        }
+
+        private java.util.List<String> getTests(Predicate<Try<Void>> predicate) {
+            synchronized (testStatus) {
+                return testStatus.entrySet().stream()
+                        .filter(entry -> predicate.test(entry.getValue()))
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
             }
+        }
 
-            deviceTesterDirectory = topLevelFiles.single();
+        String getStatus() {
+            if (optionalError.isPresent()) {
+                return ERROR;
+            }
 
-            Path configsPath = deviceTesterDirectory.toPath().resolve("configs");
+            if (testStatus.isEmpty() || !getTests(Try::isFailure).isEmpty()) {
+                return FAILED;
+            }
+
+            return PASSED;
+        }
 
-            if (!configsPath.toFile().exists()) {
-                throw new RuntimeException("Could not find configs directory");
+        private DeviceTestRun safeExecute(TestArguments testArguments, GroupInformation groupInformation, File deviceTesterLocation, String outputDirectory) {
+            try {
+                execute(testArguments, groupInformation, deviceTesterLocation, outputDirectory);
+            } catch (Exception e) {
+                log.error(tag("Testing failed [{}]"), e.getMessage());
+                optionalError = Optional.of(e);
             }
 
-            // Copy config.json to the local configs directory
-            ioHelper.writeFile(configsPath.resolve("config.json").toAbsolutePath().toString(), localConfigJson.getBytes());
+            return this;
+        }
+
+        private void execute(TestArguments testArguments, GroupInformation groupInformation, File deviceTesterLocation, String outputDirectory) {
+            // Every run extracts its own copy so the configs and results of different devices never mix
+            File deviceTesterDirectory = Try.of(() -> prepareDeviceTester(deviceTesterLocation)).get();
 
-            // Copy device.json to the local configs directory
-            ioHelper.writeFile(configsPath.resolve("device.json").toAbsolutePath().toString(), localDeviceJson.getBytes());
+            // Create the <AWS Account #>.<Region>.CoreAndGroupInfo.json file for /var/lib/GGQ on the device
+            log.info(tag("Download and extraction of Device Tester is complete"));
 
-            Path deviceTesterPath = deviceTesterDirectory.toPath();
+            // Connect to the device under test via SSH
+            Session session = null;
 
-            // Look for all of the binaries in subdirectories and make them executable
-            Try.of(() -> java.nio.file.Files.walk(deviceTesterPath.resolve("tests"))).get()
-                    .map(path -> path.toAbsolutePath().toString())
-                    .filter(path -> path.matches(".*/bin/[^/]+$"))
-                    .forEach(ioHelper::makeExecutable);
+            try {
+                session = getSshSession(deviceUnderTest, testArguments.user, true);
 
-            // Execute some cleanup commands to prevent test failures
+                // Create a final version of this variable so it can be used in lambdas
+                final Session finalSession = session;
 
-            // Prevent "File exists" error on ipd_test_1 and ipd_test_2 if the test ran previously
-            Try.of(() -> ioHelper.runCommand(finalSession, "sudo ip address del 172.0.0.2/32 dev lo")).get();
+                // Clear out the GGQ directory
+                if (testArguments.clean) {
+                    log.info(tag("Cleaning the {} directory"), VAR_LIB_GGQ);
+                    Try.of(() -> ioHelper.runCommand(finalSession, String.join(" ", "sudo rm -rf", VAR_LIB_GGQ))).get();
+                } else if (testArguments.generateConfig) {
+                    log.info(tag("Generating the {} config"), VAR_LIB_GGQ);
+                    // Copy the <AWS Account #>.<Region>.CoreAndGroupInfo.json to /var/lib/GGQ on the device
+                    Try.of(() -> ioHelper.runCommand(finalSession, String.join(" ", "sudo mkdir -p", VAR_LIB_GGQ))).get();
 
-            // Find the binary and execute it
-            List<File> mainExecutables = List.of(deviceTesterDirectory.toPath().resolve("bin").toFile().listFiles());
+                    Try.of(() -> ioHelper.runCommand(finalSession, String.join(" ", "sudo chmod 777", VAR_LIB_GGQ))).get();
 
-            if (mainExecutables.size() != 1) {
-                throw new RuntimeException("Could not locate the Device Tester binary");
-            }
+                    File coreAndGroupInfoJsonTemp = Try.of(() -> ioHelper.getTempFile("CoreAndGroupInfoJson", "tmp")).get();
+                    coreAndGroupInfoJsonTemp.deleteOnExit();
+
+                    String coreAndGroupInfoJson = generateCoreAndGroupInfoJson(groupInformation);
+                    ioHelper.writeFile(coreAndGroupInfoJsonTemp, coreAndGroupInfoJson.getBytes());
+
+                    String remoteCoreAndGroupInfoFilename = String.join("/",
+                            VAR_LIB_GGQ,
+                            String.join(".",
+                                    iamHelper.getAccountId(),
+                                    awsHelper.getCurrentRegion().toString(),
+                                    "CoreAndGroupInfo",
+                                    "json"));
 
-            File mainExecutable = mainExecutables.single();
-            ioHelper.makeExecutable(mainExecutable.getAbsolutePath());
+                    Try.of(() -> ioHelper.sendFile(finalSession, coreAndGroupInfoJsonTemp.getAbsolutePath(), remoteCoreAndGroupInfoFilename)).get();
+                } else {
+                    log.info(tag("Not cleaning or generating the config in {}"), VAR_LIB_GGQ);
+                }
 
-            File executionDirectory = mainExecutable.getParentFile().getParentFile();
+                // Stop Greengrass if it is running already
+                log.info(tag("Stopping Greengrass if it is running"));
+                Try.of(() -> ioHelper.runCommands(finalSession, List.of(
+                        "sudo systemctl stop greengrass",
+                        "/greengrass/ggc/core/greengrassd stop").asJava())).get();
 
-            List<String> deviceTesterAndArguments = List.of(
-                    "./bin/" + mainExecutable.getName(),
-                    "run-suite",
-                    "--suite-id",
-                    "GGQ_1",
-                    "--pool-id",
-                    DEVICE_POOL_ID);
+                // Create the config.json for the local configs directory
+                String localConfigJson = createLocalConfigJson();
 
-            ProcessBuilder deviceTesterProcessBuilder = processHelper.getProcessBuilder(deviceTesterAndArguments.asJava())
-                    .directory(executionDirectory);
+                // Create the device.json for the local configs directory
+                String localDeviceJson = createLocalDeviceJson(deviceUnderTest, testArguments.user, testArguments.privateKeyPath, testArguments.architecture);
 
-            Instant testStart = Instant.now();
-            java.util.HashMap<String, Try> testStatus = new java.util.HashMap<>();
-            java.util.List<String> reportLocations = new ArrayList<>();
+                List<File> topLevelFiles = List.of(deviceTesterDirectory.listFiles());
 
-            // Kill any existing proxies left over from previous runs
-            killRemoteProcessesBySearchString(finalSession, PROXY_SEARCH_STRING);
+                if (topLevelFiles.size() != 1) {
+                    throw new RuntimeException("Extracted more files than expected, could not find configs directory");
+                }
 
-            // Kill any existing daemons left over from previous runs
-            killRemoteProcessesBySearchString(finalSession, DAEMON_SEARCH_STRING);
+                deviceTesterDirectory = topLevelFiles.single();
 
-            // Kill any existing tail commands we may have started in previous runs
-            killRemoteProcessesBySearchString(finalSession, TAIL_FOLLOW_COMMAND);
+                Path configsPath = deviceTesterDirectory.toPath().resolve("configs");
 
-            // Remove the existing runtime.log
-            Try.of(() -> ioHelper.runCommand(finalSession, String.join(" ", "sudo rm -f", FULL_RUNTIME_LOG_PATH))).get();
+                if (!configsPath.toFile().exists()) {
+                    throw new RuntimeException("Could not find configs directory");
+                }
 
-            // Start device tester
-            Optional<Integer> exitVal = processHelper.getOutputFromProcess(log, deviceTesterProcessBuilder, true,
-                    Optional.of(stdoutLogMessage -> handleLogMessage(stdoutLogMessage, testStatus, reportLocations)),
-                    Optional.of(stderrLogMessage -> handleLogMessage(stderrLogMessage, testStatus, reportLocations)));
+                // Copy config.json to the local configs directory
+                ioHelper.writeFile(configsPath.resolve("config.json").toAbsolutePath().toString(), localConfigJson.getBytes());
 
-            Instant testEnd = Instant.now();
+                // Copy device.json to the local configs directory
+                ioHelper.writeFile(configsPath.resolve("device.json").toAbsolutePath().toString(), localDeviceJson.getBytes());
 
-            Duration testDuration = Duration.between(testStart, testEnd);
+                Path deviceTesterPath = deviceTesterDirectory.toPath();
 
-            log.info("Test duration: [{}]", testDuration);
+                // Look for all of the binaries in subdirectories and make them executable
+                Try.of(() -> java.nio.file.Files.walk(deviceTesterPath.resolve("tests"))).get()
+                        .map(path -> path.toAbsolutePath().toString())
+                        .filter(path -> path.matches(".*/bin/[^/]+$"))
+                        .forEach(ioHelper::makeExecutable);
 
-            exitVal.ifPresent(this::logIfDeviceTesterExitedWithError);
+                // Execute some cleanup commands to prevent test failures
 
-            java.util.List<String> testNames = testStatus.entrySet()
-                    .stream()
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
+                // Prevent "File exists" error on ipd_test_1 and ipd_test_2 if the test ran previously
+                Try.of(() -> ioHelper.runCommand(finalSession, "sudo ip address del 172.0.0.2/32 dev lo")).get();
 
-            java.util.List<String> passingTests = testStatus.entrySet()
-                    .stream()
-                    .filter(entry -> entry.getValue().isSuccess())
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
+                // Find the binary and execute it
+                List<File> mainExecutables = List.of(deviceTesterDirectory.toPath().resolve("bin").toFile().listFiles());
 
-            java.util.List<String> failingTests = testStatus.entrySet()
-                    .stream()
-                    .filter(entry -> entry.getValue().isFailure())
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
+                if (mainExecutables.size() != 1) {
+                    throw new RuntimeException("Could not locate the Device Tester binary");
+                }
 
-            if (testNames.size() == 0) {
-                log.error("No tests executed");
-            } else {
-                log.info("Tests executed: ");
+                File mainExecutable = mainExecutables.single();
+                ioHelper.makeExecutable(mainExecutable.getAbsolutePath());
+
+                File executionDirectory = mainExecutable.getParentFile().getParentFile();
+
+                List<String> deviceTesterAndArguments = List.of(
+                        "./bin/" + mainExecutable.getName(),
+                        "run-suite",
+                        "--suite-id",
+                        "GGQ_1",
+                        "--pool-id",
+                        DEVICE_POOL_ID);
+
+                ProcessBuilder deviceTesterProcessBuilder = processHelper.getProcessBuilder(deviceTesterAndArguments.asJava())
+                        .directory(executionDirectory);
+
+                Instant testStart = Instant.now();
+
+                // These don't depend on each other so they run at the same time on the same connection
+                Try.of(() -> ioHelper.runCommands(finalSession, List.of(
+                        // Kill any existing proxies left over from previous runs
+                        getKillRemoteProcessesCommand(PROXY_SEARCH_STRING),
+                        // Kill any existing daemons left over from previous runs
+                        getKillRemoteProcessesCommand(DAEMON_SEARCH_STRING),
+                        // Kill any existing tail commands we may have started in previous runs
+                        getKillRemoteProcessesCommand(TAIL_FOLLOW_COMMAND),
+                        // Remove the existing runtime.log
+                        String.join(" ", "sudo rm -f", FULL_RUNTIME_LOG_PATH)).asJava())).get();
+
+                // Each stream is read on its own thread so each one gets its own reusable message
+                DeviceTesterLogMessage stdoutDeviceTesterLogMessage = new DeviceTesterLogMessage();
+                DeviceTesterLogMessage stderrDeviceTesterLogMessage = new DeviceTesterLogMessage();
+
+                // Start device tester
+                Optional<Integer> exitVal = processHelper.getOutputFromProcess(log, deviceTesterProcessBuilder, true,
+                        Optional.of(stdoutLogMessage -> handleLogMessage(deviceTesterHelper.parse(stdoutLogMessage, stdoutDeviceTesterLogMessage))),
+                        Optional.of(stderrLogMessage -> handleLogMessage(deviceTesterHelper.parse(stderrLogMessage, stderrDeviceTesterLogMessage))));
+
+                Instant testEnd = Instant.now();
+
+                Duration testDuration = Duration.between(testStart, testEnd);
 
-                testNames.stream().forEach(log::info);
+                log.info(tag("Test duration: [{}]"), testDuration);
+
+                exitVal.ifPresent(this::logIfDeviceTesterExitedWithError);
+
+                java.util.List<String> testNames = getTests(testResult -> true);
+                java.util.List<String> passingTests = getTests(Try::isSuccess);
+                java.util.List<String> failingTests = getTests(Try::isFailure);
+
+                if (testNames.size() == 0) {
+                    log.error(tag("No tests executed"));
+                } else {
+                    log.info(tag("Tests executed: "));
+
+                    testNames.stream().map(this::tag).forEach(log::info);
+                }
+
+                if (passingTests.size() == 0) {
+                    log.error(tag("No tests passed"));
+                } else {
+                    log.info(tag("Tests passed: "));
+
+                    passingTests.stream().map(this::tag).forEach(log::info);
+                }
+
+                if (failingTests.size() == 0) {
+                    log.info(tag("No tests failed"));
+                } else {
+                    log.warn(tag("Tests failed: "));
+
+                    failingTests.stream().map(this::tag).forEach(log::warn);
+                }
+
+                // Move the results to the requested location
+                java.util.List<String> reportLocationsCopy;
+
+                synchronized (reportLocations) {
+                    reportLocationsCopy = new ArrayList<>(reportLocations);
+                }
+
+                reportLocationsCopy.stream().findFirst().ifPresent(path ->
+                        Try.of(() -> moveParentDirectory(path, outputDirectory))
+                                .onFailure(Throwable::printStackTrace)
+                                .get());
+            } finally {
+                safeRelease(session);
             }
+        }
 
-            if (passingTests.size() == 0) {
-                log.error("No tests passed");
-            } else {
-                log.info("Tests passed: ");
+        private void logIfDeviceTesterExitedWithError(Integer value) {
+            if (value != 0) {
+                log.error(tag("Device tester exited with an error"));
+            }
+        }
+
+        private void handleLogMessage(DeviceTesterLogMessage deviceTesterLogMessage) {
+            deviceTesterHelper.log(deviceTesterLogMessage, optionalDeviceName);
 
-                passingTests.forEach(log::info);
+            DeviceTesterLogMessageType logMessageType = deviceTesterLogMessage.getType();
+
+            // Failure to add a remote file resource can indicate that there was a failure to sudo inside of device tester
+            if (logMessageType.equals(DeviceTesterLogMessageType.FAIL_TO_ADD_REMOTE_FILE_RESOURCE)) {
+                log.warn(tag("The user running Device Tester on the remote host may not have permissions to sudo without a password."));
+                log.warn(tag("To use GGP with Device Tester the user will need to be able to perform a passwordless sudo."));
+                log.warn(tag("To enable passwordless sudo see this article: https://serverfault.com/a/160587"));
+                log.warn("");
+                log.warn(tag("If Device Tester fails after this point please enable passwordless sudo for the user and try again."));
             }
 
-            if (failingTests.size() == 0) {
-                log.info("No tests failed");
-            } else {
-                log.warn("Tests failed: ");
+            Option<String> optionalTestCaseId = deviceTesterLogMessage.getOptionalTestCaseId();
 
-                failingTests.forEach(log::warn);
+            if (logMessageType.equals(DeviceTesterLogMessageType.RUNNING)) {
+                // A test started
+
+                // Clear the test name
+                optionalCurrentRunningTest = Option.none();
             }
 
-            // Move the results to the requested location
-            String groupName = testArguments.groupName;
-            String outputDirectory = String.join("/", testArguments.outputDirectory,
-                    String.join("-", groupName, testStartLocalDateTime.toString()));
+            if (optionalTestCaseId.isDefined()) {
+                // Use the test name from one of these specific message types since the test name is not always consistent across log messages
+                if (optionalCurrentRunningTest.isEmpty()) {
+                    // If there's no existing name then use the current one
+                    optionalCurrentRunningTest = optionalTestCaseId;
+                } else {
+                    String currentRunningTest = optionalCurrentRunningTest.get();
+                    String testCaseId = optionalTestCaseId.get();
+
+                    if (testCaseId.length() > currentRunningTest.length()) {
+                        // Use the longest (most precise) test name available
+                        optionalCurrentRunningTest = optionalTestCaseId;
+                    }
+                }
+            }
 
-            reportLocations.stream().findFirst().ifPresent(path ->
-                    Try.of(() -> moveParentDirectory(path, outputDirectory))
-                            .onFailure(Throwable::printStackTrace)
-                            .get());
-        } finally {
-            safeDisconnect(session);
-        }
+            if (logMessageType.equals(DeviceTesterLogMessageType.ALL_TESTS_FINISHED)) {
+                String message = deviceTesterLogMessage.getMessage();
+                String aggregatedReportLocation = message.substring(DeviceTesterLogMessageType.Constants.ALL_TESTS_FINISHED_MESSAGE.length());
+                reportLocations.add(aggregatedReportLocation);
+                return;
+            }
 
-        return null;
+            if (logMessageType.equals(DeviceTesterLogMessageType.REPORT_GENERATED)) {
+                String message = deviceTesterLogMessage.getMessage();
+                String reportLocation = message.substring(DeviceTesterLogMessageType.Constants.REPORT_GENERATED_MESSAGE.length());
+                reportLocations.add(reportLocation);
+                return;
+            }
+
+            if (!logMessageType.equals(DeviceTesterLogMessageType.FAIL_WITH_DURATION) &&
+                    !(logMessageType.equals(DeviceTesterLogMessageType.PASS))) {
+                // Not a pass/fail message
+                return;
+            }
+
+            String currentRunningTest = optionalCurrentRunningTest.get();
+
+            // A test passed or failed
+
+            // Store the related log lines in the test log index
+            /*
+            getTestLogs(currentRunningTest, logs, testLogIndex);
+            */
+
+            // Store the pass/fail status
+            if (logMessageType.equals(DeviceTesterLogMessageType.FAIL_WITH_DURATION)) {
+                testStatus.put(currentRunningTest, Try.failure(new RuntimeException("Test failed")));
+            } else {
+                testStatus.put(currentRunningTest, Try.success(null));
+            }
+        }
     }
 
     private Void moveParentDirectory(String path, String outputDirectory) throws IOException {
@@ -337,33 +544,48 @@ public class BasicGroupTestHelper implements GroupTestHelper {
         return null;
     }
 
-    private void killRemoteProcessesBySearchString(Session finalSession, String searchString) {
-        Try.of(() -> ioHelper.runCommand(finalSession, "ps ax | grep '" + searchString + "' | awk '{ print $1 }' | xargs sudo kill -9")).get();
+    private String getKillRemoteProcessesCommand(String searchString) {
+        return "ps ax | grep '" + searchString + "' | awk '{ print $1 }' | xargs sudo kill -9";
     }
 
-    private void safeDisconnect(Session session) {
-        Try.of(() -> {
-            session.disconnect();
-            return Optional.empty();
-        }).getOrElse(Optional.empty());
+    private void safeRelease(Session session) {
+        if (session == null) {
+            return;
+        }
+
+        Try.run(() -> ioHelper.releaseSshSession(session));
     }
 
-    private Session getSshSession(TestArguments testArguments, boolean logConnection) {
+    private Session getSshSession(String deviceUnderTest, String user, boolean logConnection) {
         Optional<Session> optionalSession = threadHelper.timeLimitTask(
-                ioHelper.getSshSessionTask(testArguments.deviceUnderTest,
-                        testArguments.user,
-                        logConnection ? SSH_CONNECTED_MESSAGE : "",
+                ioHelper.getSshSessionTask(deviceUnderTest,
+                        user,
+                        logConnection ? SSH_CONNECTED_MESSAGE + " [" + deviceUnderTest + "]" : "",
                         SSH_TIMED_OUT_MESSAGE,
                         SSH_CONNECTION_REFUSED_MESSAGE,
                         SSH_ERROR_MESSAGE), SSH_TIMEOUT_IN_MINUTES, TimeUnit.MINUTES);
 
         if (!optionalSession.isPresent()) {
-            throw new RuntimeException("Failed to connect and bootstrap the device under test via SSH");
+            throw new RuntimeException("Failed to connect and bootstrap the device under test [" + deviceUnderTest + "] via SSH");
         }
 
         return optionalSession.get();
     }
 
+    private File prepareDeviceTester(File deviceTesterLocation) throws IOException {
+        if (deviceTesterLocation.isFile()) {
+            // It's the archive, we need to extract it
+            return extractDeviceTester(deviceTesterLocation);
+        }
+
+        // It's already extracted, copy it so the original is never modified
+        File deviceTesterDirectory = Files.createTempDirectory(ioHelper.getUuid()).toFile();
+        deviceTesterDirectory.deleteOnExit();
+        log.info("Copying Device Tester to [{}] ...", deviceTesterDirectory.getAbsolutePath());
+        FileUtils.copyDirectory(deviceTesterLocation, new File(deviceTesterDirectory, deviceTesterLocation.getName()));
+        return deviceTesterDirectory;
+    }
+
     private File extractDeviceTester(File deviceTesterZip) throws IOException {
         File deviceTesterDirectory = Files.createTempDirectory(ioHelper.getUuid()).toFile();
         deviceTesterDirectory.deleteOnExit();
@@ -373,92 +595,6 @@ public class BasicGroupTestHelper implements GroupTestHelper {
         return deviceTesterDirectory;
     }
 
-    private void logIfDeviceTesterExitedWithError(Integer value) {
-        if (value != 0) {
-            log.error("Device tester exited with an error");
-        }
-    }
-
-    private void handleLogMessage(String logMessage,
-                                  java.util.HashMap<String, Try> testStatus,
-                                  java.util.List<String> reportLocations) {
-        deviceTesterHelper.log(logMessage);
-
-        DeviceTesterLogMessageType logMessageType = deviceTesterHelper.getLogMessageType(logMessage);
-
-        // Failure to add a remote file resource can indicate that there was a failure to sudo inside of device tester
-        if (logMessageType.equals(DeviceTesterLogMessageType.FAIL_TO_ADD_REMOTE_FILE_RESOURCE)) {
-            log.warn("The user running Device Tester on the remote host may not have permissions to sudo without a password.");
-            log.warn("To use GGP with Device Tester the user will need to be able to perform a passwordless sudo.");
-            log.warn("To enable passwordless sudo see this article: https://serverfault.com/a/160587");
-            log.warn("");
-            log.warn("If Device Tester fails after this point please enable passwordless sudo for the user and try again.");
-        }
-
-        io.vavr.collection.Map<String, String> values = deviceTesterHelper.extractValuesFromLogMessage(logMessage);
-
-        Option<String> optionalTestCaseId = deviceTesterHelper.getOptionalTestCaseId(values);
-
-        if (logMessageType.equals(DeviceTesterLogMessageType.RUNNING)) {
-            // A test started
-
-            // Clear the test name
-            optionalCurrentRunningTest = Option.none();
-        }
-
-        if (optionalTestCaseId.isDefined()) {
-            // Use the test name from one of these specific message types since the test name is not always consistent across log messages
-            if (optionalCurrentRunningTest.isEmpty()) {
-                // If there's no existing name then use the current one
-                optionalCurrentRunningTest = optionalTestCaseId;
-            } else {
-                String currentRunningTest = optionalCurrentRunningTest.get();
-                String testCaseId = optionalTestCaseId.get();
-
-                if (testCaseId.length() > currentRunningTest.length()) {
-                    // Use the longest (most precise) test name available
-                    optionalCurrentRunningTest = optionalTestCaseId;
-                }
-            }
-        }
-
-        if (logMessageType.equals(DeviceTesterLogMessageType.ALL_TESTS_FINISHED)) {
-            String message = deviceTesterHelper.extractValuesFromLogMessage(logMessage).get(DeviceTesterHelper.MESSAGE_FIELD_NAME).get();
-            String aggregatedReportLocation = message.substring(DeviceTesterLogMessageType.Constants.ALL_TESTS_FINISHED_MESSAGE.length());
-            reportLocations.add(aggregatedReportLocation);
-            return;
-        }
-
-        if (logMessageType.equals(DeviceTesterLogMessageType.REPORT_GENERATED)) {
-            String message = deviceTesterHelper.extractValuesFromLogMessage(logMessage).get(DeviceTesterHelper.MESSAGE_FIELD_NAME).get();
-            String reportLocation = message.substring(DeviceTesterLogMessageType.Constants.REPORT_GENERATED_MESSAGE.length());
-            reportLocations.add(reportLocation);
-            return;
-        }
-
-        if (!logMessageType.equals(DeviceTesterLogMessageType.FAIL_WITH_DURATION) &&
-                !(logMessageType.equals(DeviceTesterLogMessageType.PASS))) {
-            // Not a pass/fail message
-            return;
-        }
-
-        String currentRunningTest = optionalCurrentRunningTest.get();
-
-        // A test passed or failed
-
-        // Store the related log lines in the test log index
-        /*
-        getTestLogs(currentRunningTest, logs, testLogIndex);
-        */
-
-        // Store the pass/fail status
-        if (logMessageType.equals(DeviceTesterLogMessageType.FAIL_WITH_DURATION)) {
-            testStatus.put(currentRunningTest, Try.failure(new RuntimeException("Test failed")));
-        } else {
-            testStatus.put(currentRunningTest, Try.success(null));
-        }
-    }
-
     /*
     private void getTestLogs(String testCaseId, java.util.List<String> logs, java.util.List<Tuple3<String, Integer, Integer>> testLogIndex) {
         int previousIndex = 0;
@@ -1,9 +1,11 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
 import com.awslabs.aws.greengrass.provisioner.data.KeysAndCertificate;
+import com.awslabs.aws.greengrass.provisioner.data.TopicFilterTrie;
 import com.awslabs.aws.greengrass.provisioner.data.arguments.UpdateArguments;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.*;
 import com.google.common.collect.ImmutableSet;
+import io.vavr.Lazy;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +15,6 @@ import software.amazon.awssdk.services.lambda.model.PublishVersionResponse;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class BasicGroupUpdateHelper implements GroupUpdateHelper {
@@ -48,14 +49,7 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
 
     @Override
     public Void execute(UpdateArguments updateArguments) {
-        if (!updateArguments.addSubscription &&
-                !updateArguments.removeSubscription &&
-                (updateArguments.addDevice == null) &&
-                (updateArguments.removeDevice == null) &&
-                (updateArguments.addFunction == null) &&
-                (updateArguments.removeFunction == null)) {
-            throw new RuntimeException("No update specified");
-        }
+        List<UpdateArguments> updates = updateArgumentHelper.getUpdates(updateArguments);
 
         Optional<GroupInformation> optionalGroupInformation = greengrassHelper.getGroupInformation(updateArguments.groupName);
 
@@ -63,32 +57,18 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
             throw new RuntimeException("Group [" + updateArguments.groupName + "] not found");
         }
 
-        if (updateArguments.addSubscription || updateArguments.removeSubscription) {
-            addOrRemoveSubscription(updateArguments, optionalGroupInformation.get());
-            return null;
-        }
+        GroupInformation groupInformation = optionalGroupInformation.get();
 
-        if (updateArguments.addDevice != null) {
-            addDevice(updateArguments, optionalGroupInformation.get());
-            return null;
-        }
+        // All updates are applied to copies of the tables so the group only needs one new version and one deployment
+        GroupTables groupTables = new GroupTables(groupInformation);
 
-        if (updateArguments.removeDevice != null) {
-            removeDevice(updateArguments, optionalGroupInformation.get());
-            return null;
+        for (UpdateArguments update : updates) {
+            applyUpdate(update, groupTables);
         }
 
-        if (updateArguments.addFunction != null) {
-            addFunction(updateArguments, optionalGroupInformation.get());
-            return null;
-        }
+        createAndWaitForDeployment(updateArguments.groupName, groupInformation, groupTables);
 
-        if (updateArguments.removeFunction != null) {
-            removeFunction(updateArguments, optionalGroupInformation.get());
-            return null;
-        }
-
-        throw new RuntimeException("This should never happen.  This is a bug.");
+        return null;
     }
 
     @Override
@@ -101,12 +81,39 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
         return new UpdateArguments();
     }
 
-    private void removeDevice(UpdateArguments updateArguments, GroupInformation groupInformation) {
-        String groupName = updateArguments.groupName;
+    private void applyUpdate(UpdateArguments updateArguments, GroupTables groupTables) {
+        if (updateArguments.addSubscription || updateArguments.removeSubscription) {
+            addOrRemoveSubscription(updateArguments, groupTables);
+            return;
+        }
+
+        if (updateArguments.addDevice != null) {
+            addDevice(updateArguments, groupTables);
+            return;
+        }
+
+        if (updateArguments.removeDevice != null) {
+            removeDevice(updateArguments, groupTables);
+            return;
+        }
+
+        if (updateArguments.addFunction != null) {
+            addFunction(updateArguments, groupTables);
+            return;
+        }
+
+        if (updateArguments.removeFunction != null) {
+            removeFunction(updateArguments, groupTables);
+            return;
+        }
+
+        throw new RuntimeException("No update specified");
+    }
+
+    private void removeDevice(UpdateArguments updateArguments, GroupTables groupTables) {
         String deviceName = updateArguments.removeDevice;
-        String groupId = groupInformation.id();
 
-        List<Device> devices = greengrassHelper.getDevices(groupInformation);
+        List<Device> devices = groupTables.getDevices();
 
         Device deviceToRemove = greengrassHelper.getDevice(deviceName);
         String thingArn = deviceToRemove.thingArn();
@@ -124,24 +131,14 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
         }
 
         devices.removeAll(devicesToRemove);
+        groupTables.devicesChanged = true;
 
-        List<Subscription> subscriptions = removeSubscriptions(groupInformation, thingArn);
-
-        String newDeviceDefinitionVersionArn = greengrassHelper.createDeviceDefinitionAndVersion(ggVariables.getDeviceDefinitionName(groupName), devices);
-        String newSubscriptionDefinitionVersionArn = greengrassHelper.createSubscriptionDefinitionAndVersion(subscriptions);
-
-        GroupVersion newGroupVersion = GroupVersion.builder()
-                .deviceDefinitionVersionArn(newDeviceDefinitionVersionArn)
-                .subscriptionDefinitionVersionArn(newSubscriptionDefinitionVersionArn)
-                .build();
-
-        createAndWaitForDeployment(groupId, newGroupVersion);
+        removeSubscriptions(groupTables, thingArn);
     }
 
-    private void addDevice(UpdateArguments updateArguments, GroupInformation groupInformation) {
+    private void addDevice(UpdateArguments updateArguments, GroupTables groupTables) {
         String groupName = updateArguments.groupName;
         String deviceName = updateArguments.addDevice;
-        String groupId = groupInformation.id();
         String thingArn = null;
 
         boolean isThingArn = deviceName.contains("/");
@@ -168,7 +165,7 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
 
         Device newDevice = greengrassHelper.getDevice(deviceName);
 
-        List<Device> devices = greengrassHelper.getDevices(groupInformation);
+        List<Device> devices = groupTables.getDevices();
 
         String finalThingArn = thingArn;
 
@@ -178,38 +175,37 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
         }
 
         devices.add(newDevice);
+        groupTables.devicesChanged = true;
 
-        String newDeviceDefinitionVersionArn = greengrassHelper.createDeviceDefinitionAndVersion(ggVariables.getDeviceDefinitionName(groupName), devices);
-
-
-        GroupVersion newGroupVersion = GroupVersion.builder()
-                .deviceDefinitionVersionArn(newDeviceDefinitionVersionArn)
-                .build();
-
-        Consumer<? super Void> successHandler = (Consumer<Void>) aVoid -> log.info("Device added [" + newDevice.thingArn() + ", " + newDevice.certificateArn() + "]");
-
-        createAndWaitForDeployment(groupId, newGroupVersion, successHandler);
+        groupTables.successHandlers.add(() -> log.info("Device added [" + newDevice.thingArn() + ", " + newDevice.certificateArn() + "]"));
     }
 
-    private void createAndWaitForDeployment(String groupId, GroupVersion newGroupVersion) {
-        createAndWaitForDeployment(groupId, newGroupVersion, null);
-    }
+    private void createAndWaitForDeployment(String groupName, GroupInformation groupInformation, GroupTables groupTables) {
+        String groupId = groupInformation.id();
+        GroupVersion.Builder newGroupVersionBuilder = GroupVersion.builder();
 
-    private void createAndWaitForDeployment(String groupId, GroupVersion newGroupVersion, Consumer<? super Void> successHandler) {
-        String groupVersionId = greengrassHelper.createGroupVersion(groupId, newGroupVersion);
+        // Only tables that changed get new definition versions, the rest are carried over from the current group version
+        if (groupTables.devicesChanged) {
+            newGroupVersionBuilder.deviceDefinitionVersionArn(greengrassHelper.createDeviceDefinitionAndVersion(ggVariables.getDeviceDefinitionName(groupName), groupTables.getDevices()));
+        }
 
-        if (successHandler == null) {
-            successHandler = (Consumer<Void>) aVoid -> {
-            };
+        if (groupTables.functionsChanged) {
+            newGroupVersionBuilder.functionDefinitionVersionArn(greengrassHelper.createFunctionDefinitionVersion(ImmutableSet.copyOf(groupTables.getFunctions()), greengrassHelper.getDefaultIsolationMode(groupInformation)));
         }
 
+        if (groupTables.subscriptionsChanged) {
+            newGroupVersionBuilder.subscriptionDefinitionVersionArn(greengrassHelper.createSubscriptionDefinitionAndVersion(groupTables.getSubscriptions()));
+        }
+
+        String groupVersionId = greengrassHelper.createGroupVersion(groupId, newGroupVersionBuilder.build());
+
         Try.of(() -> deploymentHelper.createAndWaitForDeployment(Optional.empty(), Optional.empty(), groupId, groupVersionId))
-                .onSuccess(successHandler)
+                .onSuccess(aVoid -> groupTables.successHandlers.forEach(Runnable::run))
                 .get();
     }
 
-    private void addFunction(UpdateArguments updateArguments, GroupInformation groupInformation) {
-        String groupId = groupInformation.id();
+    private void addFunction(UpdateArguments updateArguments, GroupTables groupTables) {
+        String groupId = groupTables.groupInformation.id();
         String groupName = updateArguments.groupName;
         String coreThingName = ggVariables.getCoreThingName(groupName);
         String functionName = updateArguments.addFunction;
@@ -240,7 +236,7 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
                 updateArguments.functionBinary ? EncodingType.BINARY : EncodingType.JSON,
                 updateArguments.functionPinned);
 
-        List<Function> functions = greengrassHelper.getFunctions(groupInformation);
+        List<Function> functions = groupTables.getFunctions();
 
         if (functions.stream()
                 .anyMatch(function -> function.functionArn().equals(aliasArn))) {
@@ -248,21 +244,13 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
         }
 
         functions.add(newFunction);
+        groupTables.functionsChanged = true;
 
-        String newFunctionDefinitionVersionArn = greengrassHelper.createFunctionDefinitionVersion(ImmutableSet.copyOf(functions), greengrassHelper.getDefaultIsolationMode(groupInformation));
-
-        GroupVersion newGroupVersion = GroupVersion.builder()
-                .functionDefinitionVersionArn(newFunctionDefinitionVersionArn)
-                .build();
-
-        Consumer<? super Void> successHandler = (Consumer<Void>) aVoid -> log.info("Function added [" + newFunction.functionArn() + "]");
-
-        createAndWaitForDeployment(groupId, newGroupVersion, successHandler);
+        groupTables.successHandlers.add(() -> log.info("Function added [" + newFunction.functionArn() + "]"));
     }
 
-    private void removeFunction(UpdateArguments updateArguments, GroupInformation groupInformation) {
-        String groupId = groupInformation.id();
-        List<Function> functions = greengrassHelper.getFunctions(groupInformation);
+    private void removeFunction(UpdateArguments updateArguments, GroupTables groupTables) {
+        List<Function> functions = groupTables.getFunctions();
 
         String functionArn = String.join(":", updateArguments.removeFunction, updateArguments.functionAlias);
 
@@ -281,18 +269,11 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
         String functionToDeleteArn = functionToDelete.functionArn();
 
         functions.remove(functionToDelete);
+        groupTables.functionsChanged = true;
 
-        List<Subscription> subscriptions = removeSubscriptions(groupInformation, functionToDeleteArn);
-        String newSubscriptionDefinitionVersionArn = greengrassHelper.createSubscriptionDefinitionAndVersion(subscriptions);
-
-        String newFunctionDefinitionVersionArn = greengrassHelper.createFunctionDefinitionVersion(ImmutableSet.copyOf(functions), greengrassHelper.getDefaultIsolationMode(groupInformation));
+        removeSubscriptions(groupTables, functionToDeleteArn);
 
-        GroupVersion newGroupVersion = GroupVersion.builder()
-                .subscriptionDefinitionVersionArn(newSubscriptionDefinitionVersionArn)
-                .functionDefinitionVersionArn(newFunctionDefinitionVersionArn)
-                .build();
-
-        createAndWaitForDeployment(groupId, newGroupVersion, nothing -> logFunctionRemovedAndDeleteLambdaAlias(functionToDelete, functionToDeleteArn));
+        groupTables.successHandlers.add(() -> logFunctionRemovedAndDeleteLambdaAlias(functionToDelete, functionToDeleteArn));
     }
 
     private void logFunctionRemovedAndDeleteLambdaAlias(Function functionToDelete, String functionToDeleteArn) {
@@ -300,30 +281,23 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
         lambdaHelper.deleteAlias(functionToDeleteArn);
     }
 
-    private List<Subscription> removeSubscriptions(GroupInformation groupInformation, String thingOrFunctionArn) {
-        List<Subscription> subscriptions = greengrassHelper.getSubscriptions(groupInformation);
-
-        Set<Subscription> subscriptionsToRemove = getMatchingSubscriptions(subscriptions, thingOrFunctionArn, true, Optional.empty());
+    private void removeSubscriptions(GroupTables groupTables, String thingOrFunctionArn) {
+        Set<Subscription> subscriptionsToRemove = groupTables.getSubscriptionsForArn(thingOrFunctionArn);
 
         for (Subscription subscription : subscriptionsToRemove) {
             log.warn("Removing subscription [" + subscription.source() + ", " + subscription.target() + ", " + subscription.subject() + "]");
+            groupTables.removeSubscription(subscription);
         }
-
-        subscriptions.removeAll(subscriptionsToRemove);
-        return subscriptions;
     }
 
-    private void addOrRemoveSubscription(UpdateArguments updateArguments, GroupInformation groupInformation) {
-        List<Subscription> subscriptions = greengrassHelper.getSubscriptions(groupInformation);
-
+    private void addOrRemoveSubscription(UpdateArguments updateArguments, GroupTables groupTables) {
         String source = updateArguments.subscriptionSource;
         String target = updateArguments.subscriptionTarget;
         String subject = updateArguments.subscriptionSubject;
-        String groupId = groupInformation.id();
 
         if (updateArguments.addSubscription) {
-            List<Function> functions = greengrassHelper.getFunctions(groupInformation);
-            List<Device> devices = greengrassHelper.getDevices(groupInformation);
+            List<Function> functions = groupTables.getFunctions();
+            List<Device> devices = groupTables.getDevices();
 
             // Is the source valid?
             Optional<String> validatedSource = validateSubscriptionSourceOrTarget(source, functions, devices);
@@ -345,18 +319,20 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
                 target = validatedTarget.get();
             }
 
-            Set<Subscription> existingSubscriptions = getMatchingSubscriptions(subscriptions, source, target, subject);
+            Set<Subscription> existingSubscriptions = getMatchingSubscriptions(groupTables, source, target, subject);
 
             if (existingSubscriptions.size() != 0) {
                 throw new RuntimeException("Subscription already exists.  Nothing to do.");
             }
 
+            warnAboutOverlappingSubscriptions(groupTables, source, target, subject);
+
             Subscription subscription = subscriptionHelper.createSubscription(source, target, subject);
-            subscriptions.add(subscription);
+            groupTables.addSubscription(subscription);
 
             log.info("Subscription added [" + subscription.source() + ", " + subscription.target() + ", " + subscription.subject() + "]");
         } else if (updateArguments.removeSubscription) {
-            Set<Subscription> existingSubscriptions = getMatchingSubscriptions(subscriptions, source, target, subject);
+            Set<Subscription> existingSubscriptions = getMatchingSubscriptions(groupTables, source, target, subject);
 
             if (existingSubscriptions.size() == 0) {
                 throw new RuntimeException("Subscription doesn't exist.  Nothing to do.");
@@ -367,122 +343,35 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
 
             // Exactly one, remove it
             Subscription subscriptionToRemove = existingSubscriptions.iterator().next();
-            subscriptions.remove(subscriptionToRemove);
+            groupTables.removeSubscription(subscriptionToRemove);
             log.info("Subscription removed [" + subscriptionToRemove.source() + ", " + subscriptionToRemove.target() + ", " + subscriptionToRemove.subject() + "]");
         } else {
             throw new RuntimeException("This should never happen.  This is a bug.");
         }
+    }
 
-        String newSubscriptionDefinitionVersionArn = greengrassHelper.createSubscriptionDefinitionAndVersion(subscriptions);
-
-        GroupVersion newGroupVersion = GroupVersion.builder()
-                .subscriptionDefinitionVersionArn(newSubscriptionDefinitionVersionArn)
-                .build();
-
-        // Do nothing extra if successful
-        createAndWaitForDeployment(groupId, newGroupVersion);
+    private void warnAboutOverlappingSubscriptions(GroupTables groupTables, String source, String target, String subject) {
+        // Overlapping subscriptions between the same source and target deliver matching messages more than once
+        groupTables.getOverlappingSubscriptions(subject).stream()
+                .filter(subscription -> subscription.source().equals(source))
+                .filter(subscription -> subscription.target().equals(target))
+                .forEach(subscription -> log.warn("Subscription subject [" + subject + "] overlaps with existing subscription subject [" + subscription.subject() + "] between the same source and target, messages on topics that match both will be delivered twice"));
     }
 
     /**
-     * Returns matching subscriptions from a list of subscriptions.  Source and target must only end with the specified values.
+     * Returns the subscriptions with exactly the specified subject.  Source and target must only end with the specified values.
      *
-     * @param subscriptions
+     * @param groupTables
      * @param source
      * @param target
      * @param subject
      * @return
      */
-    private Set<Subscription> getMatchingSubscriptions(List<Subscription> subscriptions, String source, String target, String subject) {
-        return getMatchingSubscriptions(subscriptions, source, false, target, false, Optional.ofNullable(subject));
-    }
-
-    /**
-     * Returns matching subscriptions from a list of subscriptions if the specified values match the source AND the target
-     *
-     * @param subscriptions   the list of subscriptions
-     * @param source          the source string
-     * @param exactSource     if true, an exact match of the source is required. If false, the subscription's source value must end with the specified source value.
-     * @param target          the target string
-     * @param exactTarget     if true, an exact match of the target is required. If false, the subscription's source value must end with the specified target value.
-     * @param optionalSubject if empty, the subject is not checked. Otherwise the subject must match exactly.
-     * @return
-     */
-    private Set<Subscription> getMatchingSubscriptions(List<Subscription> subscriptions, String source, boolean exactSource, String target, boolean exactTarget, Optional<String> optionalSubject) {
-        List<Subscription> subjectMatches = getSubjectMatches(subscriptions, optionalSubject);
-
-        List<Subscription> sourceMatches = getSourceMatches(source, exactSource, subjectMatches);
-
-        List<Subscription> targetMatches = getTargetMatches(target, exactTarget, sourceMatches);
-
-        Set<Subscription> matchingSubscriptions = new HashSet<>();
-        matchingSubscriptions.addAll(targetMatches);
-
-        return matchingSubscriptions;
-    }
-
-    /**
-     * Returns matching subscriptions from a list of subscriptions if the specified value matches the source OR the target
-     *
-     * @param subscriptions       the list of subscriptions
-     * @param sourceOrTarget      the source or target string
-     * @param exactSourceOrTarget if true, an exact match of the source or target is required. If false, the subscription's source or target value must end with the specified source or target value.
-     * @param optionalSubject     if empty, the subject is not checked. Otherwise the subject must match exactly.
-     * @return
-     */
-    private Set<Subscription> getMatchingSubscriptions(List<Subscription> subscriptions, String sourceOrTarget, boolean exactSourceOrTarget, Optional<String> optionalSubject) {
-        List<Subscription> subjectMatches = getSubjectMatches(subscriptions, optionalSubject);
-
-        List<Subscription> sourceMatches = getSourceMatches(sourceOrTarget, exactSourceOrTarget, subjectMatches);
-
-        List<Subscription> targetMatches = getTargetMatches(sourceOrTarget, exactSourceOrTarget, subjectMatches);
-
-        Set<Subscription> matchingSubscriptions = new HashSet<>();
-        matchingSubscriptions.addAll(sourceMatches);
-        matchingSubscriptions.addAll(targetMatches);
-
-        return matchingSubscriptions;
-    }
-
-    private List<Subscription> getTargetMatches(String target, boolean exactTarget, List<Subscription> sourceMatches) {
-        return sourceMatches.stream()
-                .filter(subscription -> checkTarget(target, exactTarget, subscription))
-                .collect(Collectors.toList());
-    }
-
-    private boolean checkTarget(String target, boolean exactTarget, Subscription subscription) {
-        if (exactTarget) {
-            return subscription.target().equals(target);
-        }
-
-        return subscription.target().endsWith(target);
-    }
-
-    private List<Subscription> getSourceMatches(String source, boolean exactSource, List<Subscription> subjectMatches) {
-        return subjectMatches.stream()
-                .filter(subscription -> matchSource(source, exactSource, subscription))
-                .collect(Collectors.toList());
-    }
-
-    private boolean matchSource(String source, boolean exactSource, Subscription subscription) {
-        if (exactSource) {
-            return subscription.source().equals(source);
-        }
-
-        return subscription.source().endsWith(source);
-    }
-
-    private List<Subscription> getSubjectMatches(List<Subscription> subscriptions, Optional<String> optionalSubject) {
-        return subscriptions.stream()
-                .filter(subscription -> checkSubject(optionalSubject, subscription))
-                .collect(Collectors.toList());
-    }
-
-    private boolean checkSubject(Optional<String> optionalSubject, Subscription subscription) {
-        if (optionalSubject.isPresent()) {
-            return subscription.subject().equals(optionalSubject.get());
-        }
-
-        return true;
+    private Set<Subscription> getMatchingSubscriptions(GroupTables groupTables, String source, String target, String subject) {
+        return groupTables.getSubscriptionsForSubject(subject).stream()
+                .filter(subscription -> subscription.source().endsWith(source))
+                .filter(subscription -> subscription.target().endsWith(target))
+                .collect(Collectors.toSet());
     }
 
     private Optional<String> validateSubscriptionSourceOrTarget(String sourceOrTarget, List<Function> functions, List<Device> devices) {
@@ -519,4 +408,94 @@ public class BasicGroupUpdateHelper implements GroupUpdateHelper {
 
         return Optional.empty();
     }
+
+    /**
+     * Working copies of a group's device, function and subscription tables.  Each table is only fetched if an update needs it.
+     */
+    private class GroupTables {
+        private final GroupInformation groupInformation;
+        private final Lazy<List<Device>> devices;
+        private final Lazy<List<Function>> functions;
+        private final Lazy<Set<Subscription>> subscriptions;
+        private final Lazy<TopicFilterTrie<Subscription>> subscriptionsBySubject;
+        private final Lazy<Map<String, Set<Subscription>>> subscriptionsByArn;
+        private final List<Runnable> successHandlers = new ArrayList<>();
+        private boolean devicesChanged;
+        private boolean functionsChanged;
+        private boolean subscriptionsChanged;
+
+        private GroupTables(GroupInformation groupInformation) {
+            this.groupInformation = groupInformation;
+            this.devices = Lazy.of(() -> greengrassHelper.getDevices(groupInformation));
+            this.functions = Lazy.of(() -> greengrassHelper.getFunctions(groupInformation));
+            this.subscriptions = Lazy.of(() -> new LinkedHashSet<>(greengrassHelper.getSubscriptions(groupInformation)));
+            this.subscriptionsBySubject = Lazy.of(() -> {
+                TopicFilterTrie<Subscription> trie = new TopicFilterTrie<>();
+                subscriptions.get().forEach(subscription -> trie.put(subscription.subject(), subscription));
+                return trie;
+            });
+            this.subscriptionsByArn = Lazy.of(() -> {
+                Map<String, Set<Subscription>> map = new HashMap<>();
+                subscriptions.get().forEach(subscription -> indexByArn(map, subscription));
+                return map;
+            });
+        }
+
+        private void indexByArn(Map<String, Set<Subscription>> map, Subscription subscription) {
+            map.computeIfAbsent(subscription.source(), key -> new LinkedHashSet<>()).add(subscription);
+            map.computeIfAbsent(subscription.target(), key -> new LinkedHashSet<>()).add(subscription);
+        }
+
+        private List<Device> getDevices() {
+            return devices.get();
+        }
+
+        private List<Function> getFunctions() {
+            return functions.get();
+        }
+
+        private List<Subscription> getSubscriptions() {
+            return new ArrayList<>(subscriptions.get());
+        }
+
+        private List<Subscription> getSubscriptionsForSubject(String subject) {
+            return subscriptionsBySubject.get().get(subject);
+        }
+
+        private List<Subscription> getOverlappingSubscriptions(String subject) {
+            return subscriptionsBySubject.get().getOverlapping(subject);
+        }
+
+        private Set<Subscription> getSubscriptionsForArn(String arn) {
+            return new LinkedHashSet<>(subscriptionsByArn.get().getOrDefault(arn, Collections.emptySet()));
+        }
+
+        // The indexes are only kept up to date once they've been built, otherwise they're built from the current set when first used
+        private void addSubscription(Subscription subscription) {
+            subscriptions.get().add(subscription);
+            subscriptionsChanged = true;
+
+            if (subscriptionsBySubject.isEvaluated()) {
+                subscriptionsBySubject.get().put(subscription.subject(), subscription);
+            }
+
+            if (subscriptionsByArn.isEvaluated()) {
+                indexByArn(subscriptionsByArn.get(), subscription);
+            }
+        }
+
+        private void removeSubscription(Subscription subscription) {
+            subscriptions.get().remove(subscription);
+            subscriptionsChanged = true;
+
+            if (subscriptionsBySubject.isEvaluated()) {
+                subscriptionsBySubject.get().remove(subscription.subject(), subscription);
+            }
+
+            if (subscriptionsByArn.isEvaluated()) {
+                subscriptionsByArn.get().getOrDefault(subscription.source(), Collections.emptySet()).remove(subscription);
+                subscriptionsByArn.get().getOrDefault(subscription.target(), Collections.emptySet()).remove(subscription);
+            }
+        }
+    }
 }
@@ -3,35 +3,90 @@ package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 import com.awslabs.aws.greengrass.provisioner.data.exceptions.SshRecoverableException;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GlobalDefaultHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
+import com.awslabs.aws.greengrass.provisioner.ssh.FixedIdentityRepository;
+import com.awslabs.aws.greengrass.provisioner.ssh.OpenSshPrivateKeys;
+import com.awslabs.aws.greengrass.provisioner.ssh.SshAgent;
 import com.jcraft.jsch.*;
+import io.vavr.CheckedFunction0;
 import io.vavr.control.Try;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.NullOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.UnknownHostException;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import static com.awslabs.aws.greengrass.provisioner.implementations.helpers.BasicGlobalDefaultHelper.GLOBAL_DEFAULTS_DIRECTORY;
+
 public class BasicIoHelper implements IoHelper {
+    private static final String CACHE = "cache";
+    private static final String DOWNLOADS = "downloads";
+    private static final String METADATA_SUFFIX = ".properties";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String METADATA_URL = "url";
+    private static final String METADATA_ETAG = "etag";
+    private static final String METADATA_LAST_MODIFIED = "last-modified";
+    private static final int DOWNLOAD_TIMEOUT_IN_MILLISECONDS = 30000;
+    // Shared by every instance so a URL is only fetched once per process (e.g. the root CA is used by several outputs)
+    static final Map<String, CompletableFuture<Path>> DOWNLOADS_THIS_PROCESS = new ConcurrentHashMap<>();
+    // Authenticated SSH sessions shared by every helper in the process, keyed by user@host
+    static final Map<String, Session> SSH_SESSIONS = new ConcurrentHashMap<>();
+    // How many callers are using each session, a session is only disconnected when the last one releases it. Guarded by the session's lock.
+    private static final Map<Session, Integer> SSH_SESSION_LEASES = new ConcurrentHashMap<>();
+    private static final Map<String, Object> SSH_SESSION_LOCKS = new ConcurrentHashMap<>();
+    // OpenSSH allows 10 channels per connection by default, leave some room for other users of the session
+    private static final int MAX_CHANNELS_PER_SESSION = 8;
+    private static final int COMMAND_OUTPUT_BUFFER_SIZE = 64 * 1024;
+    // Parsed SSH keys shared by every helper in the process, keyed by where they were found
+    static final Map<String, List<Identity>> SSH_IDENTITIES = new ConcurrentHashMap<>();
+    // A list of private key files to use instead of searching ~/.ssh, separated like a classpath
+    static final String SSH_IDENTITIES_ENVIRONMENT_VARIABLE = "GGP_SSH_IDENTITIES";
+    private static final Pattern PRIVATE_KEY_HEADER = Pattern.compile("^(-----BEGIN (RSA|DSA|EC|OPENSSH) PRIVATE KEY-----|PuTTY-User-Key-File-)");
+    private static final int PRIVATE_KEY_HEADER_LENGTH = 64;
+    private static final int TRANSFER_BUFFER_SIZE = 256 * 1024;
+    private static final int COMPRESSION_SAMPLE_SIZE = 256 * 1024;
+    // Large files are sampled at several places since their start often isn't like the rest of them
+    private static final int COMPRESSION_SAMPLE_REGIONS = 8;
+    // Files that don't shrink by at least 10% are sent as they are
+    private static final double MINIMUM_COMPRESSION_RATIO = 0.9;
+    private static final String PARTIAL_TRANSFER_SUFFIX = ".part";
+    private static final Duration REMOTE_COMMAND_TIMEOUT = Duration.ofMinutes(5);
+    private static final Pattern SHA_256_HEX = Pattern.compile("^[0-9a-f]{64}$");
     private final Logger log = LoggerFactory.getLogger(BasicIoHelper.class);
     @Inject
     GlobalDefaultHelper globalDefaultHelper;
@@ -50,21 +105,65 @@ public class BasicIoHelper implements IoHelper {
 
     @Override
     public List<String> getPrivateKeyFilesForSsh() throws IOException {
-        Optional<String> optionalHomeDirectory = globalDefaultHelper.getHomeDirectory();
+        Optional<String> optionalExplicitSshIdentities = getExplicitSshIdentities();
+
+        if (optionalExplicitSshIdentities.isPresent()) {
+            // Only use the keys that were asked for
+            return Arrays.stream(optionalExplicitSshIdentities.get().split(File.pathSeparator))
+                    .map(String::trim)
+                    .filter(privateKeyFile -> !privateKeyFile.isEmpty())
+                    .collect(Collectors.toList());
+        }
 
-        if (!optionalHomeDirectory.isPresent()) {
+        Optional<Path> optionalSshDirectory = getSshDirectory();
+
+        if (!optionalSshDirectory.isPresent() || !Files.isDirectory(optionalSshDirectory.get())) {
             return new ArrayList<>();
         }
 
-        Path sshDirectory = new File(String.join("/", optionalHomeDirectory.get(), ".ssh")).toPath();
-
         // Recursively get all of the files in the directory, only look at regular files, and make sure they look like private keys
-        return Files.walk(sshDirectory)
-                .filter(Files::isRegularFile)
-                .map(Path::toFile)
-                .filter(file -> readFileAsString(file).contains("BEGIN RSA PRIVATE KEY"))
-                .map(File::toString)
-                .collect(Collectors.toList());
+        try (Stream<Path> paths = Files.walk(optionalSshDirectory.get())) {
+            return paths
+                    .filter(Files::isRegularFile)
+                    .filter(this::isUsablePrivateKey)
+                    .map(Path::toString)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    Optional<String> getExplicitSshIdentities() {
+        return Optional.ofNullable(System.getenv(SSH_IDENTITIES_ENVIRONMENT_VARIABLE));
+    }
+
+    private Optional<Path> getSshDirectory() {
+        return globalDefaultHelper.getHomeDirectory()
+                .map(homeDirectory -> Paths.get(homeDirectory, ".ssh"));
+    }
+
+    private boolean isUsablePrivateKey(Path path) {
+        // Only the start of each file is read so large files (e.g. known_hosts) are cheap to skip
+        String header = Try.withResources(() -> Files.newInputStream(path))
+                .of(inputStream -> {
+                    byte[] bytes = new byte[PRIVATE_KEY_HEADER_LENGTH];
+                    return new String(bytes, 0, IOUtils.read(inputStream, bytes), StandardCharsets.US_ASCII);
+                })
+                .getOrElse("");
+
+        if (!PRIVATE_KEY_HEADER.matcher(header).find()) {
+            return false;
+        }
+
+        if (!header.startsWith(OpenSshPrivateKeys.HEADER)) {
+            return true;
+        }
+
+        // OpenSSH format keys are small, read the whole key to see if JSch can use it
+        if (!OpenSshPrivateKeys.isSupported(Try.of(() -> Files.readAllBytes(path)).getOrElse(new byte[0]))) {
+            log.debug("[" + path + "] is encrypted or its key type is not supported, it can only be used through the SSH agent");
+            return false;
+        }
+
+        return true;
     }
 
     @Override
@@ -107,31 +206,197 @@ public class BasicIoHelper implements IoHelper {
 
     @Override
     public Void download(String url, File file, Optional<String> optionalReferer) throws IOException {
-        // From: http://stackoverflow.com/a/921400
-        URL website = new URL(url);
-        URLConnection urlConnection = website.openConnection();
+        return download(url, file, optionalReferer, Optional.empty());
+    }
+
+    @Override
+    public Void download(String url, File file, Optional<String> optionalReferer, Optional<String> optionalSha256) throws IOException {
+        Files.copy(downloadToCache(url, optionalReferer, optionalSha256), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        return null;
+    }
+
+    @Override
+    public Path downloadToCache(String url, Optional<String> optionalReferer, Optional<String> optionalSha256) throws IOException {
+        // Concurrent and repeated requests for the same URL share a single download
+        CompletableFuture<Path> future = new CompletableFuture<>();
+        CompletableFuture<Path> existingFuture = DOWNLOADS_THIS_PROCESS.putIfAbsent(url, future);
+
+        if (existingFuture == null) {
+            Try.of(() -> revalidateCachedArtifact(url, optionalReferer))
+                    .onSuccess(future::complete)
+                    .onFailure(future::completeExceptionally)
+                    // Don't remember failures, the next caller can try again
+                    .onFailure(throwable -> DOWNLOADS_THIS_PROCESS.remove(url, future));
+        }
+
+        Path path = Try.of(() -> (existingFuture == null ? future : existingFuture).join())
+                .getOrElseThrow(throwable -> new IOException("Failed to download [" + url + "]", throwable.getCause()));
+
+        if (optionalSha256.isPresent()) {
+            String actualSha256 = toHexString(getSha256(path));
+
+            if (!actualSha256.equalsIgnoreCase(optionalSha256.get())) {
+                throw new IOException("The SHA-256 of [" + url + "] is [" + actualSha256 + "] but [" + optionalSha256.get() + "] was expected");
+            }
+        }
+
+        return path;
+    }
+
+    private Path revalidateCachedArtifact(String url, Optional<String> optionalReferer) throws IOException {
+        Path downloadCacheDirectory = getDownloadCacheDirectory();
+        String key = toHexString(Try.of(() -> getSha256(new ByteArrayInputStream(url.getBytes(StandardCharsets.UTF_8)))).get());
+        Path contentPath = downloadCacheDirectory.resolve(key);
+        Path metadataPath = downloadCacheDirectory.resolve(key + METADATA_SUFFIX);
+
+        Optional<Properties> optionalMetadata = getValidMetadata(contentPath, metadataPath);
+
+        URLConnection urlConnection = new URL(url).openConnection();
         optionalReferer.ifPresent(referer -> urlConnection.setRequestProperty("Referer", referer));
-        InputStream inputStream = urlConnection.getInputStream();
-        ReadableByteChannel rbc = Channels.newChannel(inputStream);
-        FileOutputStream fos = new FileOutputStream(file);
-        fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
+
+        if (!(urlConnection instanceof HttpURLConnection)) {
+            // Only HTTP can be revalidated, always fetch anything else (e.g. file URLs)
+            return storeArtifact(url, urlConnection, contentPath, metadataPath);
+        }
+
+        HttpURLConnection httpURLConnection = (HttpURLConnection) urlConnection;
+        httpURLConnection.setConnectTimeout(DOWNLOAD_TIMEOUT_IN_MILLISECONDS);
+        httpURLConnection.setReadTimeout(DOWNLOAD_TIMEOUT_IN_MILLISECONDS);
+
+        optionalMetadata.map(metadata -> metadata.getProperty(METADATA_ETAG))
+                .ifPresent(etag -> httpURLConnection.setRequestProperty("If-None-Match", etag));
+        optionalMetadata.map(metadata -> metadata.getProperty(METADATA_LAST_MODIFIED))
+                .ifPresent(lastModified -> httpURLConnection.setRequestProperty("If-Modified-Since", lastModified));
+
+        Try<Integer> responseCode = Try.of(httpURLConnection::getResponseCode);
+
+        if (responseCode.isSuccess() && (responseCode.get() == HttpURLConnection.HTTP_NOT_MODIFIED) && optionalMetadata.isPresent()) {
+            log.debug("Using cached copy of [" + url + "], it has not been modified");
+            return contentPath;
+        }
+
+        if (responseCode.isSuccess() && (responseCode.get() == HttpURLConnection.HTTP_OK)) {
+            return storeArtifact(url, httpURLConnection, contentPath, metadataPath);
+        }
+
+        String problem = responseCode.map(code -> "HTTP status code " + code).getOrElseGet(Throwable::getMessage);
+
+        if (optionalMetadata.isPresent()) {
+            // Flaky networks shouldn't break deployments when there is a copy that worked before
+            log.warn("Could not revalidate [" + url + "] (" + problem + "), using the previously cached copy");
+            return contentPath;
+        }
+
+        throw new IOException("Failed to download [" + url + "] (" + problem + ")", responseCode.isFailure() ? responseCode.getCause() : null);
+    }
+
+    private Path storeArtifact(String url, URLConnection urlConnection, Path contentPath, Path metadataPath) throws IOException {
+        // Write to a temporary file first and move it into place so a partial download is never used
+        Path tempPath = Files.createTempFile(contentPath.getParent(), contentPath.getFileName().toString(), TEMP_SUFFIX);
+
+        try {
+            try (InputStream inputStream = urlConnection.getInputStream()) {
+                Files.copy(inputStream, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            Properties metadata = new Properties();
+            metadata.setProperty(METADATA_URL, url);
+            metadata.setProperty(SHA_256, toHexString(getSha256(tempPath)));
+            Optional.ofNullable(urlConnection.getHeaderField("ETag")).ifPresent(etag -> metadata.setProperty(METADATA_ETAG, etag));
+            Optional.ofNullable(urlConnection.getHeaderField("Last-Modified")).ifPresent(lastModified -> metadata.setProperty(METADATA_LAST_MODIFIED, lastModified));
+
+            Files.move(tempPath, contentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Path tempMetadataPath = Files.createTempFile(metadataPath.getParent(), metadataPath.getFileName().toString(), TEMP_SUFFIX);
+
+            try (OutputStream outputStream = Files.newOutputStream(tempMetadataPath)) {
+                metadata.store(outputStream, null);
+            }
+
+            Files.move(tempMetadataPath, metadataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+
+        return contentPath;
+    }
+
+    private Optional<Properties> getValidMetadata(Path contentPath, Path metadataPath) {
+        if (!contentPath.toFile().exists() || !metadataPath.toFile().exists()) {
+            return Optional.empty();
+        }
+
+        Properties metadata = new Properties();
+
+        Try<Void> loadResult = Try.withResources(() -> Files.newInputStream(metadataPath))
+                .of(inputStream -> loadProperties(metadata, inputStream));
+
+        if (loadResult.isFailure()) {
+            // A corrupt or half written sidecar is a cache miss, the file is downloaded again and the sidecar replaced
+            log.warn("Ignoring unreadable cache metadata [" + metadataPath + "] (" + loadResult.getCause().getMessage() + ")");
+            return Optional.empty();
+        }
+
+        // Another process may have replaced the content but not the metadata yet, only trust metadata that matches the content
+        if (!toHexString(getSha256(contentPath)).equals(metadata.getProperty(SHA_256))) {
+            return Optional.empty();
+        }
+
+        return Optional.of(metadata);
+    }
+
+    private Void loadProperties(Properties properties, InputStream inputStream) throws IOException {
+        properties.load(inputStream);
 
         return null;
     }
 
+    private Path getDownloadCacheDirectory() throws IOException {
+        Path downloadCacheDirectory = globalDefaultHelper.getHomeDirectory()
+                .map(homeDirectory -> Paths.get(homeDirectory, GLOBAL_DEFAULTS_DIRECTORY, CACHE, DOWNLOADS))
+                .orElseGet(() -> Paths.get(System.getProperty("java.io.tmpdir"), GLOBAL_DEFAULTS_DIRECTORY, CACHE, DOWNLOADS));
+
+        return Files.createDirectories(downloadCacheDirectory);
+    }
+
     @Override
     public JSch getJschWithPrivateKeysLoaded() {
         JSch jsch = new JSch();
 
+        // Keys are found and parsed once per process, every session after the first reuses them
+        String sshIdentitiesKey = getExplicitSshIdentities()
+                .orElseGet(() -> getSshDirectory().map(Path::toString).orElse(""));
+
+        jsch.setIdentityRepository(new FixedIdentityRepository(SSH_IDENTITIES.computeIfAbsent(sshIdentitiesKey, unused -> loadSshIdentities())));
+
+        return jsch;
+    }
+
+    private List<Identity> loadSshIdentities() {
+        List<Identity> identities = new ArrayList<>();
+
+        // Keys in the agent are tried first, like ssh does
+        SshAgent.fromEnvironment().ifPresent(sshAgent -> identities.addAll(sshAgent.getIdentities()));
+
+        JSch jsch = new JSch();
+
         List<String> privateKeyFiles = Try.of(() -> getPrivateKeyFilesForSsh()).get();
 
         for (String privateKeyFile : privateKeyFiles) {
             Try.of(() -> addIdentity(jsch, privateKeyFile))
                     .recover(JSchException.class, throwable -> logPrivateKeyIssueAndIgnore(privateKeyFile))
+                    .recover(IOException.class, throwable -> logPrivateKeyIssueAndIgnore(privateKeyFile))
                     .get();
         }
 
-        return jsch;
+        for (Object identity : jsch.getIdentityRepository().getIdentities()) {
+            identities.add((Identity) identity);
+        }
+
+        log.debug("Loaded [" + identities.size() + "] SSH identities");
+
+        return identities;
     }
 
     private Void logPrivateKeyIssueAndIgnore(String privateKeyFile) {
@@ -139,8 +404,16 @@ public class BasicIoHelper implements IoHelper {
         return null;
     }
 
-    private Void addIdentity(JSch jsch, String privateKeyFile) throws JSchException {
-        jsch.addIdentity(privateKeyFile);
+    private Void addIdentity(JSch jsch, String privateKeyFile) throws JSchException, IOException {
+        byte[] contents = Files.readAllBytes(Paths.get(privateKeyFile));
+
+        if (OpenSshPrivateKeys.isOpenSshPrivateKey(contents)) {
+            // JSch only reads PEM keys
+            jsch.addIdentity(privateKeyFile, OpenSshPrivateKeys.toPem(contents), null, null);
+        } else {
+            jsch.addIdentity(privateKeyFile);
+        }
+
         return null;
     }
 
@@ -151,23 +424,52 @@ public class BasicIoHelper implements IoHelper {
                                                String timeoutMessage,
                                                String refusedMessage,
                                                String errorMessage) {
-        return getSshSessionCallable(hostname,
-                user,
-                getJschWithPrivateKeysLoaded(),
-                connectedMessage,
-                timeoutMessage,
-                refusedMessage,
-                errorMessage);
+        return () -> getPooledSession(hostname, user, connectedMessage, timeoutMessage, refusedMessage, errorMessage);
+    }
+
+    private Session getPooledSession(String hostname, String user, String connectedMessage, String timeoutMessage, String refusedMessage, String errorMessage) {
+        String key = getSshSessionKey(hostname, user);
+
+        // Only one thread connects to each host, the others wait and then share its session
+        synchronized (getSshSessionLock(key)) {
+            Session session = SSH_SESSIONS.get(key);
+
+            if ((session != null) && session.isConnected()) {
+                log.debug("Reusing SSH session to [" + key + "]");
+            } else {
+                // Keys are only loaded when a new connection is needed
+                session = getSession(hostname, user, getJschWithPrivateKeysLoaded(), connectedMessage, timeoutMessage, refusedMessage, errorMessage);
+                SSH_SESSIONS.put(key, session);
+            }
+
+            SSH_SESSION_LEASES.merge(session, 1, Integer::sum);
+
+            return session;
+        }
+    }
+
+    private Object getSshSessionLock(String key) {
+        return SSH_SESSION_LOCKS.computeIfAbsent(key, unused -> new Object());
+    }
+
+    private String getSshSessionKey(String hostname, String user) {
+        return String.join("@", user, hostname);
     }
 
-    private Callable<Session> getSshSessionCallable(String hostname,
-                                                    String user,
-                                                    JSch jsch,
-                                                    String connectedMessage,
-                                                    String timeoutMessage,
-                                                    String refusedMessage,
-                                                    String errorMessage) {
-        return () -> getSession(hostname, user, jsch, connectedMessage, timeoutMessage, refusedMessage, errorMessage);
+    @Override
+    public void releaseSshSession(Session session) {
+        String key = getSshSessionKey(session.getHost(), session.getUserName());
+
+        synchronized (getSshSessionLock(key)) {
+            if (SSH_SESSION_LEASES.computeIfPresent(session, (unused, leases) -> (leases > 1) ? leases - 1 : null) != null) {
+                // Someone else is still using it
+                return;
+            }
+
+            SSH_SESSIONS.remove(key, session);
+        }
+
+        session.disconnect();
     }
 
     private Session getSession(String hostname, String user, JSch jsch, String connectedMessage, String timeoutMessage, String refusedMessage, String errorMessage) {
@@ -187,6 +489,8 @@ public class BasicIoHelper implements IoHelper {
         Properties config = new Properties();
         config.put("StrictHostKeyChecking", "no");
         innerSession.setConfig(config);
+        // Pooled sessions can outlive their users, they must not keep the JVM running
+        innerSession.setDaemonThread(true);
 
         try {
             innerSession.connect(10000);
@@ -236,25 +540,36 @@ public class BasicIoHelper implements IoHelper {
         StringBuilder stringBuilder = new StringBuilder();
         StringBuilder lineStringBuilder = new StringBuilder();
 
-        try (InputStream commandOutput = channel.getInputStream()) {
+        try (Reader commandOutput = new InputStreamReader(channel.getInputStream(), StandardCharsets.UTF_8)) {
             channel.connect();
-            int readByte = commandOutput.read();
-
-            while (readByte != 0xffffffff) {
-                char character = (char) readByte;
-                readByte = commandOutput.read();
-
-                stringBuilder.append(character);
-
-                if (character == '\r') {
-                    // Throw away \r
-                } else if (character == '\n') {
-                    String line = lineStringBuilder.toString();
-                    optionalStringConsumer.ifPresent(consumer -> consumer.accept(line));
-                    lineStringBuilder = new StringBuilder();
-                } else {
-                    lineStringBuilder.append(character);
+
+            char[] buffer = new char[COMMAND_OUTPUT_BUFFER_SIZE];
+            int length;
+
+            while ((length = commandOutput.read(buffer)) != -1) {
+                stringBuilder.append(buffer, 0, length);
+
+                if (!optionalStringConsumer.isPresent()) {
+                    continue;
                 }
+
+                for (int index = 0; index < length; index++) {
+                    char character = buffer[index];
+
+                    if (character == '\r') {
+                        // Throw away \r
+                    } else if (character == '\n') {
+                        optionalStringConsumer.get().accept(lineStringBuilder.toString());
+                        lineStringBuilder.setLength(0);
+                    } else {
+                        lineStringBuilder.append(character);
+                    }
+                }
+            }
+
+            if (lineStringBuilder.length() != 0) {
+                // The last line didn't end with a newline
+                optionalStringConsumer.get().accept(lineStringBuilder.toString());
             }
         } finally {
             channel.disconnect();
@@ -263,89 +578,330 @@ public class BasicIoHelper implements IoHelper {
         return stringBuilder.toString();
     }
 
+    @Override
+    public List<String> runCommands(Session session, List<String> commands) throws JSchException, IOException {
+        // Each command gets its own channel on the same session so they share one connection and one round trip of latency
+        return runOnChannels(commands.stream()
+                .map(command -> (CheckedFunction0<String>) () -> runCommand(session, command))
+                .collect(Collectors.toList()));
+    }
+
+    private <T> List<T> runOnChannels(List<CheckedFunction0<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>();
+
+        if (tasks.size() <= 1) {
+            for (CheckedFunction0<T> task : tasks) {
+                results.add(Try.of(task).getOrElseThrow(throwable -> new IOException("Remote operation failed", throwable)));
+            }
+
+            return results;
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(tasks.size(), MAX_CHANNELS_PER_SESSION));
+
+        try {
+            List<CompletableFuture<T>> futures = tasks.stream()
+                    .map(task -> CompletableFuture.supplyAsync(() -> Try.of(task).get(), executorService))
+                    .collect(Collectors.toList());
+
+            for (CompletableFuture<T> future : futures) {
+                results.add(Try.of(future::join)
+                        .getOrElseThrow(throwable -> new IOException("Remote operation failed", throwable.getCause())));
+            }
+
+            return results;
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
     @Override
     public Void sendFile(Session session, String localFilename, String remoteFilename) throws JSchException, IOException {
-        boolean preserveTimestamp = false;
+        File localFile = new File(localFilename);
+        String localSha256 = toHexString(getSha256(localFile.toPath()));
 
-        // exec 'scp -t rfile' remotely
-        remoteFilename = remoteFilename.replace("'", "'\"'\"'");
-        remoteFilename = "'" + remoteFilename + "'";
+        if (getRemoteSha256(session, remoteFilename).filter(localSha256::equals).isPresent()) {
+            log.info("[" + remoteFilename + "] is already up to date on the host, not copying it again");
+            return null;
+        }
 
-        String command = "scp " + (preserveTimestamp ? "-p" : "") + " -t " + remoteFilename;
+        // Data goes to a partial file first so an interrupted copy never leaves a truncated file behind and can be resumed
+        String partialFilename = remoteFilename + PARTIAL_TRANSFER_SUFFIX;
+        long startNanos = System.nanoTime();
 
-        Channel channel = session.openChannel("exec");
-        ((ChannelExec) channel).setCommand(command);
+        // A compressed copy can't be resumed, an earlier copy that was interrupted is always resumed instead
+        if (!isWorthCompressing(localFile) || hasPartialFile(session, partialFilename) || !sendCompressedFile(session, localFile, partialFilename)) {
+            sendFileWithResume(session, localFile, partialFilename);
+        }
 
-        // get I/O streams for remote scp
-        try (OutputStream outputStream = channel.getOutputStream();
-             InputStream inputStream = channel.getInputStream()) {
+        Optional<String> optionalRemoteSha256 = getRemoteSha256(session, partialFilename);
+
+        if (!optionalRemoteSha256.isPresent()) {
+            log.warn("sha256sum is not available on the host, [" + remoteFilename + "] could not be verified");
+        } else if (!optionalRemoteSha256.get().equals(localSha256)) {
+            runCheckedCommand(session, String.join(" ", "rm -f", quoteForShell(partialFilename)));
+            throw new IOException("The SHA-256 of [" + remoteFilename + "] on the host is [" + optionalRemoteSha256.get() + "] but [" + localSha256 + "] was expected");
+        }
+
+        runCheckedCommand(session, String.join(" ", "mv -f", quoteForShell(partialFilename), quoteForShell(remoteFilename)));
+
+        long elapsedMillis = Math.max(1, Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        log.debug("Copied [" + localFile.length() + "] byte(s) to [" + remoteFilename + "] in [" + elapsedMillis + "] ms (" + (localFile.length() / elapsedMillis) + " KB/s)");
+
+        return null;
+    }
+
+    private Optional<String> getRemoteSha256(Session session, String remoteFilename) throws JSchException, IOException {
+        return getSha256FromOutput(runCommand(session, String.join(" ", "sha256sum", quoteForShell(remoteFilename), "2>/dev/null")));
+    }
+
+    // sha256sum prints the hash and then the file name
+    private Optional<String> getSha256FromOutput(String output) {
+        String hash = output.trim().split("\\s+", 2)[0];
+
+        if (!SHA_256_HEX.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(hash);
+    }
+
+    /**
+     * Samples a file to see if compressing it on the fly would save enough data to be worth the CPU on both ends.
+     * Scripts that embed an already compressed archive (e.g. the bootstrap script) are not, even though their start
+     * compresses well.
+     *
+     * @param localFile
+     * @return
+     */
+    boolean isWorthCompressing(File localFile) throws IOException {
+        byte[] sample = new byte[COMPRESSION_SAMPLE_SIZE];
+        int sampleLength = 0;
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(localFile, "r")) {
+            long fileLength = randomAccessFile.length();
+            int regionSize = COMPRESSION_SAMPLE_SIZE / COMPRESSION_SAMPLE_REGIONS;
+
+            for (int region = 0; region < COMPRESSION_SAMPLE_REGIONS; region++) {
+                // Small files are read in full, large ones are sampled in the middle of equal slices so each part of the file counts as much as its size
+                long offset = (fileLength <= COMPRESSION_SAMPLE_SIZE) ? sampleLength : (fileLength - regionSize) * (2 * region + 1) / (2 * COMPRESSION_SAMPLE_REGIONS);
+                randomAccessFile.seek(offset);
+
+                int bytesRead;
+
+                while ((sampleLength < (region + 1) * regionSize) && ((bytesRead = randomAccessFile.read(sample, sampleLength, (region + 1) * regionSize - sampleLength)) > 0)) {
+                    sampleLength += bytesRead;
+                }
+            }
+        }
+
+        if (sampleLength == 0) {
+            return false;
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            deflater.setInput(sample, 0, sampleLength);
+            deflater.finish();
+
+            byte[] compressed = new byte[COMPRESSION_SAMPLE_SIZE];
+            long compressedLength = 0;
+
+            while (!deflater.finished()) {
+                compressedLength += deflater.deflate(compressed);
+            }
+
+            return compressedLength < sampleLength * MINIMUM_COMPRESSION_RATIO;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private boolean hasPartialFile(Session session, String partialFilename) throws JSchException, IOException {
+        if (getExitStatus(session, String.join(" ", "test -s", quoteForShell(partialFilename))) != 0) {
+            return false;
+        }
+
+        log.debug("[" + partialFilename + "] is already on the host, resuming the copy instead of compressing it");
+
+        return true;
+    }
+
+    private void runCheckedCommand(Session session, String command) throws JSchException, IOException {
+        int exitStatus = getExitStatus(session, command);
+
+        if (exitStatus != 0) {
+            throw new SshRecoverableException("[" + command + "] failed on the host with exit status [" + exitStatus + "]");
+        }
+    }
+
+    private int getExitStatus(Session session, String command) throws JSchException, IOException {
+        ChannelExec channel = (ChannelExec) session.openChannel("exec");
+        channel.setCommand(command);
+
+        try (InputStream inputStream = channel.getInputStream()) {
             channel.connect();
 
-            if (checkAck(inputStream) != 0) {
-                throw new RuntimeException("Bad acknowledgement while secure copying file, bailing out");
+            // The output isn't needed but it must be read so the command can finish
+            IOUtils.copyLarge(inputStream, new NullOutputStream());
+
+            return waitForExitStatus(channel, command);
+        } finally {
+            channel.disconnect();
+        }
+    }
+
+    private boolean sendCompressedFile(Session session, File localFile, String partialFilename) throws JSchException, IOException {
+        if (getExitStatus(session, "command -v gzip") != 0) {
+            log.debug("gzip is not available on the host, copying [" + localFile.getName() + "] uncompressed");
+            return false;
+        }
+
+        ChannelExec channel = (ChannelExec) session.openChannel("exec");
+        channel.setCommand(String.join(" ", "gzip -dc >", quoteForShell(partialFilename)));
+
+        try {
+            OutputStream channelOutputStream = channel.getOutputStream();
+            channel.connect();
+
+            // Closing the stream sends EOF so gzip finishes writing the file
+            try (InputStream inputStream = new FileInputStream(localFile);
+                 OutputStream outputStream = new GZIPOutputStream(channelOutputStream, TRANSFER_BUFFER_SIZE) {
+                     {
+                         def.setLevel(Deflater.BEST_SPEED);
+                     }
+                 }) {
+                IOUtils.copyLarge(inputStream, outputStream, new byte[TRANSFER_BUFFER_SIZE]);
+            } catch (IOException e) {
+                // gzip exited early (e.g. the disk is full) and closed the channel while we were still writing
+                log.warn("Compressed copy of [" + localFile.getName() + "] failed [" + e.getMessage() + "], copying it uncompressed");
+                return false;
             }
 
-            File localFile = new File(localFilename);
+            int exitStatus = waitForExitStatus(channel, "gzip -dc");
 
-            if (preserveTimestamp) {
-                command = "T " + (localFile.lastModified() / 1000) + " 0";
-                // The access time should be sent here,
-                // but it is not accessible with JavaAPI ;-<
-                command += (" " + (localFile.lastModified() / 1000) + " 0\n");
+            if (exitStatus != 0) {
+                log.warn("Compressed copy of [" + localFile.getName() + "] failed with exit status [" + exitStatus + "], copying it uncompressed");
+                return false;
+            }
+
+            return true;
+        } finally {
+            channel.disconnect();
+        }
+    }
 
-                outputStream.write(command.getBytes());
-                outputStream.flush();
+    private int waitForExitStatus(Channel channel, String command) {
+        Instant deadline = Instant.now().plus(REMOTE_COMMAND_TIMEOUT);
 
-                if (checkAck(inputStream) != 0) {
-                    throw new RuntimeException("Failure when calling checkAck in sendFile [1]");
-                }
+        while (!channel.isClosed()) {
+            if (Instant.now().isAfter(deadline)) {
+                throw new SshRecoverableException("[" + command + "] did not finish on the host within [" + REMOTE_COMMAND_TIMEOUT.getSeconds() + "] seconds");
             }
 
-            // send "C0644 filesize filename", where filename should not include '/'
-            long filesize = localFile.length();
+            sleep(100);
+        }
+
+        return channel.getExitStatus();
+    }
 
-            command = "C0644 " + filesize + " ";
+    private void sendFileWithResume(Session session, File localFile, String partialFilename) throws JSchException, IOException {
+        ChannelSftp channelSftp = (ChannelSftp) session.openChannel("sftp");
 
-            if (localFilename.lastIndexOf('/') > 0) {
-                command += localFilename.substring(localFilename.lastIndexOf('/') + 1);
-            } else {
-                command += localFilename;
+        try {
+            channelSftp.connect();
+        } catch (JSchException e) {
+            // Some devices don't have the SFTP subsystem but scp is always there
+            log.debug("SFTP is not available on the host [" + e.getMessage() + "], using scp");
+            channelSftp.disconnect();
+            scpFile(session, localFile, partialFilename);
+            return;
+        }
+
+        try {
+            long resumeOffset = getResumeOffset(session, channelSftp, localFile, partialFilename);
+
+            if (resumeOffset != 0) {
+                log.info("Resuming the copy of [" + localFile.getName() + "] at byte [" + resumeOffset + "] of [" + localFile.length() + "]");
+            }
+
+            // RESUME skips as many bytes of the local file as the remote file already has
+            channelSftp.put(localFile.getAbsolutePath(), partialFilename, (resumeOffset != 0) ? ChannelSftp.RESUME : ChannelSftp.OVERWRITE);
+        } catch (SftpException e) {
+            throw new IOException("Failed to copy [" + localFile.getName() + "] to the host", e);
+        } finally {
+            channelSftp.disconnect();
+        }
+    }
+
+    private long getResumeOffset(Session session, ChannelSftp channelSftp, File localFile, String partialFilename) throws JSchException, IOException {
+        Optional<Long> optionalRemoteSize = Try.of(() -> channelSftp.stat(partialFilename).getSize()).toJavaOptional();
+
+        if (!optionalRemoteSize.isPresent() || (optionalRemoteSize.get() == 0) || (optionalRemoteSize.get() > localFile.length())) {
+            return 0;
+        }
+
+        long remoteSize = optionalRemoteSize.get();
+
+        // Only resume if the bytes that are already there are the start of this file and not a different version of it
+        String localPrefixSha256 = toHexString(Try.withResources(() -> new BoundedInputStream(new FileInputStream(localFile), remoteSize))
+                .of(this::getSha256)
+                .get());
+        Optional<String> optionalRemotePrefixSha256 = getSha256FromOutput(runCommand(session, String.join(" ", "head -c", String.valueOf(remoteSize), quoteForShell(partialFilename), "| sha256sum")));
+
+        if (optionalRemotePrefixSha256.filter(localPrefixSha256::equals).isPresent()) {
+            return remoteSize;
+        }
+
+        return 0;
+    }
+
+    private String quoteForShell(String value) {
+        return "'" + value.replace("'", "'\"'\"'") + "'";
+    }
+
+    private void scpFile(Session session, File localFile, String remoteFilename) throws JSchException, IOException {
+        // exec 'scp -t rfile' remotely
+        String command = "scp -t " + quoteForShell(remoteFilename);
+
+        Channel channel = session.openChannel("exec");
+        ((ChannelExec) channel).setCommand(command);
+
+        // get I/O streams for remote scp
+        try (OutputStream outputStream = channel.getOutputStream();
+             InputStream inputStream = channel.getInputStream()) {
+            channel.connect();
+
+            if (checkAck(inputStream) != 0) {
+                throw new RuntimeException("Bad acknowledgement while secure copying file, bailing out");
             }
 
-            command += "\n";
+            // send "C0644 filesize filename", where filename should not include '/'
+            command = "C0644 " + localFile.length() + " " + localFile.getName() + "\n";
 
             outputStream.write(command.getBytes());
             outputStream.flush();
 
             if (checkAck(inputStream) != 0) {
-                throw new RuntimeException("Failure when calling checkAck in sendFile [2]");
+                throw new RuntimeException("Failure when calling checkAck in scpFile [1]");
             }
 
-            byte[] bytes = new byte[1024];
-
             // send a content of localFilename
-            try (FileInputStream fileInputStream = new FileInputStream(localFilename)) {
-                while (true) {
-                    int length = fileInputStream.read(bytes, 0, bytes.length);
-                    if (length <= 0) break;
-                    outputStream.write(bytes, 0, length); //out.flush();
-                }
+            try (FileInputStream fileInputStream = new FileInputStream(localFile)) {
+                IOUtils.copyLarge(fileInputStream, outputStream, new byte[TRANSFER_BUFFER_SIZE]);
             }
 
             // send '\0'
-            bytes[0] = 0;
-
-            outputStream.write(bytes, 0, 1);
+            outputStream.write(0);
             outputStream.flush();
 
             if (checkAck(inputStream) != 0) {
-                throw new RuntimeException("Failure when calling checkAck in sendFile [3]");
+                throw new RuntimeException("Failure when calling checkAck in scpFile [2]");
             }
+        } finally {
+            channel.disconnect();
         }
-
-        channel.disconnect();
-
-        return null;
     }
 
     private int checkAck(InputStream inputStream) throws IOException {
@@ -1,5 +1,7 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
+import com.awslabs.aws.greengrass.provisioner.data.FunctionArchiveInfo;
+import com.awslabs.aws.greengrass.provisioner.data.ImmutableFunctionArchiveInfo;
 import com.awslabs.aws.greengrass.provisioner.data.ImmutableLambdaFunctionArnInfo;
 import com.awslabs.aws.greengrass.provisioner.data.LambdaFunctionArnInfo;
 import com.awslabs.aws.greengrass.provisioner.data.Language;
@@ -21,13 +23,21 @@ import software.amazon.awssdk.services.lambda.model.*;
 import javax.inject.Inject;
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class BasicLambdaHelper implements LambdaHelper {
     private static final String ARN_AWS_GREENGRASS_RUNTIME_FUNCTION_EXECUTABLE = "arn:aws:greengrass:::runtime/function/executable";
     private static final String ZIP_ARCHIVE_FOR_EXECUTABLE_NATIVE_FUNCTION_NOT_PRESENT = "ZIP archive for executable/native function not present ";
+    private static final String ROLE_CANNOT_BE_ASSUMED_MESSAGE = "The role defined for the function cannot be assumed by Lambda.";
     private final Logger log = LoggerFactory.getLogger(BasicLambdaHelper.class);
+    // Completes with true when the role is known to be visible to Lambda, keyed by role ARN
+    private final Map<String, CompletableFuture<Boolean>> roleVisibilityGates = new ConcurrentHashMap<>();
     @Inject
     LambdaClient lambdaClient;
     @Inject
@@ -51,18 +61,33 @@ public class BasicLambdaHelper implements LambdaHelper {
     public BasicLambdaHelper() {
     }
 
-    private boolean functionExists(String functionName) {
-        GetFunctionRequest getFunctionRequest = GetFunctionRequest.builder()
-                .functionName(functionName)
-                .build();
+    @Override
+    public LambdaFunctionArnInfo buildAndCreateExecutableFunctionIfNecessary(FunctionConf functionConf, Role role) {
+        return createFunctionIfNecessary(functionConf, role, buildExecutableFunctionIfNecessary(functionConf));
+    }
 
-        return Try.of(() -> lambdaClient.getFunction(getFunctionRequest) != null)
-                .recover(ResourceNotFoundException.class, throwable -> false)
-                .get();
+    @Override
+    public LambdaFunctionArnInfo buildAndCreateJavaFunctionIfNecessary(FunctionConf functionConf, Role role) {
+        return createFunctionIfNecessary(functionConf, role, buildJavaFunctionIfNecessary(functionConf));
     }
 
     @Override
-    public LambdaFunctionArnInfo buildAndCreateExecutableFunctionIfNecessary(FunctionConf functionConf, Role role) {
+    public LambdaFunctionArnInfo buildAndCreatePython2FunctionIfNecessary(FunctionConf functionConf, Role role) {
+        return createFunctionIfNecessary(functionConf, role, buildPython2FunctionIfNecessary(functionConf));
+    }
+
+    @Override
+    public LambdaFunctionArnInfo buildAndCreatePython3FunctionIfNecessary(FunctionConf functionConf, Role role) {
+        return createFunctionIfNecessary(functionConf, role, buildPython3FunctionIfNecessary(functionConf));
+    }
+
+    @Override
+    public LambdaFunctionArnInfo buildAndCreateNodeFunctionIfNecessary(FunctionConf functionConf, Role role) {
+        return createFunctionIfNecessary(functionConf, role, buildNodeFunctionIfNecessary(functionConf));
+    }
+
+    @Override
+    public FunctionArchiveInfo buildExecutableFunctionIfNecessary(FunctionConf functionConf) {
         String zipFilePath = String.join("/", functionConf.getBuildDirectory().toString(), functionConf.getFunctionName() + ".zip");
 
         File zipFile = new File(zipFilePath);
@@ -76,11 +101,11 @@ public class BasicLambdaHelper implements LambdaHelper {
             throw new RuntimeException(ZIP_ARCHIVE_FOR_EXECUTABLE_NATIVE_FUNCTION_NOT_PRESENT + "[" + zipFile.getName() + "]");
         }
 
-        return createFunctionIfNecessary(functionConf, role, zipFilePath);
+        return getFunctionArchiveInfo(zipFilePath);
     }
 
     @Override
-    public LambdaFunctionArnInfo buildAndCreateJavaFunctionIfNecessary(FunctionConf functionConf, Role role) {
+    public FunctionArchiveInfo buildJavaFunctionIfNecessary(FunctionConf functionConf) {
         String zipFilePath;
 
         if (mavenBuilder.isMavenFunction(functionConf)) {
@@ -98,54 +123,65 @@ public class BasicLambdaHelper implements LambdaHelper {
             throw new RuntimeException("This function [" + functionConf.getFunctionName() + "] is neither a Maven project nor a Gradle project.  It cannot be built automatically.");
         }
 
-        return createFunctionIfNecessary(functionConf, role, zipFilePath);
+        return getFunctionArchiveInfo(zipFilePath);
     }
 
     @Override
-    public LambdaFunctionArnInfo buildAndCreatePython2FunctionIfNecessary(FunctionConf functionConf, Role role) {
+    public FunctionArchiveInfo buildPython2FunctionIfNecessary(FunctionConf functionConf) {
         Optional<String> error = python2Builder.verifyHandlerExists(functionConf);
 
         if (error.isPresent()) {
-            return ImmutableLambdaFunctionArnInfo.builder()
+            return ImmutableFunctionArchiveInfo.builder()
                     .error(error).build();
         }
 
         python2Builder.buildFunctionIfNecessary(functionConf);
 
-        String zipFilePath = python2Builder.getArchivePath(functionConf);
-
-        return createFunctionIfNecessary(functionConf, role, zipFilePath);
+        return getFunctionArchiveInfo(python2Builder.getArchivePath(functionConf));
     }
 
     @Override
-    public LambdaFunctionArnInfo buildAndCreatePython3FunctionIfNecessary(FunctionConf functionConf, Role role) {
+    public FunctionArchiveInfo buildPython3FunctionIfNecessary(FunctionConf functionConf) {
         Optional<String> error = python3Builder.verifyHandlerExists(functionConf);
 
         if (error.isPresent()) {
-            return ImmutableLambdaFunctionArnInfo.builder()
+            return ImmutableFunctionArchiveInfo.builder()
                     .error(error).build();
         }
 
         python3Builder.buildFunctionIfNecessary(functionConf);
 
-        String zipFilePath = python3Builder.getArchivePath(functionConf);
-
-        return createFunctionIfNecessary(functionConf, role, zipFilePath);
+        return getFunctionArchiveInfo(python3Builder.getArchivePath(functionConf));
     }
 
     @Override
-    public LambdaFunctionArnInfo buildAndCreateNodeFunctionIfNecessary(FunctionConf functionConf, Role role) {
+    public FunctionArchiveInfo buildNodeFunctionIfNecessary(FunctionConf functionConf) {
         Optional<String> error = nodeBuilder.verifyHandlerExists(functionConf);
 
         if (error.isPresent()) {
-            return ImmutableLambdaFunctionArnInfo.builder()
+            return ImmutableFunctionArchiveInfo.builder()
                     .error(error).build();
         }
 
         nodeBuilder.buildFunctionIfNecessary(functionConf);
 
-        String zipFilePath = nodeBuilder.getArchivePath(functionConf);
-        return createFunctionIfNecessary(functionConf, role, zipFilePath);
+        return getFunctionArchiveInfo(nodeBuilder.getArchivePath(functionConf));
+    }
+
+    private FunctionArchiveInfo getFunctionArchiveInfo(String zipFilePath) {
+        return ImmutableFunctionArchiveInfo.builder()
+                .zipFilePath(zipFilePath)
+                .build();
+    }
+
+    @Override
+    public LambdaFunctionArnInfo createFunctionIfNecessary(FunctionConf functionConf, Role role, FunctionArchiveInfo functionArchiveInfo) {
+        if (functionArchiveInfo.getError().isPresent()) {
+            return ImmutableLambdaFunctionArnInfo.builder()
+                    .error(functionArchiveInfo.getError()).build();
+        }
+
+        return createFunctionIfNecessary(functionConf, role, functionArchiveInfo.getZipFilePath().get());
     }
 
     @Override
@@ -153,70 +189,181 @@ public class BasicLambdaHelper implements LambdaHelper {
         String baseFunctionName = functionConf.getFunctionName();
         String groupFunctionName = getFunctionName(functionConf);
 
-        if (functionExists(groupFunctionName)) {
-            loggingHelper.logInfoWithName(log, baseFunctionName, "Deleting existing Lambda function");
-            DeleteFunctionRequest deleteFunctionRequest = DeleteFunctionRequest.builder()
-                    .functionName(groupFunctionName)
-                    .build();
+        // Lambda reports the SHA-256 of the deployed package as base64, compare against that to avoid re-uploading identical code
+        String codeSha256 = Base64.getEncoder().encodeToString(ioHelper.getSha256(Paths.get(zipFilePath)));
 
-            lambdaClient.deleteFunction(deleteFunctionRequest);
+        Optional<GetFunctionResponse> optionalGetFunctionResponse = getFunction(groupFunctionName);
+
+        if (optionalGetFunctionResponse.isPresent()) {
+            updateFunctionIfNecessary(functionConf, role, zipFilePath, codeSha256, optionalGetFunctionResponse.get().configuration());
+        } else {
+            createFunction(functionConf, role, zipFilePath);
         }
 
+        // If nothing changed since the last published version Lambda returns that version instead of creating a new one
+        loggingHelper.logInfoWithName(log, baseFunctionName, "Publishing Lambda function version");
+        PublishVersionResponse publishVersionResponse = publishFunctionVersion(groupFunctionName, Optional.of(codeSha256));
+
+        String qualifier = publishVersionResponse.version();
+        String qualifiedArn = publishVersionResponse.functionArn();
+        String baseArn = qualifiedArn.replaceAll(":" + qualifier + "$", "");
+
+        LambdaFunctionArnInfo lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder()
+                .qualifier(qualifier)
+                .qualifiedArn(qualifiedArn)
+                .baseArn(baseArn)
+                .build();
+
+        return lambdaFunctionArnInfo;
+    }
+
+    private void createFunction(FunctionConf functionConf, Role role, String zipFilePath) {
         FunctionCode functionCode = FunctionCode.builder()
-                .zipFile(SdkBytes.fromByteBuffer(ByteBuffer.wrap(ioHelper.readFile(zipFilePath))))
+                .zipFile(getZipFileBytes(zipFilePath))
                 .build();
 
-        loggingHelper.logInfoWithName(log, baseFunctionName, "Creating new Lambda function");
+        loggingHelper.logInfoWithName(log, functionConf.getFunctionName(), "Creating new Lambda function");
 
-        CreateFunctionRequest.Builder createFunctionRequestBuilder = CreateFunctionRequest.builder()
-                .functionName(groupFunctionName)
+        CreateFunctionRequest createFunctionRequest = CreateFunctionRequest.builder()
+                .functionName(getFunctionName(functionConf))
                 .role(role.arn())
                 .handler(functionConf.getHandlerName())
-                .code(functionCode);
+                .runtime(getRuntime(functionConf))
+                .code(functionCode)
+                .build();
 
-        if (functionConf.getLanguage().equals(Language.EXECUTABLE)) {
-            createFunctionRequestBuilder.runtime(ARN_AWS_GREENGRASS_RUNTIME_FUNCTION_EXECUTABLE);
-        } else {
-            createFunctionRequestBuilder.runtime(functionConf.getLanguage().getRuntime());
+        createFunctionWhenRoleIsVisible(role.arn(), createFunctionRequest);
+    }
+
+    private CreateFunctionResponse createFunctionWhenRoleIsVisible(String roleArn, CreateFunctionRequest createFunctionRequest) {
+        while (true) {
+            CompletableFuture<Boolean> newRoleVisibilityGate = new CompletableFuture<>();
+            CompletableFuture<Boolean> roleVisibilityGate = roleVisibilityGates.putIfAbsent(roleArn, newRoleVisibilityGate);
+
+            if (roleVisibilityGate == null) {
+                // This thread is first for this role, its create call (with retries) doubles as the IAM visibility probe
+                return probeRoleVisibility(roleArn, newRoleVisibilityGate, createFunctionRequest);
+            }
+
+            // Wait for the probe, once the role is visible every function using it can be created concurrently
+            if (roleVisibilityGate.join()) {
+                return Failsafe.with(getLambdaIamRoleRetryPolicy()).get(() ->
+                        lambdaClient.createFunction(createFunctionRequest));
+            }
+
+            // The probe failed for a reason unrelated to IAM so visibility is still unknown, probe again
         }
+    }
 
-        // Sometimes the Lambda IAM role isn't immediately visible so we need retries
-        RetryPolicy<CreateFunctionResponse> lambdaIamRoleRetryPolicy = new RetryPolicy<CreateFunctionResponse>()
-                .handleIf(throwable -> throwable.getMessage().startsWith("The role defined for the function cannot be assumed by Lambda."))
-                .withDelay(Duration.ofSeconds(5))
-                .withMaxRetries(10)
-                .onRetry(failure -> log.warn("Waiting for IAM role to be visible to AWS Lambda..."))
-                .onRetriesExceeded(failure -> log.error("IAM role never became visible to AWS Lambda. Cannot continue."));
+    private CreateFunctionResponse probeRoleVisibility(String roleArn, CompletableFuture<Boolean> roleVisibilityGate, CreateFunctionRequest createFunctionRequest) {
+        try {
+            CreateFunctionResponse createFunctionResponse = Failsafe.with(getLambdaIamRoleRetryPolicy()).get(() ->
+                    lambdaClient.createFunction(createFunctionRequest));
+
+            roleVisibilityGate.complete(true);
+
+            return createFunctionResponse;
+        } catch (RuntimeException e) {
+            roleVisibilityGates.remove(roleArn, roleVisibilityGate);
 
-        // Make sure multiple threads don't do this at the same time
-        synchronized (this) {
-            Failsafe.with(lambdaIamRoleRetryPolicy).get(() ->
-                    lambdaClient.createFunction(createFunctionRequestBuilder.build()));
+            if (isRoleNotVisibleException(e)) {
+                // The role never became visible, everyone waiting on it fails the same way
+                roleVisibilityGate.completeExceptionally(e);
+            } else {
+                roleVisibilityGate.complete(false);
+            }
+
+            throw e;
         }
+    }
 
-        loggingHelper.logInfoWithName(log, baseFunctionName, "Publishing Lambda function version");
-        PublishVersionResponse publishVersionResponse = publishFunctionVersion(groupFunctionName);
+    private boolean isRoleNotVisibleException(Throwable throwable) {
+        return (throwable.getMessage() != null) && throwable.getMessage().startsWith(ROLE_CANNOT_BE_ASSUMED_MESSAGE);
+    }
 
-        String qualifier = publishVersionResponse.version();
-        String qualifiedArn = publishVersionResponse.functionArn();
-        String baseArn = qualifiedArn.replaceAll(":" + qualifier + "$", "");
+    private void updateFunctionIfNecessary(FunctionConf functionConf, Role role, String zipFilePath, String codeSha256, FunctionConfiguration functionConfiguration) {
+        String baseFunctionName = functionConf.getFunctionName();
+        String groupFunctionName = getFunctionName(functionConf);
+        String runtime = getRuntime(functionConf);
 
-        LambdaFunctionArnInfo lambdaFunctionArnInfo = ImmutableLambdaFunctionArnInfo.builder()
-                .qualifier(qualifier)
-                .qualifiedArn(qualifiedArn)
-                .baseArn(baseArn)
+        if (!role.arn().equals(functionConfiguration.role()) ||
+                !functionConf.getHandlerName().equals(functionConfiguration.handler()) ||
+                !runtime.equals(functionConfiguration.runtimeAsString())) {
+            loggingHelper.logInfoWithName(log, baseFunctionName, "Updating Lambda function configuration");
+
+            UpdateFunctionConfigurationRequest updateFunctionConfigurationRequest = UpdateFunctionConfigurationRequest.builder()
+                    .functionName(groupFunctionName)
+                    .role(role.arn())
+                    .handler(functionConf.getHandlerName())
+                    .runtime(runtime)
+                    .build();
+
+            Failsafe.with(getLambdaIamRoleRetryPolicy(), getResourceConflictRetryPolicy()).get(() ->
+                    lambdaClient.updateFunctionConfiguration(updateFunctionConfigurationRequest));
+        }
+
+        if (codeSha256.equals(functionConfiguration.codeSha256())) {
+            loggingHelper.logInfoWithName(log, baseFunctionName, "Lambda function code is unchanged, skipping upload");
+            return;
+        }
+
+        loggingHelper.logInfoWithName(log, baseFunctionName, "Updating Lambda function code");
+
+        UpdateFunctionCodeRequest updateFunctionCodeRequest = UpdateFunctionCodeRequest.builder()
+                .functionName(groupFunctionName)
+                .zipFile(getZipFileBytes(zipFilePath))
                 .build();
 
-        return lambdaFunctionArnInfo;
+        Failsafe.with(getResourceConflictRetryPolicy()).get(() ->
+                lambdaClient.updateFunctionCode(updateFunctionCodeRequest));
+    }
+
+    private SdkBytes getZipFileBytes(String zipFilePath) {
+        return SdkBytes.fromByteBuffer(ByteBuffer.wrap(ioHelper.readFile(zipFilePath)));
+    }
+
+    private String getRuntime(FunctionConf functionConf) {
+        if (functionConf.getLanguage().equals(Language.EXECUTABLE)) {
+            return ARN_AWS_GREENGRASS_RUNTIME_FUNCTION_EXECUTABLE;
+        }
+
+        return functionConf.getLanguage().getRuntime().toString();
+    }
+
+    private <T> RetryPolicy<T> getLambdaIamRoleRetryPolicy() {
+        // Sometimes the Lambda IAM role isn't immediately visible so we need retries
+        return new RetryPolicy<T>()
+                .handleIf(this::isRoleNotVisibleException)
+                .withDelay(Duration.ofSeconds(5))
+                .withMaxRetries(10)
+                .onRetry(failure -> log.warn("Waiting for IAM role to be visible to AWS Lambda..."))
+                .onRetriesExceeded(failure -> log.error("IAM role never became visible to AWS Lambda. Cannot continue."));
+    }
+
+    private <T> RetryPolicy<T> getResourceConflictRetryPolicy() {
+        // Lambda rejects changes while a previous update to the same function is still in progress
+        return new RetryPolicy<T>()
+                .handle(ResourceConflictException.class)
+                .withDelay(Duration.ofSeconds(2))
+                .withMaxRetries(15)
+                .onRetry(failure -> log.warn("Waiting for a previous update to the Lambda function to finish..."))
+                .onRetriesExceeded(failure -> log.error("Lambda function update never finished. Cannot continue."));
     }
 
     @Override
     public PublishVersionResponse publishFunctionVersion(String groupFunctionName) {
-        PublishVersionRequest publishVersionRequest = PublishVersionRequest.builder()
-                .functionName(groupFunctionName)
-                .build();
+        return publishFunctionVersion(groupFunctionName, Optional.empty());
+    }
+
+    private PublishVersionResponse publishFunctionVersion(String groupFunctionName, Optional<String> codeSha256) {
+        PublishVersionRequest.Builder publishVersionRequestBuilder = PublishVersionRequest.builder()
+                .functionName(groupFunctionName);
+
+        // Makes sure the version is published from the code that was just checked or uploaded
+        codeSha256.ifPresent(publishVersionRequestBuilder::codeSha256);
 
-        return lambdaClient.publishVersion(publishVersionRequest);
+        return Failsafe.with(getResourceConflictRetryPolicy()).get(() ->
+                lambdaClient.publishVersion(publishVersionRequestBuilder.build()));
     }
 
     private boolean aliasExists(FunctionConf functionConf) {
@@ -254,14 +401,17 @@ public class BasicLambdaHelper implements LambdaHelper {
         }
 
         if (aliasExists(groupFunctionName, aliasName)) {
-            loggingHelper.logInfoWithName(log, baseFunctionName, "Deleting existing alias");
+            // Point the existing alias at the new version instead of deleting and recreating it
+            loggingHelper.logInfoWithName(log, baseFunctionName, "Updating existing alias");
 
-            DeleteAliasRequest deleteAliasRequest = DeleteAliasRequest.builder()
+            UpdateAliasRequest updateAliasRequest = UpdateAliasRequest.builder()
                     .functionName(groupFunctionName)
                     .name(aliasName)
+                    .functionVersion(functionVersion)
                     .build();
 
-            lambdaClient.deleteAlias(deleteAliasRequest);
+            return Failsafe.with(getResourceConflictRetryPolicy()).get(() ->
+                    lambdaClient.updateAlias(updateAliasRequest)).aliasArn();
         }
 
         loggingHelper.logInfoWithName(log, baseFunctionName, "Creating new alias");
@@ -5,8 +5,14 @@ import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.QueryArgumentHe
 import com.beust.jcommander.JCommander;
 
 import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class BasicQueryArgumentHelper implements QueryArgumentHelper {
+    private static final Pattern RELATIVE_TIME_PATTERN = Pattern.compile("^([0-9]+)([smhd])$");
     @Inject
     public BasicQueryArgumentHelper() {
     }
@@ -34,10 +40,57 @@ public class BasicQueryArgumentHelper implements QueryArgumentHelper {
             throw new RuntimeException("This is not a query request");
         }
 
-        if (queryArguments.groupName == null) {
+        if ((queryArguments.localLogDirectory != null) && !queryArguments.diagnose) {
+            throw new RuntimeException("Local logs can only be used when diagnosing");
+        }
+
+        // Local diagnostics never talk to Greengrass so they don't need a group
+        if ((queryArguments.groupName == null) && (queryArguments.localLogDirectory == null)) {
             throw new RuntimeException("Group name is required for all operations");
         }
 
+        if (queryArguments.startTimeString != null) {
+            queryArguments.startTime = parseTime(queryArguments.startTimeString);
+        }
+
+        if (queryArguments.endTimeString != null) {
+            queryArguments.endTime = parseTime(queryArguments.endTimeString);
+        }
+
+        if (((queryArguments.startTime != null) || (queryArguments.endTime != null) || queryArguments.gzipLogs) && !queryArguments.downloadLogs) {
+            throw new RuntimeException("Time ranges and gzip can only be used when downloading logs");
+        }
+
+        if ((queryArguments.startTime != null) && (queryArguments.endTime != null) && !queryArguments.startTime.isBefore(queryArguments.endTime)) {
+            throw new RuntimeException("The start time must be before the end time");
+        }
+
         return queryArguments;
     }
+
+    private Instant parseTime(String time) {
+        Matcher matcher = RELATIVE_TIME_PATTERN.matcher(time);
+
+        if (matcher.matches()) {
+            // Relative times are that long before now
+            long amount = Long.parseLong(matcher.group(1));
+
+            switch (matcher.group(2)) {
+                case "s":
+                    return Instant.now().minus(Duration.ofSeconds(amount));
+                case "m":
+                    return Instant.now().minus(Duration.ofMinutes(amount));
+                case "h":
+                    return Instant.now().minus(Duration.ofHours(amount));
+                default:
+                    return Instant.now().minus(Duration.ofDays(amount));
+            }
+        }
+
+        try {
+            return Instant.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("[" + time + "] is not a valid time, use an ISO-8601 time like 2019-06-01T12:00:00Z or a relative time like 30m, 2h, or 1d");
+        }
+    }
 }
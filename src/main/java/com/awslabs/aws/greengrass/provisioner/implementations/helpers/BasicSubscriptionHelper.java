@@ -1,5 +1,6 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
+import com.awslabs.aws.greengrass.provisioner.data.TopicFilterTrie;
 import com.awslabs.aws.greengrass.provisioner.data.conf.FunctionConf;
 import com.awslabs.aws.greengrass.provisioner.data.conf.GGDConf;
 import com.awslabs.aws.greengrass.provisioner.data.conf.ModifiableFunctionConf;
@@ -10,10 +11,7 @@ import software.amazon.awssdk.services.greengrass.model.Function;
 import software.amazon.awssdk.services.greengrass.model.Subscription;
 
 import javax.inject.Inject;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class BasicSubscriptionHelper implements SubscriptionHelper {
     private final Logger log = LoggerFactory.getLogger(BasicSubscriptionHelper.class);
@@ -66,28 +64,30 @@ public class BasicSubscriptionHelper implements SubscriptionHelper {
             }
         }
 
+        // Index the input topics so wildcards like "sensors/+/temperature" and "sensors/#" are matched too
+        TopicFilterTrie<String> inputTopics = new TopicFilterTrie<>();
+        arnsByInputTopic.keySet().forEach(inputTopic -> inputTopics.put(inputTopic, inputTopic));
+
         // Loop through all of the output topics we found
         for (Map.Entry<String, List<String>> entry : arnsByOutputTopic.entrySet()) {
             // Get the output topic name and the source ARNs for that topic
             String outputTopic = entry.getKey();
             List<String> sourceArns = entry.getValue();
 
-            // Get the list of target ARNs for that topic
-            List<String> targetArns = arnsByInputTopic.get(outputTopic);
-
-            // Are there any target ARNs?
-            if ((targetArns == null) || (targetArns.size() == 0)) {
-                // No, move on
-                continue;
-            }
-
-            // Yes, there are target ARNs for the topic.  Loop through all of the source ARNs.
-            for (String sourceArn : sourceArns) {
-                // Loop through all of the target ARNs
-                for (String targetArn : targetArns) {
-                    // Connect the source to the target
-                    log.info("Connecting [" + sourceArn + "] to [" + targetArn + "] on topic [" + outputTopic + "]");
-                    subscriptions.add(createSubscription(sourceArn, targetArn, outputTopic));
+            // Loop through all of the input topics that can receive messages on this output topic
+            for (String inputTopic : inputTopics.getOverlapping(outputTopic)) {
+                // Only route the messages that both sides are interested in
+                String subject = TopicFilterTrie.getIntersection(outputTopic, inputTopic).get();
+                List<String> targetArns = arnsByInputTopic.get(inputTopic);
+
+                // Loop through all of the source ARNs
+                for (String sourceArn : sourceArns) {
+                    // Loop through all of the target ARNs
+                    for (String targetArn : targetArns) {
+                        // Connect the source to the target
+                        log.info("Connecting [" + sourceArn + "] to [" + targetArn + "] on topic [" + subject + "]");
+                        subscriptions.add(createSubscription(sourceArn, targetArn, subject));
+                    }
                 }
             }
         }
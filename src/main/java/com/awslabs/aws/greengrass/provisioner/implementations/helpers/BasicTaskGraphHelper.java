@@ -0,0 +1,124 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.tasks.ImmutableTaskTiming;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.Task;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskGraph;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskResults;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskTiming;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.TaskGraphHelper;
+import io.vavr.control.Try;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class BasicTaskGraphHelper implements TaskGraphHelper {
+    // Most tasks are waiting on AWS APIs so this can be larger than the number of cores
+    private static final int MAXIMUM_CONCURRENT_TASKS = 8;
+    private final Logger log = LoggerFactory.getLogger(BasicTaskGraphHelper.class);
+
+    @Inject
+    public BasicTaskGraphHelper() {
+    }
+
+    @Override
+    public TaskResults execute(TaskGraph taskGraph) {
+        ExecutorService executorService = Executors.newFixedThreadPool(MAXIMUM_CONCURRENT_TASKS, new ThreadFactoryImpl(taskGraph.getName()));
+
+        Map<Task<?>, CompletableFuture<Object>> futures = new ConcurrentHashMap<>();
+        Map<Task<?>, TaskTiming> timings = new ConcurrentHashMap<>();
+        Map<Task<?>, Throwable> failures = new ConcurrentHashMap<>();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        long graphStartNanos = System.nanoTime();
+
+        try {
+            for (Task<?> task : taskGraph.getTasks()) {
+                CompletableFuture<?>[] dependencyFutures = task.getDependencies().stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+
+                // A task starts as soon as all of its dependencies are done, if any dependency fails the task never runs
+                CompletableFuture<Object> future = CompletableFuture.allOf(dependencyFutures)
+                        .thenApplyAsync(ignore -> runTask(task, futures, timings, failures, failed, graphStartNanos), executorService);
+
+                futures.put(task, future);
+            }
+
+            // Wait for everything that was started to finish, failures are reported below
+            Try.run(() -> CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join());
+        } finally {
+            executorService.shutdown();
+        }
+
+        logTimings(taskGraph, timings, graphStartNanos);
+
+        if (failed.get()) {
+            // Report the failure from the earliest task in the graph, everything after it was skipped
+            Throwable throwable = taskGraph.getTasks().stream()
+                    .filter(failures::containsKey)
+                    .map(failures::get)
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Task graph [" + taskGraph.getName() + "] failed but no failure was recorded, this is a bug"));
+
+            if (throwable instanceof RuntimeException) {
+                throw (RuntimeException) throwable;
+            }
+
+            throw new RuntimeException(throwable);
+        }
+
+        return new TaskResults(Optional.empty(), futures);
+    }
+
+    private Object runTask(Task<?> task, Map<Task<?>, CompletableFuture<Object>> futures, Map<Task<?>, TaskTiming> timings, Map<Task<?>, Throwable> failures, AtomicBoolean failed, long graphStartNanos) {
+        if (failed.get()) {
+            // Another branch failed, don't start any new work
+            throw new CompletionException(new RuntimeException("Task [" + task.getName() + "] skipped because another task failed"));
+        }
+
+        long startNanos = System.nanoTime();
+        boolean successful = false;
+
+        try {
+            Object result = task.getBody().apply(new TaskResults(Optional.of(task), futures));
+            successful = true;
+
+            return result;
+        } catch (Throwable throwable) {
+            failures.put(task, throwable);
+            failed.set(true);
+
+            throw new CompletionException(throwable);
+        } finally {
+            long endNanos = System.nanoTime();
+
+            timings.put(task, ImmutableTaskTiming.builder()
+                    .taskName(task.getName())
+                    .startOffsetMillis(TimeUnit.NANOSECONDS.toMillis(startNanos - graphStartNanos))
+                    .durationMillis(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos))
+                    .isSuccessful(successful)
+                    .build());
+        }
+    }
+
+    private void logTimings(TaskGraph taskGraph, Map<Task<?>, TaskTiming> timings, long graphStartNanos) {
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - graphStartNanos);
+
+        log.info("Task timings for [" + taskGraph.getName() + "], total " + totalMillis + " ms");
+
+        taskGraph.getTasks().stream()
+                .filter(timings::containsKey)
+                .map(timings::get)
+                .forEach(taskTiming -> log.info("- [" + taskTiming.getTaskName() + "] started at +" + taskTiming.getStartOffsetMillis() + " ms, took " + taskTiming.getDurationMillis() + " ms" + (taskTiming.isSuccessful() ? "" : " (failed)")));
+    }
+}
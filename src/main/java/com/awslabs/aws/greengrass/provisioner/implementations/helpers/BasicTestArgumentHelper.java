@@ -9,7 +9,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class BasicTestArgumentHelper implements TestArgumentHelper {
     private static final String DTOUTPUT = "/dtoutput";
@@ -85,6 +89,45 @@ public class BasicTestArgumentHelper implements TestArgumentHelper {
             throw new RuntimeException("Can not clean /var/lib/GGQ and generate the config on the same run");
         }
 
+        testArguments.devicesUnderTest = getDevicesUnderTest(testArguments);
+
+        if (testArguments.generateConfig && (testArguments.devicesUnderTest.size() > 1)) {
+            // The config holds one core's identity, every device in the pool would be tested as the same core
+            throw new RuntimeException("Can not generate the config for a device pool since every device would get the same core and group, generate the config for each device separately");
+        }
+
+        if (testArguments.maxConcurrentDevices < 1) {
+            throw new RuntimeException("The maximum number of concurrent devices must be at least 1");
+        }
+
         return testArguments;
     }
+
+    private List<String> getDevicesUnderTest(TestArguments testArguments) {
+        if (testArguments.devicePoolFile == null) {
+            if (testArguments.deviceUnderTest == null) {
+                throw new RuntimeException("No device specified");
+            }
+
+            return Collections.singletonList(testArguments.deviceUnderTest);
+        }
+
+        if (testArguments.deviceUnderTest != null) {
+            throw new RuntimeException("Specify a single device under test or a device pool, not both");
+        }
+
+        // One device per line, blank lines and comments are ignored
+        List<String> devicesUnderTest = Try.of(() -> Files.readAllLines(Paths.get(testArguments.devicePoolFile))).get().stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .filter(line -> !line.startsWith("#"))
+                .distinct()
+                .collect(Collectors.toList());
+
+        if (devicesUnderTest.isEmpty()) {
+            throw new RuntimeException("No devices found in the device pool file [" + testArguments.devicePoolFile + "]");
+        }
+
+        return devicesUnderTest;
+    }
 }
@@ -1,5 +1,6 @@
 package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
 
+import com.awslabs.aws.greengrass.provisioner.data.TopicFilterTrie;
 import com.awslabs.aws.greengrass.provisioner.data.arguments.UpdateArguments;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.UpdateArgumentHelper;
 import com.beust.jcommander.JCommander;
@@ -8,8 +9,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class BasicUpdateArgumentHelper implements UpdateArgumentHelper {
+    private static final String STDIN = "-";
+    private static final String COMMENT = "#";
     private final Logger log = LoggerFactory.getLogger(BasicUpdateArgumentHelper.class);
 
     @Inject
@@ -43,6 +55,148 @@ public class BasicUpdateArgumentHelper implements UpdateArgumentHelper {
             throw new RuntimeException("Group name is required for all operations");
         }
 
+        if (updateArguments.batch != null) {
+            if (isUpdateSpecified(updateArguments)) {
+                throw new RuntimeException("Updates can not be specified on the command-line when using a batch file");
+            }
+
+            return updateArguments;
+        }
+
+        if (!isUpdateSpecified(updateArguments)) {
+            throw new RuntimeException("No update specified");
+        }
+
+        return validateUpdate(updateArguments);
+    }
+
+    @Override
+    public List<UpdateArguments> getUpdates(UpdateArguments updateArguments) {
+        if (updateArguments.batch == null) {
+            return Collections.singletonList(updateArguments);
+        }
+
+        List<String> lines = Try.of(() -> readBatch(updateArguments.batch)).get();
+        List<UpdateArguments> updates = new ArrayList<>();
+
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1).trim();
+
+            if (line.isEmpty() || line.startsWith(COMMENT)) {
+                continue;
+            }
+
+            int finalLineNumber = lineNumber;
+
+            UpdateArguments update = Try.of(() -> parseBatchLine(updateArguments.groupName, line))
+                    .getOrElseThrow(throwable -> new RuntimeException("Invalid update on line " + finalLineNumber + " of [" + updateArguments.batch + "]: " + throwable.getMessage(), throwable));
+
+            updates.add(update);
+        }
+
+        if (updates.isEmpty()) {
+            throw new RuntimeException("No updates found in [" + updateArguments.batch + "]");
+        }
+
+        return updates;
+    }
+
+    private List<String> readBatch(String batch) throws IOException {
+        if (!batch.equals(STDIN)) {
+            return Files.readAllLines(Paths.get(batch));
+        }
+
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(System.in))) {
+            return bufferedReader.lines().collect(Collectors.toList());
+        }
+    }
+
+    private UpdateArguments parseBatchLine(String groupName, String line) {
+        UpdateArguments updateArguments = new UpdateArguments();
+
+        JCommander.newBuilder()
+                .addObject(updateArguments)
+                .build()
+                .parse(splitArguments(line).toArray(new String[0]));
+
+        if (updateArguments.batch != null) {
+            throw new RuntimeException("Batch files can not include other batch files");
+        }
+
+        if ((updateArguments.groupName != null) && !updateArguments.groupName.equals(groupName)) {
+            throw new RuntimeException("All updates in a batch must be for the same group");
+        }
+
+        if (!isUpdateSpecified(updateArguments)) {
+            throw new RuntimeException("No update specified");
+        }
+
+        // Each line is an update to the group specified on the command-line
+        updateArguments.updateGroup = true;
+        updateArguments.groupName = groupName;
+
+        return validateUpdate(updateArguments);
+    }
+
+    /**
+     * Splits a line into arguments on whitespace, values containing whitespace can be wrapped in single or double quotes
+     *
+     * @param line
+     * @return
+     */
+    private List<String> splitArguments(String line) {
+        List<String> arguments = new ArrayList<>();
+        StringBuilder current = null;
+        Character quote = null;
+
+        for (char character : line.toCharArray()) {
+            if (quote != null) {
+                if (character == quote) {
+                    quote = null;
+                } else {
+                    current.append(character);
+                }
+            } else if ((character == '"') || (character == '\'')) {
+                quote = character;
+
+                if (current == null) {
+                    current = new StringBuilder();
+                }
+            } else if (Character.isWhitespace(character)) {
+                if (current != null) {
+                    arguments.add(current.toString());
+                    current = null;
+                }
+            } else {
+                if (current == null) {
+                    current = new StringBuilder();
+                }
+
+                current.append(character);
+            }
+        }
+
+        if (quote != null) {
+            throw new RuntimeException("Unterminated quote");
+        }
+
+        if (current != null) {
+            arguments.add(current.toString());
+        }
+
+        return arguments;
+    }
+
+    private boolean isUpdateSpecified(UpdateArguments updateArguments) {
+        return updateArguments.addSubscription ||
+                updateArguments.removeSubscription ||
+                (updateArguments.addDevice != null) ||
+                (updateArguments.removeDevice != null) ||
+                (updateArguments.addFunction != null) ||
+                (updateArguments.removeFunction != null);
+    }
+
+    private UpdateArguments validateUpdate(UpdateArguments updateArguments) {
         Try triedSubscriptionTableEntriesPresent = Try.of(() -> subscriptionTableEntriesPresent(updateArguments));
 
         if ((updateArguments.addSubscription || updateArguments.removeSubscription) &&
@@ -86,6 +240,9 @@ public class BasicUpdateArgumentHelper implements UpdateArgumentHelper {
             throw new RuntimeException("No target was specified");
         }
 
+        // Throws an exception that describes the problem if the subject isn't a valid topic filter
+        TopicFilterTrie.getLevels(updateArguments.subscriptionSubject);
+
         return null;
     }
 }
@@ -0,0 +1,29 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ExecutorHelper;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+
+import javax.inject.Inject;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class PipelinedExecutorHelper implements ExecutorHelper {
+    // Builds are CPU bound so there is one thread per core
+    private static final int BUILD_THREADS = Runtime.getRuntime().availableProcessors();
+    // Uploads, publishes, and alias updates spend most of their time waiting on the network
+    private static final int UPLOAD_THREADS = 8;
+
+    @Inject
+    public PipelinedExecutorHelper() {
+    }
+
+    @Override
+    public ExecutorService getExecutor() {
+        return Executors.newFixedThreadPool(BUILD_THREADS, new ThreadFactoryImpl(PipelinedExecutorHelper.class.getSimpleName() + "-build"));
+    }
+
+    @Override
+    public ExecutorService getSecondStageExecutor() {
+        return Executors.newFixedThreadPool(UPLOAD_THREADS, new ThreadFactoryImpl(PipelinedExecutorHelper.class.getSimpleName() + "-upload"));
+    }
+}
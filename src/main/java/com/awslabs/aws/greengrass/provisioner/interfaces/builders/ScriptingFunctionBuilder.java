@@ -2,6 +2,7 @@ package com.awslabs.aws.greengrass.provisioner.interfaces.builders;
 
 import com.awslabs.aws.greengrass.provisioner.data.SDK;
 import com.awslabs.aws.greengrass.provisioner.data.conf.FunctionConf;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DependencyCacheHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.ResourceHelper;
 import io.vavr.control.Try;
@@ -16,13 +17,15 @@ import java.util.Optional;
 import java.util.function.Function;
 
 public interface ScriptingFunctionBuilder extends FunctionBuilder {
+    String SDK_CACHE_NAME = "sdk";
+
     void buildFunctionIfNecessary(FunctionConf functionConf);
 
     Optional<SDK> getSdk();
 
     String getSdkDestinationPath();
 
-    default void copySdk(Logger log, FunctionConf functionConf, ResourceHelper resourceHelper, IoHelper ioHelper) {
+    default void copySdk(Logger log, FunctionConf functionConf, ResourceHelper resourceHelper, IoHelper ioHelper, DependencyCacheHelper dependencyCacheHelper) {
         if (!getSdk().isPresent()) {
             // SDK doesn't require manual installation, skip this
             return;
@@ -30,17 +33,20 @@ public interface ScriptingFunctionBuilder extends FunctionBuilder {
 
         SDK sdk = getSdk().get();
 
-        String buildDirectory = functionConf.getBuildDirectory().toString();
+        Path destinationPath = functionConf.getBuildDirectory().resolve(getSdkDestinationPath());
 
         String sdkFullPath = sdk.getFullSdkPath();
 
         String sdkInnerZipPath = sdk.getInnerSdkZipPath();
 
-        Try.of(() -> extractSdkFromJar(log, sdk, resourceHelper, ioHelper, buildDirectory, sdkFullPath, sdkInnerZipPath))
-                .get();
+        // The SDK is only extracted once per version, every build after that links or copies the extracted tree
+        String cacheKey = dependencyCacheHelper.getCacheKey(new Path[0], sdk.name(), sdk.getFullSdkFilename(), sdk.getHash().orElse(""));
+
+        dependencyCacheHelper.installDependencies(SDK_CACHE_NAME, cacheKey, destinationPath,
+                targetDirectory -> extractSdkFromJar(log, sdk, resourceHelper, ioHelper, targetDirectory, sdkFullPath, sdkInnerZipPath));
     }
 
-    default Void extractSdkFromJar(Logger log, SDK sdk, ResourceHelper resourceHelper, IoHelper ioHelper, String buildDirectory, String sdkFullPath, String sdkInnerZipPath) {
+    default Void extractSdkFromJar(Logger log, SDK sdk, ResourceHelper resourceHelper, IoHelper ioHelper, Path destinationPath, String sdkFullPath, String sdkInnerZipPath) {
         // Try to get the SDK from inside the JAR
         Optional<InputStream> optionalInputStream = Optional.ofNullable(resourceHelper.getFileOrResourceAsStream(sdkInnerZipPath));
 
@@ -61,11 +67,9 @@ public interface ScriptingFunctionBuilder extends FunctionBuilder {
             System.exit(1);
         }
 
-        File destinationPath = new File(String.join("/", buildDirectory, getSdkDestinationPath()));
-
         Optional<InputStream> finalOptionalInputStream = optionalInputStream;
 
-        return Try.of(() -> ioHelper.extractZip(finalOptionalInputStream.get(), destinationPath.toPath(), getFilenameTrimmer())).get();
+        return Try.of(() -> ioHelper.extractZip(finalOptionalInputStream.get(), destinationPath, getFilenameTrimmer())).get();
     }
 
     default Function<String, String> getFilenameTrimmer() {
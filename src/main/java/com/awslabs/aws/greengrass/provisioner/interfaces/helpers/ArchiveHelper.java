@@ -1,16 +1,38 @@
 package com.awslabs.aws.greengrass.provisioner.interfaces.helpers;
 
 import com.awslabs.aws.greengrass.provisioner.data.VirtualTarEntry;
+import io.vavr.CheckedFunction0;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 public interface ArchiveHelper {
     void addVirtualTarEntry(Optional<List<VirtualTarEntry>> virtualTarEntries, String filename, byte[] content, int permissions);
 
+    void addVirtualTarEntry(Optional<List<VirtualTarEntry>> virtualTarEntries, String filename, Path path, int permissions);
+
+    void addVirtualTarEntry(Optional<List<VirtualTarEntry>> virtualTarEntries, String filename, URL url, int permissions);
+
     VirtualTarEntry createVirtualTarEntry(String filename, byte[] content, int permissions);
 
-    Optional<ByteArrayOutputStream> tar(Optional<List<VirtualTarEntry>> virtualTarEntryList) throws IOException;
+    VirtualTarEntry createVirtualTarEntry(String filename, Path path, int permissions);
+
+    VirtualTarEntry createVirtualTarEntry(String filename, URL url, int permissions);
+
+    VirtualTarEntry createVirtualTarEntry(String filename, long size, CheckedFunction0<InputStream> inputStreamSupplier, int permissions);
+
+    Void tar(Optional<List<VirtualTarEntry>> virtualTarEntryList, OutputStream outputStream) throws IOException;
+
+    void zipDirectory(Path directory, File zipFile);
+
+    void zipDirectory(Path directory, File zipFile, Predicate<Path> excludePredicate);
+
+    void normalizeZip(File zipFile);
 }
@@ -0,0 +1,25 @@
+package com.awslabs.aws.greengrass.provisioner.interfaces.helpers;
+
+import java.util.Optional;
+
+/**
+ * Name to ID index of Greengrass groups, core definitions and device definitions so lookups don't need a full list scan
+ */
+public interface DefinitionIndexHelper {
+    Optional<String> getGroupId(String groupNameOrGroupId);
+
+    Optional<String> getCoreDefinitionId(String coreDefinitionName);
+
+    Optional<String> getDeviceDefinitionId(String deviceDefinitionName);
+
+    void putGroup(String groupName, String groupId);
+
+    void putCoreDefinition(String coreDefinitionName, String coreDefinitionId);
+
+    void putDeviceDefinition(String deviceDefinitionName, String deviceDefinitionId);
+
+    /**
+     * Forces the next lookup to reload everything from the Greengrass API, used when the index refers to something that no longer exists
+     */
+    void invalidate();
+}
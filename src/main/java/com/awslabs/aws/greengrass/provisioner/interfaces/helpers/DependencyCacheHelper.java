@@ -0,0 +1,27 @@
+package com.awslabs.aws.greengrass.provisioner.interfaces.helpers;
+
+import io.vavr.CheckedConsumer;
+
+import java.nio.file.Path;
+
+public interface DependencyCacheHelper {
+    /**
+     * Builds a cache key from the contents of the files that determine a dependency tree and any extra values (e.g. interpreter versions)
+     *
+     * @param files
+     * @param extraValues
+     * @return
+     */
+    String getCacheKey(Path[] files, String... extraValues);
+
+    /**
+     * Puts the dependency tree for the cache key into the destination directory.  The installer is only run on a cache miss and
+     * receives an empty directory that it must install the dependencies into.
+     *
+     * @param cacheName
+     * @param cacheKey
+     * @param destination
+     * @param installer
+     */
+    void installDependencies(String cacheName, String cacheKey, Path destination, CheckedConsumer<Path> installer);
+}
@@ -1,12 +1,24 @@
 package com.awslabs.aws.greengrass.provisioner.interfaces.helpers;
 
+import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessage;
 import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessageType;
 import io.vavr.collection.Map;
 import io.vavr.control.Option;
 
+import java.util.Optional;
+
 public interface DeviceTesterHelper {
-    String MESSAGE_FIELD_NAME = "msg";
-    String TEST_CASE_ID = "testCaseId";
+    String MESSAGE_FIELD_NAME = DeviceTesterLogMessage.MESSAGE_FIELD_NAME;
+    String TEST_CASE_ID = DeviceTesterLogMessage.TEST_CASE_ID;
+
+    /**
+     * Parses and classifies a log message once so it can be logged and handled without parsing it again
+     *
+     * @param logMessage
+     * @param deviceTesterLogMessage the instance to fill in, reused for every line of a stream
+     * @return the filled in instance
+     */
+    DeviceTesterLogMessage parse(String logMessage, DeviceTesterLogMessage deviceTesterLogMessage);
 
     /**
      * Determines the type of a log message
@@ -23,6 +35,21 @@ public interface DeviceTesterHelper {
      */
     void log(String logMessage);
 
+    /**
+     * Filters, reformats, and prints an already parsed log message from Device Tester
+     *
+     * @param deviceTesterLogMessage
+     */
+    void log(DeviceTesterLogMessage deviceTesterLogMessage);
+
+    /**
+     * Filters, reformats, and prints an already parsed log message from Device Tester tagged with the device it came from
+     *
+     * @param deviceTesterLogMessage
+     * @param optionalDeviceName
+     */
+    void log(DeviceTesterLogMessage deviceTesterLogMessage, Optional<String> optionalDeviceName);
+
     /**
      * Extracts the test case ID, if present, from a log message that has been converted to a map
      *
@@ -4,10 +4,29 @@ import io.vavr.Tuple3;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
 import software.amazon.awssdk.services.cloudwatchlogs.model.LogStream;
 
+import java.io.File;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface DiagnosticsHelper {
     void runDiagnostics(List<Tuple3<LogGroup, LogStream, String>> logs);
 
+    /**
+     * Runs every diagnostic rule that applies to the log group over the lines of one log, reading each line once
+     *
+     * @param logGroup
+     * @param lines
+     * @return the recommendations in the order they were found
+     */
+    List<String> getRecommendations(LogGroup logGroup, Stream<? extends CharSequence> lines);
+
+    /**
+     * Runs the diagnostics against a Greengrass log directory on disk (e.g. a copy of /greengrass/ggc/var/log) instead
+     * of CloudWatch, rotated and gzipped log files are included
+     *
+     * @param logDirectory
+     */
+    void runLocalDiagnostics(File logDirectory);
+
     String trimLogGroupName(LogGroup logGroup);
 }
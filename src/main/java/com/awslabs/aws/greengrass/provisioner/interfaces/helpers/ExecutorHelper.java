@@ -5,7 +5,10 @@ import org.slf4j.Logger;
 
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public interface ExecutorHelper {
@@ -21,6 +24,33 @@ public interface ExecutorHelper {
         return results;
     }
 
+    default <T, U, R> List<R> runPipeline(Logger log, List<T> inputs, Function<T, U> firstStage, Function<U, R> secondStage) {
+        // Each input moves to the second stage as soon as its first stage is done, the stages use separate executors
+        ExecutorService firstStageExecutorService = getExecutor();
+        ExecutorService secondStageExecutorService = getSecondStageExecutor();
+
+        List<CompletableFuture<R>> futures = inputs.stream()
+                .map(input -> CompletableFuture.supplyAsync(() -> firstStage.apply(input), firstStageExecutorService)
+                        .thenApplyAsync(secondStage, secondStageExecutorService))
+                .collect(Collectors.toList());
+
+        // Results are returned in the same order as the inputs
+        List<R> results = Try.of(() -> futures.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList()))
+                .onFailure(throwable -> logAndRethrow(log, (throwable instanceof CompletionException) ? throwable.getCause() : throwable))
+                .andFinallyTry(() -> shutdown(firstStageExecutorService, secondStageExecutorService))
+                .get();
+
+        return results;
+    }
+
+    default void shutdown(ExecutorService... executorServices) {
+        for (ExecutorService executorService : executorServices) {
+            executorService.shutdown();
+        }
+    }
+
     default void logAndRethrow(Logger log, Throwable throwable) {
         log.error("Parallel task execution failed [" + throwable.getMessage() + "]");
         throw new RuntimeException(throwable);
@@ -35,4 +65,8 @@ public interface ExecutorHelper {
     }
 
     ExecutorService getExecutor();
+
+    default ExecutorService getSecondStageExecutor() {
+        return getExecutor();
+    }
 }
@@ -6,6 +6,7 @@ import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.oblac.nomen.Nomen;
+import io.vavr.CheckedConsumer;
 import io.vavr.control.Try;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
@@ -13,12 +14,14 @@ import software.amazon.awssdk.services.iot.model.CreateKeysAndCertificateRespons
 
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Optional;
-import java.util.Scanner;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.function.Consumer;
@@ -27,6 +30,8 @@ import java.util.zip.GZIPInputStream;
 
 public interface IoHelper {
     String TEMP_DIRECTORY = "/tmp/";
+    int STREAMING_BUFFER_SIZE = 1024 * 1024;
+    String SHA_256 = "SHA-256";
 
     default void writeFile(File file, byte[] contents) {
         if ((isRunningInLambda()) && (!file.getAbsolutePath().startsWith(TEMP_DIRECTORY))) {
@@ -55,6 +60,39 @@ public interface IoHelper {
         writeFile(new File(filename), contents);
     }
 
+    /**
+     * Writes a file by streaming into it so large outputs never need to be assembled in memory first
+     *
+     * @param file
+     * @param contentWriter
+     */
+    default void writeFile(File file, CheckedConsumer<OutputStream> contentWriter) {
+        if ((isRunningInLambda()) && (!file.getAbsolutePath().startsWith(TEMP_DIRECTORY))) {
+            // If we are running in Lambda we can only put files in the temp directory
+            file = new File(TEMP_DIRECTORY + file.getAbsolutePath());
+        }
+
+        final File finalFile = file;
+
+        createDirectoryIfNecessary(file.getParentFile().getPath());
+
+        Try.withResources(() -> new BufferedOutputStream(new FileOutputStream(finalFile), STREAMING_BUFFER_SIZE))
+                .of(outputStream -> writeFile(outputStream, contentWriter))
+                .get();
+
+        makeWritable(file);
+    }
+
+    default Void writeFile(OutputStream outputStream, CheckedConsumer<OutputStream> contentWriter) throws Throwable {
+        contentWriter.accept(outputStream);
+
+        return null;
+    }
+
+    default void writeFile(String filename, CheckedConsumer<OutputStream> contentWriter) {
+        writeFile(new File(filename), contentWriter);
+    }
+
     default String getUuid() {
         return UUID.randomUUID().toString();
     }
@@ -97,8 +135,40 @@ public interface IoHelper {
         return baos.toByteArray();
     }
 
+    default byte[] getSha256(Path path) {
+        return Try.withResources(() -> Files.newInputStream(path))
+                .of(this::getSha256)
+                .get();
+    }
+
+    default byte[] getSha256(InputStream inputStream) throws IOException, NoSuchAlgorithmException {
+        // Hash the stream in chunks so large files are never held in memory
+        MessageDigest messageDigest = MessageDigest.getInstance(SHA_256);
+        byte[] buffer = new byte[STREAMING_BUFFER_SIZE];
+
+        int len = inputStream.read(buffer);
+
+        while (len != -1) {
+            messageDigest.update(buffer, 0, len);
+            len = inputStream.read(buffer);
+        }
+
+        return messageDigest.digest();
+    }
+
+    default String toHexString(byte[] bytes) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        for (byte value : bytes) {
+            stringBuilder.append(String.format("%02x", value));
+        }
+
+        return stringBuilder.toString();
+    }
+
     default String download(String url) {
-        return Try.of(() -> new Scanner(new URL(url).openStream(), "UTF-8").useDelimiter("\\A").next())
+        return Try.of(() -> downloadToCache(url, Optional.empty(), Optional.empty()))
+                .map(path -> new String(readFile(path.toFile()), StandardCharsets.UTF_8))
                 .get();
     }
 
@@ -250,8 +320,51 @@ public interface IoHelper {
 
     Void download(String url, File file, Optional<String> optionalReferer) throws IOException;
 
+    /**
+     * Downloads a file through the local artifact cache
+     *
+     * @param url
+     * @param file
+     * @param optionalReferer
+     * @param optionalSha256  the expected SHA-256 of the file as a hex string, the download fails if it doesn't match
+     * @return
+     * @throws IOException
+     */
+    Void download(String url, File file, Optional<String> optionalReferer, Optional<String> optionalSha256) throws IOException;
+
+    /**
+     * Returns the location of an up to date copy of the URL in the local artifact cache.  Each URL is checked with the server
+     * at most once per process, if the server can't be reached a previously cached copy is used.
+     *
+     * @param url
+     * @param optionalReferer
+     * @param optionalSha256
+     * @return
+     * @throws IOException
+     */
+    Path downloadToCache(String url, Optional<String> optionalReferer, Optional<String> optionalSha256) throws IOException;
+
+    /**
+     * Returns a JSch instance with the SSH agent's keys and the private key files loaded, the keys are only found and
+     * parsed the first time this is called in a process
+     *
+     * @return
+     */
     JSch getJschWithPrivateKeysLoaded();
 
+    /**
+     * Returns a task that connects to a host, sessions are pooled by host and user so a connected session is shared
+     * instead of connecting again.  Every session returned must be given back with {@link #releaseSshSession(Session)}
+     * instead of disconnecting it directly.
+     *
+     * @param hostname
+     * @param user
+     * @param connectedMessage
+     * @param timeoutMessage
+     * @param refusedMessage
+     * @param errorMessage
+     * @return
+     */
     Callable<Session> getSshSessionTask(String hostname,
                                         String user,
                                         String connectedMessage,
@@ -259,10 +372,40 @@ public interface IoHelper {
                                         String refusedMessage,
                                         String errorMessage);
 
+    /**
+     * Gives back a session returned by {@link #getSshSessionTask}, the session is removed from the pool and disconnected
+     * once every caller sharing it has released it
+     *
+     * @param session
+     */
+    void releaseSshSession(Session session);
+
     String runCommand(Session session, String command) throws JSchException, IOException;
 
     String runCommand(Session session, String command, Optional<Consumer<String>> optionalStringConsumer) throws JSchException, IOException;
 
+    /**
+     * Runs independent commands at the same time on separate channels of one session
+     *
+     * @param session
+     * @param commands
+     * @return the output of each command in the same order as the commands
+     * @throws JSchException
+     * @throws IOException
+     */
+    List<String> runCommands(Session session, List<String> commands) throws JSchException, IOException;
+
+    /**
+     * Copies a file to the host and verifies its SHA-256 there.  Files that are already on the host are skipped,
+     * interrupted copies are resumed and files that compress well are compressed on the fly.
+     *
+     * @param session
+     * @param localFilename
+     * @param remoteFilename
+     * @return
+     * @throws JSchException
+     * @throws IOException
+     */
     Void sendFile(Session session, String localFilename, String remoteFilename) throws JSchException, IOException;
 }
 
@@ -1,5 +1,6 @@
 package com.awslabs.aws.greengrass.provisioner.interfaces.helpers;
 
+import com.awslabs.aws.greengrass.provisioner.data.FunctionArchiveInfo;
 import com.awslabs.aws.greengrass.provisioner.data.LambdaFunctionArnInfo;
 import com.awslabs.aws.greengrass.provisioner.data.conf.FunctionConf;
 import software.amazon.awssdk.services.iam.model.Role;
@@ -19,6 +20,18 @@ public interface LambdaHelper {
 
     LambdaFunctionArnInfo buildAndCreateNodeFunctionIfNecessary(FunctionConf functionConf, Role role);
 
+    FunctionArchiveInfo buildExecutableFunctionIfNecessary(FunctionConf functionConf);
+
+    FunctionArchiveInfo buildJavaFunctionIfNecessary(FunctionConf functionConf);
+
+    FunctionArchiveInfo buildPython2FunctionIfNecessary(FunctionConf functionConf);
+
+    FunctionArchiveInfo buildPython3FunctionIfNecessary(FunctionConf functionConf);
+
+    FunctionArchiveInfo buildNodeFunctionIfNecessary(FunctionConf functionConf);
+
+    LambdaFunctionArnInfo createFunctionIfNecessary(FunctionConf functionConf, Role role, FunctionArchiveInfo functionArchiveInfo);
+
     LambdaFunctionArnInfo createFunctionIfNecessary(FunctionConf functionConf, Role role, String zipFilePath);
 
     PublishVersionResponse publishFunctionVersion(String groupFunctionName);
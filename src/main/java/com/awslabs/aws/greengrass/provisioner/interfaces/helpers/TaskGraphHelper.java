@@ -0,0 +1,8 @@
+package com.awslabs.aws.greengrass.provisioner.interfaces.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskGraph;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskResults;
+
+public interface TaskGraphHelper {
+    TaskResults execute(TaskGraph taskGraph);
+}
@@ -2,5 +2,14 @@ package com.awslabs.aws.greengrass.provisioner.interfaces.helpers;
 
 import com.awslabs.aws.greengrass.provisioner.data.arguments.UpdateArguments;
 
+import java.util.List;
+
 public interface UpdateArgumentHelper extends ArgumentHelper<UpdateArguments> {
+    /**
+     * Returns the updates in the batch file specified in the arguments, or the update from the command-line if there is no batch file
+     *
+     * @param updateArguments
+     * @return
+     */
+    List<UpdateArguments> getUpdates(UpdateArguments updateArguments);
 }
@@ -0,0 +1,48 @@
+package com.awslabs.aws.greengrass.provisioner.ssh;
+
+import com.jcraft.jsch.Identity;
+import com.jcraft.jsch.IdentityRepository;
+
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Identities that were loaded once and are shared by every JSch instance, keys can't be added to or removed from it
+ */
+public class FixedIdentityRepository implements IdentityRepository {
+    private final List<Identity> identities;
+
+    public FixedIdentityRepository(List<Identity> identities) {
+        this.identities = identities;
+    }
+
+    @Override
+    public String getName() {
+        return FixedIdentityRepository.class.getSimpleName();
+    }
+
+    @Override
+    public int getStatus() {
+        return RUNNING;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Vector getIdentities() {
+        return new Vector<>(identities);
+    }
+
+    @Override
+    public boolean add(byte[] identity) {
+        return false;
+    }
+
+    @Override
+    public boolean remove(byte[] blob) {
+        return false;
+    }
+
+    @Override
+    public void removeAll() {
+    }
+}
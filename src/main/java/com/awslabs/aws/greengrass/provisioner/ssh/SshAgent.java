@@ -0,0 +1,186 @@
+package com.awslabs.aws.greengrass.provisioner.ssh;
+
+import com.jcraft.jsch.Identity;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A client for the keys held by a running ssh-agent, private keys never leave the agent, it signs on our behalf
+ */
+public class SshAgent {
+    public static final String SSH_AUTH_SOCK = "SSH_AUTH_SOCK";
+    private static final byte SSH_AGENT_FAILURE = 5;
+    private static final byte SSH2_AGENTC_REQUEST_IDENTITIES = 11;
+    private static final byte SSH2_AGENT_IDENTITIES_ANSWER = 12;
+    private static final byte SSH2_AGENTC_SIGN_REQUEST = 13;
+    private static final byte SSH2_AGENT_SIGN_RESPONSE = 14;
+    // Agents reject messages larger than this
+    private static final int MAXIMUM_MESSAGE_LENGTH = 256 * 1024;
+    private final Logger log = LoggerFactory.getLogger(SshAgent.class);
+    private final File socket;
+
+    public SshAgent(File socket) {
+        this.socket = socket;
+    }
+
+    public static Optional<SshAgent> fromEnvironment() {
+        return Optional.ofNullable(System.getenv(SSH_AUTH_SOCK))
+                .map(File::new)
+                .filter(File::exists)
+                .map(SshAgent::new);
+    }
+
+    /**
+     * @return the keys in the agent, or an empty list if the agent can't be reached
+     */
+    public List<Identity> getIdentities() {
+        List<Identity> identities = new ArrayList<>();
+
+        try {
+            DataInputStream response = request(new byte[]{SSH2_AGENTC_REQUEST_IDENTITIES}, SSH2_AGENT_IDENTITIES_ANSWER);
+            int count = response.readInt();
+
+            for (int index = 0; index < count; index++) {
+                byte[] publicKeyBlob = readBytes(response);
+                String comment = new String(readBytes(response), StandardCharsets.UTF_8);
+
+                identities.add(new AgentIdentity(publicKeyBlob, comment));
+            }
+        } catch (IOException e) {
+            log.warn("Could not list the keys in the SSH agent [" + e.getMessage() + "]");
+        }
+
+        return identities;
+    }
+
+    private byte[] sign(byte[] publicKeyBlob, byte[] data) throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        DataOutputStream dataOutputStream = new DataOutputStream(message);
+
+        dataOutputStream.writeByte(SSH2_AGENTC_SIGN_REQUEST);
+        writeBytes(dataOutputStream, publicKeyBlob);
+        writeBytes(dataOutputStream, data);
+        // No flags, RSA keys get SHA-1 signatures which is all JSch asks for
+        dataOutputStream.writeInt(0);
+
+        return readBytes(request(message.toByteArray(), SSH2_AGENT_SIGN_RESPONSE));
+    }
+
+    // Every request uses its own connection so identities can sign from several threads at once
+    private DataInputStream request(byte[] message, byte expectedResponseType) throws IOException {
+        try (UnixSocketChannel unixSocketChannel = UnixSocketChannel.open(new UnixSocketAddress(socket))) {
+            DataOutputStream dataOutputStream = new DataOutputStream(Channels.newOutputStream(unixSocketChannel));
+            dataOutputStream.writeInt(message.length);
+            dataOutputStream.write(message);
+            dataOutputStream.flush();
+
+            DataInputStream dataInputStream = new DataInputStream(Channels.newInputStream(unixSocketChannel));
+            int length = dataInputStream.readInt();
+
+            if ((length < 1) || (length > MAXIMUM_MESSAGE_LENGTH)) {
+                throw new IOException("Invalid SSH agent response length [" + length + "]");
+            }
+
+            byte[] response = new byte[length];
+            dataInputStream.readFully(response);
+
+            if (response[0] == SSH_AGENT_FAILURE) {
+                throw new IOException("The SSH agent refused the request");
+            }
+
+            if (response[0] != expectedResponseType) {
+                throw new IOException("Unexpected SSH agent response type [" + response[0] + "]");
+            }
+
+            return new DataInputStream(new ByteArrayInputStream(response, 1, length - 1));
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream dataInputStream) throws IOException {
+        int length = dataInputStream.readInt();
+
+        if ((length < 0) || (length > MAXIMUM_MESSAGE_LENGTH)) {
+            throw new IOException("Invalid SSH agent field length [" + length + "]");
+        }
+
+        byte[] bytes = new byte[length];
+        dataInputStream.readFully(bytes);
+
+        return bytes;
+    }
+
+    private static void writeBytes(DataOutputStream dataOutputStream, byte[] bytes) throws IOException {
+        dataOutputStream.writeInt(bytes.length);
+        dataOutputStream.write(bytes);
+    }
+
+    private class AgentIdentity implements Identity {
+        private final byte[] publicKeyBlob;
+        private final String comment;
+
+        private AgentIdentity(byte[] publicKeyBlob, String comment) {
+            this.publicKeyBlob = publicKeyBlob;
+            this.comment = comment;
+        }
+
+        @Override
+        public boolean setPassphrase(byte[] passphrase) {
+            return true;
+        }
+
+        @Override
+        public byte[] getPublicKeyBlob() {
+            return publicKeyBlob;
+        }
+
+        @Override
+        public byte[] getSignature(byte[] data) {
+            try {
+                return sign(publicKeyBlob, data);
+            } catch (IOException e) {
+                // JSch moves on to the next identity when there is no signature
+                log.warn("The SSH agent could not sign with [" + comment + "] [" + e.getMessage() + "]");
+                return null;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public boolean decrypt() {
+            return true;
+        }
+
+        @Override
+        public String getAlgName() {
+            // The blob starts with the key type as an SSH string
+            try {
+                return new String(readBytes(new DataInputStream(new ByteArrayInputStream(publicKeyBlob))), StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                return "";
+            }
+        }
+
+        @Override
+        public String getName() {
+            return comment;
+        }
+
+        @Override
+        public boolean isEncrypted() {
+            return false;
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessage;
 import com.awslabs.aws.greengrass.provisioner.data.DeviceTesterLogMessageType;
 import com.awslabs.aws.greengrass.provisioner.implementations.helpers.BasicDeviceTesterHelper;
 import io.vavr.collection.List;
@@ -245,4 +246,22 @@ public class DeviceTesterMessageParsingTest {
         ALL_STRINGS.toStream()
                 .forEach(basicDeviceTesterHelper::log);
     }
+
+    @Test
+    public void shouldReuseParsedMessagesAcrossLines() {
+        DeviceTesterLogMessage deviceTesterLogMessage = new DeviceTesterLogMessage();
+
+        basicDeviceTesterHelper.parse(trimJavaLoggerInfo(FAIL_WITH_DURATION_1), deviceTesterLogMessage);
+
+        Assert.assertEquals(DeviceTesterLogMessageType.FAIL_WITH_DURATION, deviceTesterLogMessage.getType());
+        Assert.assertEquals("--- FAIL: TestIPD (10.28s)", deviceTesterLogMessage.getMessage());
+        Assert.assertEquals("2019-01-10T08:55:27-05:00", deviceTesterLogMessage.getValue("time").get());
+        Assert.assertEquals("ipd", deviceTesterLogMessage.getValue("groupId").get());
+
+        basicDeviceTesterHelper.parse(trimJavaLoggerInfo(PASS_2), deviceTesterLogMessage);
+
+        Assert.assertEquals(DeviceTesterLogMessageType.PASS, deviceTesterLogMessage.getType());
+        Assert.assertEquals("cgroups_check_test_1", deviceTesterLogMessage.getOptionalTestCaseId().get());
+        Assert.assertEquals("GGQ", deviceTesterLogMessage.getValue("suiteId").get());
+    }
 }
@@ -0,0 +1,66 @@
+package com.awslabs.aws.greengrass.provisioner.data;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TopicFilterTrieTest {
+    private TopicFilterTrie<String> topicFilterTrie;
+
+    @Before
+    public void setup() {
+        topicFilterTrie = new TopicFilterTrie<>();
+
+        for (String topicFilter : Arrays.asList("sensors/kitchen/temperature", "sensors/+/temperature", "sensors/#", "#", "lights/+", "$aws/things/thing/shadow/update")) {
+            topicFilterTrie.put(topicFilter, topicFilter);
+        }
+    }
+
+    @Test
+    public void shouldFindFiltersMatchingTopic() {
+        Assert.assertThat(new HashSet<>(topicFilterTrie.getOverlapping("sensors/kitchen/temperature")),
+                is(new HashSet<>(Arrays.asList("sensors/kitchen/temperature", "sensors/+/temperature", "sensors/#", "#"))));
+        Assert.assertThat(new HashSet<>(topicFilterTrie.getOverlapping("sensors")), is(new HashSet<>(Arrays.asList("sensors/#", "#"))));
+    }
+
+    @Test
+    public void shouldFindFiltersOverlappingWildcards() {
+        Assert.assertThat(new HashSet<>(topicFilterTrie.getOverlapping("+/garage/temperature")),
+                is(new HashSet<>(Arrays.asList("sensors/+/temperature", "sensors/#", "#"))));
+        Assert.assertThat(new HashSet<>(topicFilterTrie.getOverlapping("lights/#")), is(new HashSet<>(Arrays.asList("lights/+", "#"))));
+    }
+
+    @Test
+    public void shouldNotMatchSystemTopicsWithLeadingWildcards() {
+        Assert.assertThat(topicFilterTrie.getOverlapping("$aws/things/thing/shadow/update"), is(Arrays.asList("$aws/things/thing/shadow/update")));
+        Assert.assertThat(topicFilterTrie.getOverlapping("+/things/thing/shadow/update").contains("$aws/things/thing/shadow/update"), is(false));
+        Assert.assertThat(TopicFilterTrie.getIntersection("#", "$aws/things"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldSupportExactLookupAndRemoval() {
+        Assert.assertThat(topicFilterTrie.get("sensors/+/temperature"), is(Arrays.asList("sensors/+/temperature")));
+        Assert.assertThat(topicFilterTrie.remove("sensors/+/temperature", "sensors/+/temperature"), is(true));
+        Assert.assertThat(topicFilterTrie.get("sensors/+/temperature").isEmpty(), is(true));
+        Assert.assertThat(topicFilterTrie.get("unknown/topic").isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldIntersectFilters() {
+        Assert.assertThat(TopicFilterTrie.getIntersection("a/+/c", "a/b/+"), is(Optional.of("a/b/c")));
+        Assert.assertThat(TopicFilterTrie.getIntersection("a/#", "a"), is(Optional.of("a")));
+        Assert.assertThat(TopicFilterTrie.getIntersection("a/#", "+/b/#"), is(Optional.of("a/b/#")));
+        Assert.assertThat(TopicFilterTrie.getIntersection("a/+", "a/b/c"), is(Optional.empty()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMisplacedWildcard() {
+        TopicFilterTrie.getLevels("sensors/#/temperature");
+    }
+}
@@ -0,0 +1,171 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.VirtualTarEntry;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.mockito.Mockito.mock;
+
+public class ArchiveHelperTest {
+    private BasicArchiveHelper basicArchiveHelper;
+
+    @Before
+    public void setup() {
+        basicArchiveHelper = new BasicArchiveHelper();
+        basicArchiveHelper.ioHelper = mock(IoHelper.class);
+    }
+
+    @Test
+    public void shouldStreamByteArrayAndFileEntriesIntoTar() throws IOException {
+        File tempFile = File.createTempFile("archive-helper-test", "bin");
+        tempFile.deleteOnExit();
+        byte[] fileContent = new byte[200000];
+
+        for (int loop = 0; loop < fileContent.length; loop++) {
+            fileContent[loop] = (byte) loop;
+        }
+
+        Files.write(tempFile.toPath(), fileContent);
+
+        List<VirtualTarEntry> entries = new ArrayList<>();
+        Optional<List<VirtualTarEntry>> optionalEntries = Optional.of(entries);
+        basicArchiveHelper.addVirtualTarEntry(optionalEntries, "small.txt", "hello".getBytes(), 0644);
+        basicArchiveHelper.addVirtualTarEntry(optionalEntries, "large.bin", tempFile.toPath(), 0755);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        basicArchiveHelper.tar(optionalEntries, baos);
+
+        TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new ByteArrayInputStream(baos.toByteArray()));
+
+        TarArchiveEntry small = tarArchiveInputStream.getNextTarEntry();
+        Assert.assertThat(small.getName(), is("small.txt"));
+        Assert.assertThat(readEntry(tarArchiveInputStream), is("hello".getBytes()));
+
+        TarArchiveEntry large = tarArchiveInputStream.getNextTarEntry();
+        Assert.assertThat(large.getName(), is("large.bin"));
+        Assert.assertThat(large.getMode() & 0777, is(0755));
+        Assert.assertThat(readEntry(tarArchiveInputStream), is(fileContent));
+
+        Assert.assertThat(tarArchiveInputStream.getNextTarEntry(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotOpenSupplierUntilTarIsWritten() throws IOException {
+        AtomicInteger opened = new AtomicInteger(0);
+        byte[] content = "lazy".getBytes();
+
+        VirtualTarEntry virtualTarEntry = basicArchiveHelper.createVirtualTarEntry("lazy.txt", content.length, () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream(content);
+        }, 0644);
+
+        List<VirtualTarEntry> entries = new ArrayList<>();
+        entries.add(virtualTarEntry);
+
+        Assert.assertThat(opened.get(), is(0));
+
+        basicArchiveHelper.tar(Optional.of(entries), new ByteArrayOutputStream());
+
+        Assert.assertThat(opened.get(), is(1));
+    }
+
+    @Test
+    public void shouldCreateIdenticalZipsFromIdenticalDirectories() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("archive-helper-test");
+        Files.write(directory.resolve("b.txt"), "b".getBytes());
+        Files.createDirectories(directory.resolve("META-INF"));
+        Files.write(directory.resolve("META-INF").resolve("MANIFEST.MF"), "Manifest-Version: 1.0\n".getBytes());
+        Files.write(directory.resolve("a.txt"), "a".getBytes());
+
+        File firstZip = File.createTempFile("archive-helper-test", ".zip");
+        firstZip.deleteOnExit();
+        basicArchiveHelper.zipDirectory(directory, firstZip);
+
+        // Make sure the modification times are different between the two runs
+        Thread.sleep(1100);
+        Files.setLastModifiedTime(directory.resolve("a.txt"), FileTime.fromMillis(System.currentTimeMillis()));
+
+        File secondZip = File.createTempFile("archive-helper-test", ".zip");
+        secondZip.deleteOnExit();
+        basicArchiveHelper.zipDirectory(directory, secondZip);
+
+        Assert.assertThat(Files.readAllBytes(firstZip.toPath()), is(Files.readAllBytes(secondZip.toPath())));
+    }
+
+    @Test
+    public void shouldPutManifestFirstAndSortTheRemainingEntries() throws IOException {
+        Path directory = Files.createTempDirectory("archive-helper-test");
+        Files.write(directory.resolve("b.txt"), "b".getBytes());
+        Files.write(directory.resolve("a.txt"), "a".getBytes());
+        Files.createDirectories(directory.resolve("META-INF"));
+        Files.write(directory.resolve("META-INF").resolve("MANIFEST.MF"), "Manifest-Version: 1.0\n".getBytes());
+        Files.write(directory.resolve("excluded.pyc"), "pyc".getBytes());
+
+        File zip = File.createTempFile("archive-helper-test", ".zip");
+        zip.deleteOnExit();
+        basicArchiveHelper.zipDirectory(directory, zip, path -> path.toString().endsWith(".pyc"));
+
+        List<String> names = new ArrayList<>();
+
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            Collections.list(zipFile.getEntries()).forEach(entry -> names.add(entry.getName()));
+        }
+
+        Assert.assertThat(names, is(Arrays.asList("META-INF/", "META-INF/MANIFEST.MF", "a.txt", "b.txt")));
+    }
+
+    @Test
+    public void shouldFollowDirectoryLinksWithoutLoopingForever() throws IOException {
+        Path directory = Files.createTempDirectory("archive-helper-test");
+        Path outside = Files.createTempDirectory("archive-helper-test");
+        Files.write(outside.resolve("module.py"), "module".getBytes());
+        Files.createSymbolicLink(directory.resolve("linked"), outside);
+        // Links back to the directory being zipped
+        Files.createSymbolicLink(outside.resolve("loop"), directory);
+
+        File zip = File.createTempFile("archive-helper-test", ".zip");
+        zip.deleteOnExit();
+        basicArchiveHelper.zipDirectory(directory, zip);
+
+        List<String> names = new ArrayList<>();
+
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            Collections.list(zipFile.getEntries()).forEach(entry -> names.add(entry.getName()));
+        }
+
+        Assert.assertThat(names, is(Arrays.asList("linked/", "linked/module.py")));
+    }
+
+    private byte[] readEntry(TarArchiveInputStream tarArchiveInputStream) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+
+        while ((length = tarArchiveInputStream.read(buffer)) != -1) {
+            baos.write(buffer, 0, length);
+        }
+
+        return baos.toByteArray();
+    }
+}
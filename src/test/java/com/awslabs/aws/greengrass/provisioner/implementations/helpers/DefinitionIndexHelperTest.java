@@ -0,0 +1,134 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.AwsHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GGConstants;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GlobalDefaultHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IamHelper;
+import com.typesafe.config.ConfigFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.greengrass.GreengrassClient;
+import software.amazon.awssdk.services.greengrass.model.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.awslabs.aws.greengrass.provisioner.implementations.helpers.BasicGlobalDefaultHelper.GLOBAL_DEFAULTS_DIRECTORY;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DefinitionIndexHelperTest {
+    private BasicDefinitionIndexHelper basicDefinitionIndexHelper;
+    private GreengrassClient greengrassClient;
+    private GlobalDefaultHelper globalDefaultHelper;
+
+    @Before
+    public void setup() {
+        greengrassClient = mock(GreengrassClient.class);
+
+        basicDefinitionIndexHelper = new BasicDefinitionIndexHelper();
+        basicDefinitionIndexHelper.greengrassClient = greengrassClient;
+        globalDefaultHelper = mock(GlobalDefaultHelper.class);
+        basicDefinitionIndexHelper.globalDefaultHelper = globalDefaultHelper;
+        basicDefinitionIndexHelper.ggConstants = mock(GGConstants.class);
+
+        // The index is shared by the whole process, start every test from scratch
+        BasicDefinitionIndexHelper.forgetPersistedIndexes();
+
+        when(greengrassClient.listGroups(ListGroupsRequest.builder().build())).thenReturn(ListGroupsResponse.builder()
+                .groups(GroupInformation.builder().name("group1").id("id1").build())
+                .nextToken("page2")
+                .build());
+        when(greengrassClient.listGroups(ListGroupsRequest.builder().nextToken("page2").build())).thenReturn(ListGroupsResponse.builder()
+                .groups(GroupInformation.builder().name("group2").id("id2").build(),
+                        GroupInformation.builder().name("group1").id("duplicate").build())
+                .build());
+        when(greengrassClient.listCoreDefinitions(any(ListCoreDefinitionsRequest.class))).thenReturn(ListCoreDefinitionsResponse.builder()
+                .definitions(DefinitionInformation.builder().name("core").id("coreId").build())
+                .build());
+        when(greengrassClient.listDeviceDefinitions(any(ListDeviceDefinitionsRequest.class))).thenReturn(ListDeviceDefinitionsResponse.builder()
+                .definitions(DefinitionInformation.builder().id("unnamed").build())
+                .build());
+    }
+
+    @Test
+    public void shouldLoadEachListOnceForRepeatedLookups() {
+        for (int loop = 0; loop < 5; loop++) {
+            Assert.assertThat(basicDefinitionIndexHelper.getGroupId("group2"), is(Optional.of("id2")));
+            Assert.assertThat(basicDefinitionIndexHelper.getCoreDefinitionId("core"), is(Optional.of("coreId")));
+        }
+
+        verify(greengrassClient, times(2)).listGroups(any(ListGroupsRequest.class));
+        verify(greengrassClient, times(1)).listCoreDefinitions(any(ListCoreDefinitionsRequest.class));
+    }
+
+    @Test
+    public void shouldMatchFirstListedNameAndGroupIds() {
+        Assert.assertThat(basicDefinitionIndexHelper.getGroupId("group1"), is(Optional.of("id1")));
+        Assert.assertThat(basicDefinitionIndexHelper.getGroupId("id2"), is(Optional.of("id2")));
+        Assert.assertThat(basicDefinitionIndexHelper.getDeviceDefinitionId("unnamed"), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldFindCreatedResourcesWithoutReloading() {
+        basicDefinitionIndexHelper.getDeviceDefinitionId("anything");
+
+        basicDefinitionIndexHelper.putDeviceDefinition("devices", "devicesId");
+
+        Assert.assertThat(basicDefinitionIndexHelper.getDeviceDefinitionId("devices"), is(Optional.of("devicesId")));
+        verify(greengrassClient, times(1)).listDeviceDefinitions(any(ListDeviceDefinitionsRequest.class));
+    }
+
+    @Test
+    public void shouldUsePersistedIndexesForConcurrentFirstLookups() throws Exception {
+        Path homeDirectory = Files.createTempDirectory("definition-index-helper-test");
+        Path cacheDirectory = homeDirectory.resolve(GLOBAL_DEFAULTS_DIRECTORY).resolve("cache");
+        Files.createDirectories(cacheDirectory);
+
+        long loadedAt = System.currentTimeMillis();
+        Files.write(cacheDirectory.resolve("definition-index-123456789012-us-east-1.properties"), Arrays.asList(
+                "GROUPS.loadedAt=" + loadedAt,
+                "GROUPS.name.persistedGroup=persistedGroupId",
+                "CORE_DEFINITIONS.loadedAt=" + loadedAt,
+                "DEVICE_DEFINITIONS.loadedAt=" + loadedAt));
+
+        when(globalDefaultHelper.getGlobalDefaults(any())).thenReturn(Optional.of(ConfigFactory.parseString("conf.persistDefinitionIndex = true")));
+        when(globalDefaultHelper.getHomeDirectory()).thenReturn(Optional.of(homeDirectory.toString()));
+
+        IamHelper iamHelper = mock(IamHelper.class);
+        when(iamHelper.getAccountId()).thenReturn("123456789012");
+        basicDefinitionIndexHelper.iamHelper = iamHelper;
+
+        AwsHelper awsHelper = mock(AwsHelper.class);
+        when(awsHelper.getCurrentRegion()).thenReturn(Region.US_EAST_1);
+        basicDefinitionIndexHelper.awsHelper = awsHelper;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<Optional<String>>> lookups = new ArrayList<>();
+
+        for (int loop = 0; loop < 4; loop++) {
+            lookups.add(executorService.submit(() -> basicDefinitionIndexHelper.getGroupId("persistedGroup")));
+        }
+
+        for (Future<Optional<String>> lookup : lookups) {
+            Assert.assertThat(lookup.get(), is(Optional.of("persistedGroupId")));
+        }
+
+        executorService.shutdown();
+
+        // Lookups that arrive while the file is being read wait for it instead of listing everything from the API
+        verify(greengrassClient, never()).listGroups(any(ListGroupsRequest.class));
+        verify(iamHelper, times(1)).getAccountId();
+    }
+}
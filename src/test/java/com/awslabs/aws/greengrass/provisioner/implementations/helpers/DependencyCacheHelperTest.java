@@ -0,0 +1,85 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GlobalDefaultHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DependencyCacheHelperTest {
+    private BasicDependencyCacheHelper basicDependencyCacheHelper;
+    private Path buildDirectory;
+
+    @Before
+    public void setup() throws IOException {
+        Path homeDirectory = Files.createTempDirectory("dependency-cache-helper-test");
+        buildDirectory = Files.createTempDirectory("dependency-cache-helper-test");
+
+        GlobalDefaultHelper globalDefaultHelper = mock(GlobalDefaultHelper.class);
+        when(globalDefaultHelper.getHomeDirectory()).thenReturn(Optional.of(homeDirectory.toString()));
+
+        basicDependencyCacheHelper = new BasicDependencyCacheHelper();
+        basicDependencyCacheHelper.globalDefaultHelper = globalDefaultHelper;
+        basicDependencyCacheHelper.ioHelper = new BasicIoHelper();
+    }
+
+    @Test
+    public void shouldOnlyRunInstallerOnCacheMiss() throws IOException {
+        AtomicInteger installCount = new AtomicInteger(0);
+
+        for (int loop = 0; loop < 2; loop++) {
+            Path destination = Files.createTempDirectory("dependency-cache-helper-test");
+
+            basicDependencyCacheHelper.installDependencies("test", "key", destination, targetDirectory -> {
+                installCount.incrementAndGet();
+                Files.createDirectories(targetDirectory.resolve("package"));
+                Files.write(targetDirectory.resolve("package").resolve("module.py"), "code".getBytes());
+            });
+
+            Assert.assertThat(Files.readAllBytes(destination.resolve("package").resolve("module.py")), is("code".getBytes()));
+        }
+
+        Assert.assertThat(installCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldKeepSymbolicLinksInCachedTrees() throws IOException {
+        basicDependencyCacheHelper.installDependencies("test", "links", buildDirectory, targetDirectory -> {
+            Path bin = Files.createDirectories(targetDirectory.resolve("node_modules").resolve(".bin"));
+            Files.createDirectories(targetDirectory.resolve("node_modules").resolve("tool"));
+            Files.write(targetDirectory.resolve("node_modules").resolve("tool").resolve("cli.js"), "cli".getBytes());
+            Files.createSymbolicLink(bin.resolve("tool"), Paths.get("..", "tool", "cli.js"));
+        });
+
+        Path link = buildDirectory.resolve("node_modules").resolve(".bin").resolve("tool");
+
+        Assert.assertThat(Files.isSymbolicLink(link), is(true));
+        Assert.assertThat(Files.readAllBytes(link), is("cli".getBytes()));
+    }
+
+    @Test
+    public void shouldChangeKeyWhenFileOrExtraValueChanges() throws IOException {
+        Path requirements = buildDirectory.resolve("requirements.txt");
+        Files.write(requirements, "requests==2.22.0".getBytes());
+
+        String originalKey = basicDependencyCacheHelper.getCacheKey(new Path[]{requirements}, "python 3.7");
+
+        Assert.assertThat(basicDependencyCacheHelper.getCacheKey(new Path[]{requirements}, "python 3.7"), is(originalKey));
+        Assert.assertThat(basicDependencyCacheHelper.getCacheKey(new Path[]{requirements}, "python 2.7"), is(not(originalKey)));
+
+        Files.write(requirements, "requests==2.21.0".getBytes());
+
+        Assert.assertThat(basicDependencyCacheHelper.getCacheKey(new Path[]{requirements}, "python 3.7"), is(not(originalKey)));
+    }
+}
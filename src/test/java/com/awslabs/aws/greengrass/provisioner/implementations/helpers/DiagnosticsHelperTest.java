@@ -0,0 +1,126 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.diagnostics.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.cloudwatchlogs.model.LogGroup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+
+public class DiagnosticsHelperTest {
+    private static final String tooManyIpsLine = "The server says: {\"Message\":\"Too many items in the Connectivity Information list. You can store a maximum of 10 endpoints.\"}";
+    private static final String functionArn = "arn:aws:lambda:us-east-1:zzz:function:yyy:11";
+    private static final String missingRuntimeLine = "unable to create worker process for " + functionArn + ". cannot find executable nodejs8.10 under any of the provided paths [/usr/bin /usr/local/bin]";
+    private BasicDiagnosticsHelper basicDiagnosticsHelper;
+
+    @Before
+    public void setup() {
+        basicDiagnosticsHelper = new BasicDiagnosticsHelper();
+        basicDiagnosticsHelper.diagnosticRules = new HashSet<>(Arrays.asList(
+                new TooManyIpsDiagnosticRule(),
+                new NoConnectivityInformationDiagnosticRule(),
+                new MissingRuntimeWithTextErrorDiagnosticRule1()));
+    }
+
+    @Test
+    public void shouldReportFirstMatchOnlyRulesOnce() {
+        LogGroup logGroup = LogGroup.builder().logGroupName(DiagnosticRule.GGIP_DETECTOR).build();
+
+        List<String> recommendations = basicDiagnosticsHelper.getRecommendations(logGroup, Stream.of(tooManyIpsLine, "unrelated", tooManyIpsLine));
+
+        Assert.assertThat(recommendations.size(), is(1));
+    }
+
+    @Test
+    public void shouldOnlyRunRulesForTheLogGroup() {
+        LogGroup runtimeLogGroup = LogGroup.builder().logGroupName(DiagnosticRule.RUNTIME).build();
+        LogGroup otherLogGroup = LogGroup.builder().logGroupName("/aws/greengrass/Lambda/other").build();
+
+        List<String> recommendations = basicDiagnosticsHelper.getRecommendations(runtimeLogGroup, Stream.of(tooManyIpsLine, missingRuntimeLine));
+
+        Assert.assertThat(recommendations.size(), is(1));
+        Assert.assertThat(recommendations.get(0), containsString(functionArn));
+        Assert.assertThat(basicDiagnosticsHelper.getRecommendations(otherLogGroup, Stream.of(missingRuntimeLine)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldFindAllLiteralsInOnePass() {
+        LiteralMatcher literalMatcher = new LiteralMatcher(Arrays.asList("he", "she", "hers", "his"));
+
+        BitSet found = literalMatcher.find("ushers");
+
+        Assert.assertThat(found.get(0), is(true));
+        Assert.assertThat(found.get(1), is(true));
+        Assert.assertThat(found.get(2), is(true));
+        Assert.assertThat(found.get(3), is(false));
+    }
+
+    @Test
+    public void shouldScanLinesInPlace() {
+        String contents = "unrelated\r\n" + missingRuntimeLine + "\r\n\n" + tooManyIpsLine;
+        ByteBuffer buffer = ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8));
+
+        List<String> lines = LogLines.of(buffer)
+                .map(CharSequence::toString)
+                .collect(Collectors.toList());
+
+        Assert.assertThat(lines, is(Arrays.asList("unrelated", missingRuntimeLine, "", tooManyIpsLine)));
+
+        LogGroup runtimeLogGroup = LogGroup.builder().logGroupName(DiagnosticRule.RUNTIME).build();
+        List<String> recommendations = basicDiagnosticsHelper.getRecommendations(runtimeLogGroup, LogLines.of(buffer));
+
+        Assert.assertThat(recommendations.size(), is(1));
+        Assert.assertThat(recommendations.get(0), containsString(functionArn));
+    }
+
+    @Test
+    public void shouldReadTheSameLinesWhetherMappedOrStreamed() throws IOException {
+        String contents = "unrelated\r\n" + missingRuntimeLine + "\n" + tooManyIpsLine;
+        Path directory = Files.createTempDirectory("diagnostics-helper-test");
+        Path logFile = directory.resolve("runtime.log");
+        Path gzipLogFile = directory.resolve("runtime.log.gz");
+        Files.write(logFile, contents.getBytes(StandardCharsets.UTF_8));
+
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(Files.newOutputStream(gzipLogFile))) {
+            gzipOutputStream.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<String> expectedLines = Arrays.asList("unrelated", missingRuntimeLine, tooManyIpsLine);
+
+        Assert.assertThat(getLines(logFile, Long.MAX_VALUE), is(expectedLines));
+        // Files over the limit are streamed instead of mapped
+        Assert.assertThat(getLines(logFile, 1), is(expectedLines));
+        Assert.assertThat(getLines(gzipLogFile, Long.MAX_VALUE), is(expectedLines));
+    }
+
+    @Test
+    public void shouldNameLocalLogsLikeCloudWatchLogGroups() {
+        Assert.assertThat(getLocalLogGroupName("/greengrass/ggc/var/log/system/runtime.log"), is(Optional.of("/aws/greengrass/GreengrassSystem/runtime")));
+        Assert.assertThat(getLocalLogGroupName("bundle/log/system/GGIPDetector-2019-06-01T12-00-00.000.log.gz"), is(Optional.of("/aws/greengrass/GreengrassSystem/GGIPDetector")));
+        Assert.assertThat(getLocalLogGroupName("log/user/us-east-1/123456789012/My-Function.log.1"), is(Optional.of("/aws/greengrass/Lambda/us-east-1/123456789012/My-Function")));
+        Assert.assertThat(getLocalLogGroupName("log/system/notes.txt"), is(Optional.empty()));
+    }
+
+    private Optional<String> getLocalLogGroupName(String path) {
+        return basicDiagnosticsHelper.getLocalLogGroup(Paths.get(path)).map(LogGroup::logGroupName);
+    }
+
+    private List<String> getLines(Path path, long maximumMappedFileSize) throws IOException {
+        try (Stream<? extends CharSequence> lines = basicDiagnosticsHelper.getLogLines(path, maximumMappedFileSize)) {
+            return lines.map(CharSequence::toString).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DefinitionIndexHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.greengrass.GreengrassClient;
+import software.amazon.awssdk.services.greengrass.model.*;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class GreengrassHelperTest {
+    private static final String FUNCTION_DEFINITION_VERSION_ARN = "arn:aws:greengrass:us-east-1:123456789012:/greengrass/definition/functions/functionsId/versions/functionsVersion";
+    private static final String SUBSCRIPTION_DEFINITION_VERSION_ARN = "arn:aws:greengrass:us-east-1:123456789012:/greengrass/definition/subscriptions/subscriptionsId/versions/subscriptionsVersion";
+    private BasicGreengrassHelper basicGreengrassHelper;
+    private GreengrassClient greengrassClient;
+    private DefinitionIndexHelper definitionIndexHelper;
+    private GroupInformation groupInformation;
+
+    @Before
+    public void setup() {
+        greengrassClient = mock(GreengrassClient.class);
+
+        basicGreengrassHelper = new BasicGreengrassHelper();
+        basicGreengrassHelper.greengrassClient = greengrassClient;
+        basicGreengrassHelper.idExtractor = new BasicIdExtractor();
+        definitionIndexHelper = mock(DefinitionIndexHelper.class);
+        basicGreengrassHelper.definitionIndexHelper = definitionIndexHelper;
+
+        // Definition versions are shared by the whole process, start every test from scratch
+        BasicGreengrassHelper.clearDefinitionVersions();
+
+        groupInformation = GroupInformation.builder().id("groupId").latestVersion("groupVersion").build();
+
+        when(greengrassClient.getGroupVersion(any(GetGroupVersionRequest.class))).thenReturn(GetGroupVersionResponse.builder()
+                .definition(GroupVersion.builder()
+                        .functionDefinitionVersionArn(FUNCTION_DEFINITION_VERSION_ARN)
+                        .subscriptionDefinitionVersionArn(SUBSCRIPTION_DEFINITION_VERSION_ARN)
+                        .build())
+                .build());
+        when(greengrassClient.getFunctionDefinitionVersion(any(GetFunctionDefinitionVersionRequest.class))).thenReturn(GetFunctionDefinitionVersionResponse.builder()
+                .definition(FunctionDefinitionVersion.builder()
+                        .functions(Function.builder().functionArn("function").build())
+                        .build())
+                .build());
+        when(greengrassClient.getSubscriptionDefinitionVersion(any(GetSubscriptionDefinitionVersionRequest.class))).thenReturn(GetSubscriptionDefinitionVersionResponse.builder()
+                .definition(SubscriptionDefinitionVersion.builder().build())
+                .build());
+        when(greengrassClient.createGroupVersion(any(CreateGroupVersionRequest.class))).thenReturn(CreateGroupVersionResponse.builder()
+                .version("newGroupVersion")
+                .build());
+    }
+
+    @Test
+    public void shouldFetchGroupVersionAndDefinitionVersionsOnce() {
+        basicGreengrassHelper.getFunctions(groupInformation);
+        basicGreengrassHelper.getDefaultIsolationMode(groupInformation);
+        basicGreengrassHelper.getSubscriptions(groupInformation);
+        basicGreengrassHelper.getFunctionDefinitionVersion(groupInformation);
+
+        verify(greengrassClient, times(1)).getGroupVersion(any(GetGroupVersionRequest.class));
+        verify(greengrassClient, times(1)).getFunctionDefinitionVersion(any(GetFunctionDefinitionVersionRequest.class));
+        verify(greengrassClient, times(1)).getSubscriptionDefinitionVersion(any(GetSubscriptionDefinitionVersionRequest.class));
+    }
+
+    @Test
+    public void shouldRefetchGroupVersionButNotDefinitionVersionsAfterNewGroupVersion() {
+        basicGreengrassHelper.getFunctions(groupInformation);
+
+        basicGreengrassHelper.createGroupVersion("groupId", GroupVersion.builder().build());
+
+        basicGreengrassHelper.getFunctions(groupInformation);
+
+        verify(greengrassClient, times(2)).getGroupVersion(any(GetGroupVersionRequest.class));
+        verify(greengrassClient, times(1)).getFunctionDefinitionVersion(any(GetFunctionDefinitionVersionRequest.class));
+    }
+
+    @Test
+    public void shouldReturnListsCallersCanModify() {
+        basicGreengrassHelper.getFunctions(groupInformation).clear();
+
+        Assert.assertThat(basicGreengrassHelper.getFunctions(groupInformation).size(), is(1));
+    }
+
+    @Test
+    public void shouldReloadIndexAndCreateDefinitionWhenIndexedDefinitionIsGone() {
+        // The stale ID is returned until the index is invalidated
+        when(definitionIndexHelper.getDeviceDefinitionId("devices"))
+                .thenReturn(Optional.of("staleId"))
+                .thenReturn(Optional.of("staleId"))
+                .thenReturn(Optional.empty());
+        when(greengrassClient.getDeviceDefinition(any(GetDeviceDefinitionRequest.class))).thenThrow(BadRequestException.builder().statusCode(404).build());
+        when(greengrassClient.createDeviceDefinition(any(CreateDeviceDefinitionRequest.class))).thenReturn(CreateDeviceDefinitionResponse.builder().id("newId").build());
+        when(greengrassClient.createDeviceDefinitionVersion(any(CreateDeviceDefinitionVersionRequest.class))).thenReturn(CreateDeviceDefinitionVersionResponse.builder().arn("arn").build());
+
+        basicGreengrassHelper.createDeviceDefinitionAndVersion("devices", Collections.emptyList());
+
+        verify(definitionIndexHelper).invalidate();
+        verify(definitionIndexHelper).putDeviceDefinition("devices", "newId");
+        verify(greengrassClient).createDeviceDefinitionVersion(CreateDeviceDefinitionVersionRequest.builder()
+                .deviceDefinitionId("newId")
+                .devices(Collections.emptyList())
+                .build());
+    }
+
+    @Test
+    public void shouldUseIndexedDefinitionThatStillExists() {
+        when(definitionIndexHelper.getDeviceDefinitionId("devices")).thenReturn(Optional.of("existingId"));
+        when(greengrassClient.getDeviceDefinition(any(GetDeviceDefinitionRequest.class))).thenReturn(GetDeviceDefinitionResponse.builder().id("existingId").build());
+        when(greengrassClient.createDeviceDefinitionVersion(any(CreateDeviceDefinitionVersionRequest.class))).thenReturn(CreateDeviceDefinitionVersionResponse.builder().arn("arn").build());
+
+        basicGreengrassHelper.createDeviceDefinitionAndVersion("devices", Collections.emptyList());
+
+        verify(definitionIndexHelper, never()).invalidate();
+        verify(greengrassClient, never()).createDeviceDefinition(any(CreateDeviceDefinitionRequest.class));
+    }
+}
@@ -0,0 +1,200 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.arguments.QueryArguments;
+import com.awslabs.aws.greengrass.provisioner.implementations.clientproviders.CloudWatchLogsClientProvider;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DiagnosticsHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GGVariables;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GreengrassHelper;
+import io.vavr.Tuple;
+import io.vavr.Tuple3;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.cloudwatchlogs.CloudWatchLogsClient;
+import software.amazon.awssdk.services.cloudwatchlogs.model.*;
+import software.amazon.awssdk.services.greengrass.model.Function;
+import software.amazon.awssdk.services.greengrass.model.GroupInformation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class GroupQueryHelperTest {
+    private static final String GROUP_NAME = "group";
+    private static final String CORE_THING_NAME = "group_Core";
+    private BasicGroupQueryHelper basicGroupQueryHelper;
+    private CloudWatchLogsClient cloudWatchLogsClient;
+    private DiagnosticsHelper diagnosticsHelper;
+
+    @Before
+    public void setup() {
+        cloudWatchLogsClient = mock(CloudWatchLogsClient.class);
+        CloudWatchLogsClientProvider cloudWatchLogsClientProvider = mock(CloudWatchLogsClientProvider.class);
+        when(cloudWatchLogsClientProvider.get()).thenReturn(cloudWatchLogsClient);
+
+        GroupInformation groupInformation = GroupInformation.builder().id("groupId").build();
+        GreengrassHelper greengrassHelper = mock(GreengrassHelper.class);
+        when(greengrassHelper.getGroupInformation(GROUP_NAME)).thenReturn(Optional.of(groupInformation));
+        when(greengrassHelper.getFunctions(groupInformation)).thenReturn(Arrays.asList(
+                Function.builder().functionArn("arn:aws:lambda:us-east-1:123456789012:function:group-Slow:PROD").build(),
+                Function.builder().functionArn("arn:aws:lambda:us-east-1:123456789012:function:group-Fast:PROD").build(),
+                Function.builder().functionArn("arn:aws:lambda:::function:GGIPDetector:1").build()));
+
+        GGVariables ggVariables = mock(GGVariables.class);
+        when(ggVariables.getCoreThingName(GROUP_NAME)).thenReturn(CORE_THING_NAME);
+
+        diagnosticsHelper = mock(DiagnosticsHelper.class);
+
+        basicGroupQueryHelper = new BasicGroupQueryHelper();
+        basicGroupQueryHelper.cloudWatchLogsClientProvider = cloudWatchLogsClientProvider;
+        basicGroupQueryHelper.greengrassHelper = greengrassHelper;
+        basicGroupQueryHelper.ggVariables = ggVariables;
+        basicGroupQueryHelper.diagnosticsHelper = diagnosticsHelper;
+        basicGroupQueryHelper.ioHelper = new BasicIoHelper();
+
+        when(cloudWatchLogsClient.describeLogGroups(any(DescribeLogGroupsRequest.class))).thenAnswer(invocation -> {
+            String prefix = ((DescribeLogGroupsRequest) invocation.getArgument(0)).logGroupNamePrefix();
+
+            // Slow log groups finish after the ones that were requested later
+            if (prefix.endsWith("Slow")) {
+                Thread.sleep(200);
+            }
+
+            return DescribeLogGroupsResponse.builder()
+                    .logGroups(LogGroup.builder().logGroupName(prefix).build())
+                    .build();
+        });
+        when(cloudWatchLogsClient.describeLogStreams(any(DescribeLogStreamsRequest.class))).thenReturn(DescribeLogStreamsResponse.builder()
+                .logStreams(LogStream.builder().logStreamName("2019/06/01/" + CORE_THING_NAME).creationTime(1L).build(),
+                        LogStream.builder().logStreamName("2019/06/02/" + CORE_THING_NAME).creationTime(2L).build(),
+                        LogStream.builder().logStreamName("2019/06/03/other_Core").creationTime(3L).build())
+                .build());
+        when(cloudWatchLogsClient.getLogEvents(any(GetLogEventsRequest.class))).thenAnswer(invocation -> GetLogEventsResponse.builder()
+                .events(OutputLogEvent.builder().message(((GetLogEventsRequest) invocation.getArgument(0)).logGroupName()).build())
+                .build());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldFetchLatestLogsForEveryLogGroupInOrder() {
+        QueryArguments queryArguments = new QueryArguments();
+        queryArguments.groupName = GROUP_NAME;
+        queryArguments.diagnose = true;
+
+        basicGroupQueryHelper.execute(queryArguments);
+
+        ArgumentCaptor<List<Tuple3<LogGroup, LogStream, String>>> logsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(diagnosticsHelper).runDiagnostics(logsCaptor.capture());
+
+        List<Tuple3<LogGroup, LogStream, String>> logs = logsCaptor.getValue();
+        List<String> logGroupNames = logs.stream()
+                .map(tuple -> tuple._1.logGroupName())
+                .collect(Collectors.toList());
+
+        // Top-level logs first, then the functions in table order, internal functions don't have logs
+        Assert.assertThat(logs.size(), is(11));
+        Assert.assertThat(logGroupNames.subList(9, 11), is(Arrays.asList("/aws/greengrass/Lambda/us-east-1/123456789012/group-Slow", "/aws/greengrass/Lambda/us-east-1/123456789012/group-Fast")));
+        Assert.assertThat(logs.stream().allMatch(tuple -> tuple._2.logStreamName().equals("2019/06/02/" + CORE_THING_NAME)), is(true));
+        Assert.assertThat(logs.stream().allMatch(tuple -> tuple._3.equals(tuple._1.logGroupName())), is(true));
+    }
+
+    @Test
+    public void shouldFollowForwardTokensWhenDownloadingLogStream() throws IOException {
+        when(cloudWatchLogsClient.getLogEvents(any(GetLogEventsRequest.class))).thenAnswer(invocation -> {
+            GetLogEventsRequest request = invocation.getArgument(0);
+            String token = request.nextToken();
+
+            Assert.assertThat(request.startFromHead(), is(true));
+            Assert.assertThat(request.startTime(), is(1000L));
+
+            if (token == null) {
+                return getLogEventsResponse("page2", "first\n", "second\n");
+            } else if (token.equals("page2")) {
+                return getLogEventsResponse("page3", "third\n");
+            }
+
+            // The last page returns the token it was given
+            return getLogEventsResponse(token);
+        });
+
+        QueryArguments queryArguments = new QueryArguments();
+        queryArguments.startTime = Instant.ofEpochMilli(1000);
+        queryArguments.gzipLogs = true;
+
+        File directory = Files.createTempDirectory("group-query-helper-test").toFile();
+        File file = basicGroupQueryHelper.downloadLogStream(directory, queryArguments,
+                Tuple.of(LogGroup.builder().logGroupName("/aws/greengrass/GreengrassSystem/runtime").build(), LogStream.builder().logStreamName("2019/06/01/" + CORE_THING_NAME).build()));
+
+        Assert.assertThat(file.getName(), is("runtime.2019-06-01-" + CORE_THING_NAME + ".log.gz"));
+
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new FileInputStream(file))) {
+            Assert.assertThat(IOUtils.toString(gzipInputStream, StandardCharsets.UTF_8), is("first\nsecond\nthird\n"));
+        }
+
+        verify(cloudWatchLogsClient, times(3)).getLogEvents(any(GetLogEventsRequest.class));
+    }
+
+    @Test
+    public void shouldBackOffIdleWatchedStreamsAndSpeedUpActiveOnes() {
+        BasicGroupQueryHelper.WatchedLogStream watchedLogStream = new BasicGroupQueryHelper.WatchedLogStream(LogGroup.builder().build(), LogStream.builder().build(), "token", 0);
+
+        watchedLogStream.update("token", false, 0);
+        Assert.assertThat(watchedLogStream.getNextPollTime(), is(BasicGroupQueryHelper.MIN_WATCH_INTERVAL_MS * 2));
+
+        for (int loop = 0; loop < 20; loop++) {
+            watchedLogStream.update("token", false, 0);
+        }
+
+        Assert.assertThat(watchedLogStream.getNextPollTime(), is(BasicGroupQueryHelper.MAX_WATCH_INTERVAL_MS));
+
+        watchedLogStream.update("token2", true, 1000);
+        Assert.assertThat(watchedLogStream.getNextPollTime(), is(1000 + BasicGroupQueryHelper.MIN_WATCH_INTERVAL_MS));
+    }
+
+    @Test
+    public void shouldDrainRotatedStreamFromItsLastToken() {
+        List<String> requestedTokens = new ArrayList<>();
+
+        when(cloudWatchLogsClient.getLogEvents(any(GetLogEventsRequest.class))).thenAnswer(invocation -> {
+            String token = ((GetLogEventsRequest) invocation.getArgument(0)).nextToken();
+            requestedTokens.add(token);
+
+            if (token.equals("last-polled")) {
+                return getLogEventsResponse("page2", "late event\n");
+            }
+
+            return getLogEventsResponse(token);
+        });
+
+        BasicGroupQueryHelper.WatchedLogStream watchedLogStream = new BasicGroupQueryHelper.WatchedLogStream(LogGroup.builder().logGroupName("/aws/greengrass/GreengrassSystem/runtime").build(),
+                LogStream.builder().logStreamName("2019/06/01/" + CORE_THING_NAME).build(), "last-polled", 0);
+
+        basicGroupQueryHelper.drainLogStream(watchedLogStream);
+
+        Assert.assertThat(requestedTokens, is(Arrays.asList("last-polled", "page2")));
+    }
+
+    private GetLogEventsResponse getLogEventsResponse(String nextForwardToken, String... messages) {
+        return GetLogEventsResponse.builder()
+                .events(Arrays.stream(messages)
+                        .map(message -> OutputLogEvent.builder().message(message).build())
+                        .collect(Collectors.toList()))
+                .nextForwardToken(nextForwardToken)
+                .build();
+    }
+}
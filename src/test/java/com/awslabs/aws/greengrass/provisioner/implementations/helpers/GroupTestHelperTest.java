@@ -0,0 +1,77 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.google.gson.Gson;
+import io.vavr.control.Try;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class GroupTestHelperTest {
+    private BasicGroupTestHelper basicGroupTestHelper;
+    private Path outputDirectory;
+
+    @Before
+    public void setup() throws IOException {
+        basicGroupTestHelper = new BasicGroupTestHelper();
+        basicGroupTestHelper.ioHelper = new BasicIoHelper();
+        basicGroupTestHelper.jsonHelper = new BasicJsonHelper();
+
+        outputDirectory = Files.createTempDirectory("group-test-helper-test");
+    }
+
+    private BasicGroupTestHelper.DeviceTestRun getDeviceTestRun(String deviceUnderTest, String... failingTests) {
+        BasicGroupTestHelper.DeviceTestRun deviceTestRun = basicGroupTestHelper.new DeviceTestRun(deviceUnderTest, Optional.of(deviceUnderTest));
+        deviceTestRun.testStatus.put("ggcdependencies", Try.success(null));
+        Arrays.stream(failingTests).forEach(failingTest -> deviceTestRun.testStatus.put(failingTest, Try.failure(new RuntimeException("Test failed"))));
+
+        return deviceTestRun;
+    }
+
+    @Test
+    public void shouldOnlyPassDevicesThatRanTestsWithoutFailures() {
+        BasicGroupTestHelper.DeviceTestRun passed = getDeviceTestRun("pi1");
+        BasicGroupTestHelper.DeviceTestRun failed = getDeviceTestRun("pi2", "lambdadeployment");
+        BasicGroupTestHelper.DeviceTestRun noTests = basicGroupTestHelper.new DeviceTestRun("pi3", Optional.of("pi3"));
+        BasicGroupTestHelper.DeviceTestRun error = getDeviceTestRun("pi4");
+        error.optionalError = Optional.of(new RuntimeException("Connection refused"));
+
+        Assert.assertThat(passed.getStatus(), is("PASSED"));
+        Assert.assertThat(failed.getStatus(), is("FAILED"));
+        Assert.assertThat(noTests.getStatus(), is("FAILED"));
+        Assert.assertThat(error.getStatus(), is("ERROR"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldMergeEveryDeviceIntoOneReport() throws IOException {
+        BasicGroupTestHelper.DeviceTestRun passed = getDeviceTestRun("pi1");
+        BasicGroupTestHelper.DeviceTestRun failed = getDeviceTestRun("pi2", "lambdadeployment");
+        BasicGroupTestHelper.DeviceTestRun error = basicGroupTestHelper.new DeviceTestRun("pi3", Optional.of("pi3"));
+        error.optionalError = Optional.of(new RuntimeException("Connection refused"));
+
+        basicGroupTestHelper.writeMergedReport(Arrays.asList(passed, failed, error), outputDirectory.toString());
+
+        String json = new String(Files.readAllBytes(outputDirectory.resolve("merged-report.json")), StandardCharsets.UTF_8);
+        Map<String, Object> mergedReport = new Gson().fromJson(json, Map.class);
+        List<Map<String, Object>> devices = (List<Map<String, Object>>) mergedReport.get("devices");
+
+        Assert.assertThat(mergedReport.get("devicesPassed"), is(1.0));
+        Assert.assertThat(mergedReport.get("devicesTested"), is(3.0));
+        Assert.assertThat(devices.stream().map(device -> device.get("status")).collect(Collectors.toList()), is(Arrays.asList("PASSED", "FAILED", "ERROR")));
+        Assert.assertThat(devices.get(1).get("failed"), is(Collections.singletonList("lambdadeployment")));
+        Assert.assertThat(devices.get(2).get("error"), is("Connection refused"));
+    }
+}
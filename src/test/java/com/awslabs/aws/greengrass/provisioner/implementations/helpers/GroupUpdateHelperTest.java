@@ -0,0 +1,119 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.arguments.UpdateArguments;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.DeploymentHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GreengrassHelper;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.SubscriptionHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.greengrass.model.Device;
+import software.amazon.awssdk.services.greengrass.model.Function;
+import software.amazon.awssdk.services.greengrass.model.GroupInformation;
+import software.amazon.awssdk.services.greengrass.model.Subscription;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class GroupUpdateHelperTest {
+    private static final String GROUP_NAME = "group";
+    private BasicGroupUpdateHelper basicGroupUpdateHelper;
+    private GreengrassHelper greengrassHelper;
+    private DeploymentHelper deploymentHelper;
+    private List<Subscription> deployedSubscriptions;
+
+    @Before
+    public void setup() {
+        greengrassHelper = mock(GreengrassHelper.class);
+        deploymentHelper = mock(DeploymentHelper.class);
+        SubscriptionHelper subscriptionHelper = mock(SubscriptionHelper.class);
+
+        basicGroupUpdateHelper = new BasicGroupUpdateHelper();
+        basicGroupUpdateHelper.greengrassHelper = greengrassHelper;
+        basicGroupUpdateHelper.deploymentHelper = deploymentHelper;
+        basicGroupUpdateHelper.subscriptionHelper = subscriptionHelper;
+        basicGroupUpdateHelper.updateArgumentHelper = new BasicUpdateArgumentHelper();
+
+        GroupInformation groupInformation = GroupInformation.builder().id("groupId").latestVersion("groupVersion").build();
+
+        when(greengrassHelper.getGroupInformation(GROUP_NAME)).thenReturn(Optional.of(groupInformation));
+        when(greengrassHelper.getFunctions(groupInformation)).thenReturn(new ArrayList<>(Arrays.asList(
+                Function.builder().functionArn("arn:aws:lambda:us-east-1:123456789012:function:group-Sensor:PROD").build())));
+        when(greengrassHelper.getDevices(groupInformation)).thenReturn(new ArrayList<>(Arrays.asList(
+                Device.builder().thingArn("arn:aws:iot:us-east-1:123456789012:thing/Button").build())));
+        when(greengrassHelper.getSubscriptions(groupInformation)).thenReturn(new ArrayList<>());
+        when(greengrassHelper.createSubscriptionDefinitionAndVersion(anyList())).thenAnswer(invocation -> {
+            deployedSubscriptions = new ArrayList<>(invocation.getArgument(0));
+            return "subscriptionDefinitionVersionArn";
+        });
+        when(greengrassHelper.createGroupVersion(eq("groupId"), any())).thenReturn("newGroupVersion");
+        when(subscriptionHelper.createSubscription(anyString(), anyString(), anyString())).thenAnswer(invocation -> Subscription.builder()
+                .source(invocation.getArgument(0))
+                .target(invocation.getArgument(1))
+                .subject(invocation.getArgument(2))
+                .build());
+    }
+
+    private UpdateArguments getArguments(String... args) {
+        List<String> allArgs = new ArrayList<>(Arrays.asList("--update-group", "-g", GROUP_NAME));
+        allArgs.addAll(Arrays.asList(args));
+
+        return basicGroupUpdateHelper.getArgumentHelper().parseArguments(allArgs.toArray(new String[0]));
+    }
+
+    @Test
+    public void shouldDeployBatchOnce() throws IOException {
+        Path batch = Files.createTempFile("group-update-helper-test", ".txt");
+        batch.toFile().deleteOnExit();
+
+        Files.write(batch, Arrays.asList(
+                "# Sensor data to the cloud and button presses to the sensor",
+                "--add-subscription --subscription-source Sensor:PROD --subscription-target cloud --subscription-subject \"sensor/data\"",
+                "",
+                "--add-subscription --subscription-source Button --subscription-target Sensor:PROD --subscription-subject 'button/#'"));
+
+        basicGroupUpdateHelper.execute(getArguments("--batch", batch.toString()));
+
+        Assert.assertThat(deployedSubscriptions.size(), is(2));
+        Assert.assertThat(deployedSubscriptions.get(1).subject(), is("button/#"));
+        verify(greengrassHelper, times(1)).createSubscriptionDefinitionAndVersion(anyList());
+        verify(greengrassHelper, never()).createDeviceDefinitionAndVersion(any(), anyList());
+        verify(greengrassHelper, never()).createFunctionDefinitionVersion(anySet(), any());
+        verify(greengrassHelper, times(1)).createGroupVersion(eq("groupId"), any());
+        verify(deploymentHelper, times(1)).createAndWaitForDeployment(Optional.empty(), Optional.empty(), "groupId", "newGroupVersion");
+    }
+
+    @Test
+    public void shouldApplySingleUpdateFromCommandLine() {
+        basicGroupUpdateHelper.execute(getArguments("--add-subscription", "--subscription-source", "cloud", "--subscription-target", "Sensor:PROD", "--subscription-subject", "commands"));
+
+        Assert.assertThat(deployedSubscriptions.size(), is(1));
+        verify(deploymentHelper, times(1)).createAndWaitForDeployment(Optional.empty(), Optional.empty(), "groupId", "newGroupVersion");
+    }
+
+    @Test
+    public void shouldRejectBatchLineWithMissingOptionsBeforeDeploying() throws IOException {
+        Path batch = Files.createTempFile("group-update-helper-test", ".txt");
+        batch.toFile().deleteOnExit();
+
+        Files.write(batch, Arrays.asList("--add-subscription --subscription-source cloud"));
+
+        try {
+            basicGroupUpdateHelper.execute(getArguments("--batch", batch.toString()));
+            Assert.fail("Invalid batch file was accepted");
+        } catch (RuntimeException e) {
+            Assert.assertThat(e.getMessage().startsWith("Invalid update on line 1"), is(true));
+        }
+
+        verify(deploymentHelper, never()).createAndWaitForDeployment(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,274 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GlobalDefaultHelper;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.Session;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Mockito.*;
+
+public class IoHelperTest {
+    private static final String ARTIFACT = "root CA";
+    private static final String ETAG = "\"v1\"";
+    private BasicIoHelper basicIoHelper;
+    private Path homeDirectory;
+    private HttpServer httpServer;
+    private AtomicInteger fullResponses;
+    private AtomicInteger notModifiedResponses;
+    private AtomicBoolean serverBroken;
+    private String url;
+
+    @Before
+    public void setup() throws IOException {
+        homeDirectory = Files.createTempDirectory("io-helper-test");
+
+        GlobalDefaultHelper globalDefaultHelper = mock(GlobalDefaultHelper.class);
+        when(globalDefaultHelper.getHomeDirectory()).thenReturn(Optional.of(homeDirectory.toString()));
+
+        basicIoHelper = new BasicIoHelper();
+        basicIoHelper.globalDefaultHelper = globalDefaultHelper;
+
+        fullResponses = new AtomicInteger(0);
+        notModifiedResponses = new AtomicInteger(0);
+        serverBroken = new AtomicBoolean(false);
+
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/artifact", exchange -> {
+            if (serverBroken.get()) {
+                exchange.sendResponseHeaders(500, -1);
+            } else if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.sendResponseHeaders(200, ARTIFACT.length());
+
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(ARTIFACT.getBytes());
+                }
+            }
+
+            exchange.close();
+        });
+        httpServer.start();
+
+        url = "http://127.0.0.1:" + httpServer.getAddress().getPort() + "/artifact";
+    }
+
+    @After
+    public void tearDown() {
+        httpServer.stop(0);
+        BasicIoHelper.DOWNLOADS_THIS_PROCESS.clear();
+    }
+
+    @Test
+    public void shouldOnlyRequestEachUrlOncePerProcess() {
+        for (int loop = 0; loop < 3; loop++) {
+            Assert.assertThat(basicIoHelper.download(url), is(ARTIFACT));
+        }
+
+        Assert.assertThat(fullResponses.get(), is(1));
+        Assert.assertThat(notModifiedResponses.get(), is(0));
+    }
+
+    @Test
+    public void shouldRevalidateCachedCopyInNewProcess() {
+        basicIoHelper.download(url);
+
+        // Simulate a new process
+        BasicIoHelper.DOWNLOADS_THIS_PROCESS.clear();
+
+        Assert.assertThat(basicIoHelper.download(url), is(ARTIFACT));
+        Assert.assertThat(fullResponses.get(), is(1));
+        Assert.assertThat(notModifiedResponses.get(), is(1));
+    }
+
+    @Test
+    public void shouldUseCachedCopyWhenServerFails() {
+        basicIoHelper.download(url);
+
+        BasicIoHelper.DOWNLOADS_THIS_PROCESS.clear();
+        serverBroken.set(true);
+
+        Assert.assertThat(basicIoHelper.download(url), is(ARTIFACT));
+    }
+
+    @Test
+    public void shouldDownloadAgainWhenCachedMetadataIsCorrupt() throws IOException {
+        basicIoHelper.download(url);
+
+        BasicIoHelper.DOWNLOADS_THIS_PROCESS.clear();
+
+        List<Path> metadataPaths = Files.walk(homeDirectory)
+                .filter(path -> path.toString().endsWith(".properties"))
+                .collect(Collectors.toList());
+
+        for (Path metadataPath : metadataPaths) {
+            // A malformed escape makes Properties.load throw
+            Files.write(metadataPath, "sha256=\\uZZZZ".getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        Assert.assertThat(metadataPaths.isEmpty(), is(false));
+        Assert.assertThat(basicIoHelper.download(url), is(ARTIFACT));
+        Assert.assertThat(fullResponses.get(), is(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectArtifactWithWrongChecksum() throws IOException {
+        File file = File.createTempFile("io-helper-test", "bin");
+        file.deleteOnExit();
+
+        basicIoHelper.download(url, file, Optional.empty(), Optional.of("0000"));
+    }
+
+    @Test
+    public void shouldDecodeCommandOutputAndDeliverEveryLine() throws Exception {
+        Session session = mockSession("caf\u00e9\r\nsecond line\nno newline");
+        List<String> lines = new ArrayList<>();
+
+        String output = basicIoHelper.runCommand(session, "cat", Optional.of(lines::add));
+
+        Assert.assertThat(output, is("caf\u00e9\r\nsecond line\nno newline"));
+        Assert.assertThat(lines, is(Arrays.asList("caf\u00e9", "second line", "no newline")));
+    }
+
+    @Test
+    public void shouldReturnConcurrentCommandOutputInOrder() throws Exception {
+        BasicIoHelper echoingIoHelper = new BasicIoHelper() {
+            @Override
+            public String runCommand(Session session, String command) {
+                // Finish the first commands last so the results arrive out of order
+                sleep(100 * (3 - command.length() % 4));
+                return command.toUpperCase();
+            }
+        };
+
+        List<String> outputs = echoingIoHelper.runCommands(mock(Session.class), Arrays.asList("a", "bb", "ccc"));
+
+        Assert.assertThat(outputs, is(Arrays.asList("A", "BB", "CCC")));
+    }
+
+    @Test
+    public void shouldOnlyCompressFilesThatShrink() throws IOException {
+        File text = File.createTempFile("io-helper-test", "sh");
+        text.deleteOnExit();
+        File random = File.createTempFile("io-helper-test", "bin");
+        random.deleteOnExit();
+
+        byte[] randomBytes = new byte[64 * 1024];
+        new Random(0).nextBytes(randomBytes);
+
+        basicIoHelper.writeFile(text, String.join("\n", Collections.nCopies(1000, "echo \"Installing Greengrass\"")).getBytes(StandardCharsets.UTF_8));
+        basicIoHelper.writeFile(random, randomBytes);
+
+        Assert.assertThat(basicIoHelper.isWorthCompressing(text), is(true));
+        Assert.assertThat(basicIoHelper.isWorthCompressing(random), is(false));
+    }
+
+    @Test
+    public void shouldNotCompressScriptsThatEndInACompressedArchive() throws IOException {
+        // Laid out like gg.sh, a script that compresses well followed by a tar that ends with the compressed core archive
+        File bootstrapScript = File.createTempFile("io-helper-test", "sh");
+        bootstrapScript.deleteOnExit();
+
+        byte[] coreArchive = new byte[4 * 1024 * 1024];
+        new Random(0).nextBytes(coreArchive);
+
+        try (OutputStream outputStream = new FileOutputStream(bootstrapScript)) {
+            outputStream.write(String.join("\n", Collections.nCopies(10000, "echo \"Installing Greengrass\"")).getBytes(StandardCharsets.UTF_8));
+            outputStream.write("\nPAYLOAD:\n".getBytes(StandardCharsets.UTF_8));
+
+            try (TarArchiveOutputStream tarArchiveOutputStream = new TarArchiveOutputStream(outputStream)) {
+                addTarEntry(tarArchiveOutputStream, "certs/core.crt", String.join("\n", Collections.nCopies(100, "MIIDWTCCAkGgAwIBAgIUQ")).getBytes(StandardCharsets.UTF_8));
+                addTarEntry(tarArchiveOutputStream, "greengrass-linux-armv7l-1.9.2.tar.gz", coreArchive);
+            }
+        }
+
+        Assert.assertThat(basicIoHelper.isWorthCompressing(bootstrapScript), is(false));
+    }
+
+    private void addTarEntry(TarArchiveOutputStream tarArchiveOutputStream, String name, byte[] contents) throws IOException {
+        TarArchiveEntry tarArchiveEntry = new TarArchiveEntry(name);
+        tarArchiveEntry.setSize(contents.length);
+        tarArchiveOutputStream.putArchiveEntry(tarArchiveEntry);
+        tarArchiveOutputStream.write(contents);
+        tarArchiveOutputStream.closeArchiveEntry();
+    }
+
+    @Test
+    public void shouldNotCopyFilesThatAreAlreadyOnTheHost() throws Exception {
+        File file = File.createTempFile("io-helper-test", "sh");
+        file.deleteOnExit();
+        basicIoHelper.writeFile(file, ARTIFACT.getBytes(StandardCharsets.UTF_8));
+
+        String sha256 = basicIoHelper.toHexString(basicIoHelper.getSha256(file.toPath()));
+        Session session = mockSession(sha256 + "  gg.sh\n");
+
+        basicIoHelper.sendFile(session, file.getAbsolutePath(), "gg.sh");
+
+        verify(session, times(1)).openChannel("exec");
+        verify(session, never()).openChannel("sftp");
+    }
+
+    @Test
+    public void shouldOnlyDisconnectSharedSessionsWhenTheLastUserReleasesThem() throws Exception {
+        Session session = mock(Session.class);
+        when(session.isConnected()).thenReturn(true);
+        when(session.getHost()).thenReturn("shared-host");
+        when(session.getUserName()).thenReturn("pi");
+        BasicIoHelper.SSH_SESSIONS.put("pi@shared-host", session);
+
+        Session first = basicIoHelper.getSshSessionTask("shared-host", "pi", "", "", "", "").call();
+        Session second = basicIoHelper.getSshSessionTask("shared-host", "pi", "", "", "", "").call();
+
+        Assert.assertThat(first, is(session));
+        Assert.assertThat(second, is(session));
+
+        basicIoHelper.releaseSshSession(first);
+
+        verify(session, never()).disconnect();
+        Assert.assertThat(BasicIoHelper.SSH_SESSIONS.get("pi@shared-host"), is(session));
+
+        basicIoHelper.releaseSshSession(second);
+
+        verify(session, times(1)).disconnect();
+        Assert.assertThat(BasicIoHelper.SSH_SESSIONS.containsKey("pi@shared-host"), is(false));
+    }
+
+    private Session mockSession(String output) throws Exception {
+        Session session = mock(Session.class);
+        ChannelExec channelExec = mock(ChannelExec.class);
+
+        when(session.openChannel("exec")).thenReturn(channelExec);
+        when(channelExec.getInputStream()).thenReturn(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)));
+
+        return session;
+    }
+}
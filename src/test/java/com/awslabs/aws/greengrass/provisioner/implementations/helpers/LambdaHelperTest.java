@@ -0,0 +1,190 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.Language;
+import com.awslabs.aws.greengrass.provisioner.data.conf.ModifiableFunctionConf;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.LoggingHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.iam.model.Role;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LambdaHelperTest {
+    private static final String FUNCTION_NAME = "TestFunction";
+    private static final String ROLE_ARN = "arn:aws:iam::123456789012:role/TestRole";
+    private static final String HANDLER = "handler.function_handler";
+    private BasicLambdaHelper basicLambdaHelper;
+    private LambdaClient lambdaClient;
+    private ModifiableFunctionConf functionConf;
+    private Role role;
+    private File zipFile;
+
+    @Before
+    public void setup() throws IOException {
+        lambdaClient = mock(LambdaClient.class);
+
+        basicLambdaHelper = new BasicLambdaHelper();
+        basicLambdaHelper.lambdaClient = lambdaClient;
+        basicLambdaHelper.ioHelper = new BasicIoHelper();
+        basicLambdaHelper.loggingHelper = mock(LoggingHelper.class);
+
+        functionConf = ModifiableFunctionConf.create()
+                .setFunctionName(FUNCTION_NAME)
+                .setGroupName("TestGroup")
+                .setHandlerName(HANDLER)
+                .setLanguage(Language.PYTHON3_7);
+
+        role = Role.builder().arn(ROLE_ARN).build();
+
+        zipFile = File.createTempFile("lambda-helper-test", ".zip");
+        zipFile.deleteOnExit();
+        Files.write(zipFile.toPath(), "function code".getBytes());
+
+        when(lambdaClient.publishVersion(any(PublishVersionRequest.class))).thenReturn(PublishVersionResponse.builder()
+                .version("1")
+                .functionArn("arn:aws:lambda:us-east-1:123456789012:function:" + FUNCTION_NAME + ":1")
+                .build());
+    }
+
+    @Test
+    public void shouldCreateFunctionWhenItDoesNotExist() {
+        when(lambdaClient.getFunction(any(GetFunctionRequest.class))).thenThrow(ResourceNotFoundException.builder().build());
+
+        basicLambdaHelper.createFunctionIfNecessary(functionConf, role, zipFile.getPath());
+
+        verify(lambdaClient).createFunction(any(CreateFunctionRequest.class));
+        verify(lambdaClient, never()).updateFunctionCode(any(UpdateFunctionCodeRequest.class));
+        verify(lambdaClient, never()).deleteFunction(any(DeleteFunctionRequest.class));
+    }
+
+    @Test
+    public void shouldSkipUploadWhenCodeIsUnchanged() {
+        mockExistingFunction(getCodeSha256());
+
+        basicLambdaHelper.createFunctionIfNecessary(functionConf, role, zipFile.getPath());
+
+        verify(lambdaClient, never()).createFunction(any(CreateFunctionRequest.class));
+        verify(lambdaClient, never()).updateFunctionCode(any(UpdateFunctionCodeRequest.class));
+        verify(lambdaClient, never()).updateFunctionConfiguration(any(UpdateFunctionConfigurationRequest.class));
+        verify(lambdaClient, never()).deleteFunction(any(DeleteFunctionRequest.class));
+        verify(lambdaClient).publishVersion(any(PublishVersionRequest.class));
+    }
+
+    @Test
+    public void shouldUpdateCodeInPlaceWhenCodeChanged() {
+        mockExistingFunction("old-code-sha256");
+
+        basicLambdaHelper.createFunctionIfNecessary(functionConf, role, zipFile.getPath());
+
+        verify(lambdaClient).updateFunctionCode(any(UpdateFunctionCodeRequest.class));
+        verify(lambdaClient, never()).createFunction(any(CreateFunctionRequest.class));
+        verify(lambdaClient, never()).deleteFunction(any(DeleteFunctionRequest.class));
+    }
+
+    @Test
+    public void shouldCreateFunctionsWithTheSameRoleConcurrentlyAfterTheFirstOne() throws Exception {
+        int functionCount = 4;
+        AtomicInteger callCount = new AtomicInteger(0);
+        AtomicInteger inFlight = new AtomicInteger(0);
+        AtomicBoolean firstCallOverlapped = new AtomicBoolean(false);
+        CountDownLatch laterCallsStarted = new CountDownLatch(functionCount - 1);
+        AtomicBoolean laterCallsOverlapped = new AtomicBoolean(true);
+
+        when(lambdaClient.getFunction(any(GetFunctionRequest.class))).thenThrow(ResourceNotFoundException.builder().build());
+        when(lambdaClient.createFunction(any(CreateFunctionRequest.class))).thenAnswer(invocation -> {
+            int current = inFlight.incrementAndGet();
+
+            if (callCount.incrementAndGet() == 1) {
+                // The first call probes the role, nothing else may run until it is done
+                Thread.sleep(200);
+                firstCallOverlapped.set(inFlight.get() > 1);
+            } else {
+                // Every later call waits until all of the later calls are running at the same time
+                laterCallsStarted.countDown();
+
+                if (!laterCallsStarted.await(5, TimeUnit.SECONDS)) {
+                    laterCallsOverlapped.set(false);
+                }
+            }
+
+            inFlight.decrementAndGet();
+
+            return CreateFunctionResponse.builder().build();
+        });
+
+        ExecutorService executorService = Executors.newFixedThreadPool(functionCount);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int loop = 0; loop < functionCount; loop++) {
+            ModifiableFunctionConf copy = ModifiableFunctionConf.create().from(functionConf).setFunctionName(FUNCTION_NAME + loop);
+            futures.add(executorService.submit(() -> basicLambdaHelper.createFunctionIfNecessary(copy, role, zipFile.getPath())));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        executorService.shutdown();
+
+        Assert.assertThat(callCount.get(), is(functionCount));
+        Assert.assertThat(firstCallOverlapped.get(), is(false));
+        Assert.assertThat(laterCallsOverlapped.get(), is(true));
+    }
+
+    @Test
+    public void shouldUpdateExistingAliasInsteadOfRecreatingIt() {
+        when(lambdaClient.getAlias(any(GetAliasRequest.class))).thenReturn(GetAliasResponse.builder().build());
+        when(lambdaClient.updateAlias(any(UpdateAliasRequest.class))).thenReturn(UpdateAliasResponse.builder().aliasArn("aliasArn").build());
+
+        basicLambdaHelper.createAlias(functionConf.setAliasName("PROD"), "2");
+
+        verify(lambdaClient).updateAlias(any(UpdateAliasRequest.class));
+        verify(lambdaClient, never()).deleteAlias(any(DeleteAliasRequest.class));
+        verify(lambdaClient, never()).createAlias(any(CreateAliasRequest.class));
+    }
+
+    @Test
+    public void shouldRetryAliasUpdateWhileFunctionIsBeingUpdated() {
+        when(lambdaClient.getAlias(any(GetAliasRequest.class))).thenReturn(GetAliasResponse.builder().build());
+        when(lambdaClient.updateAlias(any(UpdateAliasRequest.class)))
+                .thenThrow(ResourceConflictException.builder().build())
+                .thenReturn(UpdateAliasResponse.builder().aliasArn("aliasArn").build());
+
+        Assert.assertThat(basicLambdaHelper.createAlias(functionConf.setAliasName("PROD"), "2"), is("aliasArn"));
+
+        verify(lambdaClient, times(2)).updateAlias(any(UpdateAliasRequest.class));
+    }
+
+    private void mockExistingFunction(String codeSha256) {
+        FunctionConfiguration functionConfiguration = FunctionConfiguration.builder()
+                .functionName(FUNCTION_NAME)
+                .role(ROLE_ARN)
+                .handler(HANDLER)
+                .runtime(Language.PYTHON3_7.getRuntime())
+                .codeSha256(codeSha256)
+                .build();
+
+        when(lambdaClient.getFunction(any(GetFunctionRequest.class))).thenReturn(GetFunctionResponse.builder()
+                .configuration(functionConfiguration)
+                .build());
+    }
+
+    private String getCodeSha256() {
+        return Base64.getEncoder().encodeToString(basicLambdaHelper.ioHelper.getSha256(zipFile.toPath()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class PipelinedExecutorHelperTest {
+    private final Logger log = LoggerFactory.getLogger(PipelinedExecutorHelperTest.class);
+    private PipelinedExecutorHelper pipelinedExecutorHelper;
+
+    @Before
+    public void setup() {
+        pipelinedExecutorHelper = new PipelinedExecutorHelper();
+    }
+
+    @Test
+    public void shouldReturnResultsInInputOrder() {
+        List<Integer> inputs = Arrays.asList(5, 4, 3, 2, 1);
+
+        List<String> results = pipelinedExecutorHelper.runPipeline(log, inputs,
+                input -> {
+                    // Make earlier inputs finish later
+                    sleep(input * 20);
+                    return input * 10;
+                },
+                String::valueOf);
+
+        Assert.assertThat(results, is(Arrays.asList("50", "40", "30", "20", "10")));
+    }
+
+    @Test
+    public void shouldRunStagesOnSeparateExecutors() {
+        List<Boolean> results = pipelinedExecutorHelper.runPipeline(log, Arrays.asList(1),
+                input -> Thread.currentThread(),
+                buildThread -> buildThread != Thread.currentThread());
+
+        Assert.assertThat(results.get(0), is(true));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRethrowStageFailures() {
+        pipelinedExecutorHelper.runPipeline(log, Arrays.asList(1, 2),
+                input -> {
+                    if (input == 2) {
+                        throw new IllegalStateException("expected");
+                    }
+
+                    return input;
+                },
+                input -> input);
+    }
+
+    private void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
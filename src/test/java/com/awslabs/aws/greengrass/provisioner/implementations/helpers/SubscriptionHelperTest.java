@@ -6,6 +6,7 @@ import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GGConstants;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.GGVariables;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
 import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IotHelper;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import software.amazon.awssdk.services.greengrass.model.Function;
@@ -13,6 +14,7 @@ import software.amazon.awssdk.services.greengrass.model.Subscription;
 
 import java.util.*;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.Mockito.mock;
 
 public class SubscriptionHelperTest {
@@ -65,6 +67,26 @@ public class SubscriptionHelperTest {
                 .allMatch(topic -> oneMatches(output, abInputArn, abOutputArn, topic));
     }
 
+    @Test
+    public void wildcardInputTopicsAreConnectedOnTheOverlappingTopic() {
+        Map<Function, ModifiableFunctionConf> map = new HashMap<>();
+
+        String inputArn = "inputArn";
+        map.put(Function.builder().functionArn(inputArn).build(), ModifiableFunctionConf.create()
+                .setInputTopics(Arrays.asList("sensors/+/temperature"))
+                .setOutputTopics(new ArrayList<>()));
+
+        String outputArn = "outputArn";
+        map.put(Function.builder().functionArn(outputArn).build(), ModifiableFunctionConf.create()
+                .setInputTopics(new ArrayList<>())
+                .setOutputTopics(Arrays.asList("sensors/kitchen/#", "lights/kitchen")));
+
+        List<Subscription> output = basicSubscriptionHelper.connectFunctionsAndDevices(map, new ArrayList<>());
+
+        Assert.assertThat(output.size(), is(1));
+        Assert.assertThat(oneMatches(output, inputArn, outputArn, "sensors/kitchen/temperature"), is(true));
+    }
+
     private boolean oneMatches(List<Subscription> subscriptions, String expectedTarget, String expectedSource, String expectedSubject) {
         return subscriptions.stream()
                 .anyMatch(subscription -> subscription.source().equals(expectedSource) &&
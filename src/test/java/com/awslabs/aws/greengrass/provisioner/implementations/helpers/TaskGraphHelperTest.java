@@ -0,0 +1,85 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.tasks.Task;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskGraph;
+import com.awslabs.aws.greengrass.provisioner.data.tasks.TaskResults;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+
+public class TaskGraphHelperTest {
+    private BasicTaskGraphHelper basicTaskGraphHelper;
+
+    @Before
+    public void setup() {
+        basicTaskGraphHelper = new BasicTaskGraphHelper();
+    }
+
+    @Test
+    public void shouldPassOutputsToDependentTasks() {
+        TaskGraph taskGraph = new TaskGraph("test");
+        Task<Integer> first = taskGraph.addTask("first", results -> 1);
+        Task<Integer> second = taskGraph.addTask("second", results -> 2);
+        Task<Integer> sum = taskGraph.addTask("sum", results -> results.get(first) + results.get(second), first, second);
+
+        TaskResults taskResults = basicTaskGraphHelper.execute(taskGraph);
+
+        Assert.assertThat(taskResults.get(sum), is(3));
+    }
+
+    @Test
+    public void shouldRunIndependentTasksConcurrently() {
+        // Each task waits for the other to start, this only completes if they overlap
+        CountDownLatch countDownLatch = new CountDownLatch(2);
+
+        TaskGraph taskGraph = new TaskGraph("test");
+        Task<Boolean> left = taskGraph.addTask("left", results -> {
+            countDownLatch.countDown();
+            return countDownLatch.await(10, TimeUnit.SECONDS);
+        });
+        Task<Boolean> right = taskGraph.addTask("right", results -> {
+            countDownLatch.countDown();
+            return countDownLatch.await(10, TimeUnit.SECONDS);
+        });
+
+        TaskResults taskResults = basicTaskGraphHelper.execute(taskGraph);
+
+        Assert.assertThat(taskResults.get(left), is(true));
+        Assert.assertThat(taskResults.get(right), is(true));
+    }
+
+    @Test
+    public void shouldNotRunDependentsOfFailedTaskAndShouldRethrowOriginalException() {
+        AtomicBoolean dependentRan = new AtomicBoolean(false);
+
+        TaskGraph taskGraph = new TaskGraph("test");
+        Task<String> failing = taskGraph.addTask("failing", results -> {
+            throw new IllegalStateException("expected");
+        });
+        taskGraph.addStep("dependent", results -> dependentRan.set(true), failing);
+
+        try {
+            basicTaskGraphHelper.execute(taskGraph);
+            Assert.fail("Expected the task graph to fail");
+        } catch (IllegalStateException e) {
+            Assert.assertThat(e.getMessage(), is("expected"));
+        }
+
+        Assert.assertThat(dependentRan.get(), is(false));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRejectUndeclaredDependencyAccess() {
+        TaskGraph taskGraph = new TaskGraph("test");
+        Task<Integer> first = taskGraph.addTask("first", results -> 1);
+        taskGraph.addTask("second", results -> results.get(first));
+
+        basicTaskGraphHelper.execute(taskGraph);
+    }
+}
@@ -0,0 +1,66 @@
+package com.awslabs.aws.greengrass.provisioner.implementations.helpers;
+
+import com.awslabs.aws.greengrass.provisioner.data.arguments.TestArguments;
+import com.awslabs.aws.greengrass.provisioner.interfaces.helpers.IoHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestArgumentHelperTest {
+    private BasicTestArgumentHelper basicTestArgumentHelper;
+    private File devicePoolFile;
+
+    @Before
+    public void setup() throws IOException {
+        IoHelper ioHelper = mock(IoHelper.class);
+        when(ioHelper.isRunningInDocker()).thenReturn(false);
+
+        basicTestArgumentHelper = new BasicTestArgumentHelper();
+        basicTestArgumentHelper.ioHelper = ioHelper;
+
+        devicePoolFile = File.createTempFile("test-argument-helper-test", "txt");
+        devicePoolFile.deleteOnExit();
+        Files.write(devicePoolFile.toPath(), Arrays.asList("# Lab devices", "", "pi1", "  pi2  ", "pi1"));
+    }
+
+    private String[] getArguments(String... extraArguments) {
+        String[] arguments = {"--test-group", "-g", "group", "-a", "ARM32", "-u", "pi", "-k", "key", "-o", "output"};
+        String[] allArguments = Arrays.copyOf(arguments, arguments.length + extraArguments.length);
+        System.arraycopy(extraArguments, 0, allArguments, arguments.length, extraArguments.length);
+
+        return allArguments;
+    }
+
+    @Test
+    public void shouldReadEachDeviceInThePoolOnce() {
+        TestArguments testArguments = basicTestArgumentHelper.parseArguments(getArguments("--device-pool", devicePoolFile.getAbsolutePath()));
+
+        Assert.assertThat(testArguments.devicesUnderTest, is(Arrays.asList("pi1", "pi2")));
+    }
+
+    @Test
+    public void shouldTreatASingleDeviceAsAPoolOfOne() {
+        TestArguments testArguments = basicTestArgumentHelper.parseArguments(getArguments("--dut", "pi3"));
+
+        Assert.assertThat(testArguments.devicesUnderTest, is(Arrays.asList("pi3")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRejectASingleDeviceAndAPool() {
+        basicTestArgumentHelper.parseArguments(getArguments("--dut", "pi3", "--device-pool", devicePoolFile.getAbsolutePath()));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldNotGenerateOneConfigForEveryDeviceInThePool() {
+        basicTestArgumentHelper.parseArguments(getArguments("--generate-config", "--device-pool", devicePoolFile.getAbsolutePath()));
+    }
+}